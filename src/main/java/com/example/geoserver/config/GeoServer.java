@@ -1,26 +1,25 @@
 package com.example.geoserver.config;
 
 //import com.zykj.didiao.common.util.common.FileUtil;
-import it.geosolutions.geoserver.rest.GeoServerRESTManager;
+import com.example.geoserver.error.ErrorException;
+import com.example.geoserver.error.ExistedException;
+import com.example.geoserver.error.ogc.CoverageStoreNotFoundException;
+import com.example.geoserver.error.ogc.DataSourceNotFoundException;
+import com.example.geoserver.error.ogc.WorkSpaceNotFoundException;
+import com.example.geoserver.utils.GeoServerManager;
+import com.example.geoserver.utils.GeoServerReader;
 import it.geosolutions.geoserver.rest.GeoServerRESTPublisher;
-import it.geosolutions.geoserver.rest.GeoServerRESTReader;
-import it.geosolutions.geoserver.rest.decoder.RESTDataStore;
-import it.geosolutions.geoserver.rest.encoder.GSAbstractStoreEncoder;
-import it.geosolutions.geoserver.rest.encoder.datastore.GSGeoTIFFDatastoreEncoder;
-import it.geosolutions.geoserver.rest.manager.GeoServerRESTStoreManager;
-import org.apache.commons.httpclient.NameValuePair;
 //import org.apache.http.HttpResponse;
 //import org.apache.http.StatusLine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.util.List;
+import java.io.IOException;
 
 //import static org.toilelibre.libe.curl.Curl.curl;
 
@@ -30,11 +29,10 @@ public class GeoServer {
     private static Logger logger = LoggerFactory.getLogger(GeoServer.class);
 
     /**
-     * geoServer配置
+     * 共享的 geoServer 客户端，见 GeoServerClientConfig
      */
-    private static String url;
-    private static String geoUsername;
-    private static String geoPassword;
+    private static GeoServerReader reader;
+    private static GeoServerManager geoServerManager;
     //待发布矢量图层的工作区间
     public static String shpWorkspace;
     //待发布影像图层的工作空间
@@ -42,19 +40,14 @@ public class GeoServer {
 
     public static String stylePath;
 
-    @Value("${geoserver.url}")
-    public void setUrl(String url) {
-        GeoServer.url = url;
+    @Autowired
+    public void setReader(GeoServerReader reader) {
+        GeoServer.reader = reader;
     }
 
-    @Value("${geoserver.username}")
-    public void setGeoUsername(String geoUsername) {
-        GeoServer.geoUsername = geoUsername;
-    }
-
-    @Value("${geoserver.password}")
-    public void setGeoPassword(String geoPassword) {
-        GeoServer.geoPassword = geoPassword;
+    @Autowired
+    public void setGeoServerManager(GeoServerManager geoServerManager) {
+        GeoServer.geoServerManager = geoServerManager;
     }
 
     @Value("${geoserver.shpworkspace}")
@@ -75,14 +68,15 @@ public class GeoServer {
     /**
      * 判断工作区（workspace）是否存在，不存在则创建
      */
-    public static void judgeWorkSpace(String workspace) throws MalformedURLException {
-        URL u = new URL(url);
-        GeoServerRESTManager manager = new GeoServerRESTManager(u, geoUsername, geoPassword);
-        GeoServerRESTPublisher publisher = manager.getPublisher();
-        List<String> workspaces = manager.getReader().getWorkspaceNames();
-        if (!workspaces.contains(workspace)) {
-            boolean createWorkspace = publisher.createWorkspace(workspace);
-            logger.info("create workspace : " + createWorkspace);
+    public static void judgeWorkSpace(String workspace) {
+        if (!reader.existsWorkspace(workspace)) {
+            try {
+                boolean createWorkspace = geoServerManager.createWorkspace(workspace);
+                logger.info("create workspace : " + createWorkspace);
+            } catch (ExistedException e) {
+                //  并发发布时其他线程已创建
+                logger.info("workspace已经存在了,workspace :" + workspace);
+            }
         } else {
             logger.info("workspace已经存在了,workspace :" + workspace);
         }
@@ -96,17 +90,14 @@ public class GeoServer {
      */
     public static boolean shpJudgeDatabase(String store) {
         try {
-            URL u = new URL(url);
-            GeoServerRESTManager manager = new GeoServerRESTManager(u, geoUsername, geoPassword);
-            RESTDataStore restStore = manager.getReader().getDatastore(shpWorkspace, store);
-            if (restStore == null) {
+            if (!reader.existsDataStore(shpWorkspace, store)) {
                 logger.info("数据存储不存在，可以创建！");
                 return true;
             } else {
                 logger.info("数据存储已经存在了,store:" + store);
             }
 
-        } catch (MalformedURLException e) {
+        } catch (WorkSpaceNotFoundException e) {
             e.printStackTrace();
         }
         return false;
@@ -120,24 +111,19 @@ public class GeoServer {
      * @param storeName 数据存储名/图层名
      * @param fileUrl   本地文件地址
      */
-    public static boolean releaseTiff(String storeName, String fileUrl) throws MalformedURLException, FileNotFoundException {
-        URL u = new URL(url);
-        //创建一个geoServer rest连接对象
-        GeoServerRESTManager manager = new GeoServerRESTManager(u, geoUsername, geoPassword);
+    public static boolean releaseTiff(String storeName, String fileUrl) throws FileNotFoundException, WorkSpaceNotFoundException {
         //判断数据存储桶是否存在
-        RESTDataStore restStore = manager.getReader().getDatastore(imageWorkspace, storeName);
         //如果不存在就创建一个数据存储，并发布
-        if (restStore == null) {
-            GSGeoTIFFDatastoreEncoder gsGeoTIFFDatastoreEncoder = new GSGeoTIFFDatastoreEncoder(storeName);
-            gsGeoTIFFDatastoreEncoder.setWorkspaceName(imageWorkspace);
-            //不确定是否有用
-//            gsGeoTIFFDatastoreEncoder.setUrl(new URL("file:" + fileUrl));
-//            gsGeoTIFFDatastoreEncoder.setUrl(new URL("file:" + "test.tif"));
-            boolean createStore = manager.getStoreManager().create(imageWorkspace, gsGeoTIFFDatastoreEncoder);
-            logger.info("create store (TIFF文件创建状态) : " + createStore);
+        if (!reader.existsCoverageStore(imageWorkspace, storeName)) {
             boolean publish = false;
-            publish = manager.getPublisher().publishGeoTIFF(imageWorkspace, storeName, storeName, new File(fileUrl));
-
+            try {
+                //流式上传，上传时自动创建数据存储
+                publish = geoServerManager.createGeoTIFFLayer(imageWorkspace, storeName, new File(fileUrl));
+            } catch (ExistedException e) {
+                logger.info("图层已经存在了,layer:" + storeName);
+            } catch (ErrorException e) {
+                logger.error(e.getMessage());
+            }
 
             logger.info("publish (TIFF文件发布状态) : " + publish);
             if (publish) {
@@ -202,17 +188,9 @@ public class GeoServer {
             coordinateSystem = GeoServerRESTPublisher.DEFAULT_CRS;
         }
         try {
-            //创建发布类,放入用户名密码和url
-            GeoServerRESTPublisher geoServerRESTPublisher = new GeoServerRESTPublisher(url, geoUsername, geoPassword);
-            boolean b = geoServerRESTPublisher.publishShp(shpWorkspace, storeName,
-                    new NameValuePair[]{new NameValuePair("charset", "GBK")},
-                    //图层名称               指定用于发布资源的方法
-                    storeName, GeoServerRESTPublisher.UploadMethod.FILE,
-                    //zip图集的地址，直接压缩不要文件夹      坐标系         样式
-                    new File(zipFilePath).toURI(), coordinateSystem, styleType);
-            if (b) {
-                return true;
-            }
+            //流式上传zip图集，直接压缩不要文件夹，dbf 字符集为 GBK
+            return geoServerManager.publishShpZip(shpWorkspace, storeName, storeName,
+                    new File(zipFilePath), coordinateSystem, styleType, "GBK");
         } catch (FileNotFoundException e) {
             e.printStackTrace();
         }
@@ -230,19 +208,12 @@ public class GeoServer {
      */
     public static boolean publishStyle(String styleType) {
         try {
-            URL u = new URL(url);
-            GeoServerRESTManager manager = new GeoServerRESTManager(u, geoUsername, geoPassword);
-            GeoServerRESTReader reader = manager.getReader();
-            GeoServerRESTPublisher publisher = manager.getPublisher();
             //读取style文件
             String styleFile = stylePath + File.separator + styleType + ".sld";
             File file = new File(styleFile);
-            //是否已经发布了改style
-            if (!reader.existsStyle(shpWorkspace, styleType)) {
-                publisher.publishStyleInWorkspace(shpWorkspace, file, styleType);
-            }
-            return true;
-        } catch (MalformedURLException e) {
+            //未发布时创建，已发布时只在内容变化后更新
+            return geoServerManager.publishStyle(shpWorkspace, file, styleType);
+        } catch (WorkSpaceNotFoundException | IOException e) {
             e.printStackTrace();
         }
         return false;
@@ -257,35 +228,16 @@ public class GeoServer {
      * @return boolean
      */
     public static boolean removeStore(String workspace, String storeName) {
-        URL u = null;
         try {
-            u = new URL(url);
-            GeoServerRESTManager manager = new GeoServerRESTManager(u, geoUsername, geoPassword);
-            GeoServerRESTStoreManager storeManager = manager.getStoreManager();
-            GSAbstractStoreEncoder gsAbstractStoreEncoder;
             if (shpWorkspace.equals(workspace)) {
-                gsAbstractStoreEncoder = new GSAbstractStoreEncoder(GeoServerRESTPublisher.StoreType.DATASTORES, storeName) {
-                    @Override
-                    protected String getValidType() {
-                        return null;
-                    }
-                };
-                gsAbstractStoreEncoder.setName(storeName);
-                return storeManager.remove(workspace, gsAbstractStoreEncoder, true);
+                return geoServerManager.removeDataStore(workspace, storeName);
             }
 
             if (imageWorkspace.equals(workspace)) {
-                gsAbstractStoreEncoder = new GSAbstractStoreEncoder(GeoServerRESTPublisher.StoreType.COVERAGESTORES, storeName) {
-                    @Override
-                    protected String getValidType() {
-                        return null;
-                    }
-                };
-                gsAbstractStoreEncoder.setName(storeName);
-                return storeManager.remove(workspace, gsAbstractStoreEncoder, true);
+                return geoServerManager.removeCoverageStores(workspace, storeName);
             }
 
-        } catch (MalformedURLException e) {
+        } catch (WorkSpaceNotFoundException | DataSourceNotFoundException | CoverageStoreNotFoundException e) {
             e.printStackTrace();
         }
         return false;
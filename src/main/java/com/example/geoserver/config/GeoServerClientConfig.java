@@ -0,0 +1,491 @@
+package com.example.geoserver.config;
+
+import com.example.geoserver.utils.AdaptiveConcurrencyLimit;
+import com.example.geoserver.utils.CatalogCache;
+import com.example.geoserver.utils.GWCSeedRequest;
+import com.example.geoserver.utils.GWCTileLayerOptions;
+import com.example.geoserver.utils.GWCTileSeeder;
+import com.example.geoserver.utils.GeoServerBulkPublisher;
+import com.example.geoserver.utils.GeoServerClusterManager;
+import com.example.geoserver.utils.GeoServerManager;
+import com.example.geoserver.utils.GeoServerRESTClient;
+import com.example.geoserver.utils.GeoServerRESTMetrics;
+import com.example.geoserver.utils.GeoServerReader;
+import com.example.geoserver.utils.GeoServerReplicaSet;
+import com.example.geoserver.utils.HedgedRequests;
+import com.example.geoserver.utils.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import javax.annotation.PreDestroy;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * geoserver 客户端配置
+ * 整个应用共享同一个连接池客户端，GeoServer、GeoServerManager、GeoServerReader 均通过它访问 geoserver
+ */
+@Configuration
+public class GeoServerClientConfig {
+
+    private static Logger logger = LoggerFactory.getLogger(GeoServerClientConfig.class);
+
+    @Value("${geoserver.url}")
+    private String url;
+
+    @Value("${geoserver.username}")
+    private String username;
+
+    @Value("${geoserver.password}")
+    private String password;
+
+    //  每个 geoserver 地址的最大连接数
+    @Value("${geoserver.pool.max-per-route:20}")
+    private int maxPerRoute;
+
+    //  连接池最大连接数
+    @Value("${geoserver.pool.max-total:50}")
+    private int maxTotal;
+
+    //  空闲连接回收时间（毫秒）
+    @Value("${geoserver.pool.idle-timeout:60000}")
+    private long idleTimeout;
+
+    //  启动时预热的连接数
+    @Value("${geoserver.pool.warm-up:4}")
+    private int warmUp;
+
+    //  是否按延迟自动调整同时发往每个 geoserver 的请求数，关闭时只受连接池限制
+    @Value("${geoserver.limit.enabled:true}")
+    private boolean limitEnabled;
+
+    //  上传文件的初始、最大并发数
+    @Value("${geoserver.limit.upload.initial:2}")
+    private int uploadLimitInitial;
+
+    @Value("${geoserver.limit.upload.max:8}")
+    private int uploadLimitMax;
+
+    //  查询请求的初始并发数
+    @Value("${geoserver.limit.read.initial:10}")
+    private int readLimitInitial;
+
+    //  配置、删除请求的初始并发数
+    @Value("${geoserver.limit.write.initial:4}")
+    private int writeLimitInitial;
+
+    //  目录缓存过期时间（毫秒）
+    @Value("${geoserver.cache.ttl:30000}")
+    private long cacheTtl;
+
+    //  目录缓存最大条目数
+    @Value("${geoserver.cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    //  批量发布并发数
+    @Value("${geoserver.bulk.parallelism:4}")
+    private int bulkParallelism;
+
+    //  上传 SLD 时是否压缩
+    @Value("${geoserver.style.minify:false}")
+    private boolean minifySld;
+
+    //  是否导出请求耗时直方图，由监控系统聚合分位数，时间序列较多，默认关闭
+    @Value("${geoserver.metrics.histogram:false}")
+    private boolean metricsHistogram;
+
+    //  允许作为请求指标标签的工作空间，为空时取最先出现的 max-workspaces 个，其余记为 other
+    @Value("${geoserver.metrics.workspaces:}")
+    private String[] metricsWorkspaces;
+
+    @Value("${geoserver.metrics.max-workspaces:50}")
+    private int metricsMaxWorkspaces;
+
+    //  除 geoserver.url 外的其他集群节点地址，不共享数据目录，为空时集群只有一个节点
+    @Value("${geoserver.cluster.nodes:}")
+    private String[] clusterNodes;
+
+    //  集群操作一致性要求：ALL 或 QUORUM
+    @Value("${geoserver.cluster.consistency:ALL}")
+    private GeoServerClusterManager.Consistency clusterConsistency;
+
+    //  查询是否分配到所有集群节点
+    @Value("${geoserver.replicas.enabled:false}")
+    private boolean replicasEnabled;
+
+    //  副本选择策略：LEAST_LATENCY 或 POWER_OF_TWO
+    @Value("${geoserver.replicas.strategy:POWER_OF_TWO}")
+    private GeoServerReplicaSet.Strategy replicaStrategy;
+
+    //  副本健康检查间隔（毫秒）
+    @Value("${geoserver.replicas.health-check-interval:5000}")
+    private long healthCheckInterval;
+
+    //  副本摘除时间（毫秒）
+    @Value("${geoserver.replicas.eject-time:30000}")
+    private long ejectMillis;
+
+    //  是否对冲慢的查询请求
+    @Value("${geoserver.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    //  对冲时机：最近查询延迟的分位数
+    @Value("${geoserver.hedge.percentile:0.95}")
+    private double hedgePercentile;
+
+    //  对冲请求占查询数的最大比例
+    @Value("${geoserver.hedge.budget:0.05}")
+    private double hedgeBudget;
+
+    //  最小对冲延迟（毫秒）
+    @Value("${geoserver.hedge.min-delay:10}")
+    private long hedgeMinDelay;
+
+    //  发布图层时是否配置 GWC 切片缓存
+    @Value("${geoserver.gwc.enabled:false}")
+    private boolean gwcEnabled;
+
+    //  切片网格集
+    @Value("${geoserver.gwc.grid-sets:EPSG:4326,EPSG:900913}")
+    private String[] gwcGridSets;
+
+    //  图片切片格式
+    @Value("${geoserver.gwc.image-formats:image/png,image/jpeg}")
+    private String[] gwcImageFormats;
+
+    //  矢量图层额外的矢量切片格式
+    @Value("${geoserver.gwc.vector-formats:}")
+    private String[] gwcVectorFormats;
+
+    //  元切片大小（横向、纵向切片数）
+    @Value("${geoserver.gwc.meta-tiling:4}")
+    private int gwcMetaTiling;
+
+    //  元切片边缘缓冲像素
+    @Value("${geoserver.gwc.gutter:0}")
+    private int gwcGutter;
+
+    //  客户端缓存时间（秒）
+    @Value("${geoserver.gwc.expire-clients:0}")
+    private int gwcExpireClients;
+
+    //  服务端切片过期时间（秒）
+    @Value("${geoserver.gwc.expire-cache:0}")
+    private int gwcExpireCache;
+
+    //  配置切片图层后是否在后台预生成切片，每个网格集按第一个图片格式预生成
+    @Value("${geoserver.gwc.seed.enabled:false}")
+    private boolean seedEnabled;
+
+    //  预生成的缩放级别范围
+    @Value("${geoserver.gwc.seed.zoom-start:0}")
+    private int seedZoomStart;
+
+    @Value("${geoserver.gwc.seed.zoom-stop:8}")
+    private int seedZoomStop;
+
+    //  每个预生成任务的最大线程数，实际线程数按 geoserver 负载调整
+    @Value("${geoserver.gwc.seed.max-threads:4}")
+    private int seedMaxThreads;
+
+    //  轮询预生成进度的间隔（毫秒）
+    @Value("${geoserver.gwc.seed.poll-interval:2000}")
+    private long seedPollInterval;
+
+    //  每个缩放级别的最长时间（毫秒），0 为不限制
+    @Value("${geoserver.gwc.seed.level-timeout:0}")
+    private long seedLevelTimeout;
+
+    //  其他集群节点的连接池客户端，应用关闭时关闭
+    private List<GeoServerRESTClient> clusterClients;
+
+    //  各节点的切片预生成器，应用关闭时关闭
+    private final List<GWCTileSeeder> tileSeeders = new ArrayList<>();
+
+    //  查询副本集合，未启用时为 null
+    private GeoServerReplicaSet replicaSet;
+
+    //  查询对冲策略，未启用时为 null
+    private HedgedRequests hedgedRequests;
+
+    //  actuator 提供的指标注册表，请求指标通过 /actuator/metrics 查看
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Bean(destroyMethod = "shutdown")
+    public GeoServerRESTClient geoServerRESTClient() throws MalformedURLException {
+        return createRESTClient(url);
+    }
+
+    @Bean
+    public CatalogCache catalogCache() throws MalformedURLException {
+        CatalogCache catalogCache = new CatalogCache(cacheTtl, cacheMaxSize);
+        bindCatalogCache(catalogCache, new URL(url).getAuthority());
+
+        return catalogCache;
+    }
+
+    @Bean
+    public GeoServerReader geoServerReader(GeoServerRESTClient geoServerRESTClient, CatalogCache catalogCache) throws MalformedURLException {
+        GeoServerReader geoServerReader = new GeoServerReader(geoServerRESTClient, catalogCache);
+
+        if (replicasEnabled && !clusterClients().isEmpty()) {
+            List<GeoServerRESTClient> replicaClients = new ArrayList<>();
+            replicaClients.add(geoServerRESTClient);
+            replicaClients.addAll(clusterClients());
+
+            replicaSet = new GeoServerReplicaSet(replicaClients, replicaStrategy);
+            replicaSet.setEjectMillis(ejectMillis);
+            replicaSet.startHealthChecks(healthCheckInterval);
+            bindReplicaSet(replicaSet);
+
+            geoServerReader.setReplicaSet(replicaSet);
+        }
+
+        if (hedgeEnabled) {
+            hedgedRequests = new HedgedRequests(hedgePercentile, hedgeBudget, hedgeMinDelay);
+            bindHedgedRequests(hedgedRequests);
+
+            geoServerReader.setHedging(hedgedRequests);
+        }
+
+        //  并发相同查询的合并次数
+        bindSingleFlight(geoServerReader.getExistsFlights(), "exists");
+        bindSingleFlight(geoServerReader.getLoadFlights(), "list");
+
+        return geoServerReader;
+    }
+
+    @Bean
+    public GeoServerManager geoServerManager(GeoServerReader geoServerReader) {
+        GeoServerManager geoServerManager = new GeoServerManager(geoServerReader);
+        geoServerManager.setMinifySld(minifySld);
+        geoServerManager.setTileLayerOptions(tileLayerOptions());
+        geoServerManager.setTileSeeder(tileSeeder(geoServerReader.getRestClient()));
+
+        return geoServerManager;
+    }
+
+    @Bean
+    public GeoServerBulkPublisher geoServerBulkPublisher(GeoServerManager geoServerManager) {
+        return new GeoServerBulkPublisher(geoServerManager, bulkParallelism);
+    }
+
+    /**
+     * 集群发布管理，第一个节点为 geoserver.url，其余节点各自使用独立的连接池和目录缓存
+     */
+    @Bean(destroyMethod = "shutdown")
+    public GeoServerClusterManager geoServerClusterManager(GeoServerManager geoServerManager) throws MalformedURLException {
+        List<GeoServerManager> nodes = new ArrayList<>();
+        nodes.add(geoServerManager);
+
+        for (GeoServerRESTClient nodeClient : clusterClients()) {
+            CatalogCache nodeCache = new CatalogCache(cacheTtl, cacheMaxSize);
+            bindCatalogCache(nodeCache, new URL(nodeClient.getRestURL()).getAuthority());
+
+            GeoServerManager nodeManager = new GeoServerManager(new GeoServerReader(nodeClient, nodeCache));
+            nodeManager.setMinifySld(minifySld);
+            nodeManager.setTileLayerOptions(tileLayerOptions());
+            nodeManager.setTileSeeder(tileSeeder(nodeClient));
+            nodes.add(nodeManager);
+        }
+
+        logger.info(String.format("geoserver 集群节点数：%d，一致性要求：%s", nodes.size(), clusterConsistency));
+
+        return new GeoServerClusterManager(nodes, clusterConsistency);
+    }
+
+    /**
+     * @return 发布图层时写入的切片图层配置，未启用时为 null
+     */
+    private GWCTileLayerOptions tileLayerOptions() {
+        if (!gwcEnabled) {
+            return null;
+        }
+
+        GWCTileLayerOptions options = new GWCTileLayerOptions();
+        options.setGridSets(gwcGridSets);
+        options.setImageFormats(gwcImageFormats);
+        options.setVectorFormats(gwcVectorFormats);
+        options.setMetaTiling(gwcMetaTiling, gwcMetaTiling);
+        options.setGutter(gwcGutter);
+        options.setExpireClients(gwcExpireClients);
+        options.setExpireCache(gwcExpireCache);
+
+        if (seedEnabled && gwcImageFormats.length > 0) {
+            for (String gridSet : gwcGridSets) {
+                GWCSeedRequest seedRequest = new GWCSeedRequest(gridSet, seedZoomStart, seedZoomStop);
+                seedRequest.setFormat(gwcImageFormats[0]);
+                options.addSeedRequest(seedRequest);
+            }
+        }
+
+        return options;
+    }
+
+    /**
+     * @return 节点的切片预生成器，未启用时为 null
+     */
+    private synchronized GWCTileSeeder tileSeeder(GeoServerRESTClient restClient) {
+        if (!gwcEnabled || !seedEnabled) {
+            return null;
+        }
+
+        GWCTileSeeder tileSeeder = new GWCTileSeeder(restClient, seedMaxThreads, GWCTileSeeder.DEFAULT_TOLERANCE);
+        tileSeeder.setPollInterval(seedPollInterval);
+        tileSeeder.setLevelTimeout(seedLevelTimeout);
+        tileSeeders.add(tileSeeder);
+
+        return tileSeeder;
+    }
+
+    /**
+     * 关闭切片预生成、副本健康检查、对冲线程池和其他集群节点的连接池
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        for (GWCTileSeeder tileSeeder : tileSeeders) {
+            tileSeeder.shutdown();
+        }
+
+        if (replicaSet != null) {
+            replicaSet.shutdown();
+        }
+
+        if (hedgedRequests != null) {
+            hedgedRequests.shutdown();
+        }
+
+        if (clusterClients != null) {
+            for (GeoServerRESTClient clusterClient : clusterClients) {
+                clusterClient.shutdown();
+            }
+        }
+    }
+
+    /**
+     * 其他集群节点的连接池客户端，集群发布和查询副本共用
+     */
+    private synchronized List<GeoServerRESTClient> clusterClients() throws MalformedURLException {
+        if (clusterClients == null) {
+            List<GeoServerRESTClient> restClients = new ArrayList<>();
+
+            for (String node : clusterNodes) {
+                if (!node.trim().isEmpty() && !node.trim().equals(url)) {
+                    restClients.add(createRESTClient(node.trim()));
+                }
+            }
+
+            clusterClients = restClients;
+        }
+
+        return clusterClients;
+    }
+
+    private GeoServerRESTClient createRESTClient(String restUrl) throws MalformedURLException {
+        String node = new URL(restUrl).getAuthority();
+
+        GeoServerRESTClient geoServerRESTClient = new GeoServerRESTClient(restUrl, username, password, maxPerRoute, maxTotal, idleTimeout);
+        GeoServerRESTMetrics metrics = new GeoServerRESTMetrics(meterRegistry, node);
+        metrics.setPercentileHistogram(metricsHistogram);
+        metrics.setAllowedWorkspaces(Arrays.asList(metricsWorkspaces));
+        metrics.setMaxWorkspaces(metricsMaxWorkspaces);
+        geoServerRESTClient.setMetrics(metrics);
+
+        if (limitEnabled) {
+            //  三类请求的上限之和不超过每个地址的连接数，否则达到上限前请求已在连接池中排队，延迟信号失真
+            int uploadMax = Math.max(1, Math.min(uploadLimitMax, maxPerRoute - 2));
+            int writeMax = Math.max(1, (maxPerRoute - uploadMax) / 2);
+            int readMax = Math.max(1, maxPerRoute - uploadMax - writeMax);
+
+            AdaptiveConcurrencyLimit uploadLimit = new AdaptiveConcurrencyLimit("upload", uploadLimitInitial, 1, uploadMax);
+            AdaptiveConcurrencyLimit readLimit = new AdaptiveConcurrencyLimit("read", readLimitInitial, 1, readMax);
+            AdaptiveConcurrencyLimit writeLimit = new AdaptiveConcurrencyLimit("write", writeLimitInitial, 1, writeMax);
+            geoServerRESTClient.setConcurrencyLimits(uploadLimit, readLimit, writeLimit);
+
+            bindConcurrencyLimit(uploadLimit, node);
+            bindConcurrencyLimit(readLimit, node);
+            bindConcurrencyLimit(writeLimit, node);
+        }
+
+        return geoServerRESTClient;
+    }
+
+    private void bindReplicaSet(GeoServerReplicaSet replicaSet) throws MalformedURLException {
+        for (GeoServerReplicaSet.Replica replica : replicaSet.getReplicas()) {
+            String node = new URL(replica.getNode()).getAuthority();
+
+            Gauge.builder("geoserver.replica.latency", replica, GeoServerReplicaSet.Replica::getLatencyMillis)
+                    .tag("node", node)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            Gauge.builder("geoserver.replica.ejected", replica, r -> r.isEjected() ? 1 : 0)
+                    .tag("node", node)
+                    .register(meterRegistry);
+        }
+    }
+
+    private void bindConcurrencyLimit(AdaptiveConcurrencyLimit limit, String node) {
+        Gauge.builder("geoserver.rest.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .tags("node", node, "kind", limit.getName())
+                .register(meterRegistry);
+        FunctionCounter.builder("geoserver.rest.throttled", limit, AdaptiveConcurrencyLimit::getThrottled)
+                .tags("node", node, "kind", limit.getName())
+                .register(meterRegistry);
+    }
+
+    private void bindHedgedRequests(HedgedRequests hedgedRequests) {
+        Gauge.builder("geoserver.reader.hedge.delay", hedgedRequests, HedgedRequests::getDelayMillis)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        FunctionCounter.builder("geoserver.reader.hedged", hedgedRequests, HedgedRequests::getHedged)
+                .register(meterRegistry);
+        FunctionCounter.builder("geoserver.reader.hedge.wins", hedgedRequests, HedgedRequests::getHedgeWins)
+                .register(meterRegistry);
+    }
+
+    private void bindCatalogCache(CatalogCache catalogCache, String node) {
+        FunctionCounter.builder("geoserver.cache.hits", catalogCache, CatalogCache::getHits)
+                .tag("node", node)
+                .register(meterRegistry);
+        FunctionCounter.builder("geoserver.cache.misses", catalogCache, CatalogCache::getMisses)
+                .tag("node", node)
+                .register(meterRegistry);
+        FunctionCounter.builder("geoserver.cache.evictions", catalogCache, CatalogCache::getEvictions)
+                .tag("node", node)
+                .register(meterRegistry);
+        Gauge.builder("geoserver.cache.size", catalogCache, CatalogCache::size)
+                .tag("node", node)
+                .register(meterRegistry);
+    }
+
+    private void bindSingleFlight(SingleFlight<?> singleFlight, String kind) {
+        FunctionCounter.builder("geoserver.reader.calls", singleFlight, SingleFlight::getCalls)
+                .tag("kind", kind)
+                .register(meterRegistry);
+        FunctionCounter.builder("geoserver.reader.coalesced", singleFlight, SingleFlight::getCoalesced)
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 应用启动完成后预热连接池，geoserver 不可用时只记录日志
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() throws MalformedURLException {
+        int opened = geoServerRESTClient().warmUp(warmUp);
+        logger.info(String.format("geoserver 连接池预热完成：%d/%d", opened, warmUp));
+    }
+}
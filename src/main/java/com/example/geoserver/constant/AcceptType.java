@@ -1,13 +1,17 @@
 package com.example.geoserver.constant;
 
 public class AcceptType {
+    /**
+     * 请求头名称
+     */
+    public static final String HEADER = "Accept";
     /**
      * 返回格式为 XML
      */
-    public static final String XML = "accept: application/xml";
+    public static final String XML = "application/xml";
     /**
      * 返回格式为 JSON
      */
-    public static final String JSON = "accept: application/json";
+    public static final String JSON = "application/json";
 }
 
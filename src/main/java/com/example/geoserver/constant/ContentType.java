@@ -4,21 +4,29 @@ public class ContentType {
     /**
      * 提交格式为 XML
      */
-    public static final String XML = "Content-type: application/xml";
+    public static final String XML = "application/xml";
     /**
      * 提交格式为 JSON
      */
-    public static final String JSON = "Content-type: application/json";
+    public static final String JSON = "application/json";
     /**
      * 提交格式为 HTML
      */
-    public static final String HTML = "Content-type: application/html";
+    public static final String HTML = "application/html";
     /**
      * 提交式为 SLD
      */
-    public static final String SLD = "Content-type: application/vnd.ogc.sld+xml;charset=utf-8";
+    public static final String SLD = "application/vnd.ogc.sld+xml;charset=utf-8";
+    /**
+     * SLD 格式（不含字符集）
+     */
+    public static final String SLD_TYPE = "application/vnd.ogc.sld+xml";
     /**
      * 提交式为 ZIP
      */
-    public static final String ZIP = "Content-type: application/zip";
+    public static final String ZIP = "application/zip";
+    /**
+     * 提交式为 GeoTIFF
+     */
+    public static final String GEOTIFF = "image/tiff";
 }
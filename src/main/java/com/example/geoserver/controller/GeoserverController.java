@@ -1,10 +1,18 @@
 package com.example.geoserver.controller;
 
 import com.example.geoserver.config.GeoServer;
+import com.example.geoserver.error.ErrorException;
+import com.example.geoserver.service.PublishJob;
+import com.example.geoserver.service.PublishJobService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.annotation.Resource;
+import java.util.Map;
 
 @RestController("/geoserver")
 public class GeoserverController {
@@ -12,9 +20,41 @@ public class GeoserverController {
     /*@Resource
     private GeoServer geoServer;*/
 
+    @Resource
+    private PublishJobService publishJobService;
+
+    /**
+     * 提交 shp 发布任务，立即返回任务，通过任务 id 查询发布状态
+     */
     @PostMapping
-    public boolean geo(String zipFilePath, String storeName, String styleType, String coordinateSystem) {
-        boolean b = GeoServer.publishShp(zipFilePath, storeName, styleType, coordinateSystem);
-        return b;
+    public PublishJob geo(String zipFilePath, String storeName, String styleType, String coordinateSystem) {
+        try {
+            return publishJobService.submit("publishShp:" + storeName,
+                    () -> GeoServer.publishShp(zipFilePath, storeName, styleType, coordinateSystem));
+        } catch (ErrorException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    /**
+     * 查询发布任务的状态、结果和耗时
+     */
+    @GetMapping("/jobs/{jobId}")
+    public PublishJob job(@PathVariable String jobId) {
+        PublishJob job = publishJobService.getJob(jobId);
+
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "任务不存在：" + jobId);
+        }
+
+        return job;
+    }
+
+    /**
+     * 发布队列统计信息
+     */
+    @GetMapping("/jobs")
+    public Map<String, Object> jobs() {
+        return publishJobService.getStatistics();
     }
 }
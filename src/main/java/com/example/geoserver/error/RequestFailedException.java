@@ -0,0 +1,17 @@
+package com.example.geoserver.error;
+
+/*
+ * geoserver 请求失败（非 2xx 且非 404，或请求未能发出）
+ * */
+public class RequestFailedException extends ErrorException {
+    private final int statusCode;
+
+    public RequestFailedException(String path, int statusCode, String body) {
+        super(String.format("请求 %s 失败，状态码：%d，%s", path, statusCode, body));
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.geoserver.service;
+
+/**
+ * 异步发布任务，记录状态、结果和各阶段耗时
+ */
+public class PublishJob {
+
+    public enum Status {
+        /**
+         * 排队中
+         */
+        QUEUED,
+        /**
+         * 执行中
+         */
+        RUNNING,
+        /**
+         * 发布成功
+         */
+        SUCCEEDED,
+        /**
+         * 发布失败或抛出异常
+         */
+        FAILED
+    }
+
+    private final String id;
+    private final String description;
+    private final long submittedAt;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Boolean result;
+    private volatile String error;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+
+    public PublishJob(String id, String description) {
+        this.id = id;
+        this.description = description;
+        this.submittedAt = System.currentTimeMillis();
+    }
+
+    void start() {
+        startedAt = System.currentTimeMillis();
+        status = Status.RUNNING;
+    }
+
+    void finish(Boolean result, String error) {
+        this.result = result;
+        this.error = error;
+        finishedAt = System.currentTimeMillis();
+        status = Boolean.TRUE.equals(result) ? Status.SUCCEEDED : Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Boolean getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * @return 排队等待时间（毫秒）
+     */
+    public long getQueueMillis() {
+        return (startedAt == 0 ? System.currentTimeMillis() : startedAt) - submittedAt;
+    }
+
+    /**
+     * @return 执行时间（毫秒），尚未开始时为 0
+     */
+    public long getRunMillis() {
+        if (startedAt == 0) {
+            return 0;
+        }
+
+        return (finishedAt == 0 ? System.currentTimeMillis() : finishedAt) - startedAt;
+    }
+
+    public boolean isDone() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+}
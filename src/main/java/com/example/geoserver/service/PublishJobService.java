@@ -0,0 +1,139 @@
+package com.example.geoserver.service;
+
+import com.example.geoserver.error.ErrorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步发布队列
+ * 发布请求进入有界队列，由固定数量的工作线程执行，请求线程立即返回任务 id
+ */
+@Service
+public class PublishJobService {
+
+    private static Logger logger = LoggerFactory.getLogger(PublishJobService.class);
+
+    //  工作线程数
+    @Value("${geoserver.job.workers:4}")
+    private int workers;
+
+    //  排队任务上限，超过时拒绝新的发布请求
+    @Value("${geoserver.job.queue-capacity:100}")
+    private int queueCapacity;
+
+    //  保留的已完成任务数，超过时删除最早完成的任务
+    @Value("${geoserver.job.retention:1000}")
+    private int retention;
+
+    private final Map<String, PublishJob> jobs = new ConcurrentHashMap<>();
+    private final Queue<String> finishedJobIds = new ConcurrentLinkedQueue<>();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "geoserver-publish-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 提交发布任务
+     *
+     * @param description 任务描述
+     * @param task        发布操作，返回是否发布成功
+     * @return 已入队的任务
+     * @throws ErrorException 发布队列已满
+     */
+    public PublishJob submit(String description, Callable<Boolean> task) throws ErrorException {
+        PublishJob job = new PublishJob(UUID.randomUUID().toString(), description);
+        jobs.put(job.getId(), job);
+
+        try {
+            executor.execute(() -> run(job, task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new ErrorException(String.format("发布队列已满（%d），请稍后重试", queueCapacity));
+        }
+
+        return job;
+    }
+
+    /**
+     * 查询任务
+     *
+     * @param jobId 任务 id
+     * @return 任务，不存在或已过期时返回 null
+     */
+    public PublishJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * 队列统计信息
+     *
+     * @return 工作线程数、执行中、排队中、已完成任务数
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+
+        statistics.put("workers", workers);
+        statistics.put("queueCapacity", queueCapacity);
+        statistics.put("running", executor.getActiveCount());
+        statistics.put("queued", executor.getQueue().size());
+        statistics.put("completed", executor.getCompletedTaskCount());
+
+        return statistics;
+    }
+
+    private void run(PublishJob job, Callable<Boolean> task) {
+        job.start();
+
+        try {
+            job.finish(task.call(), null);
+        } catch (Exception e) {
+            logger.error(String.format("发布任务 %s 失败：%s", job.getDescription(), e.getMessage()));
+            job.finish(false, e.getMessage());
+        }
+
+        logger.info(String.format("发布任务 %s 完成：%s，排队 %d ms，执行 %d ms",
+                job.getDescription(), job.getStatus(), job.getQueueMillis(), job.getRunMillis()));
+
+        finishedJobIds.add(job.getId());
+        while (finishedJobIds.size() > retention) {
+            String expiredId = finishedJobIds.poll();
+            if (expiredId != null) {
+                jobs.remove(expiredId);
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.geoserver.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 自适应并发上限（AIMD）：按请求延迟和失败调整同时执行的请求数
+ * 延迟接近无负载时的延迟且并发已用满时上限加性增长（每轮约 +1），
+ * 请求失败或延迟超过基线的 tolerance 倍时上限乘性下降，基线为最近一个窗口内的最小延迟
+ * 超过上限的请求等待空位，线程安全
+ */
+public class AdaptiveConcurrencyLimit {
+    //  失败或延迟过高时上限乘以该比例
+    public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+    //  延迟超过基线多少倍视为过载
+    public static final double DEFAULT_TOLERANCE = 2.0;
+    //  每多少个样本重新测量基线
+    public static final int WINDOW_SIZE = 100;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double tolerance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private long baselineNanos;
+    private long windowMinNanos = Long.MAX_VALUE;
+    private int windowSamples;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    /**
+     * @param name         名称，用于日志和指标
+     * @param initialLimit 初始上限
+     * @param minLimit     最小上限
+     * @param maxLimit     最大上限，一般不超过连接池每个地址的最大连接数
+     */
+    public AdaptiveConcurrencyLimit(String name, int initialLimit, int minLimit, int maxLimit) {
+        this(name, initialLimit, minLimit, maxLimit, DEFAULT_BACKOFF_RATIO, DEFAULT_TOLERANCE);
+    }
+
+    public AdaptiveConcurrencyLimit(String name, int initialLimit, int minLimit, int maxLimit, double backoffRatio, double tolerance) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException(String.format("并发上限范围错误：%d ~ %d", minLimit, maxLimit));
+        }
+
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.tolerance = tolerance;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * 等待空位，请求结束后必须调用 release
+     *
+     * @throws InterruptedException 等待时被中断
+     */
+    public void acquire() throws InterruptedException {
+        requests.incrementAndGet();
+        lock.lockInterruptibly();
+
+        try {
+            if (inFlight >= (int) limit) {
+                throttled.incrementAndGet();
+            }
+
+            while (inFlight >= (int) limit) {
+                available.await();
+            }
+
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 请求结束，按结果调整上限
+     *
+     * @param latencyNanos 请求延迟（纳秒），上传可按字节数归一化
+     * @param dropped      请求是否因 geoserver 过载而失败（无响应、429、5xx）
+     */
+    public void release(long latencyNanos, boolean dropped) {
+        lock.lock();
+
+        try {
+            int running = inFlight;
+            inFlight--;
+
+            if (!dropped && latencyNanos > 0) {
+                windowMinNanos = Math.min(windowMinNanos, latencyNanos);
+                if (baselineNanos == 0 || latencyNanos < baselineNanos) {
+                    baselineNanos = latencyNanos;
+                }
+                //  基线随窗口更新，geoserver 本身变慢后不会一直判为过载
+                if (++windowSamples >= WINDOW_SIZE) {
+                    baselineNanos = windowMinNanos;
+                    windowMinNanos = Long.MAX_VALUE;
+                    windowSamples = 0;
+                }
+            }
+
+            if (dropped || latencyNanos > baselineNanos * tolerance) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (running * 2 >= limit) {
+                //  只有并发确实接近上限时才增长，空闲时上限不会无限变大
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return 当前上限
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 无负载时的延迟基线（毫秒）
+     */
+    public double getBaselineMillis() {
+        lock.lock();
+        try {
+            return baselineNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return 因达到上限而等待过的请求数
+     */
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AdaptiveConcurrencyLimit{%s, limit=%d, inFlight=%d, baseline=%.1f ms, throttled=%d/%d}",
+                name, getLimit(), getInFlight(), getBaselineMillis(), getThrottled(), getRequests());
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.geoserver.utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 批量发布结果：每个文件的发布结果以及整体吞吐量
+ */
+public class BulkPublishReport {
+
+    public enum FileType {
+        /**
+         * shp zip 压缩包或 .shp 文件
+         */
+        SHP,
+        /**
+         * GeoTIFF 影像
+         */
+        GEOTIFF,
+        /**
+         * 不支持的文件，不发布
+         */
+        UNSUPPORTED,
+        /**
+         * 与其他文件发布为同一图层（如同名的 .zip 和 .shp），不发布
+         */
+        DUPLICATE,
+        /**
+         * 图层已存在，不发布
+         */
+        EXISTING
+    }
+
+    /**
+     * 单个文件的发布结果
+     */
+    public static class Outcome {
+        private final File file;
+        private final FileType fileType;
+        private final boolean success;
+        private final String message;
+        private final long elapsedMillis;
+
+        public Outcome(File file, FileType fileType, boolean success, String message, long elapsedMillis) {
+            this.file = file;
+            this.fileType = fileType;
+            this.success = success;
+            this.message = message;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public FileType getFileType() {
+            return fileType;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * @return 发布的字节数，.shp 包括同名的 .dbf、.shx、.prj 等附属文件
+         */
+        public long getBytes() {
+            if (!file.getName().toLowerCase(Locale.ROOT).endsWith(".shp")) {
+                return file.length();
+            }
+
+            long bytes = 0;
+            for (File sidecar : ShapefileZipRequestEntity.sidecars(file)) {
+                bytes += sidecar.length();
+            }
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s [%s] %s %d ms%s", file.getName(), fileType, success ? "成功" : "失败",
+                    elapsedMillis, message == null ? "" : "：" + message);
+        }
+    }
+
+    private final List<Outcome> outcomes = Collections.synchronizedList(new ArrayList<>());
+    private final long startedAt = System.currentTimeMillis();
+    private volatile long finishedAt;
+
+    void add(Outcome outcome) {
+        outcomes.add(outcome);
+    }
+
+    void finish() {
+        finishedAt = System.currentTimeMillis();
+    }
+
+    public List<Outcome> getOutcomes() {
+        synchronized (outcomes) {
+            return new ArrayList<>(outcomes);
+        }
+    }
+
+    public int getSucceeded() {
+        int succeeded = 0;
+        for (Outcome outcome : getOutcomes()) {
+            if (outcome.isSuccess()) {
+                succeeded++;
+            }
+        }
+        return succeeded;
+    }
+
+    public int getFailed() {
+        int failed = 0;
+        for (Outcome outcome : getOutcomes()) {
+            if (!outcome.isSuccess() && !isSkipped(outcome)) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * @return 跳过的不支持文件、重复图层文件和图层已存在的文件数
+     */
+    public int getSkipped() {
+        int skipped = 0;
+        for (Outcome outcome : getOutcomes()) {
+            if (isSkipped(outcome)) {
+                skipped++;
+            }
+        }
+        return skipped;
+    }
+
+    private static boolean isSkipped(Outcome outcome) {
+        return outcome.getFileType() == FileType.UNSUPPORTED || outcome.getFileType() == FileType.DUPLICATE
+                || outcome.getFileType() == FileType.EXISTING;
+    }
+
+    /**
+     * @return 发布成功的文件总字节数
+     */
+    public long getPublishedBytes() {
+        long bytes = 0;
+        for (Outcome outcome : getOutcomes()) {
+            if (outcome.isSuccess()) {
+                bytes += outcome.getBytes();
+            }
+        }
+        return bytes;
+    }
+
+    public long getElapsedMillis() {
+        return (finishedAt == 0 ? System.currentTimeMillis() : finishedAt) - startedAt;
+    }
+
+    /**
+     * @return 每秒发布成功的文件数
+     */
+    public double getFilesPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0 : getSucceeded() * 1000.0 / elapsed;
+    }
+
+    /**
+     * @return 每秒发布成功的字节数
+     */
+    public double getBytesPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0 : getPublishedBytes() * 1000.0 / elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("批量发布：成功 %d，失败 %d，跳过 %d，耗时 %d ms，%.2f 个/s，%.2f MB/s",
+                getSucceeded(), getFailed(), getSkipped(), getElapsedMillis(),
+                getFilesPerSecond(), getBytesPerSecond() / (1024 * 1024));
+    }
+}
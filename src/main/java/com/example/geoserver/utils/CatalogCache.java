@@ -0,0 +1,310 @@
+package com.example.geoserver.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * geoserver 目录缓存（工作空间、数据源、图层、图层组、样式是否存在）
+ * 按 TTL 过期，超过容量时淘汰最久未访问的条目，线程安全
+ */
+public class CatalogCache {
+    //  默认过期时间（毫秒）
+    public static final long DEFAULT_TTL = 30000;
+    //  默认最大条目数
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    private static final String WORKSPACE = "workspace";
+    private static final String DATASTORE = "datastore";
+    private static final String COVERAGESTORE = "coveragestore";
+    private static final String LAYER = "layer";
+    private static final String LAYERGROUP = "layergroup";
+    private static final String STYLE = "style";
+    private static final String[] KINDS = {WORKSPACE, DATASTORE, COVERAGESTORE, LAYER, LAYERGROUP, STYLE};
+
+    //  表示全部工作空间，用于 {@link #getListVersion(String)} 读取跨工作空间的列表版本
+    public static final String ALL_WORKSPACES = "*";
+
+    //  版本计数器分段数，不同键落在同一分段时只会多放弃一次写入，不会出错
+    private static final int STRIPES = 1024;
+
+    private final long ttl;
+    private final int maxSize;
+    private final LinkedHashMap<String, Entry> entries;
+
+    //  清除次数
+    private long epoch;
+    //  按键分段的写入版本，put/invalidate(key) 时递增
+    private final long[] keyVersions = new long[STRIPES];
+    //  按 "类型|工作空间"、"*|工作空间" 分段的批量失效版本
+    private final long[] scopeVersions = new long[STRIPES];
+    //  按 "类型|工作空间"、"类型|*" 分段的列表版本，其下任意条目写入时递增
+    private final long[] listVersions = new long[STRIPES];
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CatalogCache() {
+        this(DEFAULT_TTL, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * 提供过期时间和最大条目数
+     *
+     * @param ttl     过期时间（毫秒），小于等于 0 时不缓存
+     * @param maxSize 最大条目数
+     */
+    public CatalogCache(long ttl, int maxSize) {
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > CatalogCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static String workspaceKey(String workspaceName) {
+        return key(WORKSPACE, workspaceName, "");
+    }
+
+    public static String dataStoreKey(String workspaceName, String dataStoreName) {
+        return key(DATASTORE, workspaceName, dataStoreName);
+    }
+
+    public static String coverageStoreKey(String workspaceName, String coverageStoreName) {
+        return key(COVERAGESTORE, workspaceName, coverageStoreName);
+    }
+
+    public static String layerKey(String workspaceName, String layerName) {
+        return key(LAYER, workspaceName, layerName);
+    }
+
+    public static String layerGroupKey(String workspaceName, String layerGroupName) {
+        return key(LAYERGROUP, workspaceName, layerGroupName);
+    }
+
+    /**
+     * @param workspaceName 工作空间名称，全局样式为 null
+     * @param styleName     样式名称
+     * @return 缓存键
+     */
+    public static String styleKey(String workspaceName, String styleName) {
+        return key(STYLE, workspaceName == null ? "" : workspaceName, styleName);
+    }
+
+    /**
+     * 读取缓存
+     *
+     * @param key 缓存键
+     * @return 缓存的存在状态，未命中或已过期时返回 null
+     */
+    public synchronized Boolean get(String key) {
+        Entry entry = entries.get(key);
+
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(key);
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return entry.exists;
+    }
+
+    /**
+     * 写入缓存，用于创建、删除资源后同步状态
+     *
+     * @param key    缓存键
+     * @param exists 资源是否存在
+     */
+    public synchronized void put(String key, boolean exists) {
+        bump(key);
+
+        if (ttl <= 0) {
+            return;
+        }
+
+        entries.put(key, new Entry(exists, System.currentTimeMillis() + ttl));
+    }
+
+    /**
+     * 写入查询结果，查询期间该键有过写入或失效时放弃，避免旧结果覆盖新状态
+     *
+     * @param key     缓存键
+     * @param exists  资源是否存在
+     * @param version 查询开始时该键的版本
+     * @return 是否写入
+     */
+    public synchronized boolean putIfUnchanged(String key, boolean exists, long version) {
+        if (ttl <= 0 || version != getVersion(key)) {
+            return false;
+        }
+
+        entries.put(key, new Entry(exists, System.currentTimeMillis() + ttl));
+        return true;
+    }
+
+    /**
+     * 键的版本，该键写入、失效，所在工作空间或类型批量失效，或清空缓存后改变
+     * 其他键的写入不影响（落在同一分段时除外）
+     *
+     * @param key 缓存键
+     * @return 当前版本
+     */
+    public synchronized long getVersion(String key) {
+        String kind = kindOf(key);
+        String workspaceName = workspaceOf(key);
+
+        return epoch
+                + scopeVersions[stripe(ALL_WORKSPACES + "|" + workspaceName)]
+                + scopeVersions[stripe(kind + "|" + workspaceName)]
+                + keyVersions[stripe(key)];
+    }
+
+    /**
+     * 列表的版本，列表中任意条目写入、失效或清空缓存后改变
+     *
+     * @param key 名称为空的缓存键，如 {@code layerKey(workspaceName, "")}，
+     *            工作空间为 {@link #ALL_WORKSPACES} 时表示跨工作空间的列表
+     * @return 当前版本
+     */
+    public synchronized long getListVersion(String key) {
+        String kind = kindOf(key);
+        String workspaceName = workspaceOf(key);
+
+        if (ALL_WORKSPACES.equals(workspaceName)) {
+            return epoch + listVersions[stripe(kind + "|" + ALL_WORKSPACES)];
+        }
+
+        return epoch
+                + scopeVersions[stripe(ALL_WORKSPACES + "|" + workspaceName)]
+                + scopeVersions[stripe(kind + "|" + workspaceName)]
+                + listVersions[stripe(kind + "|" + workspaceName)];
+    }
+
+    /**
+     * 删除单个缓存条目
+     *
+     * @param key 缓存键
+     */
+    public synchronized void invalidate(String key) {
+        bump(key);
+        entries.remove(key);
+    }
+
+    /**
+     * 删除某工作空间下图层和图层组的缓存，用于删除数据源后其下图层随之删除的情况
+     *
+     * @param workspaceName 工作空间名称
+     */
+    public synchronized void invalidateLayers(String workspaceName) {
+        invalidate(LAYER, workspaceName);
+        invalidate(LAYERGROUP, workspaceName);
+    }
+
+    /**
+     * 删除某工作空间及其下全部资源的缓存
+     *
+     * @param workspaceName 工作空间名称
+     */
+    public synchronized void invalidateWorkspace(String workspaceName) {
+        invalidate(null, workspaceName);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        epoch++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CatalogCache{size=%d, hits=%d, misses=%d, evictions=%d}", size(), getHits(), getMisses(), getEvictions());
+    }
+
+    private void invalidate(String kind, String workspaceName) {
+        scopeVersions[stripe((kind == null ? ALL_WORKSPACES : kind) + "|" + workspaceName)]++;
+        for (String each : KINDS) {
+            if (kind == null || kind.equals(each)) {
+                listVersions[stripe(each + "|" + ALL_WORKSPACES)]++;
+            }
+        }
+
+        String workspaceSegment = "|" + workspaceName + "|";
+
+        Iterator<String> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            String key = iterator.next();
+
+            if (key.contains(workspaceSegment) && (kind == null || key.startsWith(kind + "|"))) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void bump(String key) {
+        String kind = kindOf(key);
+
+        keyVersions[stripe(key)]++;
+        listVersions[stripe(kind + "|" + workspaceOf(key))]++;
+        listVersions[stripe(kind + "|" + ALL_WORKSPACES)]++;
+    }
+
+    private static int stripe(String value) {
+        return (value.hashCode() & 0x7fffffff) % STRIPES;
+    }
+
+    private static String kindOf(String key) {
+        return key.substring(0, key.indexOf('|'));
+    }
+
+    private static String workspaceOf(String key) {
+        int start = key.indexOf('|') + 1;
+        return key.substring(start, key.indexOf('|', start));
+    }
+
+    private static String key(String kind, String workspaceName, String name) {
+        return kind + "|" + workspaceName + "|" + name;
+    }
+
+    private static class Entry {
+        private final boolean exists;
+        private final long expiresAt;
+
+        private Entry(boolean exists, long expiresAt) {
+            this.exists = exists;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.geoserver.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 集群操作结果：每个节点的执行结果、耗时以及整体是否满足一致性要求
+ */
+public class ClusterReport {
+
+    /**
+     * 单个节点的执行结果
+     */
+    public static class NodeResult {
+        private final String node;
+        private final boolean success;
+        private final String message;
+        private final long elapsedMillis;
+        private volatile boolean compensated;
+
+        public NodeResult(String node, boolean success, String message, long elapsedMillis) {
+            this.node = node;
+            this.success = success;
+            this.message = message;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * @return 节点 geoserver 地址
+         */
+        public String getNode() {
+            return node;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * @return 成功后是否因整体失败而被撤销
+         */
+        public boolean isCompensated() {
+            return compensated;
+        }
+
+        void setCompensated(boolean compensated) {
+            this.compensated = compensated;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s %d ms%s%s", node, success ? "成功" : "失败", elapsedMillis,
+                    compensated ? "（已撤销）" : "", message == null ? "" : "：" + message);
+        }
+    }
+
+    private final String operation;
+    private final int required;
+    private final List<NodeResult> nodeResults = Collections.synchronizedList(new ArrayList<>());
+    private final long startedAt = System.currentTimeMillis();
+    private volatile long finishedAt;
+
+    /**
+     * @param operation 操作描述
+     * @param required  需要成功的节点数
+     */
+    public ClusterReport(String operation, int required) {
+        this.operation = operation;
+        this.required = required;
+    }
+
+    void add(NodeResult nodeResult) {
+        nodeResults.add(nodeResult);
+    }
+
+    void finish() {
+        finishedAt = System.currentTimeMillis();
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public int getRequired() {
+        return required;
+    }
+
+    public List<NodeResult> getNodeResults() {
+        synchronized (nodeResults) {
+            return new ArrayList<>(nodeResults);
+        }
+    }
+
+    public int getSucceeded() {
+        int succeeded = 0;
+        for (NodeResult nodeResult : getNodeResults()) {
+            if (nodeResult.isSuccess()) {
+                succeeded++;
+            }
+        }
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return getNodeResults().size() - getSucceeded();
+    }
+
+    /**
+     * @return 成功节点数是否达到要求
+     */
+    public boolean isSuccess() {
+        return getSucceeded() >= required;
+    }
+
+    /**
+     * @return 最慢节点的耗时
+     */
+    public long getMaxNodeMillis() {
+        long max = 0;
+        for (NodeResult nodeResult : getNodeResults()) {
+            max = Math.max(max, nodeResult.getElapsedMillis());
+        }
+        return max;
+    }
+
+    public long getElapsedMillis() {
+        return (finishedAt == 0 ? System.currentTimeMillis() : finishedAt) - startedAt;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(String.format("集群%s：%s，成功 %d/%d（要求 %d），耗时 %d ms",
+                operation, isSuccess() ? "成功" : "失败", getSucceeded(), getNodeResults().size(), required, getElapsedMillis()));
+
+        for (NodeResult nodeResult : getNodeResults()) {
+            builder.append("\n  ").append(nodeResult);
+        }
+
+        return builder.toString();
+    }
+}
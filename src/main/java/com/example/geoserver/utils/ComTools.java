@@ -1,64 +1,43 @@
 package com.example.geoserver.utils;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 public class ComTools {
     /**
-     * 读取文件内容
+     * 读取文件内容（UTF-8）
+     * 上传 SLD 等文件请使用 SldRequestEntity / FileChannelRequestEntity 流式写出，不要先读成字符串
      *
      * @param file File对象
      * @return 返回文件内容
      * @throws IOException IO 错误
      */
     public static String readFile(File file) throws IOException {
-        BufferedReader in = new BufferedReader(new FileReader(file));
-        String str;
-        StringBuilder stringBuffer = new StringBuilder();
-
-        while ((str = in.readLine()) != null) {
-            stringBuffer.append(str);
-        }
-
-        return stringBuffer.toString();
+        return readFile(file, StandardCharsets.UTF_8);
     }
 
     /**
-     * 提供curl post 请求方法
-     * @param cmds curl 命令行 String 数组
-     * @return 执行curl命令返回值 JSON
-     * @throws IOException 获取输入输出流不存在
+     * 按指定字符集读取文件内容，保留换行
+     *
+     * @param file    File对象
+     * @param charset 文件字符集
+     * @return 返回文件内容
+     * @throws IOException IO 错误
      */
-    public static String curlPost(String[] cmds) throws IOException {
-        ProcessBuilder processBuilder = new ProcessBuilder(cmds);
-
-        Process start = processBuilder.start();
-        InputStream inputStream = start.getInputStream();
-        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream));
-
-        StringBuilder stringBuilder = new StringBuilder();
-
-        bufferedReader.lines().forEach(stringBuilder::append);
-
-        return stringBuilder.toString();
+    public static String readFile(File file, Charset charset) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), charset);
     }
 
     /**
-     * 提供curl put 请求方法
-     * @param cmds curl 命令行 String 数组
-     * @return 执行curl命令返回值 JSON
-     * @throws IOException 获取输入输出流不存在
+     * 去掉最后一个扩展名，如 roads.v2.zip 为 roads.v2，发布文件时作为数据源名和图层名
+     *
+     * @param fileName 文件名
+     * @return 去掉扩展名的文件名，没有扩展名时原样返回
      */
-    public static String curlPUT(String[] cmds) throws IOException {
-        ProcessBuilder processBuilder = new ProcessBuilder(cmds);
-
-        Process start = processBuilder.start();
-        InputStream inputStream = start.getInputStream();
-        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream));
-
-        StringBuilder stringBuilder = new StringBuilder();
-
-        bufferedReader.lines().forEach(stringBuilder::append);
-
-        return stringBuilder.toString();
+    public static String baseName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot <= 0 ? fileName : fileName.substring(0, dot);
     }
 }
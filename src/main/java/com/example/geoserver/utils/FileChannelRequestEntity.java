@@ -0,0 +1,91 @@
+package com.example.geoserver.utils;
+
+import org.apache.commons.httpclient.methods.RequestEntity;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 以 FileChannel 分块写出文件的请求体，内存占用与文件大小无关，并记录写出字节数和耗时
+ * httpclient 只提供 OutputStream（外层还有计数流），目标不是 socket 通道，transferTo 会退化为经过临时缓冲区的读写，
+ * 并不是零拷贝；每个字节仍要复制到用户态，这里只保证分块流式写出
+ */
+public class FileChannelRequestEntity implements RequestEntity {
+    //  每次 transferTo 的最大字节数，实际按 JDK 内部缓冲区大小分多次写入输出流
+    public static final long CHUNK_SIZE = 8L * 1024 * 1024;
+
+    private final File file;
+    private final String contentType;
+
+    private volatile long bytesWritten;
+    private volatile long elapsedNanos;
+
+    public FileChannelRequestEntity(File file, String contentType) {
+        this.file = file;
+        this.contentType = contentType;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public void writeRequest(OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        long position = 0;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long size = channel.size();
+
+            while (position < size) {
+                position += channel.transferTo(position, Math.min(CHUNK_SIZE, size - position), target);
+                bytesWritten = position;
+            }
+        } finally {
+            bytesWritten = position;
+            elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public long getContentLength() {
+        return file.length();
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return 最近一次写出的字节数
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * @return 最近一次写出的耗时（毫秒）
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1000000;
+    }
+
+    /**
+     * @return 最近一次写出的速率（字节/秒）
+     */
+    public double getBytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : bytesWritten * 1e9 / elapsedNanos;
+    }
+}
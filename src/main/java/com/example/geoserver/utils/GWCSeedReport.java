@@ -0,0 +1,139 @@
+package com.example.geoserver.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * GWC 预生成切片结果：每个缩放级别的线程数、切片数、耗时以及整体吞吐量
+ */
+public class GWCSeedReport {
+
+    /**
+     * 单个缩放级别的结果
+     */
+    public static class Level {
+        private final int zoom;
+        private final int threadCount;
+        private final long tiles;
+        private final boolean success;
+        private final String message;
+        private final long elapsedMillis;
+
+        public Level(int zoom, int threadCount, long tiles, boolean success, String message, long elapsedMillis) {
+            this.zoom = zoom;
+            this.threadCount = threadCount;
+            this.tiles = tiles;
+            this.success = success;
+            this.message = message;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getZoom() {
+            return zoom;
+        }
+
+        /**
+         * @return 提交任务时按 geoserver 负载确定的线程数
+         */
+        public int getThreadCount() {
+            return threadCount;
+        }
+
+        /**
+         * @return 已生成的切片数
+         */
+        public long getTiles() {
+            return tiles;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("z%d %d 线程 %d 个切片 %s %d ms%s", zoom, threadCount, tiles,
+                    success ? "成功" : "失败", elapsedMillis, message == null ? "" : "：" + message);
+        }
+    }
+
+    private final String layerName;
+    private final GWCSeedRequest request;
+    private final List<Level> levels = new ArrayList<>();
+    private final long startedAt = System.currentTimeMillis();
+    private long finishedAt;
+
+    GWCSeedReport(String layerName, GWCSeedRequest request) {
+        this.layerName = layerName;
+        this.request = request;
+    }
+
+    synchronized void add(Level level) {
+        levels.add(level);
+    }
+
+    synchronized void finish() {
+        finishedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * @return 图层名称，格式为 工作空间:图层名
+     */
+    public String getLayerName() {
+        return layerName;
+    }
+
+    public GWCSeedRequest getRequest() {
+        return request;
+    }
+
+    public synchronized List<Level> getLevels() {
+        return new ArrayList<>(levels);
+    }
+
+    /**
+     * @return 所有缩放级别是否都已完成
+     */
+    public synchronized boolean isSuccess() {
+        for (Level level : levels) {
+            if (!level.isSuccess()) {
+                return false;
+            }
+        }
+        return levels.size() == request.getZoomStop() - request.getZoomStart() + 1;
+    }
+
+    public synchronized long getTiles() {
+        long tiles = 0;
+        for (Level level : levels) {
+            tiles += level.getTiles();
+        }
+        return tiles;
+    }
+
+    public synchronized long getElapsedMillis() {
+        return (finishedAt == 0 ? System.currentTimeMillis() : finishedAt) - startedAt;
+    }
+
+    /**
+     * @return 每秒生成的切片数
+     */
+    public double getTilesPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0 : getTiles() * 1000.0 / elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("预生成切片 %s（%s）：%s，%d 个切片，耗时 %d ms，%.1f 个/s",
+                layerName, request, isSuccess() ? "完成" : "未完成", getTiles(), getElapsedMillis(), getTilesPerSecond());
+    }
+}
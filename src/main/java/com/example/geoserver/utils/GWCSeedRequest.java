@@ -0,0 +1,204 @@
+package com.example.geoserver.utils;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * GWC 预生成切片任务：网格集、缩放级别范围、切片格式和范围
+ * 由 {@link GWCTileSeeder} 按缩放级别逐级提交到 /gwc/rest/seed/{工作空间}:{图层}.xml，每级的线程数按 geoserver 负载调整
+ */
+public class GWCSeedRequest {
+    private static final Pattern EPSG = Pattern.compile("^EPSG:(\\d+)$", Pattern.CASE_INSENSITIVE);
+    //  GWC 内置的 Web 墨卡托网格集使用 900913
+    private static final int GOOGLE_MERCATOR = 900913;
+    private static final int WEB_MERCATOR = 3857;
+    private static final double EARTH_RADIUS = 6378137.0;
+    //  Web 墨卡托的纬度范围
+    private static final double MAX_LATITUDE = 85.0511287798;
+
+    /**
+     * 任务类型
+     */
+    public enum Type {
+        //  只生成缺失的切片
+        SEED,
+        //  重新生成所有切片
+        RESEED,
+        //  删除切片
+        TRUNCATE
+    }
+
+    private final String gridSetId;
+    private final int zoomStart;
+    private final int zoomStop;
+    private String format = "image/png";
+    private Type type = Type.SEED;
+    private double[] bounds;
+    private int boundsCrsCode;
+
+    /**
+     * @param gridSetId 网格集名称，如 EPSG:900913，需已配置在切片图层中
+     * @param zoomStart 起始缩放级别
+     * @param zoomStop  结束缩放级别（包含）
+     */
+    public GWCSeedRequest(String gridSetId, int zoomStart, int zoomStop) {
+        if (zoomStart < 0 || zoomStop < zoomStart) {
+            throw new IllegalArgumentException(String.format("缩放级别范围错误：%d ~ %d", zoomStart, zoomStop));
+        }
+
+        this.gridSetId = gridSetId;
+        this.zoomStart = zoomStart;
+        this.zoomStop = zoomStop;
+    }
+
+    public String getGridSetId() {
+        return gridSetId;
+    }
+
+    public int getZoomStart() {
+        return zoomStart;
+    }
+
+    public int getZoomStop() {
+        return zoomStop;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * @param format 切片格式，如 image/png，需已配置在切片图层中
+     */
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * 只生成范围内的切片，不设置时为图层的整个范围
+     *
+     * @param minX    最小 x
+     * @param minY    最小 y
+     * @param maxX    最大 x
+     * @param maxY    最大 y
+     * @param crsCode 范围的坐标系代码，一般与网格集相同
+     */
+    public void setBounds(double minX, double minY, double maxX, double maxY, int crsCode) {
+        this.bounds = new double[]{minX, minY, maxX, maxY};
+        this.boundsCrsCode = crsCode;
+    }
+
+    /**
+     * @return 范围 [minX, minY, maxX, maxY]，未设置时为 null
+     */
+    public double[] getBounds() {
+        return bounds == null ? null : bounds.clone();
+    }
+
+    public int getBoundsCrsCode() {
+        return boundsCrsCode;
+    }
+
+    /**
+     * 未设置范围时以图层范围限定预生成范围，避免生成网格集中图层范围以外的空切片
+     * 网格集坐标系与原生坐标系相同时使用原生范围，为 EPSG:4326 或 Web 墨卡托时由经纬度范围换算
+     *
+     * @param nativeBounds  图层原生范围 [minX, minY, maxX, maxY]，未知时为 null
+     * @param nativeCrsCode 原生坐标系代码，未知时为 0
+     * @param latLonBounds  图层经纬度范围，未知时为 null
+     * @return 已设置范围或无法换算到网格集坐标系时为本任务，否则为设置了图层范围的副本
+     */
+    public GWCSeedRequest withLayerBounds(double[] nativeBounds, int nativeCrsCode, double[] latLonBounds) {
+        if (bounds != null) {
+            return this;
+        }
+
+        int gridSetCrsCode = epsgCode(gridSetId);
+        double[] layerBounds = null;
+
+        if (gridSetCrsCode == 0) {
+            return this;
+        } else if (gridSetCrsCode == nativeCrsCode && nativeBounds != null) {
+            layerBounds = nativeBounds;
+        } else if (gridSetCrsCode == 4326 && latLonBounds != null) {
+            layerBounds = latLonBounds;
+        } else if ((gridSetCrsCode == GOOGLE_MERCATOR || gridSetCrsCode == WEB_MERCATOR) && latLonBounds != null) {
+            layerBounds = new double[]{
+                    mercatorX(latLonBounds[0]), mercatorY(latLonBounds[1]), mercatorX(latLonBounds[2]), mercatorY(latLonBounds[3])
+            };
+        }
+
+        if (layerBounds == null) {
+            return this;
+        }
+
+        GWCSeedRequest copy = new GWCSeedRequest(gridSetId, zoomStart, zoomStop);
+        copy.setFormat(format);
+        copy.setType(type);
+        copy.setBounds(layerBounds[0], layerBounds[1], layerBounds[2], layerBounds[3], gridSetCrsCode);
+
+        return copy;
+    }
+
+    /**
+     * @param srs 坐标系，如 EPSG:4326
+     * @return EPSG 代码，不是 EPSG:代码 形式时为 0
+     */
+    static int epsgCode(String srs) {
+        Matcher matcher = EPSG.matcher(srs == null ? "" : srs.trim());
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : 0;
+    }
+
+    private static double mercatorX(double longitude) {
+        return Math.toRadians(longitude) * EARTH_RADIUS;
+    }
+
+    private static double mercatorY(double latitude) {
+        double clamped = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude));
+        return Math.log(Math.tan(Math.PI / 4 + Math.toRadians(clamped) / 2)) * EARTH_RADIUS;
+    }
+
+    /**
+     * 生成一个缩放级别的任务
+     *
+     * @param layerName   图层名称，格式为 工作空间:图层名
+     * @param zoom        缩放级别
+     * @param threadCount geoserver 执行该任务的线程数
+     * @return seedRequest XML
+     */
+    String toXml(String layerName, int zoom, int threadCount) {
+        StringBuilder xml = new StringBuilder("<seedRequest>");
+
+        xml.append("<name>").append(layerName).append("</name>");
+        if (bounds != null) {
+            xml.append("<bounds><coords>");
+            for (double coord : bounds) {
+                xml.append("<double>").append(coord).append("</double>");
+            }
+            xml.append("</coords></bounds>");
+            xml.append("<srs><number>").append(boundsCrsCode).append("</number></srs>");
+        }
+        xml.append("<gridSetId>").append(gridSetId).append("</gridSetId>");
+        xml.append("<zoomStart>").append(zoom).append("</zoomStart>");
+        xml.append("<zoomStop>").append(zoom).append("</zoomStop>");
+        xml.append("<format>").append(format).append("</format>");
+        xml.append("<type>").append(type.name().toLowerCase(Locale.ROOT)).append("</type>");
+        xml.append("<threadCount>").append(threadCount).append("</threadCount>");
+
+        return xml.append("</seedRequest>").toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s z%d-%d %s", type, gridSetId, zoomStart, zoomStop, format);
+    }
+}
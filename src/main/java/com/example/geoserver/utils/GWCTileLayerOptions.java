@@ -0,0 +1,278 @@
+package com.example.geoserver.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * GeoWebCache 切片图层配置：网格集、图片和矢量切片格式、元切片、边缘缓冲、过期时间和参数过滤器
+ * 通过 GWC REST 接口 /gwc/rest/layers/{工作空间}:{图层}.xml 写入，发布图层时一并配置
+ */
+public class GWCTileLayerOptions {
+    //  Mapbox 矢量切片格式，只用于矢量图层
+    public static final String VECTOR_TILE_FORMAT = "application/vnd.mapbox-vector-tile";
+
+    private List<String> gridSets = new ArrayList<>(Arrays.asList("EPSG:4326", "EPSG:900913"));
+    private List<String> imageFormats = new ArrayList<>(Arrays.asList("image/png", "image/jpeg"));
+    private List<String> vectorFormats = new ArrayList<>();
+    private int metaTilingX = 4;
+    private int metaTilingY = 4;
+    private int gutter = 0;
+    private int expireClients = 0;
+    private int expireCache = 0;
+    private final List<ParameterFilter> parameterFilters = new ArrayList<>();
+    private final List<GWCSeedRequest> seedRequests = new ArrayList<>();
+
+    /**
+     * 参数过滤器：请求中该参数的不同取值分别缓存，不在允许范围内的取值不缓存
+     */
+    public static class ParameterFilter {
+        private final String element;
+        private final String key;
+        private final String defaultValue;
+        private final List<String> values;
+        private final String regex;
+
+        private ParameterFilter(String element, String key, String defaultValue, List<String> values, String regex) {
+            this.element = element;
+            this.key = key;
+            this.defaultValue = defaultValue;
+            this.values = values;
+            this.regex = regex;
+        }
+
+        /**
+         * @param key          参数名，如 BGCOLOR
+         * @param defaultValue 默认值
+         * @param values       允许的取值
+         * @return 取值列表过滤器
+         */
+        public static ParameterFilter string(String key, String defaultValue, String... values) {
+            return new ParameterFilter("stringParameterFilter", key, defaultValue, Arrays.asList(values), null);
+        }
+
+        /**
+         * @param key          参数名，如 CQL_FILTER
+         * @param defaultValue 默认值
+         * @param regex        允许取值的正则表达式
+         * @return 正则表达式过滤器
+         */
+        public static ParameterFilter regex(String key, String defaultValue, String regex) {
+            return new ParameterFilter("regexParameterFilter", key, defaultValue, Collections.emptyList(), regex);
+        }
+
+        /**
+         * @param defaultStyle  默认样式，为空时为图层默认样式
+         * @param allowedStyles 允许的样式，为空时允许图层的所有样式
+         * @return 样式过滤器
+         */
+        public static ParameterFilter styles(String defaultStyle, String... allowedStyles) {
+            return new ParameterFilter("styleParameterFilter", "STYLES", defaultStyle, Arrays.asList(allowedStyles), null);
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        private void appendTo(StringBuilder xml) {
+            xml.append('<').append(element).append('>');
+            element(xml, "key", key);
+            element(xml, "defaultValue", defaultValue == null ? "" : defaultValue);
+
+            if (regex != null) {
+                element(xml, "regex", regex);
+            }
+            if (!values.isEmpty()) {
+                strings(xml, "styleParameterFilter".equals(element) ? "allowedStyles" : "values", values);
+            }
+
+            xml.append("</").append(element).append('>');
+        }
+    }
+
+    public List<String> getGridSets() {
+        return new ArrayList<>(gridSets);
+    }
+
+    /**
+     * @param gridSets 网格集名称，如 EPSG:4326、EPSG:900913，需已在 GWC 中定义
+     */
+    public void setGridSets(String... gridSets) {
+        this.gridSets = new ArrayList<>(Arrays.asList(gridSets));
+    }
+
+    public List<String> getImageFormats() {
+        return new ArrayList<>(imageFormats);
+    }
+
+    /**
+     * @param imageFormats 图片切片格式，如 image/png、image/jpeg
+     */
+    public void setImageFormats(String... imageFormats) {
+        this.imageFormats = new ArrayList<>(Arrays.asList(imageFormats));
+    }
+
+    public List<String> getVectorFormats() {
+        return new ArrayList<>(vectorFormats);
+    }
+
+    /**
+     * @param vectorFormats 矢量切片格式，如 {@link #VECTOR_TILE_FORMAT}，只对矢量图层生效
+     */
+    public void setVectorFormats(String... vectorFormats) {
+        this.vectorFormats = new ArrayList<>(Arrays.asList(vectorFormats));
+    }
+
+    public int getMetaTilingX() {
+        return metaTilingX;
+    }
+
+    public int getMetaTilingY() {
+        return metaTilingY;
+    }
+
+    /**
+     * 元切片：一次渲染 x * y 个切片再切分，减少渲染次数和切片边缘的标注截断
+     *
+     * @param metaTilingX 横向切片数
+     * @param metaTilingY 纵向切片数
+     */
+    public void setMetaTiling(int metaTilingX, int metaTilingY) {
+        this.metaTilingX = Math.max(1, metaTilingX);
+        this.metaTilingY = Math.max(1, metaTilingY);
+    }
+
+    public int getGutter() {
+        return gutter;
+    }
+
+    /**
+     * @param gutter 元切片四周额外渲染的像素，避免符号在切片边缘被截断
+     */
+    public void setGutter(int gutter) {
+        this.gutter = Math.max(0, gutter);
+    }
+
+    public int getExpireClients() {
+        return expireClients;
+    }
+
+    /**
+     * @param expireClients 客户端缓存时间（秒），写入 Cache-Control 响应头，0 为不设置
+     */
+    public void setExpireClients(int expireClients) {
+        this.expireClients = expireClients;
+    }
+
+    public int getExpireCache() {
+        return expireCache;
+    }
+
+    /**
+     * @param expireCache 服务端切片过期时间（秒），0 为永不过期
+     */
+    public void setExpireCache(int expireCache) {
+        this.expireCache = expireCache;
+    }
+
+    public List<ParameterFilter> getParameterFilters() {
+        return new ArrayList<>(parameterFilters);
+    }
+
+    public void addParameterFilter(ParameterFilter parameterFilter) {
+        parameterFilters.add(parameterFilter);
+    }
+
+    public List<GWCSeedRequest> getSeedRequests() {
+        return new ArrayList<>(seedRequests);
+    }
+
+    /**
+     * 切片图层配置成功后由 {@link GWCTileSeeder} 在后台执行的预生成任务
+     * 发布图层时传入各自的配置即可为每个图层指定不同的任务；任务未设置范围时限定在发布时计算出的图层范围内
+     *
+     * @param seedRequest 预生成任务，网格集和格式需在本配置中
+     */
+    public void addSeedRequest(GWCSeedRequest seedRequest) {
+        seedRequests.add(seedRequest);
+    }
+
+    /**
+     * 生成 GWC 切片图层配置
+     *
+     * @param layerName 图层名称，格式为 工作空间:图层名
+     * @param vector    是否为矢量图层，矢量图层才配置矢量切片格式
+     * @return GeoServerLayer XML
+     */
+    public String toXml(String layerName, boolean vector) {
+        StringBuilder xml = new StringBuilder("<GeoServerLayer>");
+
+        element(xml, "enabled", "true");
+        element(xml, "name", layerName);
+
+        List<String> formats = new ArrayList<>(imageFormats);
+        if (vector) {
+            formats.addAll(vectorFormats);
+        }
+        strings(xml, "mimeFormats", formats);
+
+        xml.append("<gridSubsets>");
+        for (String gridSet : gridSets) {
+            xml.append("<gridSubset>");
+            element(xml, "gridSetName", gridSet);
+            xml.append("</gridSubset>");
+        }
+        xml.append("</gridSubsets>");
+
+        xml.append("<metaWidthHeight><int>").append(metaTilingX).append("</int><int>").append(metaTilingY).append("</int></metaWidthHeight>");
+        element(xml, "expireCache", String.valueOf(expireCache));
+        element(xml, "expireClients", String.valueOf(expireClients));
+
+        if (!parameterFilters.isEmpty()) {
+            xml.append("<parameterFilters>");
+            for (ParameterFilter parameterFilter : parameterFilters) {
+                parameterFilter.appendTo(xml);
+            }
+            xml.append("</parameterFilters>");
+        }
+
+        element(xml, "gutter", String.valueOf(gutter));
+
+        return xml.append("</GeoServerLayer>").toString();
+    }
+
+    private static void strings(StringBuilder xml, String name, List<String> values) {
+        xml.append('<').append(name).append('>');
+        for (String value : values) {
+            element(xml, "string", value);
+        }
+        xml.append("</").append(name).append('>');
+    }
+
+    private static void element(StringBuilder xml, String name, String value) {
+        xml.append('<').append(name).append('>');
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    xml.append("&lt;");
+                    break;
+                case '>':
+                    xml.append("&gt;");
+                    break;
+                case '&':
+                    xml.append("&amp;");
+                    break;
+                case '"':
+                    xml.append("&quot;");
+                    break;
+                default:
+                    xml.append(c);
+            }
+        }
+
+        xml.append("</").append(name).append('>');
+    }
+}
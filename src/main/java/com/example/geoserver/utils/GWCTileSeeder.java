@@ -0,0 +1,300 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.constant.AcceptType;
+import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * GWC 预生成切片：按缩放级别逐级提交 seed 任务并轮询进度，统计切片数和每秒切片数
+ * 每级的线程数按 geoserver 负载加性增、乘性减（AIMD）：轮询延迟超过基线的 tolerance 倍或轮询失败时减半，否则加 1，
+ * 低级别切片少、线程数从 1 开始，到切片多的高级别时已按 geoserver 的承受能力调整到合适的线程数
+ * 线程安全，同一实例的后台任务依次执行，避免多个图层同时预生成压垮 geoserver
+ */
+public class GWCTileSeeder {
+    private static final Logger logger = LoggerFactory.getLogger(GWCTileSeeder.class);
+
+    //  默认每个任务的最大线程数
+    public static final int DEFAULT_MAX_THREADS = 4;
+    //  默认轮询间隔（毫秒）
+    public static final long DEFAULT_POLL_INTERVAL = 2000;
+    //  轮询延迟超过基线多少倍视为过载
+    public static final double DEFAULT_TOLERANCE = 2.0;
+    //  每多少次轮询重新测量延迟基线
+    public static final int WINDOW_SIZE = 20;
+
+    //  任务状态：[已生成切片数, 切片总数, 预计剩余秒数, 任务 ID, 状态]
+    private static final Pattern TASK = Pattern.compile("\\[\\s*(-?\\d+)\\s*,\\s*(-?\\d+)\\s*,\\s*(-?\\d+)\\s*,\\s*(-?\\d+)\\s*,\\s*(-?\\d+)\\s*]");
+    private static final int ABORTED = -1;
+    private static final int PENDING = 0;
+    private static final int RUNNING = 1;
+
+    private final GeoServerRESTClient restClient;
+    private final int maxThreads;
+    private final double tolerance;
+    private final ExecutorService executor;
+
+    private volatile long pollInterval = DEFAULT_POLL_INTERVAL;
+    private volatile long levelTimeout = 0;
+
+    //  以下由 this 保护
+    private int threadCount = 1;
+    private long baselineNanos;
+    private long windowMinNanos = Long.MAX_VALUE;
+    private int windowSamples;
+
+    public GWCTileSeeder(GeoServerRESTClient restClient) {
+        this(restClient, DEFAULT_MAX_THREADS, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * @param restClient geoserver 连接池客户端，GWC 与 REST 接口在同一 geoserver 下
+     * @param maxThreads 每个任务的最大线程数
+     * @param tolerance  轮询延迟超过基线多少倍视为过载
+     */
+    public GWCTileSeeder(GeoServerRESTClient restClient, int maxThreads, double tolerance) {
+        this.restClient = restClient;
+        this.maxThreads = Math.max(1, maxThreads);
+        this.tolerance = tolerance;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "geoserver-gwc-seed");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param pollInterval 轮询任务进度的间隔（毫秒）
+     */
+    public void setPollInterval(long pollInterval) {
+        this.pollInterval = Math.max(1, pollInterval);
+    }
+
+    /**
+     * @param levelTimeout 每个缩放级别的最长时间（毫秒），超时后终止该图层的任务，0 为不限制
+     */
+    public void setLevelTimeout(long levelTimeout) {
+        this.levelTimeout = Math.max(0, levelTimeout);
+    }
+
+    /**
+     * @return 下一个任务使用的线程数
+     */
+    public synchronized int getThreadCount() {
+        return threadCount;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * 在后台依次执行预生成任务，完成后记录日志，不阻塞发布
+     *
+     * @param workspaceName 工作空间名称
+     * @param layerName     图层名称
+     * @param requests      预生成任务
+     * @return 各任务的结果
+     */
+    public Future<List<GWCSeedReport>> submit(String workspaceName, String layerName, List<GWCSeedRequest> requests) {
+        List<GWCSeedRequest> pending = new ArrayList<>(requests);
+
+        return executor.submit(() -> {
+            List<GWCSeedReport> reports = new ArrayList<>();
+
+            for (GWCSeedRequest request : pending) {
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                reports.add(seed(workspaceName, layerName, request));
+            }
+
+            return reports;
+        });
+    }
+
+    /**
+     * 逐级提交预生成任务并等待完成，某一级失败后不再提交后续级别
+     * 图层上已有的其他任务也计入进度，等待其一并完成
+     *
+     * @param workspaceName 工作空间名称
+     * @param layerName     图层名称，需已配置切片图层
+     * @param request       预生成任务
+     * @return 预生成结果
+     */
+    public GWCSeedReport seed(String workspaceName, String layerName, GWCSeedRequest request) {
+        String qualifiedName = workspaceName + ":" + layerName;
+        GWCSeedReport report = new GWCSeedReport(qualifiedName, request);
+
+        String path = GeoServerRESTClient.path("/gwc/rest/seed/%s:%s", workspaceName, layerName);
+
+        for (int zoom = request.getZoomStart(); zoom <= request.getZoomStop(); zoom++) {
+            GWCSeedReport.Level level = seedLevel(path, qualifiedName, request, zoom);
+            report.add(level);
+
+            if (!level.isSuccess()) {
+                break;
+            }
+        }
+
+        report.finish();
+        if (report.isSuccess()) {
+            logger.info(report.toString());
+        } else {
+            logger.warn(report + "，" + report.getLevels());
+        }
+
+        return report;
+    }
+
+    /**
+     * @param path          已编码的任务路径，不含扩展名
+     * @param qualifiedName 图层名称，格式为 工作空间:图层名
+     */
+    private GWCSeedReport.Level seedLevel(String path, String qualifiedName, GWCSeedRequest request, int zoom) {
+        int threads = getThreadCount();
+        long start = System.currentTimeMillis();
+
+        RESTResponse launched = restClient.postXml(path + ".xml", request.toXml(qualifiedName, zoom, threads));
+        if (!launched.isSuccess()) {
+            adjust(true);
+            return new GWCSeedReport.Level(zoom, threads, 0, false, "提交任务失败：" + launched.getStatusCode(), System.currentTimeMillis() - start);
+        }
+
+        //  任务 ID -> [已生成切片数, 切片总数]，完成的任务不再出现在进度中，以最后一次的切片总数计
+        Map<Long, long[]> tasks = new HashMap<>();
+        boolean overloaded = false;
+
+        try {
+            while (true) {
+                TimeUnit.MILLISECONDS.sleep(pollInterval);
+
+                long pollStart = System.nanoTime();
+                RESTResponse progress = restClient.get(path + ".json", AcceptType.JSON);
+                long latencyNanos = System.nanoTime() - pollStart;
+
+                if (progress.isSuccess()) {
+                    overloaded |= overloaded(latencyNanos);
+
+                    boolean running = false;
+                    Matcher m = TASK.matcher(progress.getBody());
+                    while (m.find()) {
+                        int state = Integer.parseInt(m.group(5));
+                        if (state == ABORTED) {
+                            adjust(true);
+                            return new GWCSeedReport.Level(zoom, threads, tiles(tasks), false, "任务被终止", System.currentTimeMillis() - start);
+                        }
+
+                        tasks.put(Long.parseLong(m.group(4)), new long[]{Long.parseLong(m.group(1)), Long.parseLong(m.group(2))});
+                        running |= state == PENDING || state == RUNNING;
+                    }
+
+                    if (!running) {
+                        break;
+                    }
+                } else {
+                    overloaded = true;
+                }
+
+                if (levelTimeout > 0 && System.currentTimeMillis() - start > levelTimeout) {
+                    kill(path);
+                    adjust(true);
+                    return new GWCSeedReport.Level(zoom, threads, progress(tasks), false, "超时，已终止任务", System.currentTimeMillis() - start);
+                }
+            }
+        } catch (InterruptedException e) {
+            kill(path);
+            Thread.currentThread().interrupt();
+            return new GWCSeedReport.Level(zoom, threads, progress(tasks), false, "被中断，已终止任务", System.currentTimeMillis() - start);
+        }
+
+        adjust(overloaded);
+
+        return new GWCSeedReport.Level(zoom, threads, tiles(tasks), true, null, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 终止图层上的所有任务
+     */
+    private void kill(String path) {
+        byte[] form = "kill_all=all".getBytes(StandardCharsets.UTF_8);
+        RESTResponse killed = restClient.post(path, new ByteArrayRequestEntity(form, "application/x-www-form-urlencoded"), AcceptType.XML);
+
+        if (!killed.isSuccess()) {
+            logger.warn(String.format("终止 %s 的切片任务失败：%s", path, killed));
+        }
+    }
+
+    /**
+     * @return 已完成任务的切片数
+     */
+    private static long tiles(Map<Long, long[]> tasks) {
+        long tiles = 0;
+        for (long[] task : tasks.values()) {
+            tiles += Math.max(task[0], task[1]);
+        }
+        return tiles;
+    }
+
+    /**
+     * @return 未完成任务最后一次轮询时已生成的切片数
+     */
+    private static long progress(Map<Long, long[]> tasks) {
+        long tiles = 0;
+        for (long[] task : tasks.values()) {
+            tiles += task[0];
+        }
+        return tiles;
+    }
+
+    /**
+     * 记录轮询延迟，基线为最近一个窗口内的最小延迟
+     *
+     * @return 延迟是否超过基线的 tolerance 倍
+     */
+    private synchronized boolean overloaded(long latencyNanos) {
+        windowMinNanos = Math.min(windowMinNanos, latencyNanos);
+        if (baselineNanos == 0 || latencyNanos < baselineNanos) {
+            baselineNanos = latencyNanos;
+        }
+        if (++windowSamples >= WINDOW_SIZE) {
+            baselineNanos = windowMinNanos;
+            windowMinNanos = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+
+        return latencyNanos > baselineNanos * tolerance;
+    }
+
+    /**
+     * 过载时线程数减半，否则加 1
+     */
+    private synchronized void adjust(boolean overloaded) {
+        threadCount = overloaded ? Math.max(1, threadCount / 2) : Math.min(maxThreads, threadCount + 1);
+    }
+
+    /**
+     * 终止后台预生成线程，正在执行的缩放级别的 geoserver 任务一并终止
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("GWCTileSeeder{threads=%d/%d, baseline=%.1f ms}",
+                threadCount, maxThreads, baselineNanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.error.ErrorException;
+import com.example.geoserver.error.ExistedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量发布目录或清单中的 shp zip、.shp 和 GeoTIFF 文件
+ * 基于 GeoServerManager 的发布方法并发执行，并发数可配置
+ */
+public class GeoServerBulkPublisher {
+    private static final Logger logger = LoggerFactory.getLogger(GeoServerBulkPublisher.class);
+
+    //  默认并发数
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private final GeoServerManager manager;
+    private final int parallelism;
+
+    public GeoServerBulkPublisher(GeoServerManager manager) {
+        this(manager, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * @param manager     geoserver 发布管理
+     * @param parallelism 同时发布的文件数
+     */
+    public GeoServerBulkPublisher(GeoServerManager manager, int parallelism) {
+        this.manager = manager;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * 发布目录下（不含子目录）的所有 shp zip、.shp 和 GeoTIFF 文件，文件名即为图层名，已存在的图层跳过
+     *
+     * @param workspaceName 工作空间名称
+     * @param directory     文件目录
+     * @param crsCode       shp 坐标系代码
+     * @return 批量发布结果
+     * @throws ErrorException 目录不存在
+     */
+    public BulkPublishReport publishDirectory(String workspaceName, File directory, int crsCode) throws ErrorException {
+        File[] files = directory.listFiles(File::isFile);
+
+        if (files == null) {
+            throw new ErrorException("目录不存在：" + directory.getPath());
+        }
+
+        Arrays.sort(files);
+
+        return publish(workspaceName, Arrays.asList(files), crsCode);
+    }
+
+    /**
+     * 发布清单文件中列出的文件，每行一个文件路径，忽略空行和 # 开头的注释行
+     *
+     * @param workspaceName 工作空间名称
+     * @param manifestFile  清单文件
+     * @param crsCode       shp 坐标系代码
+     * @return 批量发布结果
+     * @throws IOException 读取清单文件错误
+     */
+    public BulkPublishReport publishManifest(String workspaceName, File manifestFile, int crsCode) throws IOException {
+        List<File> files = new ArrayList<>();
+
+        for (String line : Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+            String path = line.trim();
+
+            if (!path.isEmpty() && !path.startsWith("#")) {
+                files.add(new File(path));
+            }
+        }
+
+        return publish(workspaceName, files, crsCode);
+    }
+
+    /**
+     * 并发发布文件列表
+     * 文件名（不含扩展名）相同的文件发布为同一图层，只发布其中一个：同名的 .shp 优先于 .zip，其余按列表顺序取第一个，
+     * 其他文件记为重复跳过，避免并发发布时都通过存在性检查后上传到同一数据源
+     *
+     * @param workspaceName 工作空间名称
+     * @param files         要发布的文件
+     * @param crsCode       shp 坐标系代码
+     * @return 批量发布结果
+     */
+    public BulkPublishReport publish(String workspaceName, List<File> files, int crsCode) {
+        BulkPublishReport report = new BulkPublishReport();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+
+        try {
+            for (File file : dedupe(files, report)) {
+                executor.execute(() -> report.add(publishFile(workspaceName, file, crsCode)));
+            }
+
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            report.finish();
+        }
+
+        logger.info(report.toString());
+
+        return report;
+    }
+
+    /**
+     * 根据扩展名判断文件类型
+     *
+     * @param file 文件
+     * @return 文件类型
+     */
+    public static BulkPublishReport.FileType classify(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+
+        if (name.endsWith(".zip") || name.endsWith(".shp")) {
+            return BulkPublishReport.FileType.SHP;
+        }
+
+        if (name.endsWith(".tif") || name.endsWith(".tiff")) {
+            return BulkPublishReport.FileType.GEOTIFF;
+        }
+
+        return BulkPublishReport.FileType.UNSUPPORTED;
+    }
+
+    /**
+     * 按图层名去重，重复的文件直接计入批量发布结果
+     *
+     * @return 要发布的文件，保持列表顺序
+     */
+    private static List<File> dedupe(List<File> files, BulkPublishReport report) {
+        Map<String, File> layers = new LinkedHashMap<>();
+        List<File> duplicates = new ArrayList<>();
+
+        for (File file : files) {
+            if (classify(file) == BulkPublishReport.FileType.UNSUPPORTED) {
+                continue;
+            }
+
+            File existing = layers.putIfAbsent(layerName(file), file);
+            if (existing == null) {
+                continue;
+            }
+
+            if (isShp(file) && !isShp(existing)) {
+                layers.put(layerName(file), file);
+                duplicates.add(existing);
+            } else {
+                duplicates.add(file);
+            }
+        }
+
+        for (File duplicate : duplicates) {
+            String message = "与 " + layers.get(layerName(duplicate)).getName() + " 发布为同一图层";
+            report.add(new BulkPublishReport.Outcome(duplicate, BulkPublishReport.FileType.DUPLICATE, false, message, 0));
+        }
+
+        List<File> unique = new ArrayList<>();
+        for (File file : files) {
+            BulkPublishReport.FileType fileType = classify(file);
+            if (fileType == BulkPublishReport.FileType.UNSUPPORTED || layers.get(layerName(file)) == file) {
+                unique.add(file);
+            }
+        }
+
+        return unique;
+    }
+
+    /**
+     * @return 图层名，即文件名去掉扩展名
+     */
+    private static String layerName(File file) {
+        return ComTools.baseName(file.getName());
+    }
+
+    private static boolean isShp(File file) {
+        return file.getName().toLowerCase(Locale.ROOT).endsWith(".shp");
+    }
+
+    private BulkPublishReport.Outcome publishFile(String workspaceName, File file, int crsCode) {
+        BulkPublishReport.FileType fileType = classify(file);
+        long start = System.currentTimeMillis();
+
+        try {
+            boolean success;
+
+            switch (fileType) {
+                case SHP:
+                    success = manager.createShpLayer(workspaceName, file, crsCode);
+                    break;
+                case GEOTIFF:
+                    success = manager.createGeoTIFFLayer(workspaceName, layerName(file), file);
+                    break;
+                default:
+                    return new BulkPublishReport.Outcome(file, fileType, false, "不支持的文件类型", 0);
+            }
+
+            return new BulkPublishReport.Outcome(file, fileType, success, null, System.currentTimeMillis() - start);
+        } catch (ExistedException e) {
+            //  图层已存在时跳过，重复执行批量发布只发布新增的文件
+            return new BulkPublishReport.Outcome(file, BulkPublishReport.FileType.EXISTING, false, e.getMessage(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            return new BulkPublishReport.Outcome(file, fileType, false, e.getMessage(), System.currentTimeMillis() - start);
+        }
+    }
+}
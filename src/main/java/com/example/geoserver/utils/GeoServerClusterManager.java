@@ -0,0 +1,318 @@
+package com.example.geoserver.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 多个 geoserver 节点（不共享数据目录）的发布管理
+ * 每个创建、删除操作并发地在所有节点上执行，按一致性要求判断整体是否成功，
+ * 创建操作整体失败时撤销已成功节点上的结果，线程安全
+ */
+public class GeoServerClusterManager {
+    private static final Logger logger = LoggerFactory.getLogger(GeoServerClusterManager.class);
+
+    //  每个节点默认同时执行的操作数
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    public enum Consistency {
+        /**
+         * 所有节点都成功才算成功，否则撤销已成功的节点
+         */
+        ALL,
+        /**
+         * 超过半数节点成功即算成功，未达到半数时撤销已成功的节点
+         */
+        QUORUM
+    }
+
+    /**
+     * 在单个节点上执行的操作
+     */
+    @FunctionalInterface
+    public interface NodeOperation {
+        Boolean apply(GeoServerManager manager) throws Exception;
+    }
+
+    private final List<GeoServerManager> nodes;
+    private final Consistency consistency;
+    private final ExecutorService executor;
+
+    public GeoServerClusterManager(List<GeoServerManager> nodes, Consistency consistency) {
+        this(nodes, consistency, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * @param nodes       每个节点的发布管理
+     * @param consistency 一致性要求
+     * @param parallelism 每个节点同时执行的操作数
+     */
+    public GeoServerClusterManager(List<GeoServerManager> nodes, Consistency consistency, int parallelism) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("集群至少需要一个节点");
+        }
+
+        this.nodes = new ArrayList<>(nodes);
+        this.consistency = consistency;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "geoserver-cluster-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = Executors.newFixedThreadPool(this.nodes.size() * Math.max(1, parallelism), threadFactory);
+    }
+
+    public List<GeoServerManager> getNodes() {
+        return new ArrayList<>(nodes);
+    }
+
+    public Consistency getConsistency() {
+        return consistency;
+    }
+
+    /**
+     * @return 整体成功需要成功的节点数
+     */
+    public int getRequired() {
+        return consistency == Consistency.ALL ? nodes.size() : nodes.size() / 2 + 1;
+    }
+
+    /**
+     * 创建工作空间
+     *
+     * @param workspaceName 工作空间名称
+     * @return 集群操作结果
+     */
+    public ClusterReport createWorkspace(String workspaceName) {
+        return execute("创建工作空间 " + workspaceName,
+                manager -> manager.createWorkspace(workspaceName),
+                manager -> manager.removeWorkspace(workspaceName));
+    }
+
+    /**
+     * 创建 shp 图层，shp 文件名则为数据源、图层名
+     *
+     * @param workspaceName 工作空间
+     * @param shpFile       shp Zip 文件、.shp 文件或 shp 所在目录
+     * @param crsCode       坐标系代码
+     * @return 集群操作结果
+     */
+    public ClusterReport createShpLayer(String workspaceName, File shpFile, int crsCode) {
+        return execute("创建 shp 图层 " + workspaceName + ":" + shpFile.getName(),
+                manager -> manager.createShpLayer(workspaceName, shpFile, crsCode),
+                manager -> manager.removeDataStore(workspaceName, GeoServerManager.shpLayerName(shpFile)));
+    }
+
+    /**
+     * 流式上传 shp zip 到数据源，并发布为图层
+     *
+     * @param workspaceName 工作空间
+     * @param storeName     数据源名称
+     * @param layerName     图层名称，同时为 zip 中 shp 的文件名
+     * @param zipFile       shp Zip 文件、.shp 文件或 shp 所在目录
+     * @param crsName       坐标系，如 EPSG:4326
+     * @param styleName     默认样式，为 null 时使用 geoserver 默认样式
+     * @param charset       dbf 字符集，为 null 时使用 geoserver 默认字符集
+     * @return 集群操作结果
+     */
+    public ClusterReport publishShpZip(
+            String workspaceName,
+            String storeName,
+            String layerName,
+            File zipFile,
+            String crsName,
+            String styleName,
+            String charset
+    ) {
+        return execute("发布 shp " + workspaceName + ":" + layerName,
+                manager -> manager.publishShpZip(workspaceName, storeName, layerName, zipFile, crsName, styleName, charset),
+                manager -> manager.removeDataStore(workspaceName, storeName));
+    }
+
+    /**
+     * 创建 GeoTIFF 图层，数据源名与图层名相同
+     *
+     * @param workspaceName 工作空间名称
+     * @param layerName     图层名称
+     * @param tifFile       tif 文件对象
+     * @return 集群操作结果
+     */
+    public ClusterReport createGeoTIFFLayer(String workspaceName, String layerName, File tifFile) {
+        return execute("创建 GeoTIFF 图层 " + workspaceName + ":" + layerName,
+                manager -> manager.createGeoTIFFLayer(workspaceName, layerName, tifFile),
+                manager -> manager.removeCoverageStores(workspaceName, layerName));
+    }
+
+    /**
+     * 在指定工作空间下创建图层组
+     *
+     * @param workspaceName  工作空间名称
+     * @param layerGroupName 图层组名称
+     * @param layersList     图层名称列表，格式为 工作空间:图层名
+     * @return 集群操作结果
+     */
+    public ClusterReport createLayerGroup(String workspaceName, String layerGroupName, ArrayList<String> layersList) {
+        return execute("创建图层组 " + workspaceName + ":" + layerGroupName,
+                manager -> manager.createLayerGroup(workspaceName, layerGroupName, layersList),
+                manager -> manager.removeLayerGroup(workspaceName, layerGroupName));
+    }
+
+    /**
+     * 发布工作空间下的样式，样式可能在部分节点上已存在，失败时不撤销
+     *
+     * @param workspaceName 工作空间名称
+     * @param sldFile       sld 文件对象
+     * @param styleName     样式名称
+     * @return 集群操作结果
+     */
+    public ClusterReport publishStyle(String workspaceName, File sldFile, String styleName) {
+        return execute("发布样式 " + workspaceName + ":" + styleName,
+                manager -> manager.publishStyle(workspaceName, sldFile, styleName), null);
+    }
+
+    public ClusterReport removeWorkspace(String workspaceName) {
+        return execute("删除工作空间 " + workspaceName, manager -> manager.removeWorkspace(workspaceName), null);
+    }
+
+    public ClusterReport removeDataStore(String workspaceName, String dataStoreName) {
+        return execute("删除数据源 " + workspaceName + ":" + dataStoreName,
+                manager -> manager.removeDataStore(workspaceName, dataStoreName), null);
+    }
+
+    public ClusterReport removeCoverageStores(String workspaceName, String coverageStoresName) {
+        return execute("删除栅格数据源 " + workspaceName + ":" + coverageStoresName,
+                manager -> manager.removeCoverageStores(workspaceName, coverageStoresName), null);
+    }
+
+    public ClusterReport removeLayer(String workspaceName, String layerName) {
+        return execute("删除图层 " + workspaceName + ":" + layerName,
+                manager -> manager.removeLayer(workspaceName, layerName), null);
+    }
+
+    public ClusterReport removeLayerGroup(String workspaceName, String layerGroupName) {
+        return execute("删除图层组 " + workspaceName + ":" + layerGroupName,
+                manager -> manager.removeLayerGroup(workspaceName, layerGroupName), null);
+    }
+
+    public ClusterReport removeStyleFromWorkspace(String workspaceName, String styleName) {
+        return execute("删除样式 " + workspaceName + ":" + styleName,
+                manager -> manager.removeStyleFromWorkspace(workspaceName, styleName), null);
+    }
+
+    /**
+     * 在所有节点上并发执行操作，成功节点数未达到要求时在已成功的节点上执行撤销操作
+     * 删除操作无法撤销，compensation 为 null，失败节点只记录在结果中
+     *
+     * @param operation    操作描述
+     * @param action       在每个节点上执行的操作，返回 false 或抛出异常视为失败
+     * @param compensation 撤销操作，为 null 时不撤销
+     * @return 集群操作结果
+     */
+    public ClusterReport execute(String operation, NodeOperation action, NodeOperation compensation) {
+        ClusterReport report = new ClusterReport(operation, getRequired());
+        List<ClusterReport.NodeResult> nodeResults = runAll(nodes, action);
+
+        for (ClusterReport.NodeResult nodeResult : nodeResults) {
+            report.add(nodeResult);
+        }
+
+        if (!report.isSuccess() && compensation != null) {
+            compensate(nodeResults, compensation);
+        }
+
+        report.finish();
+
+        if (report.isSuccess() && report.getFailed() == 0) {
+            logger.info(report.toString());
+        } else {
+            logger.warn(report.toString());
+        }
+
+        return report;
+    }
+
+    /**
+     * 关闭节点操作线程池，节点的连接池由创建者关闭
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void compensate(List<ClusterReport.NodeResult> nodeResults, NodeOperation compensation) {
+        List<GeoServerManager> succeeded = new ArrayList<>();
+        List<ClusterReport.NodeResult> succeededResults = new ArrayList<>();
+
+        for (int i = 0; i < nodes.size(); i++) {
+            if (nodeResults.get(i).isSuccess()) {
+                succeeded.add(nodes.get(i));
+                succeededResults.add(nodeResults.get(i));
+            }
+        }
+
+        List<ClusterReport.NodeResult> compensations = runAll(succeeded, compensation);
+
+        for (int i = 0; i < compensations.size(); i++) {
+            ClusterReport.NodeResult result = compensations.get(i);
+            succeededResults.get(i).setCompensated(result.isSuccess());
+
+            if (!result.isSuccess()) {
+                logger.error(String.format("撤销失败，节点数据不一致：%s", result));
+            }
+        }
+    }
+
+    /**
+     * 在各节点上并发执行，结果顺序与节点顺序一致
+     */
+    private List<ClusterReport.NodeResult> runAll(List<GeoServerManager> targets, NodeOperation action) {
+        List<Future<ClusterReport.NodeResult>> futures = new ArrayList<>(targets.size());
+
+        for (GeoServerManager manager : targets) {
+            futures.add(executor.submit(() -> run(manager, action)));
+        }
+
+        List<ClusterReport.NodeResult> nodeResults = new ArrayList<>(targets.size());
+
+        for (int i = 0; i < futures.size(); i++) {
+            String node = nodeName(targets.get(i));
+
+            try {
+                nodeResults.add(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                nodeResults.add(new ClusterReport.NodeResult(node, false, "等待被中断", 0));
+            } catch (ExecutionException e) {
+                nodeResults.add(new ClusterReport.NodeResult(node, false, String.valueOf(e.getCause()), 0));
+            }
+        }
+
+        return nodeResults;
+    }
+
+    private static ClusterReport.NodeResult run(GeoServerManager manager, NodeOperation action) {
+        long start = System.currentTimeMillis();
+
+        try {
+            boolean success = Boolean.TRUE.equals(action.apply(manager));
+            return new ClusterReport.NodeResult(nodeName(manager), success, null, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            String message = e.getClass().getSimpleName() + (e.getMessage() == null ? "" : "：" + e.getMessage());
+            return new ClusterReport.NodeResult(nodeName(manager), false, message, System.currentTimeMillis() - start);
+        }
+    }
+
+    private static String nodeName(GeoServerManager manager) {
+        return manager.getReader().getRestClient().getRestURL();
+    }
+}
@@ -2,20 +2,25 @@ package com.example.geoserver.utils;
 
 import com.example.geoserver.constant.AcceptType;
 import com.example.geoserver.constant.ContentType;
-import com.example.geoserver.constant.HttpConstant;
 import com.example.geoserver.error.ErrorException;
 import com.example.geoserver.error.ExistedException;
+import com.example.geoserver.error.RequestFailedException;
 import com.example.geoserver.error.ogc.CoverageStoreNotFoundException;
 import com.example.geoserver.error.ogc.DataSourceNotFoundException;
 import com.example.geoserver.error.ogc.LayerGroupNotFoundException;
 import com.example.geoserver.error.ogc.LayerNotFoundException;
 import com.example.geoserver.error.ogc.StyleServiceNotFoundException;
 import com.example.geoserver.error.ogc.WorkSpaceNotFoundException;
-import it.geosolutions.geoserver.rest.GeoServerRESTManager;
 import it.geosolutions.geoserver.rest.encoder.GSLayerEncoder;
 import it.geosolutions.geoserver.rest.encoder.GSLayerGroupEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSResourceEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSWorkspaceEncoder;
+import it.geosolutions.geoserver.rest.encoder.coverage.GSCoverageEncoder;
 import it.geosolutions.geoserver.rest.encoder.datastore.GSPostGISDatastoreEncoder;
 import it.geosolutions.geoserver.rest.encoder.feature.GSFeatureTypeEncoder;
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -23,17 +28,37 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
+import java.security.DigestOutputStream;
 import java.util.ArrayList;
-import java.util.Objects;
-
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * geoserver 发布管理，线程安全，可在多个请求线程间共享同一实例
+ */
 public class GeoServerManager {
+    private static final Logger logger = LoggerFactory.getLogger(GeoServerManager.class);
+
     //  加强geoserver publisher
     private final ImproveGeoServerPublisher geoServerRESTPublisher;
-    //  geoserver REST 管理者
-    private final GeoServerRESTManager geoServerRESTManager;
     //  geoserver REST 阅读者
     private final GeoServerReader reader;
+    //  连接池 REST 客户端，与 reader 共享
+    private final GeoServerRESTClient restClient;
+    //  reader 的目录缓存，创建、删除资源后同步更新
+    private final CatalogCache catalogCache;
+    //  已发布样式的内容摘要，内容未变化时跳过上传
+    private final StyleDigests styleDigests = new StyleDigests();
+    //  上传 SLD 时是否去掉标签之间的空白
+    private volatile boolean minifySld = false;
+    //  发布图层后写入的 GWC 切片图层配置，为 null 时不配置
+    private volatile GWCTileLayerOptions tileLayerOptions;
+    //  切片图层配置后执行预生成任务，为 null 时不预生成
+    private volatile GWCTileSeeder tileSeeder;
 
 
     /**
@@ -55,9 +80,68 @@ public class GeoServerManager {
      * @throws MalformedURLException 服务地址或登录失败错误
      */
     public GeoServerManager(String restUrl, String userName, String password) throws MalformedURLException {
-        geoServerRESTPublisher = new ImproveGeoServerPublisher(restUrl, userName, password);
-        geoServerRESTManager = new GeoServerRESTManager(new URL(restUrl), userName, password);
-        reader = new GeoServerReader(restUrl, userName, password);
+        this(new GeoServerReader(restUrl, userName, password));
+    }
+
+    /**
+     * 使用共享的 reader 及其连接池客户端
+     *
+     * @param reader geoserver REST 阅读者
+     */
+    public GeoServerManager(GeoServerReader reader) {
+        this.reader = reader;
+        this.restClient = reader.getRestClient();
+        this.catalogCache = reader.getCatalogCache();
+        geoServerRESTPublisher = new ImproveGeoServerPublisher(restClient.getRestURL(), restClient.getUserName(), restClient.getPassword());
+    }
+
+    /**
+     * 设置上传 SLD 时是否去掉标签之间的空白
+     *
+     * @param minifySld 是否压缩 SLD
+     */
+    public void setMinifySld(boolean minifySld) {
+        this.minifySld = minifySld;
+    }
+
+    /**
+     * 设置发布图层后写入的 GWC 切片图层配置，所有发布方法在图层创建成功后一并配置
+     *
+     * @param tileLayerOptions 切片图层配置，为 null 时不配置
+     */
+    public void setTileLayerOptions(GWCTileLayerOptions tileLayerOptions) {
+        this.tileLayerOptions = tileLayerOptions;
+    }
+
+    public GWCTileLayerOptions getTileLayerOptions() {
+        return tileLayerOptions;
+    }
+
+    /**
+     * 设置切片图层配置后执行 {@link GWCTileLayerOptions#getSeedRequests()} 的预生成器，任务在后台执行，不阻塞发布
+     *
+     * @param tileSeeder 预生成器，为 null 时不预生成
+     */
+    public void setTileSeeder(GWCTileSeeder tileSeeder) {
+        this.tileSeeder = tileSeeder;
+    }
+
+    public GWCTileSeeder getTileSeeder() {
+        return tileSeeder;
+    }
+
+    /**
+     * @return 已发布样式的内容摘要及上传、跳过统计
+     */
+    public StyleDigests getStyleDigests() {
+        return styleDigests;
+    }
+
+    /**
+     * @return geoserver REST 阅读者
+     */
+    public GeoServerReader getReader() {
+        return reader;
     }
 
     /**
@@ -72,7 +156,12 @@ public class GeoServerManager {
             throw new ExistedException("工作空间；" + workspaceName);
         }
 
-        return geoServerRESTPublisher.createWorkspace(workspaceName);
+        //    由编码器生成 XML，名称中的 &、< 等字符会被转义
+        GSWorkspaceEncoder gsWorkspaceEncoder = new GSWorkspaceEncoder(workspaceName);
+
+        boolean created = restClient.postXml("/rest/workspaces", gsWorkspaceEncoder.toString()).isSuccess();
+
+        return record(created, CatalogCache.workspaceKey(workspaceName), true);
     }
 
     /**
@@ -89,7 +178,10 @@ public class GeoServerManager {
             throw new WorkSpaceNotFoundException(workspaceName);
         }
 
-        return geoServerRESTPublisher.createWorkspace(workspaceName, new URI(uri));
+        boolean created = geoServerRESTPublisher.createWorkspace(workspaceName, new URI(uri));
+        catalogCache.invalidate(CatalogCache.workspaceKey(workspaceName));
+
+        return created;
     }
 
     /**
@@ -104,7 +196,11 @@ public class GeoServerManager {
             throw new WorkSpaceNotFoundException(workspaceName);
         }
 
-        return geoServerRESTPublisher.removeWorkspace(workspaceName, true);
+        boolean removed = restClient.delete(GeoServerRESTClient.path("/rest/workspaces/%s?recurse=true", workspaceName)).isSuccess();
+        catalogCache.invalidateWorkspace(workspaceName);
+        styleDigests.invalidateWorkspace(workspaceName);
+
+        return record(removed, CatalogCache.workspaceKey(workspaceName), false);
     }
 
 
@@ -131,6 +227,7 @@ public class GeoServerManager {
     /**
      * 创建 Style 服务，并提供style 服务名称
      * 不能将同一 SLD 文件创建多个style 服务，这将会导致删除异常
+     * 样式内容与已发布内容相同时不再上传
      *
      * @param sldFile   sld 文件对象
      * @param styleName style 服务名称
@@ -143,44 +240,7 @@ public class GeoServerManager {
             throw new StyleServiceNotFoundException(styleName);
         }
 
-        //     请求路径
-        String url = String.format("%s/rest/styles?name=%s&raw=true", geoServerRESTPublisher.getRestURL(), styleName);
-        //     登录名、密码字符串
-        String logInStr = geoServerRESTPublisher.getLogInStr();
-        //     获取sld文件内容
-        String file = ComTools.readFile(sldFile);
-
-        //     格式化 sld xml 文件
-        String sldInfo = file.replaceAll(" {4}", "").replaceAll(" {2}", "").replaceAll("\"", "\\\\\"");
-
-        String[] cmds = {
-                "curl", "-u", logInStr,
-                "-X", HttpConstant.POST, url,
-                "-H", AcceptType.JSON,
-                "-H", ContentType.SLD,
-                "-d", "\"" + sldInfo + "\""
-        };
-
-        String curlPostResult = ComTools.curlPost(cmds);
-
-        /*
-         * ================================================ 创建完需要put一下
-         * */
-
-        //     请求路径
-        String urlPUT = String.format("%s/rest/styles/%s?raw=true", geoServerRESTPublisher.getRestURL(), styleName);
-
-        String[] cmdsPUT = {
-                "curl", "-u", logInStr,
-                "-X", HttpConstant.PUT, urlPUT,
-                "-H", AcceptType.JSON,
-                "-H", ContentType.SLD,
-                "-d", "\"" + sldInfo + "\""
-        };
-
-        ComTools.curlPUT(cmdsPUT);
-
-        return Objects.equals(curlPostResult, styleName);
+        return syncStyle(null, sldFile, styleName, true);
     }
 
     /**
@@ -195,7 +255,10 @@ public class GeoServerManager {
             throw new StyleServiceNotFoundException(styleName);
         }
 
-        return geoServerRESTPublisher.removeStyle(styleName, true);
+        boolean removed = restClient.delete(GeoServerRESTClient.path("/rest/styles/%s?purge=true", styleName)).isSuccess();
+        styleDigests.invalidate(CatalogCache.styleKey(null, styleName));
+
+        return record(removed, CatalogCache.styleKey(null, styleName), false);
     }
 
     /**
@@ -235,44 +298,129 @@ public class GeoServerManager {
             throw new ExistedException("style 样式服务：" + styleName);
         }
 
+        return syncStyle(workspaceName, sldFile, styleName, false);
+    }
+
+    /**
+     * 发布全局样式：样式不存在时创建，已存在时只有内容变化才更新
+     *
+     * @param sldFile   sld 文件对象
+     * @param styleName style 服务名称
+     * @return 是否发布成功（内容未变化而跳过也视为成功）
+     * @throws IOException SLD 文件不存在或读取错误
+     */
+    public Boolean publishStyle(File sldFile, String styleName) throws IOException {
+        return syncStyle(null, sldFile, styleName, reader.existsStyle(styleName));
+    }
+
+    /**
+     * 发布样式到指定的工作空间下：样式不存在时创建，已存在时只有内容变化才更新
+     *
+     * @param workspaceName 工作空间名称
+     * @param sldFile       sld 文件对象
+     * @param styleName     style 服务名称
+     * @return 是否发布成功（内容未变化而跳过也视为成功）
+     * @throws WorkSpaceNotFoundException 工作空间不存在
+     * @throws IOException                SLD 文件不存在或读取错误
+     */
+    public Boolean publishStyle(String workspaceName, File sldFile, String styleName) throws WorkSpaceNotFoundException, IOException {
+        return syncStyle(workspaceName, sldFile, styleName, reader.existsStyleFromWorkspace(workspaceName, styleName));
+    }
+
+    /**
+     * 上传样式：不存在时创建；已存在时比较内容摘要，只有内容变化时才更新
+     * 已发布内容的摘要优先取自本地记录，没有记录时读取一次 geoserver 上的 SLD 计算
+     *
+     * @param workspaceName 工作空间名称，全局样式为 null
+     * @param sldFile       sld 文件对象
+     * @param styleName     style 服务名称
+     * @param exists        样式是否已存在
+     * @return 是否发布成功
+     * @throws IOException SLD 文件不存在或读取错误
+     */
+    private Boolean syncStyle(String workspaceName, File sldFile, String styleName, boolean exists) throws IOException {
+        if (!sldFile.isFile()) {
+            throw new FileNotFoundException(sldFile.getPath());
+        }
+
         //     请求路径
-        String url = String.format("%s/rest/workspaces/%s/styles?name=%s&raw=true", geoServerRESTPublisher.getRestURL(), workspaceName, styleName);
-        //     登录名、密码字符串
-        String logInStr = geoServerRESTPublisher.getLogInStr();
-        //     获取sld文件内容
-        String file = ComTools.readFile(sldFile);
+        String stylesPath = workspaceName == null ? "/rest/styles" : GeoServerRESTClient.path("/rest/workspaces/%s/styles", workspaceName);
+        String url = String.format("%s?name=%s&raw=true", stylesPath, GeoServerRESTClient.encodeQuery(styleName));
+        String urlPUT = String.format("%s/%s?raw=true", stylesPath, GeoServerRESTClient.encodePath(styleName));
+
+        String styleKey = CatalogCache.styleKey(workspaceName, styleName);
+
+        RequestEntity sldEntity = new SldRequestEntity(sldFile, minifySld);
+        String digest = StyleDigests.digest(sldEntity);
+
+        boolean published;
+
+        if (exists) {
+            if (digest.equals(publishedDigest(styleKey, String.format("%s/%s.sld", stylesPath, GeoServerRESTClient.encodePath(styleName))))) {
+                styleDigests.recordSkip();
+                return true;
+            }
+
+            published = restClient.put(urlPUT, sldEntity, AcceptType.JSON).isSuccess();
+        } else {
+            published = uploadStyle(url, urlPUT, sldEntity);
+        }
+
+        if (published) {
+            styleDigests.put(styleKey, digest);
+            styleDigests.recordUpload();
+        } else {
+            styleDigests.invalidate(styleKey);
+        }
+
+        return record(published, styleKey, true);
+    }
+
+    /**
+     * 已发布样式的内容摘要，本地没有记录时读取 geoserver 上的 SLD 计算并记录
+     *
+     * @param styleKey 样式缓存键
+     * @param sldPath  样式 SLD 内容的请求路径
+     * @return 十六进制摘要，读取失败时为 null
+     */
+    private String publishedDigest(String styleKey, String sldPath) {
+        String digest = styleDigests.get(styleKey);
+        if (digest != null) {
+            return digest;
+        }
 
-        //     格式化 sld xml 文件
-        String sldInfo = file.replaceAll(" {4}", "").replaceAll(" {2}", "").replaceAll("\"", "\\\\\"");
+        DigestOutputStream out = StyleDigests.newDigestStream();
+        if (!restClient.download(sldPath, ContentType.SLD_TYPE, out).isSuccess()) {
+            return null;
+        }
+
+        digest = StyleDigests.toHex(out);
+        styleDigests.put(styleKey, digest);
 
-        String[] cmds = {
-                "curl", "-u", logInStr,
-                "-X", HttpConstant.POST, url,
-                "-H", AcceptType.JSON,
-                "-H", ContentType.SLD,
-                "-d", "\"" + sldInfo + "\""
-        };
+        return digest;
+    }
 
-        String curlPostResult = ComTools.curlPost(cmds);
+    /**
+     * 通过连接池客户端上传 SLD 文件，文件内容以流的方式写入请求体，不在内存中拼接整个文件
+     *
+     * @param url       创建 style 的请求路径
+     * @param urlPUT    更新 style 内容的请求路径
+     * @param sldEntity sld 请求体
+     * @return 是否创建成功
+     */
+    private boolean uploadStyle(String url, String urlPUT, RequestEntity sldEntity) {
+        RESTResponse postResult = restClient.post(url, sldEntity, AcceptType.JSON);
 
         /*
          * ================================================ 创建完需要put一下
          * */
+        if (postResult.isSuccess()) {
+            RESTResponse putResult = restClient.put(urlPUT, sldEntity, AcceptType.JSON);
 
-        //     请求路径
-        String urlPUT = String.format("%s/rest/workspaces/%s/styles/%s?raw=true", geoServerRESTPublisher.getRestURL(), workspaceName, styleName);
-
-        String[] cmdsPUT = {
-                "curl", "-u", logInStr,
-                "-X", HttpConstant.PUT, urlPUT,
-                "-H", AcceptType.JSON,
-                "-H", ContentType.SLD,
-                "-d", "\"" + sldInfo + "\""
-        };
-
-        ComTools.curlPUT(cmdsPUT);
+            return putResult.isSuccess();
+        }
 
-        return Objects.equals(curlPostResult, styleName);
+        return false;
     }
 
     /**
@@ -289,57 +437,120 @@ public class GeoServerManager {
             throw new StyleServiceNotFoundException(styleName);
         }
 
-        return geoServerRESTPublisher.removeStyleInWorkspace(workspaceName, styleName, true);
+        boolean removed = restClient.delete(GeoServerRESTClient.path("/rest/workspaces/%s/styles/%s?purge=true", workspaceName, styleName)).isSuccess();
+        styleDigests.invalidate(CatalogCache.styleKey(workspaceName, styleName));
+
+        return record(removed, CatalogCache.styleKey(workspaceName, styleName), false);
     }
 
     /**
-     * 创建shp 图层，shp文件名则为数据源、图层名
+     * 创建shp 图层，shp文件名则为数据源、图层名，坐标系由 .prj 识别
      *
      * @param workspaceName 工作空间
-     * @param shpFile       shp Zip 文件对象
-     * @param crsCode       坐标系代码
+     * @param shpFile       shp Zip 文件、.shp 文件或 shp 所在目录
      * @return shp图层是否创建成功
-     * @throws FileNotFoundException 文件不存在错误
      * @throws FileNotFoundException         文件不存在错误
-     * @throws ErrorException                shp源必须为 zip
+     * @throws ErrorException                shp源必须为 zip、.shp 或目录，shapefile 已损坏，或无法识别坐标系
      * @throws WorkSpaceNotFoundException    工作空间不存在
      * @throws ExistedException              图层名称已存在
      */
-    public Boolean createShpLayer(String workspaceName, File shpFile, int crsCode) throws FileNotFoundException, WorkSpaceNotFoundException, ErrorException, ExistedException {
-        //    获取shp 名称
-        String shpFileName = shpFile.getName();
+    public Boolean createShpLayer(String workspaceName, File shpFile) throws FileNotFoundException, WorkSpaceNotFoundException, ErrorException, ExistedException {
+        return createShpLayer(workspaceName, shpFile, (GWCTileLayerOptions) null);
+    }
+
+    /**
+     * 创建shp 图层，坐标系由 .prj 识别，并指定该图层的切片缓存配置
+     *
+     * @param workspaceName    工作空间
+     * @param shpFile          shp Zip 文件、.shp 文件或 shp 所在目录
+     * @param tileLayerOptions 切片图层配置，为 null 时使用默认配置
+     * @return shp图层是否创建成功
+     * @throws FileNotFoundException         文件不存在错误
+     * @throws ErrorException                shp源必须为 zip、.shp 或目录，shapefile 已损坏，或无法识别坐标系
+     * @throws WorkSpaceNotFoundException    工作空间不存在
+     * @throws ExistedException              图层名称已存在
+     */
+    public Boolean createShpLayer(
+            String workspaceName,
+            File shpFile,
+            GWCTileLayerOptions tileLayerOptions
+    ) throws FileNotFoundException, WorkSpaceNotFoundException, ErrorException, ExistedException {
+        ShapefileHeader header = ShapefileHeader.read(shpFile);
 
-        //    获取shp 文件名切割数组
-        String[] splitList = shpFileName.split("\\.");
+        if (header.getEpsgCode() == 0) {
+            throw new ErrorException(String.format("无法从 .prj 识别 %s 的坐标系，请指定坐标系代码", header.getLayerName()));
+        }
+
+        //    定义数据源名和图层名
+        String storeName, layerName;
+        storeName = layerName = header.getLayerName();
 
-        //    如果后缀名不是 zip 则直接报错
-        if (!Objects.equals(splitList[1], "zip")) {
-            throw new ErrorException("shp 源文件必须为 zip 压缩包文件");
+        if (reader.existsLayer(workspaceName, layerName)) {
+            throw new ExistedException("图层名称：" + layerName);
         }
 
-        String crsName = "EPSG:" + crsCode;
+        return publishShp(workspaceName, storeName, layerName, shpFile, header.getEpsgCode(), null, null, header, tileLayerOptions);
+    }
+
+    /**
+     * 创建shp 图层，shp文件名则为数据源、图层名
+     *
+     * @param workspaceName 工作空间
+     * @param shpFile       shp Zip 文件、.shp 文件或 shp 所在目录
+     * @param crsCode       坐标系代码
+     * @return shp图层是否创建成功
+     * @throws FileNotFoundException         文件不存在错误
+     * @throws ErrorException                shp源必须为 zip、.shp 或目录，或 shapefile 已损坏
+     * @throws WorkSpaceNotFoundException    工作空间不存在
+     * @throws ExistedException              图层名称已存在
+     */
+    public Boolean createShpLayer(String workspaceName, File shpFile, int crsCode) throws FileNotFoundException, WorkSpaceNotFoundException, ErrorException, ExistedException {
+        return createShpLayer(workspaceName, shpFile, crsCode, (GWCTileLayerOptions) null);
+    }
+
+    /**
+     * 创建shp 图层，shp文件名则为数据源、图层名，并指定该图层的切片缓存配置
+     *
+     * @param workspaceName    工作空间
+     * @param shpFile          shp Zip 文件、.shp 文件或 shp 所在目录
+     * @param crsCode          坐标系代码
+     * @param tileLayerOptions 切片图层配置，为 null 时使用默认配置
+     * @return shp图层是否创建成功
+     * @throws FileNotFoundException         文件不存在错误
+     * @throws ErrorException                shp源必须为 zip、.shp 或目录，或 shapefile 已损坏
+     * @throws WorkSpaceNotFoundException    工作空间不存在
+     * @throws ExistedException              图层名称已存在
+     */
+    public Boolean createShpLayer(
+            String workspaceName,
+            File shpFile,
+            int crsCode,
+            GWCTileLayerOptions tileLayerOptions
+    ) throws FileNotFoundException, WorkSpaceNotFoundException, ErrorException, ExistedException {
+        //    上传前检查文件头，损坏的 shapefile 直接拒绝
+        ShapefileHeader header = ShapefileHeader.read(shpFile);
 
         //    定义数据源名和图层名
         String storeName, layerName;
-        storeName = layerName = splitList[0];
+        storeName = layerName = header.getLayerName();
 
         if (reader.existsLayer(workspaceName, layerName)) {
             throw new ExistedException("图层名称：" + layerName);
         }
 
-        return geoServerRESTPublisher.publishShp(workspaceName, storeName, layerName, shpFile, crsName);
+        return publishShp(workspaceName, storeName, layerName, shpFile, crsCode, null, null, header, tileLayerOptions);
     }
 
     /**
      * 创建shp 图层，shp文件名则为数据源、图层名，并指定样式
      *
      * @param workspaceName 工作空间
-     * @param shpFile       shp Zip 文件对象
+     * @param shpFile       shp Zip 文件、.shp 文件或 shp 所在目录
      * @param crsCode       坐标系代码
      * @param styleName     样式名称
      * @return 是否shp 图层是否成功
      * @throws FileNotFoundException         文件不存在错误
-     * @throws ErrorException                shp源必须为 zip
+     * @throws ErrorException                shp源必须为 zip、.shp 或目录，或 shapefile 已损坏
      * @throws WorkSpaceNotFoundException    工作空间不存在
      * @throws ExistedException              图层名称已存在
      * @throws StyleServiceNotFoundException style 样式服务不存在
@@ -350,45 +561,60 @@ public class GeoServerManager {
             int crsCode,
             String styleName
     ) throws FileNotFoundException, ErrorException, WorkSpaceNotFoundException, ExistedException, StyleServiceNotFoundException {
-        //    获取shp 名称
-        String shpFileName = shpFile.getName();
-
-        //    获取shp 文件名切割数组
-        String[] splitList = shpFileName.split("\\.");
-
-        //    如果后缀名不是 zip 则直接报错
-        if (!Objects.equals(splitList[1], "zip")) {
-            throw new ErrorException("shp 源文件必须为 zip 压缩包文件");
-        }
+        return createShpLayer(workspaceName, shpFile, crsCode, styleName, (GWCTileLayerOptions) null);
+    }
 
-        String crsName = "EPSG:" + crsCode;
+    /**
+     * 创建shp 图层，shp文件名则为数据源、图层名，并指定样式和该图层的切片缓存配置
+     *
+     * @param workspaceName    工作空间
+     * @param shpFile          shp Zip 文件、.shp 文件或 shp 所在目录
+     * @param crsCode          坐标系代码
+     * @param styleName        样式名称
+     * @param tileLayerOptions 切片图层配置，为 null 时使用默认配置
+     * @return 是否shp 图层是否成功
+     * @throws FileNotFoundException         文件不存在错误
+     * @throws ErrorException                shp源必须为 zip、.shp 或目录，或 shapefile 已损坏
+     * @throws WorkSpaceNotFoundException    工作空间不存在
+     * @throws ExistedException              图层名称已存在
+     * @throws StyleServiceNotFoundException style 样式服务不存在
+     */
+    public Boolean createShpLayer(
+            String workspaceName,
+            File shpFile,
+            int crsCode,
+            String styleName,
+            GWCTileLayerOptions tileLayerOptions
+    ) throws FileNotFoundException, ErrorException, WorkSpaceNotFoundException, ExistedException, StyleServiceNotFoundException {
+        //    上传前检查文件头，损坏的 shapefile 直接拒绝
+        ShapefileHeader header = ShapefileHeader.read(shpFile);
 
         //    定义数据源名和图层名
         String storeName, layerName;
-        storeName = layerName = splitList[0];
+        storeName = layerName = header.getLayerName();
 
         if (reader.existsLayer(workspaceName, layerName)) {
-            throw new ExistedException("图层名称：%s" + layerName);
+            throw new ExistedException("图层名称：" + layerName);
         }
 
         if (!reader.existsStyle(styleName)) {
             throw new StyleServiceNotFoundException(styleName);
         }
 
-        return geoServerRESTPublisher.publishShp(workspaceName, storeName, layerName, shpFile, crsName, styleName);
+        return publishShp(workspaceName, storeName, layerName, shpFile, crsCode, styleName, null, header, tileLayerOptions);
     }
 
     /**
      * 创建shp 图层，shp文件名则为数据源、图层名，并指定在某工作空间下的样式服务
      *
      * @param workspaceName      工作空间
-     * @param shpFile            shp Zip 文件对象
+     * @param shpFile            shp Zip 文件、.shp 文件或 shp 所在目录
      * @param crsCode            坐标系代码
      * @param styleWorkspaceName 样式服务所在工作空间名称
      * @param styleName          样式名称
      * @return 创建shp 图层是否成功
      * @throws FileNotFoundException         文件不存在错误
-     * @throws ErrorException                shp源文件必须为zip
+     * @throws ErrorException                shp源文件必须为zip、.shp 或目录，或 shapefile 已损坏
      * @throws WorkSpaceNotFoundException    工作空间不存在
      * @throws ExistedException              图层名称已存在
      * @throws StyleServiceNotFoundException style样式服务不存在
@@ -400,25 +626,42 @@ public class GeoServerManager {
             String styleWorkspaceName,
             String styleName
     ) throws FileNotFoundException, ErrorException, WorkSpaceNotFoundException, ExistedException, StyleServiceNotFoundException {
-        //    获取shp 名称
-        String shpFileName = shpFile.getName();
-
-        //    获取shp 文件名切割数组
-        String[] splitList = shpFileName.split("\\.");
-
-        //    如果后缀名不是 zip 则直接报错
-        if (!Objects.equals(splitList[1], "zip")) {
-            throw new ErrorException("shp 源文件必须为 zip 压缩包文件");
-        }
+        return createShpLayer(workspaceName, shpFile, crsCode, styleWorkspaceName, styleName, null);
+    }
 
-        String crsName = "EPSG:" + crsCode;
+    /**
+     * 创建shp 图层，shp文件名则为数据源、图层名，并指定在某工作空间下的样式服务和该图层的切片缓存配置
+     *
+     * @param workspaceName      工作空间
+     * @param shpFile            shp Zip 文件、.shp 文件或 shp 所在目录
+     * @param crsCode            坐标系代码
+     * @param styleWorkspaceName 样式服务所在工作空间名称
+     * @param styleName          样式名称
+     * @param tileLayerOptions   切片图层配置，为 null 时使用默认配置
+     * @return 创建shp 图层是否成功
+     * @throws FileNotFoundException         文件不存在错误
+     * @throws ErrorException                shp源文件必须为zip、.shp 或目录，或 shapefile 已损坏
+     * @throws WorkSpaceNotFoundException    工作空间不存在
+     * @throws ExistedException              图层名称已存在
+     * @throws StyleServiceNotFoundException style样式服务不存在
+     */
+    public Boolean createShpLayer(
+            String workspaceName,
+            File shpFile,
+            int crsCode,
+            String styleWorkspaceName,
+            String styleName,
+            GWCTileLayerOptions tileLayerOptions
+    ) throws FileNotFoundException, ErrorException, WorkSpaceNotFoundException, ExistedException, StyleServiceNotFoundException {
+        //    上传前检查文件头，损坏的 shapefile 直接拒绝
+        ShapefileHeader header = ShapefileHeader.read(shpFile);
 
         //    定义数据源名和图层名
         String storeName, layerName;
-        storeName = layerName = splitList[0];
+        storeName = layerName = header.getLayerName();
 
         if (reader.existsLayer(workspaceName, layerName)) {
-            throw new ExistedException("图层名称：%s" + layerName);
+            throw new ExistedException("图层名称：" + layerName);
         }
 
         if (!reader.existsStyle(styleName)) {
@@ -427,7 +670,173 @@ public class GeoServerManager {
 
         String shpStyle = styleWorkspaceName + ":" + styleName;
 
-        return geoServerRESTPublisher.publishShp(workspaceName, storeName, layerName, shpFile, crsName, shpStyle);
+        return publishShp(workspaceName, storeName, layerName, shpFile, crsCode, shpStyle, null, header, tileLayerOptions);
+    }
+
+    /**
+     * 由 shp 源获取数据源名和图层名：zip 为去掉 .zip（不区分大小写）的文件名，.shp 文件或目录为其中 shp 的文件名
+     *
+     * @param shpFile shp Zip 文件、.shp 文件或 shp 所在目录
+     * @return 数据源名和图层名
+     * @throws ErrorException        不是 zip、.shp 或目录
+     * @throws FileNotFoundException 目录中没有或有多个 .shp 文件
+     */
+    static String shpLayerName(File shpFile) throws ErrorException, FileNotFoundException {
+        String shpFileName = shpFile.getName().toLowerCase(Locale.ROOT);
+
+        if (shpFileName.endsWith(".zip")) {
+            return ComTools.baseName(shpFile.getName());
+        }
+
+        if (shpFile.isDirectory() || shpFileName.endsWith(".shp")) {
+            return ComTools.baseName(ShapefileZipRequestEntity.findShp(shpFile).getName());
+        }
+
+        throw new ErrorException("shp 源文件必须为 zip 压缩包、.shp 文件或 shp 所在目录");
+    }
+
+    /**
+     * 流式上传 shp 到数据源，并发布为图层
+     * zip 文件通过连接池客户端分块写入请求体；.shp 文件或目录边压缩边写入请求体，不生成临时压缩包；
+     * 内存占用与文件大小无关
+     *
+     * @param workspaceName 工作空间
+     * @param storeName     数据源名称
+     * @param layerName     图层名称，同时为 zip 中 shp 的文件名
+     * @param zipFile       shp Zip 文件、.shp 文件或 shp 所在目录
+     * @param crsName       坐标系，如 EPSG:4326
+     * @param styleName     默认样式，为 null 时使用 geoserver 默认样式
+     * @param charset       dbf 字符集，为 null 时使用 geoserver 默认字符集
+     * @return 是否发布成功
+     * @throws FileNotFoundException 文件不存在错误
+     */
+    public Boolean publishShpZip(
+            String workspaceName,
+            String storeName,
+            String layerName,
+            File zipFile,
+            String crsName,
+            String styleName,
+            String charset
+    ) throws FileNotFoundException {
+        return publishShpZip(workspaceName, storeName, layerName, zipFile, crsName, styleName, charset, null);
+    }
+
+    /**
+     * 流式上传 shp 到数据源，并按指定的切片缓存配置发布为图层
+     *
+     * @param workspaceName    工作空间
+     * @param storeName        数据源名称
+     * @param layerName        图层名称，同时为 zip 中 shp 的文件名
+     * @param zipFile          shp Zip 文件、.shp 文件或 shp 所在目录
+     * @param crsName          坐标系，如 EPSG:4326
+     * @param styleName        默认样式，为 null 时使用 geoserver 默认样式
+     * @param charset          dbf 字符集，为 null 时使用 geoserver 默认字符集
+     * @param tileLayerOptions 切片图层配置，为 null 时使用默认配置
+     * @return 是否发布成功
+     * @throws FileNotFoundException 文件不存在错误
+     */
+    public Boolean publishShpZip(
+            String workspaceName,
+            String storeName,
+            String layerName,
+            File zipFile,
+            String crsName,
+            String styleName,
+            String charset,
+            GWCTileLayerOptions tileLayerOptions
+    ) throws FileNotFoundException {
+        return publishShp(workspaceName, storeName, layerName, zipFile, crsName, styleName, charset, null, null, tileLayerOptions);
+    }
+
+    /**
+     * 以 shapefile 头信息中的范围发布 shp，geoserver 不需要再读取数据计算范围
+     *
+     * @param crsCode 坐标系代码
+     * @param header  上传前读取的 shapefile 头信息
+     */
+    private Boolean publishShp(
+            String workspaceName,
+            String storeName,
+            String layerName,
+            File zipFile,
+            int crsCode,
+            String styleName,
+            String charset,
+            ShapefileHeader header,
+            GWCTileLayerOptions tileLayerOptions
+    ) throws FileNotFoundException {
+        return publishShp(workspaceName, storeName, layerName, zipFile, "EPSG:" + crsCode, styleName, charset, header, header.latLonBoundingBox(crsCode), tileLayerOptions);
+    }
+
+    /**
+     * 上传 shp 并配置要素类型，有头信息时同时设置原生范围和经纬度范围
+     *
+     * @param header            上传前读取的 shapefile 头信息，为 null 时范围由 geoserver 计算
+     * @param latLonBoundingBox 经纬度范围，为 null 时由 geoserver 计算
+     * @param tileLayerOptions  切片图层配置，为 null 时使用默认配置
+     */
+    private Boolean publishShp(
+            String workspaceName,
+            String storeName,
+            String layerName,
+            File zipFile,
+            String crsName,
+            String styleName,
+            String charset,
+            ShapefileHeader header,
+            double[] latLonBoundingBox,
+            GWCTileLayerOptions tileLayerOptions
+    ) throws FileNotFoundException {
+        if (!zipFile.exists()) {
+            throw new FileNotFoundException(zipFile.getPath());
+        }
+
+        //    .shp 文件或目录：查找同名附属文件，边压缩边上传
+        ShapefileZipRequestEntity shpEntity = null;
+        if (zipFile.isDirectory() || zipFile.getName().toLowerCase(Locale.ROOT).endsWith(".shp")) {
+            shpEntity = new ShapefileZipRequestEntity(zipFile);
+        }
+
+        //    只上传数据，要素类型单独配置以便指定图层名和坐标系
+        String url = GeoServerRESTClient.path("/rest/workspaces/%s/datastores/%s/file.shp?configure=none", workspaceName, storeName);
+        if (charset != null) {
+            url += "&charset=" + GeoServerRESTClient.encodeQuery(charset);
+        }
+
+        boolean uploaded = (shpEntity == null ? restClient.upload(url, zipFile, ContentType.ZIP) : restClient.upload(url, shpEntity)).isSuccess();
+        record(uploaded, CatalogCache.dataStoreKey(workspaceName, storeName), true);
+
+        boolean published = false;
+
+        if (uploaded) {
+            GSFeatureTypeEncoder gsFeatureTypeEncoder = new GSFeatureTypeEncoder();
+
+            gsFeatureTypeEncoder.setTitle(layerName);
+            gsFeatureTypeEncoder.setNativeName(layerName);
+            gsFeatureTypeEncoder.setName(layerName);
+            gsFeatureTypeEncoder.setSRS(crsName);
+            gsFeatureTypeEncoder.setProjectionPolicy(GSResourceEncoder.ProjectionPolicy.FORCE_DECLARED);
+            //    没有要素时文件头中的范围无意义，由 geoserver 处理
+            double[] nativeBoundingBox = null;
+            if (header != null && header.getFeatureCount() > 0) {
+                nativeBoundingBox = new double[]{header.getMinX(), header.getMinY(), header.getMaxX(), header.getMaxY()};
+                gsFeatureTypeEncoder.setNativeBoundingBox(header.getMinX(), header.getMinY(), header.getMaxX(), header.getMaxY(), crsName);
+            }
+            if (latLonBoundingBox != null) {
+                gsFeatureTypeEncoder.setLatLonBoundingBox(latLonBoundingBox[0], latLonBoundingBox[1], latLonBoundingBox[2], latLonBoundingBox[3], "EPSG:4326");
+            }
+
+            GSLayerEncoder gsLayerEncoder = new GSLayerEncoder();
+            if (styleName != null) {
+                gsLayerEncoder.setDefaultStyle(styleName);
+            }
+
+            published = publishFeatureType(workspaceName, storeName, gsFeatureTypeEncoder, gsLayerEncoder, tileLayerOptions,
+                    nativeBoundingBox, GWCSeedRequest.epsgCode(crsName), latLonBoundingBox);
+        }
+
+        return record(published, CatalogCache.layerKey(workspaceName, layerName), true);
     }
 
 
@@ -449,9 +858,32 @@ public class GeoServerManager {
             String tableName,
             int crsCode
     ) throws ExistedException, WorkSpaceNotFoundException, ErrorException {
-        GSLayerEncoder gsLayerEncoder = new GSLayerEncoder();
-
-        return createPostGISLayer(gsPostGISDatastoreEncoder, workspaceName, tableName, crsCode, gsLayerEncoder);
+        return createPostGISLayer(gsPostGISDatastoreEncoder, workspaceName, tableName, crsCode, (GWCTileLayerOptions) null);
+    }
+
+    /**
+     * 发布PostGIS 中存在的表图层，并指定该图层的切片缓存配置
+     *
+     * @param gsPostGISDatastoreEncoder PostGIS DataStore 配置对象
+     * @param workspaceName             工作空间名称
+     * @param tableName                 要发布的表名
+     * @param crsCode                   坐标系代码
+     * @param tileLayerOptions          切片图层配置，为 null 时使用默认配置
+     * @return 是否发布成功
+     * @throws WorkSpaceNotFoundException 工作空间不存
+     * @throws ExistedException           数据源已存在、图层已存在
+     * @throws ErrorException             数据源发布失败
+     */
+    public Boolean createPostGISLayer(
+            GSPostGISDatastoreEncoder gsPostGISDatastoreEncoder,
+            String workspaceName,
+            String tableName,
+            int crsCode,
+            GWCTileLayerOptions tileLayerOptions
+    ) throws ExistedException, WorkSpaceNotFoundException, ErrorException {
+        GSLayerEncoder gsLayerEncoder = new GSLayerEncoder();
+
+        return createPostGISLayer(gsPostGISDatastoreEncoder, workspaceName, tableName, crsCode, gsLayerEncoder, tileLayerOptions);
     }
 
     /**
@@ -473,11 +905,36 @@ public class GeoServerManager {
             String tableName,
             int crsCode,
             String styleName
+    ) throws ExistedException, WorkSpaceNotFoundException, ErrorException {
+        return createPostGISLayer(gsPostGISDatastoreEncoder, workspaceName, tableName, crsCode, styleName, (GWCTileLayerOptions) null);
+    }
+
+    /**
+     * 发布PostGIS 中存在的表图层，并指定样式和该图层的切片缓存配置
+     *
+     * @param gsPostGISDatastoreEncoder PostGIS DataStore 配置对象
+     * @param workspaceName             工作空间名称
+     * @param tableName                 要发布的表名
+     * @param crsCode                   坐标系代码
+     * @param styleName                 style 样式服务名称
+     * @param tileLayerOptions          切片图层配置，为 null 时使用默认配置
+     * @return 是否发布成功
+     * @throws WorkSpaceNotFoundException 工作空间不存
+     * @throws ExistedException           数据源已存在、图层已存在
+     * @throws ErrorException             数据源发布失败
+     */
+    public Boolean createPostGISLayer(
+            GSPostGISDatastoreEncoder gsPostGISDatastoreEncoder,
+            String workspaceName,
+            String tableName,
+            int crsCode,
+            String styleName,
+            GWCTileLayerOptions tileLayerOptions
     ) throws ExistedException, WorkSpaceNotFoundException, ErrorException {
         GSLayerEncoder gsLayerEncoder = new GSLayerEncoder();
 
         gsLayerEncoder.setDefaultStyle(styleName);
-        return createPostGISLayer(gsPostGISDatastoreEncoder, workspaceName, tableName, crsCode, gsLayerEncoder);
+        return createPostGISLayer(gsPostGISDatastoreEncoder, workspaceName, tableName, crsCode, gsLayerEncoder, tileLayerOptions);
     }
 
     /**
@@ -502,6 +959,34 @@ public class GeoServerManager {
             int crsCode,
             String styleWorkspace,
             String styleName
+    ) throws WorkSpaceNotFoundException, StyleServiceNotFoundException, ExistedException, ErrorException {
+        return createPostGISLayer(gsPostGISDatastoreEncoder, workspaceName, tableName, crsCode, styleWorkspace, styleName, null);
+    }
+
+    /**
+     * 发布PostGIS 中存在的表图层，指定在工作空间中的样式服务和该图层的切片缓存配置
+     *
+     * @param gsPostGISDatastoreEncoder PostGIS DataStore 配置对象
+     * @param workspaceName             工作空间名称
+     * @param tableName                 要发布的表名
+     * @param crsCode                   坐标系代码
+     * @param styleWorkspace            style 样式服务工作空间名称
+     * @param styleName                 style 样式服务名称
+     * @param tileLayerOptions          切片图层配置，为 null 时使用默认配置
+     * @return 是否发布成功
+     * @throws WorkSpaceNotFoundException    工作空间不存
+     * @throws StyleServiceNotFoundException 样式服务不存在
+     * @throws ExistedException              数据源已存在、图层已存在
+     * @throws ErrorException                数据源发布失败
+     */
+    public Boolean createPostGISLayer(
+            GSPostGISDatastoreEncoder gsPostGISDatastoreEncoder,
+            String workspaceName,
+            String tableName,
+            int crsCode,
+            String styleWorkspace,
+            String styleName,
+            GWCTileLayerOptions tileLayerOptions
     ) throws WorkSpaceNotFoundException, StyleServiceNotFoundException, ExistedException, ErrorException {
         GSLayerEncoder gsLayerEncoder = new GSLayerEncoder();
 
@@ -511,7 +996,110 @@ public class GeoServerManager {
 
         gsLayerEncoder.setDefaultStyle(styleWorkspace + ":" + styleName);
 
-        return createPostGISLayer(gsPostGISDatastoreEncoder, workspaceName, tableName, crsCode, gsLayerEncoder);
+        return createPostGISLayer(gsPostGISDatastoreEncoder, workspaceName, tableName, crsCode, gsLayerEncoder, tileLayerOptions);
+    }
+
+    /**
+     * 按性能配置创建 PostGIS 数据源，并发布其中存在的表图层
+     *
+     * @param datastore     PostGIS 数据源连接信息
+     * @param profile       数据源性能配置，决定连接池、预编译语句、范围估算等参数
+     * @param workspaceName 工作空间名称
+     * @param tableName     要发布的表名
+     * @param crsCode       坐标系代码
+     * @return 是否发布成功
+     * @throws WorkSpaceNotFoundException 工作空间不存
+     * @throws ExistedException           数据源已存在、图层已存在
+     * @throws ErrorException             数据源发布失败
+     */
+    public Boolean createPostGISLayer(
+            ImprovePostGISDatastore datastore,
+            ImprovePostGISDatastore.Profile profile,
+            String workspaceName,
+            String tableName,
+            int crsCode
+    ) throws ExistedException, WorkSpaceNotFoundException, ErrorException {
+        return createPostGISLayer(datastore, profile, workspaceName, tableName, crsCode, (GWCTileLayerOptions) null);
+    }
+
+    /**
+     * 按性能配置创建 PostGIS 数据源，并发布其中存在的表图层，指定该图层的切片缓存配置
+     *
+     * @param datastore        PostGIS 数据源连接信息
+     * @param profile          数据源性能配置，决定连接池、预编译语句、范围估算等参数
+     * @param workspaceName    工作空间名称
+     * @param tableName        要发布的表名
+     * @param crsCode          坐标系代码
+     * @param tileLayerOptions 切片图层配置，为 null 时使用默认配置
+     * @return 是否发布成功
+     * @throws WorkSpaceNotFoundException 工作空间不存
+     * @throws ExistedException           数据源已存在、图层已存在
+     * @throws ErrorException             数据源发布失败
+     */
+    public Boolean createPostGISLayer(
+            ImprovePostGISDatastore datastore,
+            ImprovePostGISDatastore.Profile profile,
+            String workspaceName,
+            String tableName,
+            int crsCode,
+            GWCTileLayerOptions tileLayerOptions
+    ) throws ExistedException, WorkSpaceNotFoundException, ErrorException {
+        return createPostGISLayer(datastore.builder(profile), workspaceName, tableName, crsCode, new GSLayerEncoder(), tileLayerOptions);
+    }
+
+    /**
+     * 按性能配置创建 PostGIS 数据源，并发布其中存在的表图层，指定样式
+     *
+     * @param datastore     PostGIS 数据源连接信息
+     * @param profile       数据源性能配置，决定连接池、预编译语句、范围估算等参数
+     * @param workspaceName 工作空间名称
+     * @param tableName     要发布的表名
+     * @param crsCode       坐标系代码
+     * @param styleName     style 样式服务名称
+     * @return 是否发布成功
+     * @throws WorkSpaceNotFoundException 工作空间不存
+     * @throws ExistedException           数据源已存在、图层已存在
+     * @throws ErrorException             数据源发布失败
+     */
+    public Boolean createPostGISLayer(
+            ImprovePostGISDatastore datastore,
+            ImprovePostGISDatastore.Profile profile,
+            String workspaceName,
+            String tableName,
+            int crsCode,
+            String styleName
+    ) throws ExistedException, WorkSpaceNotFoundException, ErrorException {
+        return createPostGISLayer(datastore, profile, workspaceName, tableName, crsCode, styleName, null);
+    }
+
+    /**
+     * 按性能配置创建 PostGIS 数据源，并发布其中存在的表图层，指定样式和该图层的切片缓存配置
+     *
+     * @param datastore        PostGIS 数据源连接信息
+     * @param profile          数据源性能配置，决定连接池、预编译语句、范围估算等参数
+     * @param workspaceName    工作空间名称
+     * @param tableName        要发布的表名
+     * @param crsCode          坐标系代码
+     * @param styleName        style 样式服务名称
+     * @param tileLayerOptions 切片图层配置，为 null 时使用默认配置
+     * @return 是否发布成功
+     * @throws WorkSpaceNotFoundException 工作空间不存
+     * @throws ExistedException           数据源已存在、图层已存在
+     * @throws ErrorException             数据源发布失败
+     */
+    public Boolean createPostGISLayer(
+            ImprovePostGISDatastore datastore,
+            ImprovePostGISDatastore.Profile profile,
+            String workspaceName,
+            String tableName,
+            int crsCode,
+            String styleName,
+            GWCTileLayerOptions tileLayerOptions
+    ) throws ExistedException, WorkSpaceNotFoundException, ErrorException {
+        GSLayerEncoder gsLayerEncoder = new GSLayerEncoder();
+
+        gsLayerEncoder.setDefaultStyle(styleName);
+        return createPostGISLayer(datastore.builder(profile), workspaceName, tableName, crsCode, gsLayerEncoder, tileLayerOptions);
     }
 
     /**
@@ -522,6 +1110,7 @@ public class GeoServerManager {
      * @param tableName                 要发布的表名
      * @param crsCode                   坐标系代码
      * @param gsLayerEncoder            图层配置对象
+     * @param tileLayerOptions          切片图层配置，为 null 时使用默认配置
      * @return 是否发布成功
      * @throws WorkSpaceNotFoundException 工作空间不存在
      * @throws ExistedException           数据源已存在、图层已存在
@@ -532,7 +1121,8 @@ public class GeoServerManager {
             String workspaceName,
             String tableName,
             int crsCode,
-            GSLayerEncoder gsLayerEncoder
+            GSLayerEncoder gsLayerEncoder,
+            GWCTileLayerOptions tileLayerOptions
     ) throws WorkSpaceNotFoundException, ExistedException, ErrorException {
         if (reader.existsDataStore(workspaceName, tableName)) {
             throw new ExistedException("数据源：" + tableName);
@@ -543,31 +1133,235 @@ public class GeoServerManager {
         }
 
         //    创建一个datastore
-        boolean postGISDataStoreResult = geoServerRESTManager.getStoreManager().create(workspaceName, gsPostGISDatastoreEncoder);
+        boolean postGISDataStoreResult = restClient.postXml(
+                GeoServerRESTClient.path("/rest/workspaces/%s/datastores", workspaceName), gsPostGISDatastoreEncoder.toString()
+        ).isSuccess();
 
         //    获取 datastore 名称
         String storeName = gsPostGISDatastoreEncoder.getName();
+        record(postGISDataStoreResult, CatalogCache.dataStoreKey(workspaceName, storeName), true);
 
-        boolean publishDBLayerResult = false;
+        if (!postGISDataStoreResult) {
+            throw new ErrorException(String.format("创建 datastore：%s 失败", storeName));
+        }
 
-        if (postGISDataStoreResult) {
-            GSFeatureTypeEncoder gsFeatureTypeEncoder = new GSFeatureTypeEncoder();
+        return publishPostGISTable(workspaceName, storeName, tableName, crsCode, gsLayerEncoder, tileLayerOptions);
+    }
+
+    /**
+     * 创建 PostGIS 数据源，已存在时直接复用
+     * 同一数据库的多个表发布到同一个数据源中，geoserver 只为其建立一个连接池
+     *
+     * @param workspaceName             工作空间名称
+     * @param gsPostGISDatastoreEncoder PostGIS DataStore 配置对象
+     * @return 数据源是否为新创建
+     * @throws WorkSpaceNotFoundException 工作空间不存在
+     * @throws ErrorException             数据源创建失败
+     */
+    public boolean createOrReusePostGISDataStore(
+            String workspaceName,
+            GSPostGISDatastoreEncoder gsPostGISDatastoreEncoder
+    ) throws WorkSpaceNotFoundException, ErrorException {
+        String storeName = gsPostGISDatastoreEncoder.getName();
 
-            gsFeatureTypeEncoder.setTitle(tableName);
-            gsFeatureTypeEncoder.setNativeName(tableName);
-            gsFeatureTypeEncoder.setName(tableName);
-            gsFeatureTypeEncoder.setSRS("EPSG:" + crsCode);
+        if (reader.existsDataStore(workspaceName, storeName)) {
+            return false;
+        }
 
-            publishDBLayerResult = geoServerRESTPublisher.publishDBLayer(workspaceName, storeName, gsFeatureTypeEncoder, gsLayerEncoder);
-        } else {
+        boolean created = restClient.postXml(
+                GeoServerRESTClient.path("/rest/workspaces/%s/datastores", workspaceName), gsPostGISDatastoreEncoder.toString()
+        ).isSuccess();
+        record(created, CatalogCache.dataStoreKey(workspaceName, storeName), true);
+
+        //    并发创建时可能已被其他调用创建
+        if (!created && !reader.existsDataStore(workspaceName, storeName)) {
             throw new ErrorException(String.format("创建 datastore：%s 失败", storeName));
         }
 
-        return publishDBLayerResult;
+        return created;
+    }
+
+    /**
+     * 将已存在的 PostGIS 数据源中的表发布为图层，表名即为图层名
+     *
+     * @param workspaceName 工作空间名称
+     * @param storeName     PostGIS 数据源名称
+     * @param tableName     要发布的表名
+     * @param crsCode       坐标系代码
+     * @return 是否发布成功
+     * @throws WorkSpaceNotFoundException 工作空间不存在
+     * @throws ExistedException           图层已存在
+     */
+    public Boolean publishPostGISTable(
+            String workspaceName,
+            String storeName,
+            String tableName,
+            int crsCode
+    ) throws WorkSpaceNotFoundException, ExistedException {
+        return publishPostGISTable(workspaceName, storeName, tableName, crsCode, null);
+    }
+
+    /**
+     * 将已存在的 PostGIS 数据源中的表按指定的切片缓存配置发布为图层，表名即为图层名
+     *
+     * @param workspaceName    工作空间名称
+     * @param storeName        PostGIS 数据源名称
+     * @param tableName        要发布的表名
+     * @param crsCode          坐标系代码
+     * @param tileLayerOptions 切片图层配置，为 null 时使用默认配置
+     * @return 是否发布成功
+     * @throws WorkSpaceNotFoundException 工作空间不存在
+     * @throws ExistedException           图层已存在
+     */
+    public Boolean publishPostGISTable(
+            String workspaceName,
+            String storeName,
+            String tableName,
+            int crsCode,
+            GWCTileLayerOptions tileLayerOptions
+    ) throws WorkSpaceNotFoundException, ExistedException {
+        if (reader.existsLayer(workspaceName, tableName)) {
+            throw new ExistedException("图层：" + tableName);
+        }
+
+        return publishPostGISTable(workspaceName, storeName, tableName, crsCode, new GSLayerEncoder(), tileLayerOptions);
+    }
+
+    private boolean publishPostGISTable(
+            String workspaceName,
+            String storeName,
+            String tableName,
+            int crsCode,
+            GSLayerEncoder gsLayerEncoder,
+            GWCTileLayerOptions tileLayerOptions
+    ) {
+        GSFeatureTypeEncoder gsFeatureTypeEncoder = new GSFeatureTypeEncoder();
+
+        gsFeatureTypeEncoder.setTitle(tableName);
+        gsFeatureTypeEncoder.setNativeName(tableName);
+        gsFeatureTypeEncoder.setName(tableName);
+        gsFeatureTypeEncoder.setSRS("EPSG:" + crsCode);
+
+        //    表的范围由 geoserver 计算，预生成切片的范围不限定
+        boolean publishDBLayerResult = publishFeatureType(workspaceName, storeName, gsFeatureTypeEncoder, gsLayerEncoder, tileLayerOptions, null, crsCode, null);
+
+        return record(publishDBLayerResult, CatalogCache.layerKey(workspaceName, tableName), true);
+    }
+
+    /**
+     * 在数据源下发布要素类型，并配置图层
+     *
+     * @param workspaceName        工作空间名称
+     * @param storeName            数据源名称
+     * @param gsFeatureTypeEncoder 要素类型配置对象
+     * @param gsLayerEncoder       图层配置对象
+     * @param tileLayerOptions     切片图层配置，为 null 时使用默认配置
+     * @param nativeBoundingBox    原生范围，未知时为 null
+     * @param crsCode              原生坐标系代码
+     * @param latLonBoundingBox    经纬度范围，未知时为 null
+     * @return 是否发布成功
+     */
+    private boolean publishFeatureType(
+            String workspaceName,
+            String storeName,
+            GSFeatureTypeEncoder gsFeatureTypeEncoder,
+            GSLayerEncoder gsLayerEncoder,
+            GWCTileLayerOptions tileLayerOptions,
+            double[] nativeBoundingBox,
+            int crsCode,
+            double[] latLonBoundingBox
+    ) {
+        String featureTypesUrl = GeoServerRESTClient.path("/rest/workspaces/%s/datastores/%s/featuretypes", workspaceName, storeName);
+
+        if (!restClient.postXml(featureTypesUrl, gsFeatureTypeEncoder.toString()).isSuccess()) {
+            return false;
+        }
+
+        if (!gsLayerEncoder.isEmpty()) {
+            String layerUrl = GeoServerRESTClient.path("/rest/layers/%s:%s", workspaceName, gsFeatureTypeEncoder.getName());
+
+            if (!restClient.putXml(layerUrl, gsLayerEncoder.toString()).isSuccess()) {
+                return false;
+            }
+        }
+
+        configurePublishedTileLayer(workspaceName, gsFeatureTypeEncoder.getName(), tileLayerOptions, true, nativeBoundingBox, crsCode, latLonBoundingBox);
+
+        return true;
+    }
+
+    /**
+     * 通过 GWC REST 接口配置图层的切片缓存
+     * geoserver 默认在发布图层时自动创建切片图层，GWC 只接受 POST 修改已有切片图层、PUT 创建新切片图层，
+     * 因此先查询切片图层是否存在再决定请求方法
+     *
+     * @param workspaceName 工作空间名称
+     * @param layerName     图层名称
+     * @param options       切片图层配置
+     * @param vector        是否为矢量图层，矢量图层才配置矢量切片格式
+     * @return 是否配置成功
+     */
+    public boolean configureTileLayer(String workspaceName, String layerName, GWCTileLayerOptions options, boolean vector) {
+        String qualifiedName = workspaceName + ":" + layerName;
+        String path = GeoServerRESTClient.path("/gwc/rest/layers/%s:%s.xml", workspaceName, layerName);
+        String xml = options.toXml(qualifiedName, vector);
+
+        RESTResponse existing = restClient.get(path, AcceptType.XML);
+        if (existing.isSuccess()) {
+            return restClient.postXml(path, xml).isSuccess();
+        }
+        if (existing.isNotFound()) {
+            return restClient.putXml(path, xml).isSuccess();
+        }
+
+        logger.warn(String.format("查询切片图层 %s 失败：%s", qualifiedName, existing));
+        return false;
+    }
+
+    /**
+     * 图层发布成功后写入切片图层，并在后台预生成切片；切片配置失败不影响图层本身，只记录日志
+     * 没有设置范围的预生成任务限定在本地计算出的图层范围内
+     *
+     * @param options           发布时指定的切片图层配置，为 null 时使用默认配置，都没有时不配置
+     * @param nativeBoundingBox 原生范围，未知时为 null
+     * @param crsCode           原生坐标系代码，未知时为 0
+     * @param latLonBoundingBox 经纬度范围，未知时为 null
+     */
+    private void configurePublishedTileLayer(
+            String workspaceName,
+            String layerName,
+            GWCTileLayerOptions options,
+            boolean vector,
+            double[] nativeBoundingBox,
+            int crsCode,
+            double[] latLonBoundingBox
+    ) {
+        if (options == null) {
+            options = tileLayerOptions;
+        }
+        if (options == null) {
+            return;
+        }
+
+        if (!configureTileLayer(workspaceName, layerName, options, vector)) {
+            logger.warn(String.format("图层 %s:%s 已发布，切片缓存配置失败", workspaceName, layerName));
+            return;
+        }
+
+        GWCTileSeeder seeder = tileSeeder;
+        List<GWCSeedRequest> seedRequests = new ArrayList<>();
+        for (GWCSeedRequest seedRequest : options.getSeedRequests()) {
+            seedRequests.add(seedRequest.withLayerBounds(nativeBoundingBox, crsCode, latLonBoundingBox));
+        }
+        if (seeder != null && !seedRequests.isEmpty()) {
+            seeder.submit(workspaceName, layerName, seedRequests);
+        }
     }
 
     /**
      * 发布Tiff 服务（wms）
+     * 上传前在本地读取 GeoTIFF 头信息，不合法的文件直接拒绝；
+     * 能识别 EPSG 代码时由本地得到的范围和坐标系配置栅格，否则由 geoserver 读取文件自动配置
      *
      * @param workspaceName 工作空间名称
      * @param layerName     图层名称
@@ -576,13 +1370,118 @@ public class GeoServerManager {
      * @throws FileNotFoundException      没有找到文件
      * @throws WorkSpaceNotFoundException 工作空间不存在
      * @throws ExistedException           图层已存在
+     * @throws ErrorException             不是合法的 GeoTIFF
+     */
+    public Boolean createGeoTIFFLayer(String workspaceName, String layerName, File tifFile) throws FileNotFoundException, WorkSpaceNotFoundException, ExistedException, ErrorException {
+        return createGeoTIFFLayer(workspaceName, layerName, tifFile, null);
+    }
+
+    /**
+     * 发布Tiff 服务（wms），并指定该图层的切片缓存配置
+     *
+     * @param workspaceName    工作空间名称
+     * @param layerName        图层名称
+     * @param tifFile          tif 文件对象
+     * @param tileLayerOptions 切片图层配置，为 null 时使用默认配置
+     * @return 是否发布成功
+     * @throws FileNotFoundException      没有找到文件
+     * @throws WorkSpaceNotFoundException 工作空间不存在
+     * @throws ExistedException           图层已存在
+     * @throws ErrorException             不是合法的 GeoTIFF
      */
-    public Boolean createGeoTIFFLayer(String workspaceName, String layerName, File tifFile) throws FileNotFoundException, WorkSpaceNotFoundException, ExistedException {
+    public Boolean createGeoTIFFLayer(
+            String workspaceName,
+            String layerName,
+            File tifFile,
+            GWCTileLayerOptions tileLayerOptions
+    ) throws FileNotFoundException, WorkSpaceNotFoundException, ExistedException, ErrorException {
         if (reader.existsLayer(workspaceName, layerName)) {
             throw new ExistedException("图层：" + layerName);
         }
 
-        return geoServerRESTPublisher.publishGeoTIFF(workspaceName, layerName, tifFile);
+        GeoTiffHeader header = GeoTiffHeader.read(tifFile);
+        double[] nativeBoundingBox = {header.getMinX(), header.getMinY(), header.getMaxX(), header.getMaxY()};
+
+        if (header.getEpsgCode() == 0) {
+            //    数据源名与图层名相同，上传后自动配置
+            String url = GeoServerRESTClient.path("/rest/workspaces/%s/coveragestores/%s/file.geotiff?configure=first", workspaceName, layerName)
+                    + "&coverageName=" + GeoServerRESTClient.encodeQuery(layerName);
+
+            boolean published = restClient.upload(url, tifFile, ContentType.GEOTIFF).isSuccess();
+            if (published) {
+                configurePublishedTileLayer(workspaceName, layerName, tileLayerOptions, false, null, 0, null);
+            }
+
+            return recordLayer(published, CatalogCache.coverageStoreKey(workspaceName, layerName), workspaceName, layerName);
+        }
+
+        //    只上传数据，栅格按头信息单独配置
+        String url = GeoServerRESTClient.path("/rest/workspaces/%s/coveragestores/%s/file.geotiff?configure=none", workspaceName, layerName);
+
+        boolean uploaded = restClient.upload(url, tifFile, ContentType.GEOTIFF).isSuccess();
+        record(uploaded, CatalogCache.coverageStoreKey(workspaceName, layerName), true);
+
+        boolean published = false;
+
+        if (uploaded) {
+            String coveragesUrl = GeoServerRESTClient.path("/rest/workspaces/%s/coveragestores/%s/coverages", workspaceName, layerName);
+
+            published = restClient.postXml(coveragesUrl, coverageEncoder(layerName, header).toString()).isSuccess();
+            if (published) {
+                configurePublishedTileLayer(workspaceName, layerName, tileLayerOptions, false,
+                        nativeBoundingBox, header.getEpsgCode(), latLonBoundingBox(header));
+            } else {
+                //    栅格配置失败时删除已上传的数据源，避免留下没有图层的数据源导致重新发布时冲突
+                boolean removed = restClient.delete(GeoServerRESTClient.path("/rest/workspaces/%s/coveragestores/%s?recurse=true", workspaceName, layerName)).isSuccess();
+                if (!record(removed, CatalogCache.coverageStoreKey(workspaceName, layerName), false)) {
+                    logger.warn(String.format("栅格 %s:%s 配置失败，删除已上传的数据源也失败", workspaceName, layerName));
+                }
+            }
+        }
+
+        return record(published, CatalogCache.layerKey(workspaceName, layerName), true);
+    }
+
+    /**
+     * 由 GeoTIFF 头信息生成栅格配置，上传的文件以数据源名保存，原生栅格名与数据源名相同
+     *
+     * @param layerName 图层名称
+     * @param header    GeoTIFF 头信息
+     * @return 栅格配置对象
+     */
+    static GSCoverageEncoder coverageEncoder(String layerName, GeoTiffHeader header) {
+        GSCoverageEncoder gsCoverageEncoder = new GSCoverageEncoder();
+
+        gsCoverageEncoder.setName(layerName);
+        gsCoverageEncoder.setTitle(layerName);
+        gsCoverageEncoder.setNativeName(layerName);
+        gsCoverageEncoder.setNativeCoverageName(layerName);
+        gsCoverageEncoder.setNativeFormat("GeoTIFF");
+        gsCoverageEncoder.setSRS(header.getSrs());
+        gsCoverageEncoder.setProjectionPolicy(GSResourceEncoder.ProjectionPolicy.FORCE_DECLARED);
+        gsCoverageEncoder.setNativeBoundingBox(header.getMinX(), header.getMinY(), header.getMaxX(), header.getMaxY(), header.getSrs());
+        double[] latLonBoundingBox = latLonBoundingBox(header);
+        if (latLonBoundingBox != null) {
+            gsCoverageEncoder.setLatLonBoundingBox(latLonBoundingBox[0], latLonBoundingBox[1], latLonBoundingBox[2], latLonBoundingBox[3], "EPSG:4326");
+        }
+        gsCoverageEncoder.setEnabled(true);
+
+        return gsCoverageEncoder;
+    }
+
+    /**
+     * 地理坐标系（头信息中为经纬度模型，或 CGCS2000 等常用地理坐标系）的范围即为经纬度范围，
+     * Web 墨卡托换算为经纬度，其他投影坐标系由 geoserver 转换
+     *
+     * @param header GeoTIFF 头信息
+     * @return 经纬度范围 [minX, minY, maxX, maxY]，需要 geoserver 转换时为 null
+     */
+    static double[] latLonBoundingBox(GeoTiffHeader header) {
+        if (header.isGeographic()) {
+            return new double[]{header.getMinX(), header.getMinY(), header.getMaxX(), header.getMaxY()};
+        }
+
+        return ShapefileHeader.latLonBoundingBox(header.getEpsgCode(), header.getMinX(), header.getMinY(), header.getMaxX(), header.getMaxY());
     }
 
 
@@ -591,13 +1490,14 @@ public class GeoServerManager {
      *
      * @param workspaceName  工作空间民称
      * @param layerGroupName 图层组名称
-     * @param layersList     图层名称列表
+     * @param layersList     图层名称列表，格式为 工作空间:图层名
      * @return 图层组是否创建成功
      * @throws WorkSpaceNotFoundException 工作空间不存在
-     * @throws LayerNotFoundException     图层不存在
+     * @throws LayerNotFoundException     图层不存在，包含所有不存在的图层名称
      * @throws ExistedException           图层组已存在
+     * @throws RequestFailedException     读取图层列表失败，此时无法判断图层是否存在
      */
-    public Boolean createLayerGroup(String workspaceName, String layerGroupName, ArrayList<String> layersList) throws WorkSpaceNotFoundException, LayerNotFoundException, ExistedException {
+    public Boolean createLayerGroup(String workspaceName, String layerGroupName, ArrayList<String> layersList) throws WorkSpaceNotFoundException, LayerNotFoundException, ExistedException, RequestFailedException {
         if (reader.existsLayerGroup(workspaceName, layerGroupName)) {
             throw new ExistedException("图层组：" + layerGroupName);
         }
@@ -606,19 +1506,44 @@ public class GeoServerManager {
         gsLayerGroupEncoder.setWorkspace(workspaceName);
         gsLayerGroupEncoder.setName(layerGroupName);
 
+        //    按工作空间分组，每个工作空间只读取一次图层列表
+        Map<String, List<String>> layersByWorkspace = new LinkedHashMap<>();
+        List<String> missingLayers = new ArrayList<>();
+
         for (String layer : layersList) {
             String[] split = layer.split(":");
 
-            String layerWorkspaceName = split[0];
-            String layerName = split[1];
+            if (split.length != 2) {
+                missingLayers.add(layer);
+                continue;
+            }
+
+            layersByWorkspace.computeIfAbsent(split[0], key -> new ArrayList<>()).add(split[1]);
+        }
+
+        for (Map.Entry<String, List<String>> entry : layersByWorkspace.entrySet()) {
+            String layerWorkspaceName = entry.getKey();
+            Set<String> existingLayers = new HashSet<>(reader.getLayers(layerWorkspaceName));
 
-            if (!reader.existsLayer(layerWorkspaceName, layerName)) {
-                throw new LayerNotFoundException(layerName);
+            for (String layerName : entry.getValue()) {
+                if (!existingLayers.contains(layerName)) {
+                    missingLayers.add(layerWorkspaceName + ":" + layerName);
+                }
             }
+        }
+
+        //    一次性报告所有不存在的图层
+        if (!missingLayers.isEmpty()) {
+            throw new LayerNotFoundException(String.join(", ", missingLayers));
+        }
+
+        for (String layer : layersList) {
             gsLayerGroupEncoder.addLayer(layer);
         }
 
-        return geoServerRESTPublisher.createLayerGroup(workspaceName, layerGroupName, gsLayerGroupEncoder);
+        boolean created = restClient.postXml(GeoServerRESTClient.path("/rest/workspaces/%s/layergroups", workspaceName), gsLayerGroupEncoder.toString()).isSuccess();
+
+        return record(created, CatalogCache.layerGroupKey(workspaceName, layerGroupName), true);
     }
 
     /**
@@ -635,7 +1560,11 @@ public class GeoServerManager {
             throw new DataSourceNotFoundException(dataStoreName);
         }
 
-        return geoServerRESTPublisher.removeDatastore(workspaceName, dataStoreName, true);
+        boolean removed = restClient.delete(GeoServerRESTClient.path("/rest/workspaces/%s/datastores/%s?recurse=true", workspaceName, dataStoreName)).isSuccess();
+        //    级联删除了数据源下的图层
+        catalogCache.invalidateLayers(workspaceName);
+
+        return record(removed, CatalogCache.dataStoreKey(workspaceName, dataStoreName), false);
     }
 
     /**
@@ -652,7 +1581,11 @@ public class GeoServerManager {
             throw new CoverageStoreNotFoundException(coverageStoresName);
         }
 
-        return geoServerRESTPublisher.removeCoverageStore(workspaceName, coverageStoresName, true);
+        boolean removed = restClient.delete(GeoServerRESTClient.path("/rest/workspaces/%s/coveragestores/%s?recurse=true", workspaceName, coverageStoresName)).isSuccess();
+        //    级联删除了数据源下的图层
+        catalogCache.invalidateLayers(workspaceName);
+
+        return record(removed, CatalogCache.coverageStoreKey(workspaceName, coverageStoresName), false);
     }
 
     /**
@@ -669,7 +1602,9 @@ public class GeoServerManager {
             throw new LayerNotFoundException(layerName);
         }
 
-        return geoServerRESTPublisher.removeLayer(workspaceName, layerName);
+        boolean removed = restClient.delete(GeoServerRESTClient.path("/rest/layers/%s:%s", workspaceName, layerName)).isSuccess();
+
+        return record(removed, CatalogCache.layerKey(workspaceName, layerName), false);
     }
 
     /**
@@ -686,7 +1621,42 @@ public class GeoServerManager {
             throw new LayerGroupNotFoundException(layerGroupName);
         }
 
-        return geoServerRESTPublisher.removeLayerGroup(workspaceName, layerGroupName);
+        boolean removed = restClient.delete(GeoServerRESTClient.path("/rest/workspaces/%s/layergroups/%s", workspaceName, layerGroupName)).isSuccess();
+
+        return record(removed, CatalogCache.layerGroupKey(workspaceName, layerGroupName), false);
+    }
+
+    /**
+     * 将写入结果同步到目录缓存：成功时记录资源的最新状态，失败时状态不确定，删除缓存
+     *
+     * @param success     写入是否成功
+     * @param key         缓存键
+     * @param existsAfter 写入成功后资源是否存在
+     * @return 写入是否成功
+     */
+    private boolean record(boolean success, String key, boolean existsAfter) {
+        if (success) {
+            catalogCache.put(key, existsAfter);
+        } else {
+            catalogCache.invalidate(key);
+        }
+
+        return success;
+    }
+
+    /**
+     * 将图层发布结果同步到目录缓存，发布图层时会同时创建数据源
+     *
+     * @param published     是否发布成功
+     * @param storeKey      数据源缓存键
+     * @param workspaceName 工作空间名称
+     * @param layerName     图层名称
+     * @return 是否发布成功
+     */
+    private boolean recordLayer(boolean published, String storeKey, String workspaceName, String layerName) {
+        record(published, storeKey, true);
+
+        return record(published, CatalogCache.layerKey(workspaceName, layerName), true);
     }
 
 
@@ -0,0 +1,582 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.constant.AcceptType;
+import com.example.geoserver.constant.ContentType;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.UsernamePasswordCredentials;
+import org.apache.commons.httpclient.auth.AuthScope;
+import org.apache.commons.httpclient.methods.DeleteMethod;
+import org.apache.commons.httpclient.methods.EntityEnclosingMethod;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.PutMethod;
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 进程内的 geoserver REST 客户端
+ * 基于连接池（keep-alive）复用 TCP 连接和认证信息，请求体以流的方式写出，结果以 HTTP 状态码表示
+ * 线程安全，同一 geoserver 的所有读写请求应共享同一个实例
+ */
+public class GeoServerRESTClient {
+    private static final Logger logger = LoggerFactory.getLogger(GeoServerRESTClient.class);
+
+    //  每个 geoserver 地址默认最大连接数
+    public static final int DEFAULT_MAX_PER_ROUTE = 20;
+    //  连接池默认最大连接数
+    public static final int DEFAULT_MAX_TOTAL = 50;
+    //  建立连接超时（毫秒）
+    public static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+    //  读取超时（毫秒），上传大文件时 geoserver 处理较慢
+    public static final int DEFAULT_SO_TIMEOUT = 300000;
+    //  空闲连接回收时间（毫秒）
+    public static final long DEFAULT_IDLE_TIMEOUT = 60000;
+    //  延迟归一化时每 MB 请求体计一个单位，请求本身的固定开销另计一个单位
+    private static final double BYTES_PER_UNIT = 1024 * 1024;
+
+    private final String restUrl;
+    private final String userName;
+    private final String password;
+
+    private final MultiThreadedHttpConnectionManager connectionManager;
+    private final IdleConnectionTimeoutThread idleConnectionTimeoutThread;
+    private final HttpClient httpClient;
+
+    //  请求指标，默认写入 Micrometer 全局注册表
+    private volatile GeoServerRESTMetrics metrics = new GeoServerRESTMetrics();
+    //  上传文件的自适应并发上限，为 null 时不限制
+    private volatile AdaptiveConcurrencyLimit uploadLimit;
+    //  查询（GET）的自适应并发上限，为 null 时不限制
+    private volatile AdaptiveConcurrencyLimit readLimit;
+    //  配置、删除（POST、PUT、DELETE）的自适应并发上限，为 null 时不限制
+    private volatile AdaptiveConcurrencyLimit writeLimit;
+
+    public GeoServerRESTClient(String restUrl, String userName, String password) throws MalformedURLException {
+        this(restUrl, userName, password, DEFAULT_MAX_PER_ROUTE, DEFAULT_MAX_TOTAL, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * 提供 geoserver 服务地址、用户名、密码以及连接池大小
+     *
+     * @param restUrl     geoserver 服务地址
+     * @param userName    geoserver 登录用户名
+     * @param password    geoserver 密码
+     * @param maxPerRoute 每个 geoserver 地址的最大连接数
+     * @param maxTotal    连接池最大连接数
+     * @param idleTimeout 空闲连接回收时间（毫秒）
+     * @throws MalformedURLException 服务地址错误
+     */
+    public GeoServerRESTClient(String restUrl, String userName, String password, int maxPerRoute, int maxTotal, long idleTimeout) throws MalformedURLException {
+        //    只用于校验地址，请求地址由 restUrl 与已编码的路径拼接
+        URL url = new URL(restUrl);
+        if (!"http".equals(url.getProtocol()) && !"https".equals(url.getProtocol())) {
+            throw new MalformedURLException("geoserver 服务地址必须为 http 或 https：" + restUrl);
+        }
+
+        this.restUrl = restUrl.endsWith("/") ? restUrl.substring(0, restUrl.length() - 1) : restUrl;
+        this.userName = userName;
+        this.password = password;
+
+        connectionManager = new MultiThreadedHttpConnectionManager();
+        HttpConnectionManagerParams params = connectionManager.getParams();
+        params.setDefaultMaxConnectionsPerHost(maxPerRoute);
+        params.setMaxTotalConnections(maxTotal);
+        params.setConnectionTimeout(DEFAULT_CONNECT_TIMEOUT);
+        params.setSoTimeout(DEFAULT_SO_TIMEOUT);
+        params.setStaleCheckingEnabled(true);
+
+        //  定期关闭空闲超时的连接，避免被 geoserver 端断开的连接留在池中
+        idleConnectionTimeoutThread = new IdleConnectionTimeoutThread();
+        idleConnectionTimeoutThread.addConnectionManager(connectionManager);
+        idleConnectionTimeoutThread.setConnectionTimeout(idleTimeout);
+        idleConnectionTimeoutThread.setTimeoutInterval(Math.max(1000, idleTimeout / 2));
+        idleConnectionTimeoutThread.start();
+
+        httpClient = new HttpClient(connectionManager);
+        //  预先发送认证信息，避免每个请求多一次 401 往返
+        httpClient.getParams().setAuthenticationPreemptive(true);
+        httpClient.getState().setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(userName, password));
+    }
+
+    /**
+     * 按格式拼接请求路径，参数作为路径中的一段编码，名称中的空格、中文、/、%、? 等字符不会破坏请求地址
+     *
+     * @param format   路径格式，如 /rest/workspaces/%s/datastores/%s.xml，查询参数只能为固定值
+     * @param segments 工作空间、数据源、图层等名称
+     * @return 已编码的请求路径
+     */
+    public static String path(String format, Object... segments) {
+        Object[] encoded = new Object[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            encoded[i] = encodePath(String.valueOf(segments[i]));
+        }
+
+        return String.format(format, encoded);
+    }
+
+    /**
+     * @param segment 路径中的一段
+     * @return UTF-8 百分号编码，空格编码为 %20
+     */
+    public static String encodePath(String segment) {
+        return encodeQuery(segment).replace("+", "%20");
+    }
+
+    /**
+     * @param value 查询参数值
+     * @return UTF-8 表单编码
+     */
+    public static String encodeQuery(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public String getRestURL() {
+        return restUrl;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public GeoServerRESTMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 设置请求指标的注册表
+     *
+     * @param metrics 请求指标
+     */
+    public void setMetrics(GeoServerRESTMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 设置自适应并发上限，上传、查询、配置分开限制
+     * 三类请求的延迟相差几个数量级（毫秒级的存在性查询、秒级的要素类型配置、按 MB 计的上传），
+     * 共用一个延迟基线时慢的一类总被判为过载，因此各自维护基线和上限
+     *
+     * @param uploadLimit 上传文件（PUT file.*）的并发上限，为 null 时不限制
+     * @param readLimit   查询（GET）的并发上限，为 null 时不限制
+     * @param writeLimit  配置、删除（POST、PUT、DELETE）的并发上限，为 null 时不限制
+     */
+    public void setConcurrencyLimits(AdaptiveConcurrencyLimit uploadLimit, AdaptiveConcurrencyLimit readLimit, AdaptiveConcurrencyLimit writeLimit) {
+        this.uploadLimit = uploadLimit;
+        this.readLimit = readLimit;
+        this.writeLimit = writeLimit;
+    }
+
+    public AdaptiveConcurrencyLimit getUploadLimit() {
+        return uploadLimit;
+    }
+
+    public AdaptiveConcurrencyLimit getReadLimit() {
+        return readLimit;
+    }
+
+    public AdaptiveConcurrencyLimit getWriteLimit() {
+        return writeLimit;
+    }
+
+    /**
+     * 发送 GET 请求
+     *
+     * @param path   请求路径，如 /rest/workspaces.xml
+     * @param accept 接受的返回格式
+     * @return 请求结果
+     */
+    public RESTResponse get(String path, String accept) {
+        GetMethod method = new GetMethod(restUrl + path);
+        method.setRequestHeader(AcceptType.HEADER, accept);
+
+        return execute(path, method, null);
+    }
+
+    /**
+     * 发送 GET 请求，成功时把返回内容以流的方式写入 out，不在内存中保留
+     *
+     * @param path   请求路径
+     * @param accept 接受的返回格式
+     * @param out    返回内容的输出流
+     * @return 请求结果，成功时 body 为空
+     */
+    public RESTResponse download(String path, String accept, OutputStream out) {
+        GetMethod method = new GetMethod(restUrl + path);
+        method.setRequestHeader(AcceptType.HEADER, accept);
+
+        AdaptiveConcurrencyLimit limit = limitFor(method.getName(), path);
+        if (!acquire(limit)) {
+            return new RESTResponse(RESTResponse.NO_RESPONSE, "等待并发上限时被中断");
+        }
+
+        GeoServerRESTMetrics.Sample sample = metrics.start(method.getName(), path);
+        int statusCode = RESTResponse.NO_RESPONSE;
+        long startNanos = System.nanoTime();
+
+        try {
+            statusCode = httpClient.executeMethod(method);
+            RESTResponse response = new RESTResponse(statusCode, "");
+
+            if (!response.isSuccess()) {
+                return new RESTResponse(statusCode, readBody(method));
+            }
+
+            InputStream in = method.getResponseBodyAsStream();
+            if (in != null) {
+                copy(in, out);
+            }
+
+            return response;
+        } catch (IOException e) {
+            logger.error(String.format("请求 %s %s 失败：%s", method.getName(), method.getPath(), e.getMessage()));
+
+            return new RESTResponse(RESTResponse.NO_RESPONSE, e.getMessage());
+        } finally {
+            method.releaseConnection();
+            sample.stop(statusCode, 0);
+            release(limit, startNanos, statusCode, 0);
+        }
+    }
+
+    /**
+     * 判断资源是否存在（返回 200）
+     *
+     * @param path 请求路径
+     * @return 资源是否存在
+     */
+    public boolean exists(String path) {
+        return get(path, AcceptType.XML).getStatusCode() == 200;
+    }
+
+    /**
+     * 发送 POST 请求，请求体以流的方式写出
+     *
+     * @param path   请求路径
+     * @param entity 请求体
+     * @param accept 接受的返回格式
+     * @return 请求结果
+     */
+    public RESTResponse post(String path, RequestEntity entity, String accept) {
+        return send(path, new PostMethod(restUrl + path), entity, accept);
+    }
+
+    /**
+     * 发送 XML 格式的 POST 请求
+     *
+     * @param path 请求路径
+     * @param xml  XML 请求内容
+     * @return 请求结果
+     */
+    public RESTResponse postXml(String path, String xml) {
+        return post(path, xmlEntity(xml), AcceptType.XML);
+    }
+
+    /**
+     * 发送 PUT 请求，请求体以流的方式写出
+     *
+     * @param path   请求路径
+     * @param entity 请求体
+     * @param accept 接受的返回格式
+     * @return 请求结果
+     */
+    public RESTResponse put(String path, RequestEntity entity, String accept) {
+        return send(path, new PutMethod(restUrl + path), entity, accept);
+    }
+
+    /**
+     * 发送 XML 格式的 PUT 请求
+     *
+     * @param path 请求路径
+     * @param xml  XML 请求内容
+     * @return 请求结果
+     */
+    public RESTResponse putXml(String path, String xml) {
+        return put(path, xmlEntity(xml), AcceptType.XML);
+    }
+
+    /**
+     * 以 PUT 方式流式上传文件，记录上传速率
+     *
+     * @param path        请求路径
+     * @param file        上传的文件
+     * @param contentType 文件格式
+     * @return 请求结果
+     */
+    public RESTResponse upload(String path, File file, String contentType) {
+        FileChannelRequestEntity entity = new FileChannelRequestEntity(file, contentType);
+
+        RESTResponse response = put(path, entity, AcceptType.XML);
+
+        logger.info(String.format("上传 %s：%d 字节，耗时 %d ms，%.2f MB/s，状态码 %d",
+                file.getName(), entity.getBytesWritten(), entity.getElapsedMillis(),
+                entity.getBytesPerSecond() / (1024 * 1024), response.getStatusCode()));
+
+        return response;
+    }
+
+    /**
+     * 以 PUT 方式上传边压缩边写出的 shapefile zip，记录压缩前后的字节数和速率
+     *
+     * @param path   请求路径
+     * @param entity shapefile zip 请求体
+     * @return 请求结果
+     */
+    public RESTResponse upload(String path, ShapefileZipRequestEntity entity) {
+        RESTResponse response = put(path, entity, AcceptType.XML);
+
+        logger.info(String.format("打包上传 %s：%d 个文件，%d 字节压缩为 %d 字节，耗时 %d ms，%.2f MB/s，状态码 %d",
+                entity.getLayerName(), entity.getMembers().size(), entity.getBytesRead(), entity.getBytesWritten(),
+                entity.getElapsedMillis(), entity.getBytesPerSecond() / (1024 * 1024), response.getStatusCode()));
+
+        return response;
+    }
+
+    /**
+     * 发送 DELETE 请求
+     *
+     * @param path 请求路径
+     * @return 请求结果
+     */
+    public RESTResponse delete(String path) {
+        return execute(path, new DeleteMethod(restUrl + path), null);
+    }
+
+    /**
+     * 预热连接池：并发发送若干轻量请求，提前建立 TCP 连接并完成认证
+     *
+     * @param connections 预热的连接数
+     * @return 成功建立的连接数
+     */
+    public int warmUp(int connections) {
+        if (connections <= 0) {
+            return 0;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(connections);
+        try {
+            List<Future<RESTResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < connections; i++) {
+                futures.add(executor.submit(() -> get("/rest/about/version.xml", AcceptType.XML)));
+            }
+
+            int opened = 0;
+            for (Future<RESTResponse> future : futures) {
+                if (future.get().getStatusCode() != RESTResponse.NO_RESPONSE) {
+                    opened++;
+                }
+            }
+
+            return opened;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (ExecutionException e) {
+            logger.error("连接池预热失败：" + e.getMessage());
+            return 0;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 关闭连接池
+     */
+    public void shutdown() {
+        idleConnectionTimeoutThread.shutdown();
+        connectionManager.shutdown();
+    }
+
+    private static RequestEntity xmlEntity(String xml) {
+        return new ByteArrayRequestEntity(xml.getBytes(StandardCharsets.UTF_8), ContentType.XML);
+    }
+
+    private RESTResponse send(String path, EntityEnclosingMethod method, RequestEntity entity, String accept) {
+        CountingRequestEntity countingEntity = new CountingRequestEntity(entity);
+        method.setRequestEntity(countingEntity);
+        method.setRequestHeader(AcceptType.HEADER, accept);
+
+        return execute(path, method, countingEntity);
+    }
+
+    private RESTResponse execute(String path, HttpMethod method, CountingRequestEntity entity) {
+        AdaptiveConcurrencyLimit limit = limitFor(method.getName(), path);
+        if (!acquire(limit)) {
+            return new RESTResponse(RESTResponse.NO_RESPONSE, "等待并发上限时被中断");
+        }
+
+        GeoServerRESTMetrics.Sample sample = metrics.start(method.getName(), path);
+        int statusCode = RESTResponse.NO_RESPONSE;
+        long startNanos = System.nanoTime();
+
+        try {
+            statusCode = httpClient.executeMethod(method);
+
+            return new RESTResponse(statusCode, readBody(method));
+        } catch (IOException e) {
+            logger.error(String.format("请求 %s %s 失败：%s", method.getName(), method.getPath(), e.getMessage()));
+
+            return new RESTResponse(RESTResponse.NO_RESPONSE, e.getMessage());
+        } finally {
+            //  归还连接到连接池
+            method.releaseConnection();
+            long sentBytes = entity == null ? 0 : entity.getBytesWritten();
+            sample.stop(statusCode, sentBytes);
+            release(limit, startNanos, statusCode, sentBytes);
+        }
+    }
+
+    /**
+     * @return 请求对应的并发上限，上传文件的路径以 file.* 结尾
+     */
+    private AdaptiveConcurrencyLimit limitFor(String methodName, String path) {
+        int queryIndex = path.indexOf('?');
+        String resource = queryIndex < 0 ? path : path.substring(0, queryIndex);
+
+        if (resource.substring(resource.lastIndexOf('/') + 1).startsWith("file.")) {
+            return uploadLimit;
+        }
+
+        return "GET".equals(methodName) || "HEAD".equals(methodName) ? readLimit : writeLimit;
+    }
+
+    private static boolean acquire(AdaptiveConcurrencyLimit limit) {
+        if (limit == null) {
+            return true;
+        }
+
+        try {
+            limit.acquire();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 按请求结果调整并发上限，上传的延迟按请求体大小归一化，不受文件大小影响
+     */
+    private static void release(AdaptiveConcurrencyLimit limit, long startNanos, int statusCode, long sentBytes) {
+        if (limit == null) {
+            return;
+        }
+
+        long latencyNanos = normalizedLatency(System.nanoTime() - startNanos, sentBytes);
+        boolean dropped = statusCode == RESTResponse.NO_RESPONSE || statusCode == 429 || statusCode >= 500;
+
+        limit.release(latencyNanos, dropped);
+    }
+
+    /**
+     * 延迟除以 1 + 请求体 MB 数（按小数计算）：小请求的延迟以固定开销为主，大文件的延迟随大小线性增长，
+     * 不同大小的文件得到可比较的延迟，不会因取整在 1 MB、2 MB 处跳变
+     *
+     * @param latencyNanos 请求延迟（纳秒）
+     * @param sentBytes    请求体字节数
+     * @return 归一化后的延迟（纳秒）
+     */
+    static long normalizedLatency(long latencyNanos, long sentBytes) {
+        return (long) (latencyNanos / (1 + sentBytes / BYTES_PER_UNIT));
+    }
+
+    private static String readBody(HttpMethod method) throws IOException {
+        InputStream in = method.getResponseBodyAsStream();
+        if (in == null) {
+            return "";
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        copy(in, out);
+
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+    }
+
+    /**
+     * 统计实际写出字节数的请求体，长度未知（分块传输）的请求体也能统计
+     */
+    private static class CountingRequestEntity implements RequestEntity {
+        private final RequestEntity entity;
+        private volatile long bytesWritten;
+
+        CountingRequestEntity(RequestEntity entity) {
+            this.entity = entity;
+        }
+
+        long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return entity.isRepeatable();
+        }
+
+        @Override
+        public void writeRequest(OutputStream out) throws IOException {
+            bytesWritten = 0;
+            entity.writeRequest(new FilterOutputStream(out) {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    bytesWritten++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    bytesWritten += len;
+                }
+            });
+        }
+
+        @Override
+        public long getContentLength() {
+            return entity.getContentLength();
+        }
+
+        @Override
+        public String getContentType() {
+            return entity.getContentType();
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.geoserver.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * geoserver REST 请求指标
+ * 按节点、操作（资源类型.动作，如 datastores.upload）和工作空间打标签，记录耗时分布、执行中请求数、发送字节数和错误数
+ * 操作和工作空间由请求路径推断，不含资源名称；工作空间标签只取允许列表中的值，或最先出现的若干个，其余记为 other
+ */
+public class GeoServerRESTMetrics {
+    //  请求耗时，标签：node、operation、workspace、outcome
+    public static final String REQUESTS = "geoserver.rest.requests";
+    //  执行中的请求数，标签：node、operation、workspace
+    public static final String IN_FLIGHT = "geoserver.rest.in.flight";
+    //  发送的请求体字节数，标签：node、operation、workspace
+    public static final String BYTES_SENT = "geoserver.rest.bytes.sent";
+    //  失败的请求数，标签：node、operation、workspace、outcome
+    public static final String ERRORS = "geoserver.rest.errors";
+
+    //  路径中不属于任何工作空间时的标签值
+    public static final String NO_WORKSPACE = "none";
+    //  未指定节点时的标签值
+    public static final String DEFAULT_NODE = "default";
+    //  不在允许列表中或超过上限的工作空间的标签值
+    public static final String OTHER_WORKSPACE = "other";
+    //  默认最多使用的工作空间标签值个数
+    public static final int DEFAULT_MAX_WORKSPACES = 50;
+
+    //  可识别的资源类型，路径中最后一个资源类型即为操作的资源
+    private static final Set<String> RESOURCES = new HashSet<>(Arrays.asList(
+            "about", "workspaces", "namespaces", "datastores", "coveragestores", "featuretypes", "coverages",
+            "layers", "layergroups", "styles"
+    ));
+
+    private final MeterRegistry registry;
+    private final String node;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> bytesSent = new ConcurrentHashMap<>();
+    private final Map<String, Counter> errors = new ConcurrentHashMap<>();
+
+    //  是否导出耗时直方图，由监控系统聚合计算分位数
+    private volatile boolean percentileHistogram;
+    //  允许作为标签值的工作空间，为空时取最先出现的 maxWorkspaces 个
+    private volatile Set<String> allowedWorkspaces = new HashSet<>();
+    private volatile int maxWorkspaces = DEFAULT_MAX_WORKSPACES;
+    //  已作为标签值的工作空间
+    private final Set<String> workspaces = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 使用 Micrometer 全局注册表，未接入监控系统时不产生开销
+     */
+    public GeoServerRESTMetrics() {
+        this(Metrics.globalRegistry);
+    }
+
+    public GeoServerRESTMetrics(MeterRegistry registry) {
+        this(registry, DEFAULT_NODE);
+    }
+
+    /**
+     * @param registry 指标注册表
+     * @param node     节点标签，多个 geoserver 节点共用一个注册表时区分各节点的指标
+     */
+    public GeoServerRESTMetrics(MeterRegistry registry, String node) {
+        this.registry = registry;
+        this.node = node;
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * 导出耗时直方图后可在监控系统中跨实例聚合分位数，但每个耗时指标增加约 70 个时间序列，默认关闭
+     * 需在记录请求前设置，已创建的耗时指标不受影响
+     *
+     * @param percentileHistogram 是否导出耗时直方图
+     */
+    public void setPercentileHistogram(boolean percentileHistogram) {
+        this.percentileHistogram = percentileHistogram;
+    }
+
+    /**
+     * @param allowedWorkspaces 允许作为标签值的工作空间，为空时取最先出现的若干个
+     */
+    public void setAllowedWorkspaces(Collection<String> allowedWorkspaces) {
+        Set<String> allowed = new HashSet<>();
+        for (String workspace : allowedWorkspaces) {
+            if (workspace != null && !workspace.trim().isEmpty()) {
+                allowed.add(workspace.trim());
+            }
+        }
+
+        this.allowedWorkspaces = allowed;
+    }
+
+    /**
+     * @param maxWorkspaces 未设置允许列表时最多使用的工作空间标签值个数
+     */
+    public void setMaxWorkspaces(int maxWorkspaces) {
+        this.maxWorkspaces = Math.max(0, maxWorkspaces);
+    }
+
+    /**
+     * 开始记录一次请求
+     *
+     * @param method 请求方法
+     * @param path   请求路径，如 /rest/workspaces/shp/datastores.xml
+     * @return 请求记录，请求结束后调用 stop
+     */
+    public Sample start(String method, String path) {
+        String[] operation = operation(method, path);
+        return new Sample(method, operation[0], workspaceTag(operation[1]));
+    }
+
+    /**
+     * 限制工作空间标签值的个数，工作空间由用户创建，不限制时指标数量随工作空间无限增长
+     *
+     * @param workspace 路径中的工作空间
+     * @return 标签值
+     */
+    String workspaceTag(String workspace) {
+        if (NO_WORKSPACE.equals(workspace)) {
+            return workspace;
+        }
+
+        Set<String> allowed = allowedWorkspaces;
+        if (!allowed.isEmpty()) {
+            return allowed.contains(workspace) ? workspace : OTHER_WORKSPACE;
+        }
+
+        if (workspaces.contains(workspace)) {
+            return workspace;
+        }
+
+        synchronized (workspaces) {
+            if (workspaces.contains(workspace) || workspaces.size() < maxWorkspaces) {
+                workspaces.add(workspace);
+                return workspace;
+            }
+        }
+
+        return OTHER_WORKSPACE;
+    }
+
+    /**
+     * 由请求方法和路径推断操作和工作空间
+     *
+     * @param method 请求方法
+     * @param path   请求路径
+     * @return [操作, 工作空间]
+     */
+    static String[] operation(String method, String path) {
+        int queryIndex = path.indexOf('?');
+        String[] segments = (queryIndex < 0 ? path : path.substring(0, queryIndex)).split("/");
+
+        String resource = "other";
+        boolean item = false;
+        String workspace = NO_WORKSPACE;
+        String last = segments.length == 0 ? "" : segments[segments.length - 1];
+
+        for (int i = 0; i < segments.length; i++) {
+            String segment = stripExtension(segments[i]);
+
+            if (RESOURCES.contains(segment)) {
+                resource = segment;
+                item = i + 1 < segments.length && !segments[i + 1].isEmpty();
+
+                if (item && "workspaces".equals(segment)) {
+                    workspace = decode(stripExtension(segments[i + 1]));
+                } else if (item && "layers".equals(segment) && segments[i + 1].indexOf(':') > 0) {
+                    workspace = decode(segments[i + 1].substring(0, segments[i + 1].indexOf(':')));
+                }
+
+                //  跳过资源名称，名称与资源类型相同时不误判
+                if (item) {
+                    i++;
+                }
+            }
+        }
+
+        String action;
+        switch (method) {
+            case "GET":
+                action = item ? "get" : "list";
+                break;
+            case "POST":
+                action = "create";
+                break;
+            case "PUT":
+                action = last.startsWith("file.") ? "upload" : "update";
+                break;
+            case "DELETE":
+                action = "remove";
+                break;
+            default:
+                action = method.toLowerCase();
+        }
+
+        return new String[]{resource + "." + action, workspace};
+    }
+
+    /**
+     * 请求结果分类
+     *
+     * @param statusCode HTTP 状态码
+     * @return success、not_found、client_error、server_error 或 io_error
+     */
+    static String outcome(int statusCode) {
+        if (statusCode == RESTResponse.NO_RESPONSE) {
+            return "io_error";
+        }
+        if (statusCode < 400) {
+            return "success";
+        }
+        if (statusCode == 404) {
+            return "not_found";
+        }
+        return statusCode < 500 ? "client_error" : "server_error";
+    }
+
+    /**
+     * 路径中的名称已按 {@link GeoServerRESTClient#encodePath(String)} 编码，标签使用原名称
+     */
+    private static String decode(String segment) {
+        try {
+            return URLDecoder.decode(segment, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return segment;
+        }
+    }
+
+    private static String stripExtension(String segment) {
+        int index = segment.lastIndexOf('.');
+        return index > 0 ? segment.substring(0, index) : segment;
+    }
+
+    /**
+     * 一次请求的记录
+     */
+    public class Sample {
+        private final String method;
+        private final String operation;
+        private final String workspace;
+        private final AtomicInteger running;
+        private final long startNanos;
+
+        private Sample(String method, String operation, String workspace) {
+            this.method = method;
+            this.operation = operation;
+            this.workspace = workspace;
+            this.running = inFlight.computeIfAbsent(operation + "|" + workspace,
+                    key -> registry.gauge(IN_FLIGHT, tags(), new AtomicInteger()));
+            this.running.incrementAndGet();
+            this.startNanos = System.nanoTime();
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public String getWorkspace() {
+            return workspace;
+        }
+
+        /**
+         * 结束记录
+         *
+         * @param statusCode HTTP 状态码，请求未发出时为 RESTResponse.NO_RESPONSE
+         * @param sentBytes  发送的请求体字节数
+         */
+        public void stop(int statusCode, long sentBytes) {
+            long elapsed = System.nanoTime() - startNanos;
+            running.decrementAndGet();
+
+            String outcome = outcome(statusCode);
+            String key = operation + "|" + workspace + "|" + outcome;
+
+            timers.computeIfAbsent(key, k -> Timer.builder(REQUESTS)
+                    .tags(tags().and("outcome", outcome))
+                    .publishPercentileHistogram(percentileHistogram)
+                    .register(registry)
+            ).record(elapsed, TimeUnit.NANOSECONDS);
+
+            if (sentBytes > 0) {
+                bytesSent.computeIfAbsent(operation + "|" + workspace, k -> Counter.builder(BYTES_SENT)
+                        .tags(tags())
+                        .baseUnit("bytes")
+                        .register(registry)
+                ).increment(sentBytes);
+            }
+
+            //  GET 返回 404 是存在性判断的正常结果，不计为错误
+            boolean error = !"success".equals(outcome) && !("not_found".equals(outcome) && "GET".equals(method));
+            if (error) {
+                errors.computeIfAbsent(key, k -> Counter.builder(ERRORS)
+                        .tags(tags().and("outcome", outcome))
+                        .register(registry)
+                ).increment();
+            }
+        }
+
+        private Tags tags() {
+            return Tags.of("node", node, "operation", operation, "workspace", workspace);
+        }
+    }
+}
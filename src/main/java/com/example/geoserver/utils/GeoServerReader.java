@@ -1,8 +1,8 @@
 package com.example.geoserver.utils;
 
+import com.example.geoserver.constant.AcceptType;
+import com.example.geoserver.error.RequestFailedException;
 import com.example.geoserver.error.ogc.WorkSpaceNotFoundException;
-import it.geosolutions.geoserver.rest.GeoServerRESTManager;
-import it.geosolutions.geoserver.rest.GeoServerRESTReader;
 import it.geosolutions.geoserver.rest.decoder.RESTCoverageStoreList;
 import it.geosolutions.geoserver.rest.decoder.RESTDataStoreList;
 import it.geosolutions.geoserver.rest.decoder.RESTLayerGroupList;
@@ -10,22 +10,54 @@ import it.geosolutions.geoserver.rest.decoder.RESTLayerList;
 import it.geosolutions.geoserver.rest.decoder.RESTStyleList;
 import it.geosolutions.geoserver.rest.decoder.RESTWorkspaceList;
 import it.geosolutions.geoserver.rest.decoder.utils.NameLinkElem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.net.MalformedURLException;
-import java.net.URL;
 import java.util.ArrayList;
 
 public class GeoServerReader {
-    private final GeoServerRESTReader geoServerRESTReader;
+    private static final Logger logger = LoggerFactory.getLogger(GeoServerReader.class);
+
+    //  连接池 REST 客户端，与 GeoServerManager 共享
+    private final GeoServerRESTClient restClient;
+    //  目录缓存，由 GeoServerManager 在创建、删除资源时同步更新
+    private final CatalogCache catalogCache;
+    //  合并并发的相同存在性判断
+    private final SingleFlight<Boolean> existsFlights = new SingleFlight<>();
+    //  合并并发的相同列表读取
+    private final SingleFlight<RESTResponse> loadFlights = new SingleFlight<>();
+    //  读请求分配到的副本，为 null 时只读取 restClient
+    private volatile GeoServerReplicaSet replicaSet;
+    //  读请求的对冲策略，为 null 时不对冲
+    private volatile HedgedRequests hedging;
 
     public GeoServerReader(String restUrl) throws MalformedURLException {
         this(restUrl, "admin", "geoserver");
     }
 
     public GeoServerReader(String restUrl, String userName, String password) throws MalformedURLException {
-        GeoServerRESTManager geoServerRESTManager = new GeoServerRESTManager(new URL(restUrl), userName, password);
+        this(new GeoServerRESTClient(restUrl, userName, password));
+    }
 
-        geoServerRESTReader = geoServerRESTManager.getReader();
+    /**
+     * 使用共享的连接池客户端
+     *
+     * @param restClient 连接池 REST 客户端
+     */
+    public GeoServerReader(GeoServerRESTClient restClient) {
+        this(restClient, new CatalogCache());
+    }
+
+    /**
+     * 使用共享的连接池客户端和目录缓存
+     *
+     * @param restClient   连接池 REST 客户端
+     * @param catalogCache 目录缓存
+     */
+    public GeoServerReader(GeoServerRESTClient restClient, CatalogCache catalogCache) {
+        this.restClient = restClient;
+        this.catalogCache = catalogCache;
     }
 
     /**
@@ -35,16 +67,17 @@ public class GeoServerReader {
      * @return 判断工作空间是否存在
      */
     public Boolean existsWorkspace(String workspaceName) {
-        return geoServerRESTReader.existsWorkspace(workspaceName);
+        return exists(CatalogCache.workspaceKey(workspaceName), GeoServerRESTClient.path("/rest/workspaces/%s.xml", workspaceName));
     }
 
     /**
      * 获取工作空间列表
      *
      * @return 工作空间列表
+     * @throws RequestFailedException 读取列表失败
      */
-    public ArrayList<String> getWorkspaces() {
-        RESTWorkspaceList workspaces = geoServerRESTReader.getWorkspaces();
+    public ArrayList<String> getWorkspaces() throws RequestFailedException {
+        RESTWorkspaceList workspaces = RESTWorkspaceList.build(load("/rest/workspaces.xml", CatalogCache.workspaceKey(CatalogCache.ALL_WORKSPACES)));
 
         ArrayList<String> workspacesList = new ArrayList<>();
 
@@ -70,7 +103,7 @@ public class GeoServerReader {
             throw new WorkSpaceNotFoundException(workspaceName);
         }
 
-        return geoServerRESTReader.existsDatastore(workspaceName, datastoreName);
+        return exists(CatalogCache.dataStoreKey(workspaceName, datastoreName), GeoServerRESTClient.path("/rest/workspaces/%s/datastores/%s.xml", workspaceName, datastoreName));
     }
 
     /**
@@ -79,13 +112,14 @@ public class GeoServerReader {
      * @param workspaceName 工作空间民称
      * @return 数据集名称列表
      * @throws WorkSpaceNotFoundException 工作空间不存在
+     * @throws RequestFailedException     读取列表失败
      */
-    public ArrayList<String> getDataStores(String workspaceName) throws WorkSpaceNotFoundException {
+    public ArrayList<String> getDataStores(String workspaceName) throws WorkSpaceNotFoundException, RequestFailedException {
         if (!existsWorkspace(workspaceName)) {
             throw new WorkSpaceNotFoundException(workspaceName);
         }
 
-        RESTDataStoreList dataStores = geoServerRESTReader.getDatastores(workspaceName);
+        RESTDataStoreList dataStores = RESTDataStoreList.build(load(GeoServerRESTClient.path("/rest/workspaces/%s/datastores.xml", workspaceName), CatalogCache.dataStoreKey(workspaceName, "")));
 
         ArrayList<String> dataStoresList = new ArrayList<>();
 
@@ -111,7 +145,7 @@ public class GeoServerReader {
             throw new WorkSpaceNotFoundException(workspaceName);
         }
 
-        return geoServerRESTReader.existsCoveragestore(workspaceName, coverageStoreName);
+        return exists(CatalogCache.coverageStoreKey(workspaceName, coverageStoreName), GeoServerRESTClient.path("/rest/workspaces/%s/coveragestores/%s.xml", workspaceName, coverageStoreName));
     }
 
     /**
@@ -120,13 +154,14 @@ public class GeoServerReader {
      * @param workspaceName 工作空间名称
      * @return 栅格数据源列表数组
      * @throws WorkSpaceNotFoundException 工作空间不存在
+     * @throws RequestFailedException     读取列表失败
      */
-    public ArrayList<String> getCoverageStores(String workspaceName) throws WorkSpaceNotFoundException {
+    public ArrayList<String> getCoverageStores(String workspaceName) throws WorkSpaceNotFoundException, RequestFailedException {
         if (!existsWorkspace(workspaceName)) {
             throw new WorkSpaceNotFoundException(workspaceName);
         }
 
-        RESTCoverageStoreList coverageStores = geoServerRESTReader.getCoverageStores(workspaceName);
+        RESTCoverageStoreList coverageStores = RESTCoverageStoreList.build(load(GeoServerRESTClient.path("/rest/workspaces/%s/coveragestores.xml", workspaceName), CatalogCache.coverageStoreKey(workspaceName, "")));
 
         ArrayList<String> coverageStoresList = new ArrayList<>();
 
@@ -152,16 +187,17 @@ public class GeoServerReader {
             throw new WorkSpaceNotFoundException(workspaceName);
         }
 
-        return geoServerRESTReader.existsLayer(workspaceName, layerName);
+        return exists(CatalogCache.layerKey(workspaceName, layerName), GeoServerRESTClient.path("/rest/layers/%s:%s.xml", workspaceName, layerName));
     }
 
     /**
      * 获取所有图层名称列表
      *
      * @return 图层名称列表
+     * @throws RequestFailedException 读取列表失败
      */
-    public ArrayList<String> getLayersList() {
-        RESTLayerList layers = geoServerRESTReader.getLayers();
+    public ArrayList<String> getLayersList() throws RequestFailedException {
+        RESTLayerList layers = RESTLayerList.build(load("/rest/layers.xml", CatalogCache.layerKey(CatalogCache.ALL_WORKSPACES, "")));
 
         ArrayList<String> layerList = new ArrayList<>();
 
@@ -174,6 +210,30 @@ public class GeoServerReader {
         return layerList;
     }
 
+    /**
+     * 获取某工作空间下的图层名称列表（不含工作空间前缀），一次请求返回全部图层
+     *
+     * @param workspaceName 工作空间名称
+     * @return 图层名称列表
+     * @throws WorkSpaceNotFoundException 工作空间不存在
+     * @throws RequestFailedException     读取列表失败
+     */
+    public ArrayList<String> getLayers(String workspaceName) throws WorkSpaceNotFoundException, RequestFailedException {
+        if (!existsWorkspace(workspaceName)) {
+            throw new WorkSpaceNotFoundException(workspaceName);
+        }
+
+        RESTLayerList layers = RESTLayerList.build(load(GeoServerRESTClient.path("/rest/workspaces/%s/layers.xml", workspaceName), CatalogCache.layerKey(workspaceName, "")));
+
+        ArrayList<String> layerList = new ArrayList<>();
+
+        for (NameLinkElem layer : layers) {
+            layerList.add(layer.getName());
+        }
+
+        return layerList;
+    }
+
     /**
      * 判断图层组是否存在
      *
@@ -187,7 +247,7 @@ public class GeoServerReader {
             throw new WorkSpaceNotFoundException(workspaceName);
         }
 
-        return geoServerRESTReader.existsLayerGroup(workspaceName, layerGroupName);
+        return exists(CatalogCache.layerGroupKey(workspaceName, layerGroupName), GeoServerRESTClient.path("/rest/workspaces/%s/layergroups/%s.xml", workspaceName, layerGroupName));
     }
 
     /**
@@ -195,9 +255,10 @@ public class GeoServerReader {
      *
      * @param workspaceName 工作空间名称
      * @return 图层组名称列表
+     * @throws RequestFailedException 读取列表失败
      */
-    public ArrayList<String> getLayerGroups(String workspaceName) {
-        RESTLayerGroupList layerGroups = geoServerRESTReader.getLayerGroups(workspaceName);
+    public ArrayList<String> getLayerGroups(String workspaceName) throws RequestFailedException {
+        RESTLayerGroupList layerGroups = RESTLayerGroupList.build(load(GeoServerRESTClient.path("/rest/workspaces/%s/layergroups.xml", workspaceName), CatalogCache.layerGroupKey(workspaceName, "")));
 
         ArrayList<String> layerGroupList = new ArrayList<>();
 
@@ -210,6 +271,16 @@ public class GeoServerReader {
         return layerGroupList;
     }
 
+    /**
+     * 判断全局 style 服务是否存在
+     *
+     * @param styleName style 服务名称
+     * @return 是否存在 style 服务
+     */
+    public Boolean existsStyle(String styleName) {
+        return exists(CatalogCache.styleKey(null, styleName), GeoServerRESTClient.path("/rest/styles/%s.xml", styleName));
+    }
+
     /**
      * 判断某工作空间下是否包含 style 服务
      *
@@ -223,16 +294,17 @@ public class GeoServerReader {
             throw new WorkSpaceNotFoundException(workspaceName);
         }
 
-        return geoServerRESTReader.existsStyle(workspaceName, styleName);
+        return exists(CatalogCache.styleKey(workspaceName, styleName), GeoServerRESTClient.path("/rest/workspaces/%s/styles/%s.xml", workspaceName, styleName));
     }
 
     /**
      * 获取所有样式服务
      *
      * @return 样式服务名称列表
+     * @throws RequestFailedException 读取列表失败
      */
-    public ArrayList<String> getStyles() {
-        RESTStyleList styles = geoServerRESTReader.getStyles();
+    public ArrayList<String> getStyles() throws RequestFailedException {
+        RESTStyleList styles = RESTStyleList.build(load("/rest/styles.xml", CatalogCache.styleKey(null, "")));
 
         ArrayList<String> stylesList = new ArrayList<>();
 
@@ -251,13 +323,14 @@ public class GeoServerReader {
      * @param workspaceName 工作空间名称
      * @return 样式服务名称列表
      * @throws WorkSpaceNotFoundException 工作空间不存在
+     * @throws RequestFailedException     读取列表失败
      */
-    public ArrayList<String> getStyles(String workspaceName) throws WorkSpaceNotFoundException {
+    public ArrayList<String> getStyles(String workspaceName) throws WorkSpaceNotFoundException, RequestFailedException {
         if (!existsWorkspace(workspaceName)) {
             throw new WorkSpaceNotFoundException(workspaceName);
         }
 
-        RESTStyleList styles = geoServerRESTReader.getStyles(workspaceName);
+        RESTStyleList styles = RESTStyleList.build(load(GeoServerRESTClient.path("/rest/workspaces/%s/styles.xml", workspaceName), CatalogCache.styleKey(workspaceName, "")));
 
         ArrayList<String> stylesList = new ArrayList<>();
 
@@ -270,4 +343,141 @@ public class GeoServerReader {
         return stylesList;
     }
 
+    /**
+     * 获取共享的连接池客户端
+     *
+     * @return 连接池 REST 客户端
+     */
+    public GeoServerRESTClient getRestClient() {
+        return restClient;
+    }
+
+    /**
+     * 获取目录缓存
+     *
+     * @return 目录缓存
+     */
+    public CatalogCache getCatalogCache() {
+        return catalogCache;
+    }
+
+    /**
+     * 设置读请求的副本集合，查询按延迟分配到各副本，创建、删除仍由 GeoServerManager 发往 restClient
+     * 副本的写入由 GeoServerClusterManager 同步；刚写入的资源由目录缓存返回，不依赖副本已同步
+     *
+     * @param replicaSet 副本集合，为 null 时只读取 restClient
+     */
+    public void setReplicaSet(GeoServerReplicaSet replicaSet) {
+        this.replicaSet = replicaSet;
+    }
+
+    public GeoServerReplicaSet getReplicaSet() {
+        return replicaSet;
+    }
+
+    /**
+     * 设置读请求的对冲策略，查询在最近延迟的指定分位数内未返回时再发送一个相同请求
+     * 配置了副本时对冲请求发往另一个副本
+     *
+     * @param hedging 对冲策略，为 null 时不对冲
+     */
+    public void setHedging(HedgedRequests hedging) {
+        this.hedging = hedging;
+    }
+
+    public HedgedRequests getHedging() {
+        return hedging;
+    }
+
+    /**
+     * 存在性判断的并发合并统计
+     *
+     * @return 存在性判断的调用数、合并数
+     */
+    public SingleFlight<Boolean> getExistsFlights() {
+        return existsFlights;
+    }
+
+    /**
+     * 列表读取的并发合并统计
+     *
+     * @return 列表读取的调用数、合并数
+     */
+    public SingleFlight<RESTResponse> getLoadFlights() {
+        return loadFlights;
+    }
+
+    /**
+     * 先查询目录缓存，未命中时请求 geoserver，只有明确的 200/404 结果才写入缓存
+     * 并发的相同查询只发送一次请求；查询期间该键有写入时，之后的调用不再等待这次查询，其结果也不写入缓存
+     *
+     * @param key  缓存键
+     * @param path 请求路径
+     * @return 资源是否存在
+     */
+    private Boolean exists(String key, String path) {
+        Boolean cached = catalogCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long version = catalogCache.getVersion(key);
+
+        return existsFlights.execute(key + "@" + version, () -> {
+            RESTResponse response = read(path);
+            boolean exists = response.getStatusCode() == 200;
+
+            if (exists || response.isNotFound()) {
+                catalogCache.putIfUnchanged(key, exists, version);
+            }
+
+            return exists;
+        });
+    }
+
+    /**
+     * 读取 REST 列表资源，资源不存在（404）时返回空列表对应的 XML，其他失败抛出异常
+     * 并发的相同读取只发送一次请求，列表有写入后的调用不再等待之前的读取
+     *
+     * @param path    请求路径
+     * @param listKey 列表对应的缓存键，见 {@link CatalogCache#getListVersion(String)}
+     * @return XML 内容
+     * @throws RequestFailedException 请求失败
+     */
+    private String load(String path, String listKey) throws RequestFailedException {
+        RESTResponse response = loadFlights.execute(path + "@" + catalogCache.getListVersion(listKey), () -> read(path));
+
+        if (response.isNotFound()) {
+            return "<list/>";
+        }
+
+        if (!response.isSuccess()) {
+            logger.error(String.format("读取 %s 失败：%s", path, response));
+            throw new RequestFailedException(path, response.getStatusCode(), response.getBody());
+        }
+
+        return response.getBody();
+    }
+
+    /**
+     * 发送 GET 请求，配置了副本时由副本集合选择目标，配置了对冲时慢请求会再发送一次
+     *
+     * @param path 请求路径
+     * @return 响应
+     */
+    private RESTResponse read(String path) {
+        GeoServerReplicaSet replicas = replicaSet;
+        HedgedRequests hedgedRequests = hedging;
+
+        if (replicas != null) {
+            return hedgedRequests == null ? replicas.get(path, AcceptType.XML) : replicas.get(path, AcceptType.XML, hedgedRequests);
+        }
+
+        if (hedgedRequests != null) {
+            return hedgedRequests.execute(() -> restClient.get(path, AcceptType.XML), () -> restClient.get(path, AcceptType.XML));
+        }
+
+        return restClient.get(path, AcceptType.XML);
+    }
+
 }
@@ -0,0 +1,424 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.constant.AcceptType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 目录内容相同的多个 geoserver 副本，按观测到的延迟分配读请求
+ * 每个副本记录延迟的指数加权平均（EWMA）和执行中请求数，连续失败或明显慢于其他副本时暂时摘除，
+ * 摘除到期或健康检查成功后重新加入，线程安全
+ */
+public class GeoServerReplicaSet {
+    private static final Logger logger = LoggerFactory.getLogger(GeoServerReplicaSet.class);
+
+    //  健康检查请求路径
+    public static final String HEALTH_PATH = "/rest/about/version.xml";
+
+    //  默认连续失败多少次后摘除
+    public static final int DEFAULT_MAX_FAILURES = 3;
+    //  默认延迟超过最快副本多少倍时摘除
+    public static final double DEFAULT_SLOW_FACTOR = 5;
+    //  默认摘除时间（毫秒）
+    public static final long DEFAULT_EJECT_MILLIS = 30000;
+    //  延迟低于该值（毫秒）时不因慢而摘除
+    public static final long SLOW_FLOOR_MILLIS = 100;
+
+    //  EWMA 中新样本的权重
+    private static final double ALPHA = 0.2;
+
+    public enum Strategy {
+        /**
+         * 选择 延迟 ×（执行中请求数 + 1） 最小的副本
+         */
+        LEAST_LATENCY,
+        /**
+         * 随机取两个副本，选择其中 延迟 ×（执行中请求数 + 1） 较小的一个，避免所有请求涌向同一副本
+         */
+        POWER_OF_TWO
+    }
+
+    /**
+     * 单个副本的状态
+     */
+    public static class Replica {
+        private final GeoServerRESTClient restClient;
+        private volatile double latencyMillis;
+        private volatile long ejectedUntil;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong ejections = new AtomicLong();
+
+        Replica(GeoServerRESTClient restClient) {
+            this.restClient = restClient;
+        }
+
+        public GeoServerRESTClient getRestClient() {
+            return restClient;
+        }
+
+        public String getNode() {
+            return restClient.getRestURL();
+        }
+
+        /**
+         * @return 延迟的指数加权平均（毫秒）
+         */
+        public double getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        public int getFailures() {
+            return failures.get();
+        }
+
+        public long getRequests() {
+            return requests.get();
+        }
+
+        public long getEjections() {
+            return ejections.get();
+        }
+
+        public boolean isEjected() {
+            return ejectedUntil != 0;
+        }
+
+        private double score() {
+            return latencyMillis * (inFlight.get() + 1);
+        }
+
+        private void record(double elapsedMillis) {
+            latencyMillis = latencyMillis == 0 ? elapsedMillis : latencyMillis + ALPHA * (elapsedMillis - latencyMillis);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %.1f ms, 执行中 %d, 请求 %d%s", getNode(), latencyMillis, getInFlight(), getRequests(),
+                    isEjected() ? ", 已摘除" : "");
+        }
+    }
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Strategy strategy;
+
+    private volatile int maxFailures = DEFAULT_MAX_FAILURES;
+    private volatile double slowFactor = DEFAULT_SLOW_FACTOR;
+    private volatile long ejectMillis = DEFAULT_EJECT_MILLIS;
+
+    private ScheduledExecutorService healthChecker;
+
+    /**
+     * @param restClients 各副本的连接池客户端
+     * @param strategy    选择策略
+     */
+    public GeoServerReplicaSet(List<GeoServerRESTClient> restClients, Strategy strategy) {
+        if (restClients.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个副本");
+        }
+
+        for (GeoServerRESTClient restClient : restClients) {
+            replicas.add(new Replica(restClient));
+        }
+        this.strategy = strategy;
+    }
+
+    public void setMaxFailures(int maxFailures) {
+        this.maxFailures = Math.max(1, maxFailures);
+    }
+
+    public void setSlowFactor(double slowFactor) {
+        this.slowFactor = slowFactor;
+    }
+
+    public void setEjectMillis(long ejectMillis) {
+        this.ejectMillis = ejectMillis;
+    }
+
+    public List<Replica> getReplicas() {
+        return new ArrayList<>(replicas);
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * 发送 GET 请求，副本无响应或返回 5xx 时换一个副本重试一次
+     *
+     * @param path   请求路径
+     * @param accept 接受的响应类型
+     * @return 响应
+     */
+    public RESTResponse get(String path, String accept) {
+        return getWithRetry(choose(null), path, accept);
+    }
+
+    /**
+     * 发送对冲的 GET 请求，对冲请求发往另一个副本，只有一个副本时发往同一副本
+     *
+     * @param path    请求路径
+     * @param accept  接受的响应类型
+     * @param hedging 对冲策略
+     * @return 先返回的成功响应
+     */
+    public RESTResponse get(String path, String accept, HedgedRequests hedging) {
+        Replica replica = choose(null);
+
+        return hedging.execute(() -> getWithRetry(replica, path, accept), () -> get(choose(replica), path, accept));
+    }
+
+    private RESTResponse getWithRetry(Replica replica, String path, String accept) {
+        RESTResponse response = get(replica, path, accept);
+
+        if (isFailure(response) && replicas.size() > 1) {
+            Replica other = choose(replica);
+            if (other != replica) {
+                response = get(other, path, accept);
+            }
+        }
+
+        return response;
+    }
+
+    /**
+     * 选择一个副本，已摘除的副本到期后重新加入
+     *
+     * @param exclude 排除的副本，为 null 时不排除
+     * @return 副本，全部摘除时返回最早到期的副本
+     */
+    Replica choose(Replica exclude) {
+        long now = System.currentTimeMillis();
+        List<Replica> candidates = new ArrayList<>(replicas.size());
+        Replica earliest = null;
+
+        for (Replica replica : replicas) {
+            if (replica == exclude) {
+                continue;
+            }
+
+            long ejectedUntil = replica.ejectedUntil;
+            if (ejectedUntil != 0 && ejectedUntil <= now) {
+                readmit(replica, bestLatency(replica));
+                ejectedUntil = 0;
+            }
+
+            if (ejectedUntil == 0) {
+                candidates.add(replica);
+            } else if (earliest == null || ejectedUntil < earliest.ejectedUntil) {
+                earliest = replica;
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            return earliest == null ? exclude : earliest;
+        }
+
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        if (strategy == Strategy.POWER_OF_TWO) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(candidates.size());
+            int second = random.nextInt(candidates.size() - 1);
+            if (second >= first) {
+                second++;
+            }
+
+            Replica a = candidates.get(first);
+            Replica b = candidates.get(second);
+            return a.score() <= b.score() ? a : b;
+        }
+
+        Replica best = candidates.get(0);
+        for (Replica replica : candidates) {
+            if (replica.score() < best.score()) {
+                best = replica;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 对所有副本执行一次健康检查：更新空闲副本的延迟，已摘除的副本检查成功后重新加入
+     *
+     * @return 健康的副本数
+     */
+    public int checkHealth() {
+        int healthy = 0;
+
+        for (Replica replica : replicas) {
+            long start = System.nanoTime();
+            RESTResponse response = replica.restClient.get(HEALTH_PATH, AcceptType.XML);
+            double elapsedMillis = (System.nanoTime() - start) / 1e6;
+
+            if (isFailure(response)) {
+                if (replica.isEjected()) {
+                    replica.ejectedUntil = System.currentTimeMillis() + ejectMillis;
+                } else {
+                    failure(replica);
+                }
+                continue;
+            }
+
+            healthy++;
+            if (replica.isEjected()) {
+                readmit(replica, elapsedMillis);
+                replica.failures.set(0);
+            } else {
+                replica.record(elapsedMillis);
+            }
+        }
+
+        return healthy;
+    }
+
+    /**
+     * 启动定时健康检查
+     *
+     * @param intervalMillis 检查间隔（毫秒）
+     */
+    public synchronized void startHealthChecks(long intervalMillis) {
+        if (healthChecker != null || intervalMillis <= 0) {
+            return;
+        }
+
+        healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "geoserver-replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(() -> {
+            try {
+                checkHealth();
+            } catch (RuntimeException e) {
+                logger.error("副本健康检查失败", e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止健康检查，副本的连接池由创建者关闭
+     */
+    public synchronized void shutdown() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+            healthChecker = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GeoServerReplicaSet" + replicas;
+    }
+
+    private RESTResponse get(Replica replica, String path, String accept) {
+        replica.requests.incrementAndGet();
+        replica.inFlight.incrementAndGet();
+        long start = System.nanoTime();
+
+        try {
+            RESTResponse response = replica.restClient.get(path, accept);
+
+            if (isFailure(response)) {
+                failure(replica);
+            } else {
+                success(replica, (System.nanoTime() - start) / 1e6);
+            }
+
+            return response;
+        } finally {
+            replica.inFlight.decrementAndGet();
+        }
+    }
+
+    private void success(Replica replica, double elapsedMillis) {
+        replica.failures.set(0);
+        replica.record(elapsedMillis);
+
+        //  明显慢于其他健康副本时摘除，至少保留一个副本
+        double best = bestLatency(replica);
+        if (best > 0 && replica.latencyMillis > SLOW_FLOOR_MILLIS && replica.latencyMillis > best * slowFactor) {
+            eject(replica, String.format("延迟 %.1f ms，最快副本 %.1f ms", replica.latencyMillis, best));
+        }
+    }
+
+    private void failure(Replica replica) {
+        //  失败按双倍延迟计入，在摘除前先降低被选中的概率
+        replica.record(Math.max(replica.latencyMillis * 2, 1));
+
+        int failures = replica.failures.incrementAndGet();
+        if (failures >= maxFailures && healthyCount(replica) > 0) {
+            eject(replica, "连续失败 " + failures + " 次");
+        }
+    }
+
+    private synchronized void eject(Replica replica, String reason) {
+        if (replica.isEjected()) {
+            return;
+        }
+
+        replica.ejectedUntil = System.currentTimeMillis() + ejectMillis;
+        replica.ejections.incrementAndGet();
+        logger.warn(String.format("摘除 geoserver 副本 %s：%s", replica.getNode(), reason));
+    }
+
+    private synchronized void readmit(Replica replica, double latencyMillis) {
+        if (!replica.isEjected()) {
+            return;
+        }
+
+        //  重新加入时延迟取最快副本的值以便尽快得到新样本，再失败一次即重新摘除
+        replica.latencyMillis = latencyMillis;
+        replica.failures.set(Math.max(0, maxFailures - 1));
+        replica.ejectedUntil = 0;
+        logger.info(String.format("geoserver 副本 %s 重新加入", replica.getNode()));
+    }
+
+    /**
+     * @return 其他未摘除副本中的最低延迟，没有时为 0
+     */
+    private double bestLatency(Replica exclude) {
+        double best = 0;
+
+        for (Replica replica : replicas) {
+            if (replica != exclude && !replica.isEjected() && replica.latencyMillis > 0
+                    && (best == 0 || replica.latencyMillis < best)) {
+                best = replica.latencyMillis;
+            }
+        }
+
+        return best;
+    }
+
+    private int healthyCount(Replica exclude) {
+        int healthy = 0;
+
+        for (Replica replica : replicas) {
+            if (replica != exclude && !replica.isEjected()) {
+                healthy++;
+            }
+        }
+
+        return healthy;
+    }
+
+    private static boolean isFailure(RESTResponse response) {
+        return response.getStatusCode() == RESTResponse.NO_RESPONSE || response.getStatusCode() >= 500;
+    }
+}
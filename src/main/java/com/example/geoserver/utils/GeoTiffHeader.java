@@ -0,0 +1,582 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.error.ErrorException;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * GeoTIFF 头信息，内存映射读取 TIFF / BigTIFF 的 IFD 与 GeoKey 目录，不读取像素数据
+ * 得到尺寸、分块、内部金字塔层数、范围和 EPSG 代码，结构不合法或数据被截断的文件在上传前拒绝
+ */
+public class GeoTiffHeader {
+    //  TIFF 标签
+    private static final int NEW_SUBFILE_TYPE = 254;
+    private static final int IMAGE_WIDTH = 256;
+    private static final int IMAGE_LENGTH = 257;
+    private static final int BITS_PER_SAMPLE = 258;
+    private static final int COMPRESSION = 259;
+    private static final int STRIP_OFFSETS = 273;
+    private static final int SAMPLES_PER_PIXEL = 277;
+    private static final int ROWS_PER_STRIP = 278;
+    private static final int STRIP_BYTE_COUNTS = 279;
+    private static final int PLANAR_CONFIGURATION = 284;
+    private static final int TILE_WIDTH = 322;
+    private static final int TILE_LENGTH = 323;
+    private static final int TILE_OFFSETS = 324;
+    private static final int TILE_BYTE_COUNTS = 325;
+    private static final int MODEL_PIXEL_SCALE = 33550;
+    private static final int MODEL_TIEPOINT = 33922;
+    private static final int MODEL_TRANSFORMATION = 34264;
+    private static final int GEO_KEY_DIRECTORY = 34735;
+
+    //  GeoKey
+    private static final int GT_MODEL_TYPE = 1024;
+    private static final int GT_RASTER_TYPE = 1025;
+    private static final int GEOGRAPHIC_TYPE = 2048;
+    private static final int PROJECTED_CS_TYPE = 3072;
+    private static final int MODEL_TYPE_PROJECTED = 1;
+    private static final int MODEL_TYPE_GEOGRAPHIC = 2;
+    private static final int RASTER_PIXEL_IS_POINT = 2;
+    private static final int USER_DEFINED = 32767;
+
+    //  数据类型 -> 每个值的字节数，下标为 TIFF 类型编号
+    private static final int[] TYPE_SIZES = {0, 1, 1, 2, 4, 8, 1, 1, 2, 4, 8, 4, 8, 4, 0, 0, 8, 8, 8};
+    private static final int TYPE_SHORT = 3;
+    private static final int TYPE_LONG = 4;
+    private static final int TYPE_DOUBLE = 12;
+    private static final int TYPE_IFD = 13;
+    private static final int TYPE_LONG8 = 16;
+    private static final int TYPE_IFD8 = 18;
+
+    //  IFD 链和单个数组的上限，防止损坏文件造成死循环或大量分配
+    private static final int MAX_IFDS = 64;
+    private static final long MAX_VALUES = 16L * 1024 * 1024;
+
+    private int width;
+    private int height;
+    private int tileWidth;
+    private int tileHeight;
+    private int samplesPerPixel = 1;
+    private int bitsPerSample;
+    private int compression = 1;
+    private int overviews;
+    private boolean bigTiff;
+    private int epsgCode;
+    private boolean geographic;
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+
+    private GeoTiffHeader() {
+    }
+
+    /**
+     * 读取 GeoTIFF 头信息
+     *
+     * @param file tif 文件
+     * @return 头信息，坐标系为自定义或缺失时 EPSG 代码为 0
+     * @throws FileNotFoundException 文件不存在
+     * @throws ErrorException        不是合法的 GeoTIFF：结构损坏、数据被截断或缺少地理参考
+     */
+    public static GeoTiffHeader read(File file) throws FileNotFoundException, ErrorException {
+        if (!file.isFile()) {
+            throw new FileNotFoundException(file.getPath());
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new Parser(channel, file.getName()).parse();
+        } catch (IOException e) {
+            throw new ErrorException(String.format("读取 GeoTIFF 失败：%s，%s", file.getName(), e.getMessage()));
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return 分块宽度，按条带存储时为 0
+     */
+    public int getTileWidth() {
+        return tileWidth;
+    }
+
+    public int getTileHeight() {
+        return tileHeight;
+    }
+
+    public boolean isTiled() {
+        return tileWidth > 0;
+    }
+
+    public int getSamplesPerPixel() {
+        return samplesPerPixel;
+    }
+
+    public int getBitsPerSample() {
+        return bitsPerSample;
+    }
+
+    public int getCompression() {
+        return compression;
+    }
+
+    /**
+     * @return 内部金字塔（降分辨率子图像）层数
+     */
+    public int getOverviews() {
+        return overviews;
+    }
+
+    public boolean isBigTiff() {
+        return bigTiff;
+    }
+
+    /**
+     * @return EPSG 代码，自定义或缺失时为 0
+     */
+    public int getEpsgCode() {
+        return epsgCode;
+    }
+
+    /**
+     * @return 坐标系，如 EPSG:4326，未知时为 null
+     */
+    public String getSrs() {
+        return epsgCode == 0 ? null : "EPSG:" + epsgCode;
+    }
+
+    /**
+     * @return 是否为地理坐标系（经纬度）
+     */
+    public boolean isGeographic() {
+        return geographic;
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxY() {
+        return maxY;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%dx%d %s %d 层金字塔 %s [%f, %f, %f, %f]",
+                width, height,
+                isTiled() ? "分块 " + tileWidth + "x" + tileHeight : "条带",
+                overviews,
+                epsgCode == 0 ? "未知坐标系" : getSrs(),
+                minX, minY, maxX, maxY);
+    }
+
+    /**
+     * IFD 中的一个标签：类型、值个数和值在文件中的位置
+     */
+    private static final class Entry {
+        private final int type;
+        private final long count;
+        private final long position;
+
+        private Entry(int type, long count, long position) {
+            this.type = type;
+            this.count = count;
+            this.position = position;
+        }
+    }
+
+    private static final class Parser {
+        private final FileChannel channel;
+        private final String name;
+        private final long size;
+        //  文件前 2 GB 一次映射，之后的区域按需映射
+        private MappedByteBuffer head;
+        private ByteOrder order;
+        private boolean bigTiff;
+
+        private Parser(FileChannel channel, String name) throws IOException {
+            this.channel = channel;
+            this.name = name;
+            this.size = channel.size();
+        }
+
+        private GeoTiffHeader parse() throws IOException, ErrorException {
+            if (size < 8) {
+                throw malformed("文件过小");
+            }
+
+            head = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, Integer.MAX_VALUE));
+
+            int byteOrder = head.getShort(0) & 0xFFFF;
+            if (byteOrder == 0x4949) {
+                order = ByteOrder.LITTLE_ENDIAN;
+            } else if (byteOrder == 0x4D4D) {
+                order = ByteOrder.BIG_ENDIAN;
+            } else {
+                throw malformed("不是 TIFF 文件");
+            }
+            head.order(order);
+
+            int magic = head.getShort(2) & 0xFFFF;
+            long firstIfd;
+            if (magic == 42) {
+                firstIfd = head.getInt(4) & 0xFFFFFFFFL;
+            } else if (magic == 43 && size >= 16 && head.getShort(4) == 8 && head.getShort(6) == 0) {
+                bigTiff = true;
+                firstIfd = head.getLong(8);
+            } else {
+                throw malformed("不支持的 TIFF 版本 " + magic);
+            }
+
+            GeoTiffHeader header = new GeoTiffHeader();
+            header.bigTiff = bigTiff;
+
+            Set<Long> visited = new HashSet<>();
+            long offset = firstIfd;
+            boolean first = true;
+
+            while (offset != 0) {
+                if (!visited.add(offset) || visited.size() > MAX_IFDS) {
+                    throw malformed("IFD 链循环或过长");
+                }
+
+                Map<Integer, Entry> entries = new HashMap<>();
+                long next = readIfd(offset, entries);
+
+                if (first) {
+                    readImage(entries, header);
+                    readGeoreference(entries, header);
+                    first = false;
+                } else if (entries.containsKey(NEW_SUBFILE_TYPE) && (scalar(entries.get(NEW_SUBFILE_TYPE)) & 1) != 0) {
+                    header.overviews++;
+                }
+
+                offset = next;
+            }
+
+            if (first) {
+                throw malformed("没有图像目录");
+            }
+
+            return header;
+        }
+
+        /**
+         * 读取一个 IFD 的所有标签，返回下一个 IFD 的位置
+         */
+        private long readIfd(long offset, Map<Integer, Entry> entries) throws IOException, ErrorException {
+            int countSize = bigTiff ? 8 : 2;
+            int entrySize = bigTiff ? 20 : 12;
+            int inlineSize = bigTiff ? 8 : 4;
+
+            long count = bigTiff ? buffer(offset, 8).getLong(0) : buffer(offset, 2).getShort(0) & 0xFFFF;
+            if (count <= 0 || count > 4096) {
+                throw malformed("IFD 标签数不合法：" + count);
+            }
+
+            ByteBuffer ifd = buffer(offset + countSize, count * entrySize + (bigTiff ? 8 : 4));
+
+            for (int i = 0; i < count; i++) {
+                int base = i * entrySize;
+                int tag = ifd.getShort(base) & 0xFFFF;
+                int type = ifd.getShort(base + 2) & 0xFFFF;
+                long valueCount = bigTiff ? ifd.getLong(base + 4) : ifd.getInt(base + 4) & 0xFFFFFFFFL;
+
+                //  未知类型按规范忽略
+                if (type >= TYPE_SIZES.length || TYPE_SIZES[type] == 0) {
+                    continue;
+                }
+                if (valueCount < 0 || valueCount > MAX_VALUES) {
+                    throw malformed(String.format("标签 %d 的值个数不合法：%d", tag, valueCount));
+                }
+
+                long length = valueCount * TYPE_SIZES[type];
+                long valuePosition = offset + countSize + base + (bigTiff ? 12 : 8);
+
+                if (length > inlineSize) {
+                    valuePosition = bigTiff ? ifd.getLong(base + 12) : ifd.getInt(base + 8) & 0xFFFFFFFFL;
+                    if (valuePosition < 0 || valuePosition + length > size) {
+                        throw malformed(String.format("标签 %d 的值超出文件范围", tag));
+                    }
+                }
+
+                entries.put(tag, new Entry(type, valueCount, valuePosition));
+            }
+
+            int nextPosition = (int) (count * entrySize);
+            long next = bigTiff ? ifd.getLong(nextPosition) : ifd.getInt(nextPosition) & 0xFFFFFFFFL;
+            if (next < 0 || next >= size) {
+                throw malformed("下一个 IFD 超出文件范围");
+            }
+
+            return next;
+        }
+
+        private void readImage(Map<Integer, Entry> entries, GeoTiffHeader header) throws IOException, ErrorException {
+            header.width = (int) Math.min(Integer.MAX_VALUE, scalar(required(entries, IMAGE_WIDTH)));
+            header.height = (int) Math.min(Integer.MAX_VALUE, scalar(required(entries, IMAGE_LENGTH)));
+            if (header.width <= 0 || header.height <= 0) {
+                throw malformed(String.format("图像尺寸不合法：%dx%d", header.width, header.height));
+            }
+
+            if (entries.containsKey(SAMPLES_PER_PIXEL)) {
+                header.samplesPerPixel = (int) scalar(entries.get(SAMPLES_PER_PIXEL));
+            }
+            if (entries.containsKey(BITS_PER_SAMPLE)) {
+                header.bitsPerSample = (int) scalar(entries.get(BITS_PER_SAMPLE));
+            }
+            if (entries.containsKey(COMPRESSION)) {
+                header.compression = (int) scalar(entries.get(COMPRESSION));
+            }
+
+            //  分片数：平面存储时每个波段单独分片
+            boolean planar = entries.containsKey(PLANAR_CONFIGURATION) && scalar(entries.get(PLANAR_CONFIGURATION)) == 2;
+            long planes = planar ? Math.max(1, header.samplesPerPixel) : 1;
+            long expected;
+            Entry offsets;
+            Entry byteCounts;
+
+            if (entries.containsKey(TILE_WIDTH)) {
+                header.tileWidth = (int) scalar(entries.get(TILE_WIDTH));
+                header.tileHeight = (int) scalar(required(entries, TILE_LENGTH));
+                if (header.tileWidth <= 0 || header.tileHeight <= 0 || header.tileWidth % 16 != 0 || header.tileHeight % 16 != 0) {
+                    throw malformed(String.format("分块尺寸不合法：%dx%d", header.tileWidth, header.tileHeight));
+                }
+
+                expected = ceilDiv(header.width, header.tileWidth) * ceilDiv(header.height, header.tileHeight) * planes;
+                offsets = required(entries, TILE_OFFSETS);
+                byteCounts = required(entries, TILE_BYTE_COUNTS);
+            } else {
+                long rowsPerStrip = entries.containsKey(ROWS_PER_STRIP) ? scalar(entries.get(ROWS_PER_STRIP)) : header.height;
+                if (rowsPerStrip <= 0) {
+                    throw malformed("每条带行数不合法");
+                }
+
+                expected = ceilDiv(header.height, Math.min(rowsPerStrip, header.height)) * planes;
+                offsets = required(entries, STRIP_OFFSETS);
+                byteCounts = required(entries, STRIP_BYTE_COUNTS);
+            }
+
+            if (offsets.count != expected || byteCounts.count != expected) {
+                throw malformed(String.format("分片数不一致：应为 %d，实际 %d / %d", expected, offsets.count, byteCounts.count));
+            }
+
+            //  校验每个分片都在文件内，拷贝中断等原因被截断的文件在这里拒绝
+            long[] starts = longs(offsets);
+            long[] lengths = longs(byteCounts);
+            for (int i = 0; i < starts.length; i++) {
+                if (starts[i] < 0 || lengths[i] < 0 || starts[i] + lengths[i] > size) {
+                    throw malformed(String.format("第 %d 个分片超出文件范围，文件可能被截断", i));
+                }
+            }
+        }
+
+        private void readGeoreference(Map<Integer, Entry> entries, GeoTiffHeader header) throws IOException, ErrorException {
+            int modelType = 0;
+            int rasterType = 0;
+            int projected = 0;
+            int geographic = 0;
+
+            if (entries.containsKey(GEO_KEY_DIRECTORY)) {
+                long[] keys = longs(entries.get(GEO_KEY_DIRECTORY));
+                if (keys.length < 4 || keys.length < 4 + keys[3] * 4) {
+                    throw malformed("GeoKey 目录长度不合法");
+                }
+
+                for (int i = 0; i < keys[3]; i++) {
+                    int base = 4 + i * 4;
+                    //  只取直接存放在目录中的短整型值
+                    if (keys[base + 1] != 0) {
+                        continue;
+                    }
+
+                    int value = (int) keys[base + 3];
+                    switch ((int) keys[base]) {
+                        case GT_MODEL_TYPE:
+                            modelType = value;
+                            break;
+                        case GT_RASTER_TYPE:
+                            rasterType = value;
+                            break;
+                        case GEOGRAPHIC_TYPE:
+                            geographic = value;
+                            break;
+                        case PROJECTED_CS_TYPE:
+                            projected = value;
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            }
+
+            if (modelType != MODEL_TYPE_GEOGRAPHIC && valid(projected)) {
+                header.epsgCode = projected;
+            } else if (modelType != MODEL_TYPE_PROJECTED && valid(geographic)) {
+                header.epsgCode = geographic;
+                header.geographic = true;
+            }
+
+            double width = header.width;
+            double height = header.height;
+
+            if (entries.containsKey(MODEL_TRANSFORMATION)) {
+                double[] m = doubles(entries.get(MODEL_TRANSFORMATION));
+                if (m.length != 16) {
+                    throw malformed("ModelTransformation 长度不合法");
+                }
+
+                //  四个角点变换后取外包矩形
+                double[] xs = {m[3], m[0] * width + m[3], m[1] * height + m[3], m[0] * width + m[1] * height + m[3]};
+                double[] ys = {m[7], m[4] * width + m[7], m[5] * height + m[7], m[4] * width + m[5] * height + m[7]};
+                header.minX = Math.min(Math.min(xs[0], xs[1]), Math.min(xs[2], xs[3]));
+                header.maxX = Math.max(Math.max(xs[0], xs[1]), Math.max(xs[2], xs[3]));
+                header.minY = Math.min(Math.min(ys[0], ys[1]), Math.min(ys[2], ys[3]));
+                header.maxY = Math.max(Math.max(ys[0], ys[1]), Math.max(ys[2], ys[3]));
+            } else if (entries.containsKey(MODEL_PIXEL_SCALE) && entries.containsKey(MODEL_TIEPOINT)) {
+                double[] scale = doubles(entries.get(MODEL_PIXEL_SCALE));
+                double[] tiepoint = doubles(entries.get(MODEL_TIEPOINT));
+                if (scale.length < 2 || tiepoint.length < 6 || scale[0] <= 0 || scale[1] <= 0) {
+                    throw malformed("ModelPixelScale / ModelTiepoint 不合法");
+                }
+
+                header.minX = tiepoint[3] - tiepoint[0] * scale[0];
+                header.maxY = tiepoint[4] + tiepoint[1] * scale[1];
+                header.maxX = header.minX + width * scale[0];
+                header.minY = header.maxY - height * scale[1];
+            } else {
+                throw malformed("缺少地理参考（ModelTiepoint、ModelPixelScale 或 ModelTransformation）");
+            }
+
+            //  像素为点时，地理参考对应像素中心，整个范围向左上平移半个像素，大小不变
+            if (rasterType == RASTER_PIXEL_IS_POINT) {
+                double halfX = (header.maxX - header.minX) / width / 2;
+                double halfY = (header.maxY - header.minY) / height / 2;
+                header.minX -= halfX;
+                header.maxX -= halfX;
+                header.minY += halfY;
+                header.maxY += halfY;
+            }
+
+            if (Double.isNaN(header.minX + header.minY + header.maxX + header.maxY)
+                    || Double.isInfinite(header.minX + header.minY + header.maxX + header.maxY)) {
+                throw malformed("范围不合法");
+            }
+        }
+
+        private static boolean valid(int code) {
+            return code > 0 && code != USER_DEFINED;
+        }
+
+        private static long ceilDiv(long a, long b) {
+            return (a + b - 1) / b;
+        }
+
+        private Entry required(Map<Integer, Entry> entries, int tag) throws ErrorException {
+            Entry entry = entries.get(tag);
+            if (entry == null || entry.count == 0) {
+                throw malformed("缺少标签 " + tag);
+            }
+            return entry;
+        }
+
+        private long scalar(Entry entry) throws IOException, ErrorException {
+            if (entry.count == 0) {
+                throw malformed("标签没有值");
+            }
+            return value(buffer(entry.position, TYPE_SIZES[entry.type]), 0, entry.type);
+        }
+
+        private long[] longs(Entry entry) throws IOException, ErrorException {
+            int typeSize = TYPE_SIZES[entry.type];
+            ByteBuffer buffer = buffer(entry.position, entry.count * typeSize);
+            long[] values = new long[(int) entry.count];
+
+            for (int i = 0; i < values.length; i++) {
+                values[i] = value(buffer, i * typeSize, entry.type);
+            }
+
+            return values;
+        }
+
+        private double[] doubles(Entry entry) throws IOException, ErrorException {
+            if (entry.type != TYPE_DOUBLE) {
+                throw malformed("地理参考标签应为 DOUBLE 类型");
+            }
+
+            ByteBuffer buffer = buffer(entry.position, entry.count * 8);
+            double[] values = new double[(int) entry.count];
+
+            for (int i = 0; i < values.length; i++) {
+                values[i] = buffer.getDouble(i * 8);
+            }
+
+            return values;
+        }
+
+        private long value(ByteBuffer buffer, int index, int type) throws ErrorException {
+            switch (type) {
+                case TYPE_SHORT:
+                    return buffer.getShort(index) & 0xFFFF;
+                case TYPE_LONG:
+                case TYPE_IFD:
+                    return buffer.getInt(index) & 0xFFFFFFFFL;
+                case TYPE_LONG8:
+                case TYPE_IFD8:
+                    return buffer.getLong(index);
+                case 1:
+                    return buffer.get(index) & 0xFF;
+                default:
+                    throw malformed("标签类型应为整数：" + type);
+            }
+        }
+
+        /**
+         * 文件中一段区域的只读视图，前 2 GB 内直接切片，否则单独映射
+         */
+        private ByteBuffer buffer(long position, long length) throws IOException, ErrorException {
+            if (position < 0 || length < 0 || position + length > size || length > Integer.MAX_VALUE) {
+                throw malformed("读取位置超出文件范围");
+            }
+
+            if (position + length <= head.capacity()) {
+                ByteBuffer view = head.duplicate();
+                view.position((int) position);
+                view.limit((int) (position + length));
+                return view.slice().order(order);
+            }
+
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(order);
+        }
+
+        private ErrorException malformed(String reason) {
+            return new ErrorException(String.format("不是合法的 GeoTIFF：%s，%s", name, reason));
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.geoserver.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 幂等读请求的对冲：请求在最近延迟的指定分位数内未返回时，再发送一个相同请求，先返回的结果生效
+ * 额外请求数受预算限制：每个请求积累 budgetRatio 个额度，每次对冲消耗一个，避免 geoserver 过载时成倍放大负载
+ * 慢的请求不取消，完成后归还连接，线程安全
+ */
+public class HedgedRequests {
+    private static final Logger logger = LoggerFactory.getLogger(HedgedRequests.class);
+
+    //  默认在最近延迟的 95 分位时对冲
+    public static final double DEFAULT_PERCENTILE = 0.95;
+    //  默认额外请求不超过请求数的 5%
+    public static final double DEFAULT_BUDGET_RATIO = 0.05;
+    //  默认最小对冲延迟（毫秒）
+    public static final long DEFAULT_MIN_DELAY_MILLIS = 10;
+
+    //  记录的最近延迟样本数
+    static final int WINDOW_SIZE = 512;
+    //  样本少于该数量时不对冲
+    static final int MIN_SAMPLES = 20;
+    //  每多少个样本重新计算分位数
+    private static final int RECOMPUTE_INTERVAL = 32;
+    //  预算额度上限，空闲后不会积累过多额度
+    private static final double MAX_TOKENS = 10;
+
+    private final double percentile;
+    private final double budgetRatio;
+    private final long minDelayNanos;
+
+    private final long[] samples = new long[WINDOW_SIZE];
+    private int sampleCount;
+    private int sampleIndex;
+    private long delayNanos;
+    private double tokens;
+
+    private final ExecutorService executor;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedged = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong budgetExhausted = new AtomicLong();
+
+    public HedgedRequests() {
+        this(DEFAULT_PERCENTILE, DEFAULT_BUDGET_RATIO, DEFAULT_MIN_DELAY_MILLIS);
+    }
+
+    /**
+     * @param percentile     对冲时机，最近延迟的分位数，0 ~ 1
+     * @param budgetRatio    额外请求占请求数的最大比例
+     * @param minDelayMillis 最小对冲延迟（毫秒），延迟很低时不对冲
+     */
+    public HedgedRequests(double percentile, double budgetRatio, long minDelayMillis) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("分位数必须在 0 ~ 1 之间：" + percentile);
+        }
+
+        this.percentile = percentile;
+        this.budgetRatio = budgetRatio;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "geoserver-hedge-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 执行请求，超过对冲延迟未返回时发送对冲请求，返回先完成的成功响应
+     *
+     * @param primary 原请求
+     * @param hedge   对冲请求，可发往同一或另一个副本
+     * @return 响应
+     */
+    public RESTResponse execute(Supplier<RESTResponse> primary, Supplier<RESTResponse> hedge) {
+        requests.incrementAndGet();
+        long delay = admit();
+
+        //  样本不足时在当前线程执行，只记录延迟
+        if (delay <= 0) {
+            long start = System.nanoTime();
+            RESTResponse response = primary.get();
+            if (!isFailure(response)) {
+                record(System.nanoTime() - start);
+            }
+            return response;
+        }
+
+        CompletableFuture<RESTResponse> first = submit(primary);
+
+        try {
+            return first.get(delay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            //  超过对冲延迟，继续向下
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new RESTResponse(RESTResponse.NO_RESPONSE, "等待响应时被中断");
+        } catch (ExecutionException e) {
+            return failed(e.getCause());
+        }
+
+        if (!spendToken()) {
+            budgetExhausted.incrementAndGet();
+            return join(first);
+        }
+
+        hedged.incrementAndGet();
+        CompletableFuture<RESTResponse> second = submit(hedge);
+
+        RESTResponse response = join(CompletableFuture.anyOf(first, second).thenApply(RESTResponse.class::cast));
+        CompletableFuture<RESTResponse> winner = first.isDone() && join(first) == response ? first : second;
+        CompletableFuture<RESTResponse> other = winner == first ? second : first;
+
+        //  先返回的是失败响应时等待另一个请求
+        if (isFailure(response)) {
+            RESTResponse otherResponse = join(other);
+            if (!isFailure(otherResponse)) {
+                winner = other;
+                response = otherResponse;
+            }
+        }
+
+        if (winner == second) {
+            hedgeWins.incrementAndGet();
+        }
+
+        return response;
+    }
+
+    /**
+     * @return 当前对冲延迟（毫秒），样本不足时为 0
+     */
+    public synchronized double getDelayMillis() {
+        return delayNanos / 1e6;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return 发送了对冲请求的次数
+     */
+    public long getHedged() {
+        return hedged.get();
+    }
+
+    /**
+     * @return 对冲请求先返回的次数
+     */
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    /**
+     * @return 因预算不足未对冲的次数
+     */
+    public long getBudgetExhausted() {
+        return budgetExhausted.get();
+    }
+
+    /**
+     * 关闭请求线程池
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HedgedRequests{p%.0f=%.1f ms, hedged=%d/%d, wins=%d, budgetExhausted=%d}",
+                percentile * 100, getDelayMillis(), getHedged(), getRequests(), getHedgeWins(), getBudgetExhausted());
+    }
+
+    /**
+     * 积累预算额度并返回对冲延迟
+     */
+    private synchronized long admit() {
+        tokens = Math.min(MAX_TOKENS, tokens + budgetRatio);
+        return sampleCount < MIN_SAMPLES ? 0 : Math.max(minDelayNanos, delayNanos);
+    }
+
+    private synchronized boolean spendToken() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    private synchronized void record(long latencyNanos) {
+        samples[sampleIndex] = latencyNanos;
+        sampleIndex = (sampleIndex + 1) % WINDOW_SIZE;
+        sampleCount = Math.min(WINDOW_SIZE, sampleCount + 1);
+
+        if (sampleCount >= MIN_SAMPLES && (delayNanos == 0 || sampleIndex % RECOMPUTE_INTERVAL == 0)) {
+            long[] sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+            delayNanos = sorted[Math.min(sampleCount - 1, (int) (sampleCount * percentile))];
+        }
+    }
+
+    /**
+     * 在线程池中执行请求，每个请求的延迟都计入样本，包括未被采用的慢请求
+     */
+    private CompletableFuture<RESTResponse> submit(Supplier<RESTResponse> request) {
+        long start = System.nanoTime();
+
+        return CompletableFuture.supplyAsync(request, executor).whenComplete((response, error) -> {
+            if (error == null && !isFailure(response)) {
+                record(System.nanoTime() - start);
+            }
+        });
+    }
+
+    private static RESTResponse join(CompletableFuture<RESTResponse> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new RESTResponse(RESTResponse.NO_RESPONSE, "等待响应时被中断");
+        } catch (ExecutionException e) {
+            return failed(e.getCause());
+        }
+    }
+
+    private static RESTResponse failed(Throwable cause) {
+        logger.error("对冲请求失败", cause);
+        return new RESTResponse(RESTResponse.NO_RESPONSE, String.valueOf(cause));
+    }
+
+    private static boolean isFailure(RESTResponse response) {
+        return response.getStatusCode() == RESTResponse.NO_RESPONSE || response.getStatusCode() >= 500;
+    }
+}
@@ -3,6 +3,62 @@ package com.example.geoserver.utils;
 import it.geosolutions.geoserver.rest.encoder.datastore.GSPostGISDatastoreEncoder;
 
 public class ImprovePostGISDatastore {
+    /**
+     * 数据源性能配置，决定 geoserver 为该数据源建立的连接池和查询方式
+     */
+    public enum Profile {
+        /**
+         * 交互式地图浏览（WMS、切片）：大量小范围并发查询，连接池常驻连接多，
+         * 用估算范围和宽松 bbox 过滤减少数据库计算
+         */
+        INTERACTIVE(5, 20, 1000, true, true, 50),
+        /**
+         * 批量 WFS 导出：少量大结果集查询，连接数少、每次取回的行多，
+         * bbox 精确过滤保证导出结果正确
+         */
+        BULK_WFS(1, 10, 10000, true, false, 100);
+
+        private final int minConnections;
+        private final int maxConnections;
+        private final int fetchSize;
+        private final boolean estimatedExtents;
+        private final boolean looseBBox;
+        private final int maxOpenPreparedStatements;
+
+        Profile(int minConnections, int maxConnections, int fetchSize, boolean estimatedExtents, boolean looseBBox, int maxOpenPreparedStatements) {
+            this.minConnections = minConnections;
+            this.maxConnections = maxConnections;
+            this.fetchSize = fetchSize;
+            this.estimatedExtents = estimatedExtents;
+            this.looseBBox = looseBBox;
+            this.maxOpenPreparedStatements = maxOpenPreparedStatements;
+        }
+
+        public int getMinConnections() {
+            return minConnections;
+        }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public boolean isEstimatedExtents() {
+            return estimatedExtents;
+        }
+
+        public boolean isLooseBBox() {
+            return looseBBox;
+        }
+
+        public int getMaxOpenPreparedStatements() {
+            return maxOpenPreparedStatements;
+        }
+    }
+
     private String dataStoreName;
     private String host;
     private int port = 5432;
@@ -26,6 +82,25 @@ public class ImprovePostGISDatastore {
         this.database = database;
     }
 
+    public String getDataStoreName() {
+        return dataStoreName;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    /**
+     * @return 直接连接该数据库的 JDBC 地址
+     */
+    public String getJdbcUrl() {
+        return String.format("jdbc:postgresql://%s:%d/%s", host, port, database);
+    }
+
     /**
      * 构建 GSPostGISDatastoreEncoder 对象，并将其返回
      * @return GSPostGISDatastoreEncoder 对象
@@ -41,5 +116,24 @@ public class ImprovePostGISDatastore {
 
         return build;
     }
-}
 
+    /**
+     * 按性能配置构建 GSPostGISDatastoreEncoder 对象：连接池大小、取连接时校验、每次取回行数、
+     * 预编译语句及其上限、估算范围和宽松 bbox 过滤
+     * @param profile 性能配置
+     * @return GSPostGISDatastoreEncoder 对象
+     */
+    public GSPostGISDatastoreEncoder builder(Profile profile) {
+        GSPostGISDatastoreEncoder build = builder();
+        build.setMinConnections(profile.getMinConnections());
+        build.setMaxConnections(profile.getMaxConnections());
+        build.setValidateConnections(true);
+        build.setFetchSize(profile.getFetchSize());
+        build.setPreparedStatements(true);
+        build.setMaxOpenPreparedStatements(profile.getMaxOpenPreparedStatements());
+        build.setEstimatedExtends(profile.isEstimatedExtents());
+        build.setLooseBBox(profile.isLooseBBox());
+
+        return build;
+    }
+}
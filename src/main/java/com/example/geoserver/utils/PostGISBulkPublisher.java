@@ -0,0 +1,182 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.error.ErrorException;
+import com.example.geoserver.error.ExistedException;
+import com.example.geoserver.error.ogc.WorkSpaceNotFoundException;
+import it.geosolutions.geoserver.rest.encoder.datastore.GSPostGISDatastoreEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量发布同一 PostGIS 数据库中的表
+ * 整个数据库只创建（或复用）一个数据源，geoserver 只维护一个连接池，各表作为要素类型并发发布
+ */
+public class PostGISBulkPublisher {
+    private static final Logger logger = LoggerFactory.getLogger(PostGISBulkPublisher.class);
+
+    //  默认并发数
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private final GeoServerManager manager;
+    private final int parallelism;
+
+    public PostGISBulkPublisher(GeoServerManager manager) {
+        this(manager, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * @param manager     geoserver 发布管理
+     * @param parallelism 同时发布的表数
+     */
+    public PostGISBulkPublisher(GeoServerManager manager, int parallelism) {
+        this.manager = manager;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * 查找模式中的所有空间表，按各表几何字段的 SRID 并发发布到同一个数据源
+     * 数据源名称为 {数据源名}_{模式名}，每个模式各有一个数据源，发布其他模式时不会复用到本模式的数据源
+     * 没有声明 SRID 的表无法确定坐标系，记为失败
+     *
+     * @param workspaceName 工作空间名称
+     * @param datastore     PostGIS 数据源连接信息，同时用于查询空间表
+     * @param profile       数据源性能配置，只在新建数据源时生效
+     * @param schema        模式名称，如 public
+     * @return 批量发布结果
+     * @throws WorkSpaceNotFoundException 工作空间不存在
+     * @throws ErrorException             查询空间表或创建数据源失败
+     */
+    public PostGISPublishReport publishSchema(
+            String workspaceName,
+            ImprovePostGISDatastore datastore,
+            ImprovePostGISDatastore.Profile profile,
+            String schema
+    ) throws WorkSpaceNotFoundException, ErrorException {
+        List<PostGISTableDiscovery.GeometryTable> geometryTables = new PostGISTableDiscovery(datastore).discover(schema);
+        logger.info(String.format("模式 %s 中有 %d 个空间表", schema, geometryTables.size()));
+
+        Map<String, Integer> tables = new LinkedHashMap<>();
+        List<PostGISPublishReport.Outcome> unknownSrid = new ArrayList<>();
+
+        for (PostGISTableDiscovery.GeometryTable table : geometryTables) {
+            if (table.getSrid() > 0) {
+                tables.put(table.getTableName(), table.getSrid());
+            } else {
+                unknownSrid.add(new PostGISPublishReport.Outcome(table.getTableName(), 0, false, false, "几何字段没有声明 SRID", 0));
+            }
+        }
+
+        GSPostGISDatastoreEncoder gsPostGISDatastoreEncoder = datastore.builder(profile);
+        gsPostGISDatastoreEncoder.setName(schemaStoreName(datastore.getDataStoreName(), schema));
+        gsPostGISDatastoreEncoder.setSchema(schema);
+
+        return publishTables(workspaceName, gsPostGISDatastoreEncoder, tables, unknownSrid);
+    }
+
+    /**
+     * @param dataStoreName 数据源名称
+     * @param schema        模式名称
+     * @return 模式对应的数据源名称
+     */
+    public static String schemaStoreName(String dataStoreName, String schema) {
+        return dataStoreName + "_" + schema;
+    }
+
+    /**
+     * 按性能配置创建或复用数据源，并发发布表
+     *
+     * @param workspaceName 工作空间名称
+     * @param datastore     PostGIS 数据源连接信息
+     * @param profile       数据源性能配置，只在新建数据源时生效
+     * @param tables        表名及其坐标系代码
+     * @return 批量发布结果
+     * @throws WorkSpaceNotFoundException 工作空间不存在
+     * @throws ErrorException             数据源创建失败
+     */
+    public PostGISPublishReport publishTables(
+            String workspaceName,
+            ImprovePostGISDatastore datastore,
+            ImprovePostGISDatastore.Profile profile,
+            Map<String, Integer> tables
+    ) throws WorkSpaceNotFoundException, ErrorException {
+        return publishTables(workspaceName, datastore.builder(profile), tables);
+    }
+
+    /**
+     * 创建或复用数据源，并发发布表，表名即为图层名
+     *
+     * @param workspaceName             工作空间名称
+     * @param gsPostGISDatastoreEncoder PostGIS DataStore 配置对象
+     * @param tables                    表名及其坐标系代码
+     * @return 批量发布结果
+     * @throws WorkSpaceNotFoundException 工作空间不存在
+     * @throws ErrorException             数据源创建失败
+     */
+    public PostGISPublishReport publishTables(
+            String workspaceName,
+            GSPostGISDatastoreEncoder gsPostGISDatastoreEncoder,
+            Map<String, Integer> tables
+    ) throws WorkSpaceNotFoundException, ErrorException {
+        return publishTables(workspaceName, gsPostGISDatastoreEncoder, tables, Collections.emptyList());
+    }
+
+    /**
+     * @param skipped 未发布的表的结果，直接计入批量发布结果
+     */
+    private PostGISPublishReport publishTables(
+            String workspaceName,
+            GSPostGISDatastoreEncoder gsPostGISDatastoreEncoder,
+            Map<String, Integer> tables,
+            List<PostGISPublishReport.Outcome> skipped
+    ) throws WorkSpaceNotFoundException, ErrorException {
+        String storeName = gsPostGISDatastoreEncoder.getName();
+        boolean created = manager.createOrReusePostGISDataStore(workspaceName, gsPostGISDatastoreEncoder);
+
+        PostGISPublishReport report = new PostGISPublishReport(storeName, created);
+        for (PostGISPublishReport.Outcome outcome : skipped) {
+            report.add(outcome);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+
+        try {
+            for (Map.Entry<String, Integer> table : tables.entrySet()) {
+                executor.execute(() -> report.add(publishTable(workspaceName, storeName, table.getKey(), table.getValue())));
+            }
+
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            report.finish();
+        }
+
+        logger.info(report.toString());
+
+        return report;
+    }
+
+    private PostGISPublishReport.Outcome publishTable(String workspaceName, String storeName, String tableName, int crsCode) {
+        long start = System.currentTimeMillis();
+
+        try {
+            boolean success = manager.publishPostGISTable(workspaceName, storeName, tableName, crsCode);
+            return new PostGISPublishReport.Outcome(tableName, crsCode, success, false, null, System.currentTimeMillis() - start);
+        } catch (ExistedException e) {
+            return new PostGISPublishReport.Outcome(tableName, crsCode, false, true, e.getMessage(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            return new PostGISPublishReport.Outcome(tableName, crsCode, false, false, e.getMessage(), System.currentTimeMillis() - start);
+        }
+    }
+}
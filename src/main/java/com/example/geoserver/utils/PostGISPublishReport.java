@@ -0,0 +1,154 @@
+package com.example.geoserver.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * PostGIS 批量发布结果：每个表的发布结果以及整体吞吐量
+ */
+public class PostGISPublishReport {
+
+    /**
+     * 单个表的发布结果
+     */
+    public static class Outcome {
+        private final String tableName;
+        private final int crsCode;
+        private final boolean success;
+        private final boolean existed;
+        private final String message;
+        private final long elapsedMillis;
+
+        public Outcome(String tableName, int crsCode, boolean success, boolean existed, String message, long elapsedMillis) {
+            this.tableName = tableName;
+            this.crsCode = crsCode;
+            this.success = success;
+            this.existed = existed;
+            this.message = message;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public int getCrsCode() {
+            return crsCode;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        /**
+         * @return 图层已存在，未重复发布
+         */
+        public boolean isExisted() {
+            return existed;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s [EPSG:%d] %s %d ms%s", tableName, crsCode,
+                    success ? "成功" : existed ? "已存在" : "失败",
+                    elapsedMillis, message == null ? "" : "：" + message);
+        }
+    }
+
+    private final String storeName;
+    private final boolean storeCreated;
+    private final List<Outcome> outcomes = Collections.synchronizedList(new ArrayList<>());
+    private final long startedAt = System.currentTimeMillis();
+    private volatile long finishedAt;
+
+    PostGISPublishReport(String storeName, boolean storeCreated) {
+        this.storeName = storeName;
+        this.storeCreated = storeCreated;
+    }
+
+    void add(Outcome outcome) {
+        outcomes.add(outcome);
+    }
+
+    void finish() {
+        finishedAt = System.currentTimeMillis();
+    }
+
+    public String getStoreName() {
+        return storeName;
+    }
+
+    /**
+     * @return 数据源是否为本次新创建，false 表示复用已有数据源
+     */
+    public boolean isStoreCreated() {
+        return storeCreated;
+    }
+
+    public List<Outcome> getOutcomes() {
+        synchronized (outcomes) {
+            return new ArrayList<>(outcomes);
+        }
+    }
+
+    public int getSucceeded() {
+        int succeeded = 0;
+        for (Outcome outcome : getOutcomes()) {
+            if (outcome.isSuccess()) {
+                succeeded++;
+            }
+        }
+        return succeeded;
+    }
+
+    public int getFailed() {
+        int failed = 0;
+        for (Outcome outcome : getOutcomes()) {
+            if (!outcome.isSuccess() && !outcome.isExisted()) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * @return 图层已存在而跳过的表数
+     */
+    public int getSkipped() {
+        int skipped = 0;
+        for (Outcome outcome : getOutcomes()) {
+            if (outcome.isExisted()) {
+                skipped++;
+            }
+        }
+        return skipped;
+    }
+
+    public long getElapsedMillis() {
+        return (finishedAt == 0 ? System.currentTimeMillis() : finishedAt) - startedAt;
+    }
+
+    /**
+     * @return 每秒发布成功的表数
+     */
+    public double getTablesPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0 : getSucceeded() * 1000.0 / elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PostGIS 批量发布 %s（%s）：成功 %d，失败 %d，已存在 %d，耗时 %d ms，%.2f 个/s",
+                storeName, storeCreated ? "新建数据源" : "复用数据源",
+                getSucceeded(), getFailed(), getSkipped(), getElapsedMillis(), getTablesPerSecond());
+    }
+}
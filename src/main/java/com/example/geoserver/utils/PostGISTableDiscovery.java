@@ -0,0 +1,150 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.error.ErrorException;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * 通过 JDBC 查找 PostGIS 模式中的空间表
+ * 一次查询 geometry_columns 和 pg_class，得到每个表的几何字段、SRID、几何类型和估算行数
+ */
+public class PostGISTableDiscovery {
+    //  连接和查询超时，秒
+    private static final int TIMEOUT_SECONDS = 30;
+
+    //  估算行数来自统计信息（reltuples），不扫描表；按估算行数从大到小排序，大表先发布
+    //  同一表的几何字段按字段顺序（attnum）排列，与 geoserver 选择默认几何字段的规则一致
+    private static final String GEOMETRY_TABLES_SQL = "SELECT g.f_table_name, g.f_geometry_column, g.srid, g.type, c.reltuples"
+            + " FROM geometry_columns g"
+            + " JOIN pg_catalog.pg_namespace n ON n.nspname = g.f_table_schema"
+            + " JOIN pg_catalog.pg_class c ON c.relnamespace = n.oid AND c.relname = g.f_table_name"
+            + " JOIN pg_catalog.pg_attribute a ON a.attrelid = c.oid AND a.attname = g.f_geometry_column"
+            + " WHERE g.f_table_schema = ?"
+            + " ORDER BY c.reltuples DESC, g.f_table_name, a.attnum";
+
+    /**
+     * 模式中的一个空间表
+     */
+    public static class GeometryTable {
+        private final String tableName;
+        private final String geometryColumn;
+        private final int srid;
+        private final String geometryType;
+        private final long estimatedRows;
+
+        public GeometryTable(String tableName, String geometryColumn, int srid, String geometryType, long estimatedRows) {
+            this.tableName = tableName;
+            this.geometryColumn = geometryColumn;
+            this.srid = srid;
+            this.geometryType = geometryType;
+            this.estimatedRows = estimatedRows;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public String getGeometryColumn() {
+            return geometryColumn;
+        }
+
+        /**
+         * @return 几何字段声明的 SRID，未声明时为 0
+         */
+        public int getSrid() {
+            return srid;
+        }
+
+        /**
+         * @return 几何类型，如 POINT、MULTIPOLYGON，未限定时为 GEOMETRY
+         */
+        public String getGeometryType() {
+            return geometryType;
+        }
+
+        /**
+         * @return 统计信息中的估算行数，未分析过的表为 0
+         */
+        public long getEstimatedRows() {
+            return estimatedRows;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s.%s %s EPSG:%d 约 %d 行", tableName, geometryColumn, geometryType, srid, estimatedRows);
+        }
+    }
+
+    private final String jdbcUrl;
+    private final String user;
+    private final String password;
+
+    public PostGISTableDiscovery(ImprovePostGISDatastore datastore) {
+        this(datastore.getJdbcUrl(), datastore.getUser(), datastore.getPassword());
+    }
+
+    /**
+     * @param jdbcUrl  JDBC 地址，如 jdbc:postgresql://localhost:5432/gis
+     * @param user     用户名
+     * @param password 密码
+     */
+    public PostGISTableDiscovery(String jdbcUrl, String user, String password) {
+        this.jdbcUrl = jdbcUrl;
+        this.user = user;
+        this.password = password;
+    }
+
+    /**
+     * 查找模式中的空间表，一个表有多个几何字段时只取表中的第一个几何字段，
+     * 即 geoserver 发布时使用的默认几何字段
+     *
+     * @param schema 模式名称，如 public
+     * @return 空间表，按估算行数从大到小排序
+     * @throws ErrorException 连接或查询数据库失败
+     */
+    public List<GeometryTable> discover(String schema) throws ErrorException {
+        Properties properties = new Properties();
+        properties.setProperty("user", user);
+        properties.setProperty("password", password == null ? "" : password);
+        properties.setProperty("connectTimeout", String.valueOf(TIMEOUT_SECONDS));
+        properties.setProperty("ApplicationName", "geoserver-publisher");
+
+        List<GeometryTable> tables = new ArrayList<>();
+        Set<String> tableNames = new LinkedHashSet<>();
+
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, properties);
+             PreparedStatement statement = connection.prepareStatement(GEOMETRY_TABLES_SQL)) {
+            statement.setQueryTimeout(TIMEOUT_SECONDS);
+            statement.setString(1, schema);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    String tableName = resultSet.getString(1);
+
+                    if (tableNames.add(tableName)) {
+                        tables.add(new GeometryTable(
+                                tableName,
+                                resultSet.getString(2),
+                                resultSet.getInt(3),
+                                resultSet.getString(4),
+                                Math.max(0, (long) resultSet.getDouble(5))
+                        ));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new ErrorException(String.format("查询模式 %s 中的空间表失败：%s", schema, e.getMessage()));
+        }
+
+        return tables;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.geoserver.utils;
+
+/**
+ * geoserver REST 请求结果，以 HTTP 状态码判断成功与否
+ */
+public class RESTResponse {
+    /**
+     * 请求未能发出（连接失败、IO 错误等）时的状态码
+     */
+    public static final int NO_RESPONSE = -1;
+
+    private final int statusCode;
+    private final String body;
+
+    public RESTResponse(int statusCode, String body) {
+        this.statusCode = statusCode;
+        this.body = body;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * 是否为 2xx 成功状态
+     *
+     * @return 是否成功
+     */
+    public boolean isSuccess() {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    /**
+     * 资源是否不存在（404）
+     *
+     * @return 是否不存在
+     */
+    public boolean isNotFound() {
+        return statusCode == 404;
+    }
+
+    @Override
+    public String toString() {
+        return "RESTResponse{statusCode=" + statusCode + ", body='" + body + "'}";
+    }
+}
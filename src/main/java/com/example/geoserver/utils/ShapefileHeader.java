@@ -0,0 +1,529 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.error.ErrorException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * shapefile 头信息，只读取 .shp / .shx 的 100 字节文件头、.dbf 的表头和 .prj
+ * 得到几何类型、范围、要素数、字段和坐标系；.shp、.shx、.dbf 互相矛盾或被截断的数据在上传前拒绝
+ * 磁盘上的文件以内存映射读取，zip 中的文件只解压文件头部分
+ */
+public class ShapefileHeader {
+    //  .shp / .shx 文件头
+    private static final int HEADER_SIZE = 100;
+    private static final int FILE_CODE = 9994;
+    private static final int VERSION = 1000;
+    private static final int SHX_RECORD_SIZE = 8;
+    private static final List<Integer> SHAPE_TYPES = Arrays.asList(0, 1, 3, 5, 8, 11, 13, 15, 18, 21, 23, 25, 28, 31);
+
+    //  .dbf 表头
+    private static final int DBF_HEADER_SIZE = 32;
+    private static final int DBF_FIELD_SIZE = 32;
+    private static final int DBF_FIELD_TERMINATOR = 0x0D;
+
+    //  .prj 中最外层坐标系的 EPSG 代码：WKT1 AUTHORITY["EPSG","4326"]，WKT2 ID["EPSG",4326]
+    private static final Pattern AUTHORITY = Pattern.compile("^(?:AUTHORITY|ID)\\[\\s*\"EPSG\"\\s*,\\s*\"?(\\d+)\"?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CRS_NAME = Pattern.compile("^\\s*(?:PROJCS|GEOGCS|PROJCRS|GEOGCRS|GEODCRS)\\[\\s*\"([^\"]*)\"", Pattern.CASE_INSENSITIVE);
+    private static final Pattern UTM = Pattern.compile("WGS_1984_UTM_Zone_(\\d{1,2})([NS])", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CGCS2000_GK_CM = Pattern.compile("CGCS2000_3_Degree_GK_CM_(\\d{2,3})E", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CGCS2000_GK_ZONE = Pattern.compile("CGCS2000_3_Degree_GK_Zone_(\\d{2})", Pattern.CASE_INSENSITIVE);
+
+    //  没有 AUTHORITY 的 ESRI .prj 按坐标系名称识别
+    private static final Map<String, Integer> CRS_NAMES = new HashMap<>();
+
+    static {
+        CRS_NAMES.put("GCS_WGS_1984", 4326);
+        CRS_NAMES.put("WGS 84", 4326);
+        CRS_NAMES.put("GCS_China_Geodetic_Coordinate_System_2000", 4490);
+        CRS_NAMES.put("China Geodetic Coordinate System 2000", 4490);
+        CRS_NAMES.put("GCS_Xian_1980", 4610);
+        CRS_NAMES.put("GCS_Beijing_1954", 4214);
+        CRS_NAMES.put("WGS_1984_Web_Mercator_Auxiliary_Sphere", 3857);
+        CRS_NAMES.put("WGS 84 / Pseudo-Mercator", 3857);
+    }
+
+    //  地理坐标系，范围即为经纬度范围
+    private static final List<Integer> GEOGRAPHIC = Arrays.asList(4326, 4490, 4610, 4214);
+    private static final int WEB_MERCATOR = 3857;
+    private static final double EARTH_RADIUS = 6378137.0;
+
+    /**
+     * .dbf 字段
+     */
+    public static final class Field {
+        private final String name;
+        private final char type;
+        private final int length;
+        private final int decimals;
+
+        Field(String name, char type, int length, int decimals) {
+            this.name = name;
+            this.type = type;
+            this.length = length;
+            this.decimals = decimals;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return 字段类型，如 C 字符、N 数值、D 日期
+         */
+        public char getType() {
+            return type;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public int getDecimals() {
+            return decimals;
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + type + "(" + length + (decimals > 0 ? "," + decimals : "") + ")";
+        }
+    }
+
+    private final String layerName;
+    private int shapeType;
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+    private long featureCount;
+    private final List<Field> fields = new ArrayList<>();
+    private String prj;
+    private int epsgCode;
+
+    private ShapefileHeader(String layerName) {
+        this.layerName = layerName;
+    }
+
+    /**
+     * 读取 shapefile 头信息
+     *
+     * @param shpSource shp Zip 文件、.shp 文件或 shp 所在目录，zip 中的 shp 文件名需与 zip 文件名相同
+     * @return 头信息，.prj 缺失或无法识别时 EPSG 代码为 0
+     * @throws FileNotFoundException 文件不存在、目录中没有或有多个 .shp 文件
+     * @throws ErrorException        不是 zip、.shp 或目录，缺少 .dbf，文件头损坏或文件之间不一致
+     */
+    public static ShapefileHeader read(File shpSource) throws FileNotFoundException, ErrorException {
+        if (!shpSource.exists()) {
+            throw new FileNotFoundException(shpSource.getPath());
+        }
+
+        String layerName = GeoServerManager.shpLayerName(shpSource);
+        ShapefileHeader header = new ShapefileHeader(layerName);
+
+        try (Members members = shpSource.isFile() && !shpSource.getName().toLowerCase(Locale.ROOT).endsWith(".shp")
+                ? new ZipMembers(shpSource, layerName)
+                : new DirectoryMembers(ShapefileZipRequestEntity.findShp(shpSource), layerName)) {
+            header.readShp(members);
+            header.readDbf(members);
+            header.readShx(members);
+            header.readPrj(members);
+        } catch (IOException e) {
+            throw new ErrorException(String.format("读取 shapefile 失败：%s，%s", shpSource.getName(), e.getMessage()));
+        }
+
+        return header;
+    }
+
+    public String getLayerName() {
+        return layerName;
+    }
+
+    /**
+     * @return 几何类型，1 点、3 线、5 面、8 多点，加 10 为带 Z、加 20 为带 M
+     */
+    public int getShapeType() {
+        return shapeType;
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * @return 要素数，即 .dbf 中的记录数
+     */
+    public long getFeatureCount() {
+        return featureCount;
+    }
+
+    public List<Field> getFields() {
+        return Collections.unmodifiableList(fields);
+    }
+
+    /**
+     * @return .prj 内容，缺失时为 null
+     */
+    public String getPrj() {
+        return prj;
+    }
+
+    /**
+     * @return 由 .prj 识别的 EPSG 代码，缺失或无法识别时为 0
+     */
+    public int getEpsgCode() {
+        return epsgCode;
+    }
+
+    /**
+     * 经纬度范围，地理坐标系直接取范围，Web 墨卡托按公式反算，其他投影返回 null 由 geoserver 计算
+     *
+     * @param crsCode 范围所在坐标系的 EPSG 代码
+     * @return minX、minY、maxX、maxY，无法计算或没有要素时为 null
+     */
+    public double[] latLonBoundingBox(int crsCode) {
+        if (featureCount == 0) {
+            return null;
+        }
+
+        return latLonBoundingBox(crsCode, minX, minY, maxX, maxY);
+    }
+
+    /**
+     * 由范围计算经纬度范围，shapefile 和 GeoTIFF 共用
+     *
+     * @param crsCode 范围的坐标系代码
+     * @return 经纬度范围 [minX, minY, maxX, maxY]，坐标系需要 geoserver 转换时为 null
+     */
+    static double[] latLonBoundingBox(int crsCode, double minX, double minY, double maxX, double maxY) {
+        if (GEOGRAPHIC.contains(crsCode)) {
+            return new double[]{minX, minY, maxX, maxY};
+        }
+
+        if (crsCode == WEB_MERCATOR) {
+            return new double[]{
+                    Math.toDegrees(minX / EARTH_RADIUS),
+                    Math.toDegrees(Math.atan(Math.sinh(minY / EARTH_RADIUS))),
+                    Math.toDegrees(maxX / EARTH_RADIUS),
+                    Math.toDegrees(Math.atan(Math.sinh(maxY / EARTH_RADIUS)))
+            };
+        }
+
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s 类型 %d，%d 个要素，%d 个字段，%s [%f, %f, %f, %f]",
+                layerName, shapeType, featureCount, fields.size(),
+                epsgCode == 0 ? "未知坐标系" : "EPSG:" + epsgCode,
+                minX, minY, maxX, maxY);
+    }
+
+    private void readShp(Members members) throws IOException, ErrorException {
+        long size = members.size("shp");
+        ByteBuffer shp = fileHeader(members, "shp", size);
+
+        shapeType = shp.getInt(32);
+        if (!SHAPE_TYPES.contains(shapeType)) {
+            throw malformed("不支持的几何类型 " + shapeType);
+        }
+
+        minX = shp.getDouble(36);
+        minY = shp.getDouble(44);
+        maxX = shp.getDouble(52);
+        maxY = shp.getDouble(60);
+    }
+
+    private void readShx(Members members) throws IOException, ErrorException {
+        long size = members.size("shx");
+        if (size < 0) {
+            return;
+        }
+
+        fileHeader(members, "shx", size);
+
+        long records = (size - HEADER_SIZE) / SHX_RECORD_SIZE;
+        if ((size - HEADER_SIZE) % SHX_RECORD_SIZE != 0 || records != featureCount) {
+            throw malformed(String.format(".shx 记录数 %d 与 .dbf 记录数 %d 不一致", records, featureCount));
+        }
+    }
+
+    /**
+     * 读取并校验 .shp / .shx 的文件头：文件代码、版本，以及文件头中的长度与实际长度一致
+     */
+    private ByteBuffer fileHeader(Members members, String extension, long size) throws IOException, ErrorException {
+        if (size < HEADER_SIZE) {
+            throw malformed(String.format("缺少 .%s 或文件过小", extension));
+        }
+
+        ByteBuffer buffer = members.read(extension, HEADER_SIZE);
+
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        int fileCode = buffer.getInt(0);
+        //    文件长度以 16 位字为单位
+        long length = (buffer.getInt(24) & 0xFFFFFFFFL) * 2;
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int version = buffer.getInt(28);
+
+        if (fileCode != FILE_CODE || version != VERSION) {
+            throw malformed(String.format(".%s 文件头不合法", extension));
+        }
+        if (length != size) {
+            throw malformed(String.format(".%s 长度 %d 与文件头记录的 %d 不一致，文件可能被截断", extension, size, length));
+        }
+
+        return buffer;
+    }
+
+    private void readDbf(Members members) throws IOException, ErrorException {
+        long size = members.size("dbf");
+        if (size < DBF_HEADER_SIZE + 1) {
+            throw malformed("缺少 .dbf 或文件过小");
+        }
+
+        ByteBuffer dbf = members.read("dbf", DBF_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        featureCount = dbf.getInt(4) & 0xFFFFFFFFL;
+        int headerLength = dbf.getShort(8) & 0xFFFF;
+        int recordLength = dbf.getShort(10) & 0xFFFF;
+
+        if (headerLength < DBF_HEADER_SIZE + 1 || headerLength > size || recordLength < 1) {
+            throw malformed(".dbf 表头不合法");
+        }
+        //    末尾的 0x1A 结束符可有可无
+        if (headerLength + featureCount * recordLength > size) {
+            throw malformed(String.format(".dbf 应有 %d 条记录，文件长度不足，文件可能被截断", featureCount));
+        }
+
+        dbf = members.read("dbf", headerLength).order(ByteOrder.LITTLE_ENDIAN);
+        int fieldsLength = 1;
+
+        for (int offset = DBF_HEADER_SIZE; offset + DBF_FIELD_SIZE <= headerLength; offset += DBF_FIELD_SIZE) {
+            if ((dbf.get(offset) & 0xFF) == DBF_FIELD_TERMINATOR) {
+                break;
+            }
+
+            byte[] name = new byte[11];
+            dbf.position(offset);
+            dbf.get(name);
+            int nameLength = 0;
+            while (nameLength < name.length && name[nameLength] != 0) {
+                nameLength++;
+            }
+
+            int length = dbf.get(offset + 16) & 0xFF;
+            fields.add(new Field(new String(name, 0, nameLength, StandardCharsets.ISO_8859_1).trim(),
+                    (char) (dbf.get(offset + 11) & 0xFF), length, dbf.get(offset + 17) & 0xFF));
+            fieldsLength += length;
+        }
+
+        if (fieldsLength != recordLength) {
+            throw malformed(String.format(".dbf 字段长度之和 %d 与记录长度 %d 不一致", fieldsLength, recordLength));
+        }
+    }
+
+    private void readPrj(Members members) throws IOException {
+        long size = members.size("prj");
+        if (size <= 0 || size > Integer.MAX_VALUE) {
+            return;
+        }
+
+        ByteBuffer buffer = members.read("prj", (int) size);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+
+        prj = new String(bytes, StandardCharsets.UTF_8).trim();
+        epsgCode = epsgCode(prj);
+    }
+
+    /**
+     * 从 WKT 识别 EPSG 代码：优先取最外层坐标系的 AUTHORITY，没有时按 ESRI 坐标系名称识别
+     *
+     * @param wkt 坐标系 WKT
+     * @return EPSG 代码，无法识别时为 0
+     */
+    static int epsgCode(String wkt) {
+        int depth = 0;
+
+        for (int i = 0; i < wkt.length(); i++) {
+            char c = wkt.charAt(i);
+            if (c == '[' || c == '(') {
+                depth++;
+            } else if (c == ']' || c == ')') {
+                depth--;
+            } else if (c == '"') {
+                int end = wkt.indexOf('"', i + 1);
+                i = end < 0 ? wkt.length() : end;
+            } else if (depth == 1 && (c == 'A' || c == 'a' || c == 'I' || c == 'i')) {
+                Matcher matcher = AUTHORITY.matcher(wkt.substring(i));
+                if (matcher.find()) {
+                    return Integer.parseInt(matcher.group(1));
+                }
+            }
+        }
+
+        Matcher name = CRS_NAME.matcher(wkt);
+        if (!name.find()) {
+            return 0;
+        }
+
+        String crsName = name.group(1);
+        Integer code = CRS_NAMES.get(crsName);
+        if (code != null) {
+            return code;
+        }
+
+        Matcher matcher;
+        if ((matcher = UTM.matcher(crsName)).matches()) {
+            int zone = Integer.parseInt(matcher.group(1));
+            if (zone >= 1 && zone <= 60) {
+                return ("N".equalsIgnoreCase(matcher.group(2)) ? 32600 : 32700) + zone;
+            }
+        }
+        //    CGCS2000 3 度带：带号 25 ~ 45 为 EPSG:4513 ~ 4533，不带带号的中央经线 75E ~ 135E 为 EPSG:4534 ~ 4554
+        if ((matcher = CGCS2000_GK_ZONE.matcher(crsName)).matches()) {
+            int zone = Integer.parseInt(matcher.group(1));
+            if (zone >= 25 && zone <= 45) {
+                return 4513 + zone - 25;
+            }
+        }
+        if ((matcher = CGCS2000_GK_CM.matcher(crsName)).matches()) {
+            int meridian = Integer.parseInt(matcher.group(1));
+            if (meridian >= 75 && meridian <= 135 && meridian % 3 == 0) {
+                return 4534 + (meridian - 75) / 3;
+            }
+        }
+
+        return 0;
+    }
+
+    private ErrorException malformed(String reason) {
+        return new ErrorException(String.format("shapefile 不完整或已损坏：%s，%s", layerName, reason));
+    }
+
+    /**
+     * shapefile 的各个文件，按扩展名访问
+     */
+    private interface Members extends Closeable {
+        /**
+         * @return 文件长度，不存在时为 -1
+         */
+        long size(String extension) throws IOException;
+
+        /**
+         * @return 文件开头 length 字节
+         */
+        ByteBuffer read(String extension, int length) throws IOException;
+    }
+
+    /**
+     * 磁盘上的 .shp 及同目录下的同名文件，内存映射读取
+     */
+    private static final class DirectoryMembers implements Members {
+        private final Map<String, File> files = new HashMap<>();
+
+        private DirectoryMembers(File shpFile, String layerName) {
+            File[] siblings = shpFile.getAbsoluteFile().getParentFile().listFiles(File::isFile);
+            for (File file : siblings == null ? new File[0] : siblings) {
+                String name = file.getName();
+                if (name.length() > layerName.length() + 1 && name.startsWith(layerName) && name.charAt(layerName.length()) == '.') {
+                    files.put(name.substring(layerName.length() + 1).toLowerCase(Locale.ROOT), file);
+                }
+            }
+        }
+
+        @Override
+        public long size(String extension) {
+            File file = files.get(extension);
+            return file == null ? -1 : file.length();
+        }
+
+        @Override
+        public ByteBuffer read(String extension, int length) throws IOException {
+            try (FileChannel channel = FileChannel.open(files.get(extension).toPath(), StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(length, channel.size()));
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * zip 中与图层同名的文件，只解压需要的开头部分
+     */
+    private static final class ZipMembers implements Members {
+        private final ZipFile zipFile;
+        private final Map<String, ZipEntry> entries = new HashMap<>();
+
+        private ZipMembers(File file, String layerName) throws IOException {
+            this.zipFile = new ZipFile(file);
+
+            for (ZipEntry entry : Collections.list(zipFile.entries())) {
+                String name = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+                if (!entry.isDirectory() && name.length() > layerName.length() + 1 && name.startsWith(layerName) && name.charAt(layerName.length()) == '.') {
+                    entries.put(name.substring(layerName.length() + 1).toLowerCase(Locale.ROOT), entry);
+                }
+            }
+        }
+
+        @Override
+        public long size(String extension) {
+            ZipEntry entry = entries.get(extension);
+            return entry == null ? -1 : entry.getSize();
+        }
+
+        @Override
+        public ByteBuffer read(String extension, int length) throws IOException {
+            byte[] bytes = new byte[(int) Math.min(length, entries.get(extension).getSize())];
+            int read = 0;
+
+            try (InputStream in = zipFile.getInputStream(entries.get(extension))) {
+                int n;
+                while (read < bytes.length && (n = in.read(bytes, read, bytes.length - read)) != -1) {
+                    read += n;
+                }
+            }
+
+            return ByteBuffer.wrap(bytes, 0, read).slice();
+        }
+
+        @Override
+        public void close() throws IOException {
+            zipFile.close();
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.constant.ContentType;
+import org.apache.commons.httpclient.methods.RequestEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 把 .shp 及其同名附属文件（.dbf、.shx、.prj 等）边压缩边写出为 zip 的请求体，不生成临时压缩包
+ * 大文件按块并行压缩（每块以前一块末尾 32 KB 为字典，块之间同步刷新后直接拼接），写出顺序不变，
+ * 同时压缩的块数有上限，内存占用与文件大小无关；长度未知，以分块传输发送，可重复写出
+ */
+public class ShapefileZipRequestEntity implements RequestEntity {
+    //  shapefile 的附属文件扩展名
+    private static final List<String> SIDECAR_EXTENSIONS = Arrays.asList(
+            "shp", "shx", "dbf", "prj", "cpg", "sbn", "sbx", "qix", "fix", "shp.xml"
+    );
+
+    //  每个压缩块的大小
+    public static final int CHUNK_SIZE = 1024 * 1024;
+    //  不小于该大小的文件并行压缩
+    public static final long PARALLEL_THRESHOLD = 4L * CHUNK_SIZE;
+    //  deflate 字典大小
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    //  zip 结构常量
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int DATA_DESCRIPTOR = 0x08074b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int VERSION = 20;
+    //  bit 3：大小和 CRC 写在数据之后；bit 11：文件名为 UTF-8
+    private static final int FLAGS = 1 << 3 | 1 << 11;
+    private static final int DEFLATED = 8;
+    private static final long MAX_ZIP32 = 0xFFFFFFFFL;
+
+    private final String layerName;
+    private final List<File> members;
+    private final int level;
+    private final int parallelism;
+
+    private volatile long bytesRead;
+    private volatile long bytesWritten;
+    private volatile long elapsedNanos;
+
+    /**
+     * @param shpSource .shp 文件，或只包含一个 .shp 的目录
+     * @throws FileNotFoundException 文件不存在、目录中没有或有多个 .shp 文件
+     */
+    public ShapefileZipRequestEntity(File shpSource) throws FileNotFoundException {
+        this(shpSource, Deflater.DEFAULT_COMPRESSION, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param shpSource   .shp 文件，或只包含一个 .shp 的目录
+     * @param level       压缩级别，0 ~ 9
+     * @param parallelism 每个大文件同时压缩的块数
+     * @throws FileNotFoundException 文件不存在、目录中没有或有多个 .shp 文件
+     */
+    public ShapefileZipRequestEntity(File shpSource, int level, int parallelism) throws FileNotFoundException {
+        File shpFile = findShp(shpSource);
+        String fileName = shpFile.getName();
+
+        this.layerName = fileName.substring(0, fileName.length() - ".shp".length());
+        this.members = sidecars(shpFile);
+        this.level = level;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * 查找 .shp 文件
+     *
+     * @param shpSource .shp 文件，或只包含一个 .shp 的目录
+     * @return .shp 文件
+     * @throws FileNotFoundException 文件不存在、目录中没有或有多个 .shp 文件
+     */
+    public static File findShp(File shpSource) throws FileNotFoundException {
+        if (shpSource.isFile() && shpSource.getName().toLowerCase(Locale.ROOT).endsWith(".shp")) {
+            return shpSource;
+        }
+
+        File[] shpFiles = shpSource.isDirectory()
+                ? shpSource.listFiles(file -> file.isFile() && file.getName().toLowerCase(Locale.ROOT).endsWith(".shp"))
+                : null;
+
+        if (shpFiles == null || shpFiles.length != 1) {
+            throw new FileNotFoundException(String.format("%s 不是 .shp 文件或只包含一个 .shp 的目录", shpSource.getPath()));
+        }
+
+        return shpFiles[0];
+    }
+
+    /**
+     * @param shpFile .shp 文件
+     * @return .shp 及同目录下同名的附属文件，按文件名排序
+     */
+    static List<File> sidecars(File shpFile) {
+        String fileName = shpFile.getName();
+        String baseName = fileName.substring(0, fileName.length() - ".shp".length());
+        List<File> sidecars = new ArrayList<>();
+
+        File[] files = shpFile.getAbsoluteFile().getParentFile().listFiles(File::isFile);
+        for (File file : files == null ? new File[0] : files) {
+            String name = file.getName();
+            if (name.length() > baseName.length() + 1 && name.startsWith(baseName) && name.charAt(baseName.length()) == '.'
+                    && SIDECAR_EXTENSIONS.contains(name.substring(baseName.length() + 1).toLowerCase(Locale.ROOT))) {
+                sidecars.add(file);
+            }
+        }
+
+        Collections.sort(sidecars);
+        return sidecars;
+    }
+
+    /**
+     * @return 图层名，即 .shp 的文件名（不含扩展名）
+     */
+    public String getLayerName() {
+        return layerName;
+    }
+
+    /**
+     * @return 写入 zip 的文件
+     */
+    public List<File> getMembers() {
+        return new ArrayList<>(members);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public void writeRequest(OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        bytesRead = 0;
+
+        CountingOutputStream zip = new CountingOutputStream(out);
+        List<byte[]> centralDirectory = new ArrayList<>(members.size());
+
+        try {
+            for (File member : members) {
+                centralDirectory.add(writeEntry(zip, member));
+            }
+
+            long centralDirectoryOffset = zip.count;
+            for (byte[] header : centralDirectory) {
+                zip.write(header);
+            }
+            long centralDirectorySize = zip.count - centralDirectoryOffset;
+
+            if (zip.count > MAX_ZIP32) {
+                throw new IOException("压缩包超过 4 GB，不支持 zip64");
+            }
+
+            ByteBuffer end = header(22);
+            end.putInt(END_OF_CENTRAL_DIRECTORY)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) members.size())
+                    .putShort((short) members.size())
+                    .putInt((int) centralDirectorySize)
+                    .putInt((int) centralDirectoryOffset)
+                    .putShort((short) 0);
+            zip.write(end.array());
+            zip.flush();
+        } finally {
+            bytesWritten = zip.count;
+            elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public String getContentType() {
+        return ContentType.ZIP;
+    }
+
+    /**
+     * @return 最近一次读取的原始字节数
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return 最近一次写出的压缩后字节数
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * @return 最近一次写出的耗时（毫秒）
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1000000;
+    }
+
+    /**
+     * @return 最近一次读取原始文件的速率（字节/秒）
+     */
+    public double getBytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : bytesRead * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * 写出一个文件的本地头、压缩数据和数据描述符
+     *
+     * @return 该文件的中央目录记录
+     */
+    private byte[] writeEntry(CountingOutputStream zip, File member) throws IOException {
+        byte[] name = member.getName().getBytes(StandardCharsets.UTF_8);
+        int dosTime = dosTime(member.lastModified());
+        long offset = zip.count;
+
+        ByteBuffer local = header(30 + name.length);
+        local.putInt(LOCAL_HEADER)
+                .putShort((short) VERSION)
+                .putShort((short) FLAGS)
+                .putShort((short) DEFLATED)
+                .putInt(dosTime)
+                .putInt(0)
+                .putInt(0)
+                .putInt(0)
+                .putShort((short) name.length)
+                .putShort((short) 0)
+                .put(name);
+        zip.write(local.array());
+
+        CRC32 crc = new CRC32();
+        long dataStart = zip.count;
+        long size = writeData(zip, member, crc);
+        long compressedSize = zip.count - dataStart;
+
+        if (size > MAX_ZIP32 || zip.count > MAX_ZIP32) {
+            throw new IOException(member.getName() + " 超过 4 GB，不支持 zip64");
+        }
+
+        ByteBuffer descriptor = header(16);
+        descriptor.putInt(DATA_DESCRIPTOR)
+                .putInt((int) crc.getValue())
+                .putInt((int) compressedSize)
+                .putInt((int) size);
+        zip.write(descriptor.array());
+
+        ByteBuffer central = header(46 + name.length);
+        central.putInt(CENTRAL_HEADER)
+                .putShort((short) VERSION)
+                .putShort((short) VERSION)
+                .putShort((short) FLAGS)
+                .putShort((short) DEFLATED)
+                .putInt(dosTime)
+                .putInt((int) crc.getValue())
+                .putInt((int) compressedSize)
+                .putInt((int) size)
+                .putShort((short) name.length)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putInt(0)
+                .putInt((int) offset)
+                .put(name);
+
+        return central.array();
+    }
+
+    /**
+     * 分块读取文件并写出 deflate 数据，大文件的块交给线程池压缩，按顺序写出
+     *
+     * @return 文件原始大小
+     */
+    private long writeData(OutputStream zip, File member, CRC32 crc) throws IOException {
+        try (FileChannel channel = FileChannel.open(member.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            boolean parallel = size >= PARALLEL_THRESHOLD && parallelism > 1;
+            Deque<Future<byte[]>> window = new ArrayDeque<>();
+
+            long position = 0;
+            byte[] dictionary = null;
+
+            try {
+                do {
+                    byte[] chunk = new byte[(int) Math.min(CHUNK_SIZE, size - position)];
+                    readFully(channel, chunk, position, member);
+
+                    crc.update(chunk);
+                    position += chunk.length;
+                    bytesRead += chunk.length;
+
+                    boolean last = position >= size;
+                    byte[] chunkDictionary = dictionary;
+
+                    if (parallel) {
+                        //  同时压缩的块数达到上限时先写出最早的块
+                        if (window.size() >= parallelism * 2) {
+                            zip.write(window.removeFirst().get());
+                        }
+                        window.addLast(Compressor.EXECUTOR.submit(() -> deflate(chunk, chunkDictionary, last, level)));
+                    } else {
+                        zip.write(deflate(chunk, chunkDictionary, last, level));
+                    }
+
+                    dictionary = chunk.length > DICTIONARY_SIZE
+                            ? Arrays.copyOfRange(chunk, chunk.length - DICTIONARY_SIZE, chunk.length)
+                            : chunk;
+                } while (position < size);
+
+                while (!window.isEmpty()) {
+                    zip.write(window.removeFirst().get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("压缩被中断", e);
+            } catch (ExecutionException e) {
+                throw new IOException("压缩 " + member.getName() + " 失败", e.getCause());
+            } finally {
+                for (Future<byte[]> future : window) {
+                    future.cancel(true);
+                }
+            }
+
+            return position;
+        }
+    }
+
+    private static void readFully(FileChannel channel, byte[] chunk, long position, File member) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException(member.getName() + " 在读取时被截断");
+            }
+        }
+    }
+
+    /**
+     * 压缩一块数据为原始 deflate 数据，非最后一块以同步刷新结束，可直接与下一块拼接
+     *
+     * @param data       原始数据
+     * @param dictionary 前一块末尾的数据，第一块为 null
+     * @param last       是否为最后一块
+     * @param level      压缩级别
+     * @return 压缩后的数据
+     */
+    static byte[] deflate(byte[] data, byte[] dictionary, boolean last, int level) {
+        Deflater deflater = new Deflater(level, true);
+
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(data);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+            byte[] buffer = new byte[64 * 1024];
+
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                int length;
+                do {
+                    length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    out.write(buffer, 0, length);
+                } while (length == buffer.length);
+            }
+
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static ByteBuffer header(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * @return zip 使用的 MS-DOS 格式日期时间
+     */
+    private static int dosTime(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+
+        return (year - 1980) << 25
+                | (calendar.get(Calendar.MONTH) + 1) << 21
+                | calendar.get(Calendar.DAY_OF_MONTH) << 16
+                | calendar.get(Calendar.HOUR_OF_DAY) << 11
+                | calendar.get(Calendar.MINUTE) << 5
+                | calendar.get(Calendar.SECOND) >> 1;
+    }
+
+    /**
+     * 并行压缩共用的线程池，线程数为 CPU 核数
+     */
+    private static class Compressor {
+        private static final ExecutorService EXECUTOR;
+
+        static {
+            AtomicInteger threadCount = new AtomicInteger();
+            EXECUTOR = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "shp-zip-deflate-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * 记录写出位置，用于中央目录中的偏移量
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
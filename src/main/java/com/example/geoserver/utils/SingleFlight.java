@@ -0,0 +1,92 @@
+package com.example.geoserver.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 合并相同键的并发调用：同一时刻每个键只执行一次，其余调用等待并共享结果
+ * 调用结束后即移除，不缓存结果；线程安全
+ *
+ * @param <T> 结果类型
+ */
+public class SingleFlight<T> {
+    private final ConcurrentMap<String, CompletableFuture<T>> flights = new ConcurrentHashMap<>();
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * 执行调用，相同键已有调用在执行时等待其结果
+     *
+     * @param key      调用键
+     * @param supplier 实际调用
+     * @return 调用结果
+     */
+    public T execute(String key, Supplier<T> supplier) {
+        calls.incrementAndGet();
+
+        CompletableFuture<T> flight = new CompletableFuture<>();
+        CompletableFuture<T> running = flights.putIfAbsent(key, flight);
+
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return await(running);
+        }
+
+        try {
+            T result = supplier.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return 正在执行的调用数
+     */
+    public int getInFlight() {
+        return flights.size();
+    }
+
+    /**
+     * @return 全部调用数
+     */
+    public long getCalls() {
+        return calls.get();
+    }
+
+    /**
+     * @return 合并到其他调用、未实际执行的调用数
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SingleFlight{calls=%d, coalesced=%d, inFlight=%d}", getCalls(), getCoalesced(), getInFlight());
+    }
+
+    private static <T> T await(CompletableFuture<T> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.constant.ContentType;
+import org.apache.commons.httpclient.methods.RequestEntity;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SLD 文件请求体
+ * 直接从文件流式写入请求，字符集取自 XML 声明并写入 Content-Type，不做转码；
+ * 可选在写出时一次性去掉标签之间的空白（压缩），内存占用只与缓冲区大小有关
+ */
+public class SldRequestEntity implements RequestEntity {
+    //  读写缓冲区大小
+    private static final int BUFFER_SIZE = 8192;
+    //  读取 XML 声明的最大字节数
+    private static final int PROLOG_SIZE = 256;
+    //  XML 声明中的字符集
+    private static final Pattern ENCODING_PATTERN = Pattern.compile("encoding\\s*=\\s*[\"']([A-Za-z0-9._\\-]+)[\"']");
+
+    private final File sldFile;
+    private final boolean minify;
+    private final Charset charset;
+
+    public SldRequestEntity(File sldFile) throws IOException {
+        this(sldFile, false);
+    }
+
+    /**
+     * @param sldFile sld 文件对象
+     * @param minify  是否去掉标签之间的空白
+     * @throws IOException 读取 SLD 文件错误
+     */
+    public SldRequestEntity(File sldFile, boolean minify) throws IOException {
+        this.sldFile = sldFile;
+        this.charset = detectCharset(sldFile);
+        //  只对单字节兼容 ASCII 的编码压缩，UTF-16 等编码中空白不是单个字节
+        this.minify = minify && isAsciiCompatible(charset);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public void writeRequest(OutputStream out) throws IOException {
+        try (InputStream in = new FileInputStream(sldFile)) {
+            if (minify) {
+                writeMinified(in, out);
+            } else {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 不压缩时为文件大小，压缩时长度未知（分块传输）
+     */
+    @Override
+    public long getContentLength() {
+        return minify ? -1 : sldFile.length();
+    }
+
+    @Override
+    public String getContentType() {
+        return ContentType.SLD_TYPE + ";charset=" + charset.name().toLowerCase(Locale.ROOT);
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public boolean isMinify() {
+        return minify;
+    }
+
+    /**
+     * 单遍扫描：'>' 与 '<' 之间只含空白时丢弃这段空白，其余内容（文本、属性中的空白）原样写出
+     * 空白是元素的全部内容时保留，如 {@code <ogc:Literal> </ogc:Literal>} 常用于标注中的空格和拼接
+     */
+    static void writeMinified(InputStream in, OutputStream out) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        byte[] input = new byte[BUFFER_SIZE];
+        //  位于标签之间（上一个有效字符为 '>' 或文档开头）时暂存的空白
+        byte[] pending = new byte[BUFFER_SIZE];
+
+        int pendingLength = 0;
+        boolean betweenTags = true;
+        //  上一个 '>' 是否结束了一个开始标签（不含 <a/>、</a>、<?..?>、<!-- -->）
+        boolean afterStartTag = false;
+        //  当前标签是否为元素的开始标签，由 '<' 后的第一个字符判断
+        boolean elementTag = false;
+        boolean tagStart = false;
+        //  开始标签后的空白遇到 '<' 时暂不写出，由下一个字符是否为 '/' 决定空白是否为元素的全部内容
+        boolean held = false;
+        byte previous = 0;
+
+        int read;
+        while ((read = in.read(input)) != -1) {
+            for (int i = 0; i < read; i++) {
+                byte b = input[i];
+
+                if (held) {
+                    held = false;
+                    if (b == '/') {
+                        buffered.write(pending, 0, pendingLength);
+                    }
+                    pendingLength = 0;
+
+                    buffered.write('<');
+                    tagStart = true;
+                    betweenTags = false;
+                    previous = '<';
+                }
+
+                if (betweenTags && isWhitespace(b)) {
+                    if (pendingLength < pending.length) {
+                        pending[pendingLength++] = b;
+                        continue;
+                    }
+
+                    //  空白过长时视为文本内容，避免暂存区无限增长
+                    buffered.write(pending, 0, pendingLength);
+                    pendingLength = 0;
+                } else if (pendingLength > 0) {
+                    if (b == '<' && afterStartTag) {
+                        held = true;
+                        continue;
+                    }
+                    if (b != '<') {
+                        buffered.write(pending, 0, pendingLength);
+                    }
+                    pendingLength = 0;
+                }
+
+                if (tagStart) {
+                    elementTag = b != '/' && b != '?' && b != '!';
+                    tagStart = false;
+                }
+                if (b == '<') {
+                    tagStart = true;
+                } else if (b == '>') {
+                    afterStartTag = elementTag && previous != '/';
+                    elementTag = false;
+                }
+
+                betweenTags = b == '>';
+                previous = b;
+                buffered.write(b);
+            }
+        }
+
+        if (held) {
+            buffered.write('<');
+        }
+        buffered.flush();
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        String name = charset.name().toUpperCase(Locale.ROOT);
+        return !name.startsWith("UTF-16") && !name.startsWith("UTF-32");
+    }
+
+    /**
+     * 根据 BOM 或 XML 声明判断字符集，默认 UTF-8
+     */
+    private static Charset detectCharset(File sldFile) throws IOException {
+        byte[] prolog = new byte[PROLOG_SIZE];
+        int length = 0;
+
+        try (InputStream in = new FileInputStream(sldFile)) {
+            int read;
+            while (length < PROLOG_SIZE && (read = in.read(prolog, length, PROLOG_SIZE - length)) != -1) {
+                length += read;
+            }
+        }
+
+        if (length >= 2 && (prolog[0] & 0xFF) == 0xFE && (prolog[1] & 0xFF) == 0xFF) {
+            return StandardCharsets.UTF_16BE;
+        }
+        if (length >= 2 && (prolog[0] & 0xFF) == 0xFF && (prolog[1] & 0xFF) == 0xFE) {
+            return StandardCharsets.UTF_16LE;
+        }
+
+        Matcher matcher = ENCODING_PATTERN.matcher(new String(prolog, 0, length, StandardCharsets.ISO_8859_1));
+        if (matcher.find() && Charset.isSupported(matcher.group(1))) {
+            return Charset.forName(matcher.group(1));
+        }
+
+        return StandardCharsets.UTF_8;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.geoserver.utils;
+
+import org.apache.commons.httpclient.methods.RequestEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已发布样式的内容摘要（SHA-256）
+ * 发布样式前比较本地 SLD 与已发布内容的摘要，内容相同时跳过上传，并统计上传、跳过次数
+ * 键与 CatalogCache.styleKey 相同，线程安全
+ */
+public class StyleDigests {
+    //  摘要算法
+    public static final String ALGORITHM = "SHA-256";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Map<String, String> digests = new ConcurrentHashMap<>();
+
+    private final AtomicLong uploads = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    /**
+     * 计算请求体的摘要，内容以流的方式写入摘要，不在内存中保留
+     *
+     * @param entity 请求体
+     * @return 十六进制摘要
+     * @throws IOException 读取请求体错误
+     */
+    public static String digest(RequestEntity entity) throws IOException {
+        MessageDigest messageDigest = newDigest();
+
+        try (DigestOutputStream out = new DigestOutputStream(new DiscardOutputStream(), messageDigest)) {
+            entity.writeRequest(out);
+        }
+
+        return toHex(messageDigest.digest());
+    }
+
+    /**
+     * 新建摘要输出流，写入的内容只计算摘要、不保留
+     *
+     * @return 摘要输出流
+     */
+    public static DigestOutputStream newDigestStream() {
+        return new DigestOutputStream(new DiscardOutputStream(), newDigest());
+    }
+
+    /**
+     * @param out 摘要输出流
+     * @return 十六进制摘要
+     */
+    public static String toHex(DigestOutputStream out) {
+        return toHex(out.getMessageDigest().digest());
+    }
+
+    public String get(String styleKey) {
+        return digests.get(styleKey);
+    }
+
+    public void put(String styleKey, String digest) {
+        digests.put(styleKey, digest);
+    }
+
+    public void invalidate(String styleKey) {
+        digests.remove(styleKey);
+    }
+
+    /**
+     * 删除工作空间下所有样式的摘要
+     *
+     * @param workspaceName 工作空间名称
+     */
+    public void invalidateWorkspace(String workspaceName) {
+        String prefix = CatalogCache.styleKey(workspaceName, "");
+        digests.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public void clear() {
+        digests.clear();
+    }
+
+    public int size() {
+        return digests.size();
+    }
+
+    void recordUpload() {
+        uploads.incrementAndGet();
+    }
+
+    void recordSkip() {
+        skipped.incrementAndGet();
+    }
+
+    /**
+     * @return 实际上传的样式数
+     */
+    public long getUploads() {
+        return uploads.get();
+    }
+
+    /**
+     * @return 内容未变化而跳过上传的样式数
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StyleDigests{size=%d, uploads=%d, skipped=%d}", size(), getUploads(), getSkipped());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            //  所有 JRE 都必须支持 SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    private static class DiscardOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
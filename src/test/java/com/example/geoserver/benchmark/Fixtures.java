@@ -0,0 +1,112 @@
+package com.example.geoserver.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 基准测试数据
+ */
+final class Fixtures {
+    private static final String WGS84_PRJ = "GEOGCS[\"GCS_WGS_1984\",DATUM[\"D_WGS_1984\",SPHEROID[\"WGS_1984\",6378137.0,298.257223563]],"
+            + "PRIMEM[\"Greenwich\",0.0],UNIT[\"Degree\",0.0174532925199433]]";
+
+    //  每个点在 .shp、.shx、.dbf 中占用的字节数
+    private static final int BYTES_PER_POINT = 28 + 8 + 11;
+
+    private Fixtures() {
+    }
+
+    /**
+     * 生成带缩进的 SLD
+     *
+     * @param rules 规则数
+     * @return SLD 内容
+     */
+    static String sld(int rules) {
+        StringBuilder sld = new StringBuilder();
+        sld.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<StyledLayerDescriptor version=\"1.0.0\" xmlns=\"http://www.opengis.net/sld\">\n")
+                .append("  <NamedLayer>\n    <Name>roads</Name>\n    <UserStyle>\n      <FeatureTypeStyle>\n");
+
+        for (int i = 0; i < rules; i++) {
+            sld.append("        <Rule>\n")
+                    .append("          <Name>rule_").append(i).append("</Name>\n")
+                    .append("          <LineSymbolizer>\n")
+                    .append("            <Stroke>\n")
+                    .append("              <CssParameter name=\"stroke\">#").append(String.format("%06x", i * 2654435 & 0xFFFFFF)).append("</CssParameter>\n")
+                    .append("              <CssParameter name=\"stroke-width\">").append(1 + i % 5).append("</CssParameter>\n")
+                    .append("            </Stroke>\n")
+                    .append("          </LineSymbolizer>\n")
+                    .append("        </Rule>\n");
+        }
+
+        sld.append("      </FeatureTypeStyle>\n    </UserStyle>\n  </NamedLayer>\n</StyledLayerDescriptor>\n");
+
+        return sld.toString();
+    }
+
+    /**
+     * 生成点 shapefile 压缩包，包含 name.shp、.shx、.dbf、.prj，坐标为固定种子的随机经纬度
+     *
+     * @param name      压缩包中 shp 的文件名（不含扩展名）
+     * @param kiloBytes 未压缩的大致大小（KB）
+     * @return 临时目录下的 name.zip，图层名由 zip 文件名得出
+     * @throws IOException 写入错误
+     */
+    static File shapefileZip(String name, int kiloBytes) throws IOException {
+        int count = Math.max(1, kiloBytes * 1024 / BYTES_PER_POINT);
+        Random random = new Random(42);
+
+        ByteBuffer shp = ByteBuffer.allocate(100 + 28 * count);
+        ByteBuffer shx = ByteBuffer.allocate(100 + 8 * count);
+        fileHeader(shp);
+        fileHeader(shx);
+
+        for (int i = 0; i < count; i++) {
+            shx.order(ByteOrder.BIG_ENDIAN).putInt((100 + 28 * i) / 2).putInt(10);
+            shp.order(ByteOrder.BIG_ENDIAN).putInt(i + 1).putInt(10);
+            shp.order(ByteOrder.LITTLE_ENDIAN).putInt(1).putDouble(random.nextDouble() * 360 - 180).putDouble(random.nextDouble() * 180 - 90);
+        }
+
+        ByteBuffer dbf = ByteBuffer.allocate(65 + 11 * count + 1).order(ByteOrder.LITTLE_ENDIAN);
+        dbf.put((byte) 3).put(new byte[3]).putInt(count).putShort((short) 65).putShort((short) 11).put(new byte[20]);
+        dbf.put(Arrays.copyOf("ID".getBytes(StandardCharsets.US_ASCII), 11)).put((byte) 'N').put(new byte[4])
+                .put((byte) 10).put((byte) 0).put(new byte[14]);
+        dbf.put((byte) 0x0D);
+        for (int i = 0; i < count; i++) {
+            dbf.put(String.format(" %10d", i).getBytes(StandardCharsets.US_ASCII));
+        }
+        dbf.put((byte) 0x1A);
+
+        File zip = Files.createTempDirectory("shapefile").resolve(name + ".zip").toFile();
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip.toPath()))) {
+            entry(out, name + ".shp", shp.array());
+            entry(out, name + ".shx", shx.array());
+            entry(out, name + ".dbf", dbf.array());
+            entry(out, name + ".prj", WGS84_PRJ.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return zip;
+    }
+
+    private static void fileHeader(ByteBuffer buffer) {
+        buffer.order(ByteOrder.BIG_ENDIAN).putInt(9994).put(new byte[20]).putInt(buffer.capacity() / 2);
+        buffer.order(ByteOrder.LITTLE_ENDIAN).putInt(1000).putInt(1)
+                .putDouble(-180).putDouble(-90).putDouble(180).putDouble(90)
+                .put(new byte[32]);
+    }
+
+    private static void entry(ZipOutputStream out, String name, byte[] content) throws IOException {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(content);
+        out.closeEntry();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.geoserver.benchmark;
+
+import com.example.geoserver.error.ogc.DataSourceNotFoundException;
+import com.example.geoserver.error.ogc.WorkSpaceNotFoundException;
+import com.example.geoserver.fake.FakeGeoServer;
+import com.example.geoserver.utils.CatalogCache;
+import com.example.geoserver.utils.GeoServerManager;
+import com.example.geoserver.utils.GeoServerRESTClient;
+import com.example.geoserver.utils.GeoServerReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发布流程（样式、shp zip）经过连接池客户端和 FakeGeoServer 的完整调用开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PublishBenchmark {
+    private static final String WORKSPACE = "shp";
+    private static final String LAYER = "roads";
+
+    private FakeGeoServer geoServer;
+    private GeoServerRESTClient restClient;
+    private GeoServerManager manager;
+
+    private File sldFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        geoServer = new FakeGeoServer();
+
+        String sld = Fixtures.sld(50);
+        geoServer.getCatalog().addWorkspace(WORKSPACE);
+        geoServer.getCatalog().putStyle(WORKSPACE, "roads", sld.getBytes(StandardCharsets.UTF_8));
+
+        sldFile = File.createTempFile("roads", ".sld");
+        Files.write(sldFile.toPath(), sld.getBytes(StandardCharsets.UTF_8));
+
+        restClient = new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver");
+        manager = new GeoServerManager(new GeoServerReader(restClient, new CatalogCache()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        restClient.shutdown();
+        geoServer.close();
+        sldFile.delete();
+    }
+
+    /**
+     * 样式内容未变化：只计算摘要，不上传
+     */
+    @Benchmark
+    public Boolean publishUnchangedStyle() throws IOException, WorkSpaceNotFoundException {
+        return manager.publishStyle(WORKSPACE, sldFile, "roads");
+    }
+
+    /**
+     * 上传 shp zip 并配置要素类型、图层
+     */
+    @Benchmark
+    public Boolean publishShpZip(ShpZip shpZip) throws IOException {
+        return manager.publishShpZip(WORKSPACE, LAYER, LAYER, shpZip.zipFile, "EPSG:4326", null, "UTF-8");
+    }
+
+    /**
+     * 要发布的 shp zip，每次调用后删除发布的数据源，下次调用重新创建数据源而不是覆盖已有数据源
+     */
+    @State(Scope.Benchmark)
+    public static class ShpZip {
+        //  未压缩的 shapefile 大小（KB）
+        @Param({"64", "4096"})
+        private int kiloBytes;
+
+        private File zipFile;
+        private GeoServerManager manager;
+
+        @Setup
+        public void setUp(PublishBenchmark benchmark) throws IOException {
+            zipFile = Fixtures.shapefileZip(LAYER, kiloBytes);
+            manager = benchmark.manager;
+        }
+
+        @TearDown(Level.Invocation)
+        public void removeStore() throws DataSourceNotFoundException, WorkSpaceNotFoundException {
+            manager.removeDataStore(WORKSPACE, LAYER);
+        }
+
+        @TearDown
+        public void tearDown() {
+            zipFile.delete();
+            zipFile.getParentFile().delete();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.geoserver.benchmark;
+
+import com.example.geoserver.error.RequestFailedException;
+import com.example.geoserver.error.ogc.WorkSpaceNotFoundException;
+import com.example.geoserver.fake.FakeGeoServer;
+import com.example.geoserver.utils.CatalogCache;
+import com.example.geoserver.utils.GeoServerRESTClient;
+import com.example.geoserver.utils.GeoServerReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GeoServerReader 存在性判断和列表读取的吞吐量、延迟
+ * cacheTtl 为 0 时每次都请求 FakeGeoServer，latencyMillis 为服务端注入的延迟，用于比较目录缓存的效果
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReaderBenchmark {
+    private static final String WORKSPACE = "shp";
+
+    @Param({"0", "30000"})
+    private long cacheTtl;
+
+    @Param({"100"})
+    private int layerCount;
+
+    @Param({"0"})
+    private long latencyMillis;
+
+    private FakeGeoServer geoServer;
+    private GeoServerRESTClient restClient;
+    private GeoServerReader reader;
+
+    @Setup
+    public void setUp() throws IOException {
+        geoServer = new FakeGeoServer();
+        geoServer.setLatency(latencyMillis);
+
+        geoServer.getCatalog().addWorkspace(WORKSPACE);
+        geoServer.getCatalog().addDataStore(WORKSPACE, "store");
+        for (int i = 0; i < layerCount; i++) {
+            geoServer.getCatalog().addLayer(WORKSPACE, "store", "layer_" + i);
+        }
+
+        restClient = new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver");
+        reader = new GeoServerReader(restClient, new CatalogCache(cacheTtl, CatalogCache.DEFAULT_MAX_SIZE));
+    }
+
+    @TearDown
+    public void tearDown() {
+        restClient.shutdown();
+        geoServer.close();
+    }
+
+    @Benchmark
+    public Boolean existsWorkspace() {
+        return reader.existsWorkspace(WORKSPACE);
+    }
+
+    @Benchmark
+    public Boolean existsLayer() throws WorkSpaceNotFoundException {
+        return reader.existsLayer(WORKSPACE, "layer_0");
+    }
+
+    @Benchmark
+    public Boolean missingLayer() throws WorkSpaceNotFoundException {
+        return reader.existsLayer(WORKSPACE, "missing");
+    }
+
+    @Benchmark
+    public ArrayList<String> getLayers() throws WorkSpaceNotFoundException, RequestFailedException {
+        return reader.getLayers(WORKSPACE);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.geoserver.benchmark;
+
+import com.example.geoserver.utils.SldRequestEntity;
+import com.example.geoserver.utils.StyleDigests;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SLD 上传前的处理开销：读取、压缩写出、计算摘要，不经过网络
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StyleBenchmark {
+
+    @Param({"false", "true"})
+    private boolean minify;
+
+    //  SLD 中的规则数，每条规则约 400 字节
+    @Param({"10", "500"})
+    private int rules;
+
+    private File sldFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        sldFile = File.createTempFile("benchmark", ".sld");
+        Files.write(sldFile.toPath(), Fixtures.sld(rules).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown
+    public void tearDown() {
+        sldFile.delete();
+    }
+
+    @Benchmark
+    public long writeRequest() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        new SldRequestEntity(sldFile, minify).writeRequest(out);
+        return out.count;
+    }
+
+    @Benchmark
+    public String digest() throws IOException {
+        return StyleDigests.digest(new SldRequestEntity(sldFile, minify));
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.geoserver.fake;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * FakeGeoServer 的内存目录：工作空间、数据存储、栅格存储、图层、图层组、样式、GWC 切片图层及预生成任务
+ * 键均为 "工作空间:名称"，全局样式的工作空间为空字符串，所有方法同步
+ */
+public class FakeCatalog {
+    private final Set<String> workspaces = new LinkedHashSet<>();
+    private final Set<String> dataStores = new LinkedHashSet<>();
+    private final Set<String> coverageStores = new LinkedHashSet<>();
+    //  图层 -> 所属存储（"工作空间:存储名"）
+    private final Map<String, String> layers = new LinkedHashMap<>();
+    private final Set<String> layerGroups = new LinkedHashSet<>();
+    //  样式 -> SLD 内容
+    private final Map<String, byte[]> styles = new LinkedHashMap<>();
+    //  GWC 切片图层 -> 配置 XML
+    private final Map<String, String> tileLayers = new LinkedHashMap<>();
+    //  GWC 切片图层 -> 收到的预生成请求 XML
+    private final Map<String, List<String>> seedRequests = new LinkedHashMap<>();
+    //  GWC 切片图层 -> 未完成的预生成任务
+    private final Map<String, List<SeedTask>> seedTasks = new LinkedHashMap<>();
+    private long nextSeedTaskId = 1;
+
+    /**
+     * 预生成任务，每次查询进度时每个线程生成固定数量的切片
+     */
+    private static class SeedTask {
+        final long id;
+        final long total;
+        final int threads;
+        long done;
+
+        SeedTask(long id, long total, int threads) {
+            this.id = id;
+            this.total = total;
+            this.threads = threads;
+        }
+    }
+
+    static String key(String workspaceName, String name) {
+        return (workspaceName == null ? "" : workspaceName) + ":" + name;
+    }
+
+    public synchronized boolean addWorkspace(String workspaceName) {
+        return workspaces.add(workspaceName);
+    }
+
+    public synchronized boolean hasWorkspace(String workspaceName) {
+        return workspaces.contains(workspaceName);
+    }
+
+    public synchronized List<String> getWorkspaces() {
+        return new ArrayList<>(workspaces);
+    }
+
+    /**
+     * 删除工作空间及其下的所有资源
+     */
+    public synchronized boolean removeWorkspace(String workspaceName) {
+        if (!workspaces.remove(workspaceName)) {
+            return false;
+        }
+
+        String prefix = key(workspaceName, "");
+        dataStores.removeIf(key -> key.startsWith(prefix));
+        coverageStores.removeIf(key -> key.startsWith(prefix));
+        layers.keySet().removeIf(key -> key.startsWith(prefix));
+        tileLayers.keySet().removeIf(key -> key.startsWith(prefix));
+        seedRequests.keySet().removeIf(key -> key.startsWith(prefix));
+        seedTasks.keySet().removeIf(key -> key.startsWith(prefix));
+        layerGroups.removeIf(key -> key.startsWith(prefix));
+        styles.keySet().removeIf(key -> key.startsWith(prefix));
+
+        return true;
+    }
+
+    public synchronized boolean addDataStore(String workspaceName, String storeName) {
+        return dataStores.add(key(workspaceName, storeName));
+    }
+
+    public synchronized boolean hasDataStore(String workspaceName, String storeName) {
+        return dataStores.contains(key(workspaceName, storeName));
+    }
+
+    public synchronized List<String> getDataStores(String workspaceName) {
+        return names(dataStores, workspaceName);
+    }
+
+    public synchronized boolean removeDataStore(String workspaceName, String storeName) {
+        return removeStore(dataStores, workspaceName, storeName);
+    }
+
+    public synchronized boolean addCoverageStore(String workspaceName, String storeName) {
+        return coverageStores.add(key(workspaceName, storeName));
+    }
+
+    public synchronized boolean hasCoverageStore(String workspaceName, String storeName) {
+        return coverageStores.contains(key(workspaceName, storeName));
+    }
+
+    public synchronized List<String> getCoverageStores(String workspaceName) {
+        return names(coverageStores, workspaceName);
+    }
+
+    public synchronized boolean removeCoverageStore(String workspaceName, String storeName) {
+        return removeStore(coverageStores, workspaceName, storeName);
+    }
+
+    public synchronized void addLayer(String workspaceName, String storeName, String layerName) {
+        layers.put(key(workspaceName, layerName), key(workspaceName, storeName));
+    }
+
+    public synchronized boolean hasLayer(String workspaceName, String layerName) {
+        return layers.containsKey(key(workspaceName, layerName));
+    }
+
+    public synchronized List<String> getLayers(String workspaceName) {
+        return names(layers.keySet(), workspaceName);
+    }
+
+    /**
+     * @return 所有图层，格式为 "工作空间:图层名"
+     */
+    public synchronized List<String> getLayers() {
+        return new ArrayList<>(layers.keySet());
+    }
+
+    public synchronized boolean removeLayer(String workspaceName, String layerName) {
+        tileLayers.remove(key(workspaceName, layerName));
+        seedTasks.remove(key(workspaceName, layerName));
+        return layers.remove(key(workspaceName, layerName)) != null;
+    }
+
+    public synchronized void putTileLayer(String workspaceName, String layerName, String xml) {
+        tileLayers.put(key(workspaceName, layerName), xml);
+    }
+
+    /**
+     * @return 切片图层配置 XML，未配置时为 null
+     */
+    public synchronized String getTileLayer(String workspaceName, String layerName) {
+        return tileLayers.get(key(workspaceName, layerName));
+    }
+
+    /**
+     * 记录预生成请求并创建任务
+     *
+     * @param xml     seedRequest XML
+     * @param total   切片总数
+     * @param threads 线程数
+     */
+    public synchronized void addSeedTask(String workspaceName, String layerName, String xml, long total, int threads) {
+        String key = key(workspaceName, layerName);
+        seedRequests.computeIfAbsent(key, k -> new ArrayList<>()).add(xml);
+        seedTasks.computeIfAbsent(key, k -> new ArrayList<>()).add(new SeedTask(nextSeedTaskId++, total, Math.max(1, threads)));
+    }
+
+    /**
+     * @return 收到的预生成请求 XML，按收到的顺序
+     */
+    public synchronized List<String> getSeedRequests(String workspaceName, String layerName) {
+        List<String> requests = seedRequests.get(key(workspaceName, layerName));
+        return requests == null ? new ArrayList<>() : new ArrayList<>(requests);
+    }
+
+    /**
+     * 推进任务进度，已完成的任务在本次返回后移除
+     *
+     * @param tilesPerThread 每个线程本次生成的切片数
+     * @return 任务进度：[已生成切片数, 切片总数, 预计剩余秒数, 任务 ID, 状态]，状态 1 为运行中，2 为完成
+     */
+    public synchronized List<long[]> pollSeedTasks(String workspaceName, String layerName, long tilesPerThread) {
+        List<long[]> progress = new ArrayList<>();
+        List<SeedTask> tasks = seedTasks.get(key(workspaceName, layerName));
+
+        if (tasks != null) {
+            Iterator<SeedTask> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                SeedTask task = iterator.next();
+                task.done = Math.min(task.total, task.done + tilesPerThread * task.threads);
+
+                boolean finished = task.done >= task.total;
+                progress.add(new long[]{task.done, task.total, finished ? 0 : 1, task.id, finished ? 2 : 1});
+                if (finished) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        return progress;
+    }
+
+    /**
+     * @return 终止的任务数
+     */
+    public synchronized int killSeedTasks(String workspaceName, String layerName) {
+        List<SeedTask> tasks = seedTasks.remove(key(workspaceName, layerName));
+        return tasks == null ? 0 : tasks.size();
+    }
+
+    public synchronized boolean addLayerGroup(String workspaceName, String layerGroupName) {
+        return layerGroups.add(key(workspaceName, layerGroupName));
+    }
+
+    public synchronized boolean hasLayerGroup(String workspaceName, String layerGroupName) {
+        return layerGroups.contains(key(workspaceName, layerGroupName));
+    }
+
+    public synchronized List<String> getLayerGroups(String workspaceName) {
+        return names(layerGroups, workspaceName);
+    }
+
+    public synchronized boolean removeLayerGroup(String workspaceName, String layerGroupName) {
+        return layerGroups.remove(key(workspaceName, layerGroupName));
+    }
+
+    /**
+     * @param workspaceName 工作空间名称，全局样式为 null
+     */
+    public synchronized void putStyle(String workspaceName, String styleName, byte[] sld) {
+        styles.put(key(workspaceName, styleName), sld);
+    }
+
+    public synchronized boolean hasStyle(String workspaceName, String styleName) {
+        return styles.containsKey(key(workspaceName, styleName));
+    }
+
+    /**
+     * @return SLD 内容，样式不存在时为 null
+     */
+    public synchronized byte[] getStyle(String workspaceName, String styleName) {
+        return styles.get(key(workspaceName, styleName));
+    }
+
+    public synchronized List<String> getStyles(String workspaceName) {
+        return names(styles.keySet(), workspaceName);
+    }
+
+    public synchronized boolean removeStyle(String workspaceName, String styleName) {
+        return styles.remove(key(workspaceName, styleName)) != null;
+    }
+
+    public synchronized void clear() {
+        workspaces.clear();
+        dataStores.clear();
+        coverageStores.clear();
+        layers.clear();
+        tileLayers.clear();
+        seedRequests.clear();
+        seedTasks.clear();
+        layerGroups.clear();
+        styles.clear();
+    }
+
+    private boolean removeStore(Set<String> stores, String workspaceName, String storeName) {
+        String storeKey = key(workspaceName, storeName);
+        if (!stores.remove(storeKey)) {
+            return false;
+        }
+
+        //  recurse：同时删除存储下的图层
+        Iterator<Map.Entry<String, String>> iterator = layers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, String> layer = iterator.next();
+            if (storeKey.equals(layer.getValue())) {
+                tileLayers.remove(layer.getKey());
+                seedTasks.remove(layer.getKey());
+                iterator.remove();
+            }
+        }
+
+        return true;
+    }
+
+    private static List<String> names(Iterable<String> keys, String workspaceName) {
+        String prefix = key(workspaceName, "");
+        List<String> names = new ArrayList<>();
+
+        for (String key : keys) {
+            if (key.startsWith(prefix)) {
+                names.add(key.substring(prefix.length()));
+            }
+        }
+
+        return names;
+    }
+}
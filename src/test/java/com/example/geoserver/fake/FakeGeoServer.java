@@ -0,0 +1,724 @@
+package com.example.geoserver.fake;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 进程内的 geoserver REST 替身，供测试和基准测试使用
+ * 基于内存目录实现本项目用到的 REST 接口（工作空间、数据存储、栅格存储、图层、图层组、样式、文件上传、GWC 切片图层和预生成），
+ * 可注入延迟、错误率，并限制每秒请求数和上传带宽，用于在没有真实 geoserver 的情况下做压测
+ */
+public class FakeGeoServer implements AutoCloseable {
+    static {
+        //  JDK HttpServer 默认开启 Nagle，响应头和响应体分两次写出时会等待客户端的延迟 ACK（约 40 ms）
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    public static final String CONTEXT = "/geoserver";
+
+    //  默认处理请求的线程数，即服务端最大并发
+    public static final int DEFAULT_THREADS = 32;
+
+    private static final String REST = CONTEXT + "/rest";
+    private static final String GWC_REST = CONTEXT + "/gwc/rest";
+    private static final String NAME = "([^/]+?)";
+    private static final Pattern NAME_ELEMENT = Pattern.compile("<name>([^<]*)</name>");
+
+    private static final Pattern WORKSPACES = Pattern.compile("/workspaces(\\.xml)?");
+    private static final Pattern WORKSPACE = Pattern.compile("/workspaces/" + NAME + "(\\.xml)?");
+    private static final Pattern STORES = Pattern.compile("/workspaces/" + NAME + "/(datastores|coveragestores|layergroups)(\\.xml)?");
+    private static final Pattern STORE = Pattern.compile("/workspaces/" + NAME + "/(datastores|coveragestores|layergroups)/" + NAME + "(\\.xml)?");
+    private static final Pattern RESOURCES = Pattern.compile("/workspaces/" + NAME + "/(datastores|coveragestores)/" + NAME + "/(featuretypes|coverages)(\\.xml)?");
+    private static final Pattern UPLOAD = Pattern.compile("/workspaces/" + NAME + "/(datastores|coveragestores)/" + NAME + "/file\\.[a-z]+");
+    private static final Pattern WORKSPACE_LAYERS = Pattern.compile("/workspaces/" + NAME + "/layers\\.xml");
+    private static final Pattern LAYERS = Pattern.compile("/layers\\.xml");
+    private static final Pattern LAYER = Pattern.compile("/layers/" + NAME + ":" + NAME + "(\\.xml)?");
+    private static final Pattern STYLES = Pattern.compile("(?:/workspaces/" + NAME + ")?/styles(\\.xml)?");
+    private static final Pattern STYLE = Pattern.compile("(?:/workspaces/" + NAME + ")?/styles/" + NAME + "(\\.xml|\\.sld)?");
+    private static final Pattern TILE_LAYER = Pattern.compile("/layers/" + NAME + ":" + NAME + "\\.xml");
+    private static final Pattern SEED = Pattern.compile("/seed/" + NAME + ":" + NAME + "(\\.xml|\\.json)?");
+    private static final Pattern SEED_ZOOM = Pattern.compile("<zoomStart>(\\d+)</zoomStart>");
+    private static final Pattern SEED_THREADS = Pattern.compile("<threadCount>(\\d+)</threadCount>");
+
+    //  预生成切片时每个线程在两次进度查询之间生成的切片数
+    public static final long SEED_TILES_PER_THREAD = 8;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final FakeCatalog catalog = new FakeCatalog();
+
+    //  注入的延迟范围（毫秒）
+    private volatile long minLatencyMillis;
+    private volatile long maxLatencyMillis;
+    //  注入 500 错误的概率
+    private volatile double errorRate;
+    //  路径匹配时总是返回 500，为 null 时不注入
+    private volatile Pattern failingPath;
+    //  每秒最多处理的请求数，0 为不限制
+    private volatile int maxRequestsPerSecond;
+    //  所有请求共享的上传带宽（字节/秒），0 为不限制
+    private volatile long maxBytesPerSecond;
+    //  发布图层时是否自动创建 GWC 切片图层，与 geoserver 默认配置一致
+    private volatile boolean autoCreateTileLayers = true;
+
+    private final Object requestRateLock = new Object();
+    private long nextRequestNanos;
+    private final Object bandwidthLock = new Object();
+    private long nextBytesNanos;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final Map<String, AtomicLong> requestsByMethod = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    public FakeGeoServer() throws IOException {
+        this(DEFAULT_THREADS);
+    }
+
+    /**
+     * 在本机随机端口启动
+     *
+     * @param threads 处理请求的线程数
+     * @throws IOException 端口绑定失败
+     */
+    public FakeGeoServer(int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newFixedThreadPool(threads);
+
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return REST 服务地址，如 http://127.0.0.1:12345/geoserver
+     */
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + CONTEXT;
+    }
+
+    public FakeCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * 每个请求固定延迟
+     *
+     * @param latencyMillis 延迟（毫秒）
+     */
+    public void setLatency(long latencyMillis) {
+        setLatency(latencyMillis, latencyMillis);
+    }
+
+    /**
+     * 每个请求在 [minMillis, maxMillis] 内均匀随机延迟
+     *
+     * @param minMillis 最小延迟（毫秒）
+     * @param maxMillis 最大延迟（毫秒）
+     */
+    public void setLatency(long minMillis, long maxMillis) {
+        this.minLatencyMillis = minMillis;
+        this.maxLatencyMillis = Math.max(minMillis, maxMillis);
+    }
+
+    /**
+     * @param errorRate 返回 500 的概率，0 ~ 1
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * 只让部分请求失败，如发布流程中的某一步
+     *
+     * @param regex 请求路径（不含 /geoserver）中查找的正则表达式，为 null 时取消
+     */
+    public void setFailingPath(String regex) {
+        this.failingPath = regex == null ? null : Pattern.compile(regex);
+    }
+
+    /**
+     * 超过速率的请求排队等待，模拟服务端处理能力上限
+     *
+     * @param maxRequestsPerSecond 每秒最多处理的请求数，0 为不限制
+     */
+    public void setMaxRequestsPerSecond(int maxRequestsPerSecond) {
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+    }
+
+    /**
+     * @param maxBytesPerSecond 所有请求共享的上传带宽（字节/秒），0 为不限制
+     */
+    public void setMaxBytesPerSecond(long maxBytesPerSecond) {
+        this.maxBytesPerSecond = maxBytesPerSecond;
+    }
+
+    /**
+     * @param autoCreateTileLayers 发布图层时是否自动创建 GWC 切片图层，关闭后切片图层需通过 PUT 创建
+     */
+    public void setAutoCreateTileLayers(boolean autoCreateTileLayers) {
+        this.autoCreateTileLayers = autoCreateTileLayers;
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * @param method 请求方法，如 GET、PUT
+     * @return 该方法的请求数
+     */
+    public long getRequestCount(String method) {
+        AtomicLong count = requestsByMethod.get(method);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * @return 同时处理的最大请求数
+     */
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    public long getInjectedErrors() {
+        return injectedErrors.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    /**
+     * 清零请求统计，目录和故障注入设置保持不变
+     */
+    public void resetStatistics() {
+        requests.set(0);
+        injectedErrors.set(0);
+        bytesReceived.set(0);
+        requestsByMethod.clear();
+        maxInFlight.set(0);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+
+        try {
+            requests.incrementAndGet();
+            requestsByMethod.computeIfAbsent(method, key -> new AtomicLong()).incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+
+            awaitRequestSlot();
+            byte[] body = readBody(exchange.getRequestBody());
+            sleep(latencyMillis());
+
+            String path = exchange.getRequestURI().getPath();
+            Pattern failing = failingPath;
+
+            if ((errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate)
+                    || (failing != null && failing.matcher(path.substring(CONTEXT.length())).find())) {
+                injectedErrors.incrementAndGet();
+                reply(exchange, Reply.of(500, "injected error"));
+                return;
+            }
+
+            Reply reply;
+            if (path.startsWith(REST + "/")) {
+                reply = route(method, path.substring(REST.length()), query(exchange.getRequestURI().getRawQuery()), body);
+            } else if (path.startsWith(GWC_REST + "/")) {
+                reply = gwc(method, path.substring(GWC_REST.length()), body);
+            } else {
+                reply = Reply.NOT_FOUND;
+            }
+
+            reply(exchange, reply);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reply(exchange, Reply.of(503, "interrupted"));
+        } catch (RuntimeException e) {
+            reply(exchange, Reply.of(500, String.valueOf(e.getMessage())));
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private Reply route(String method, String path, Map<String, String> query, byte[] body) {
+        switch (method) {
+            case "GET":
+                return get(path);
+            case "POST":
+                return post(path, query, body);
+            case "PUT":
+                return put(path, query, body);
+            case "DELETE":
+                return delete(path);
+            default:
+                return Reply.of(405, method);
+        }
+    }
+
+    /**
+     * GWC REST 接口：切片图层配置、预生成切片
+     */
+    private Reply gwc(String method, String path, byte[] body) {
+        Matcher m;
+
+        if ((m = TILE_LAYER.matcher(path)).matches()) {
+            String workspaceName = m.group(1);
+            String layerName = m.group(2);
+            if (!catalog.hasLayer(workspaceName, layerName)) {
+                return Reply.NOT_FOUND;
+            }
+            String xml = catalog.getTileLayer(workspaceName, layerName);
+            switch (method) {
+                case "GET":
+                    return xml == null ? Reply.NOT_FOUND : Reply.xml(xml);
+                case "PUT":
+                    //  与 GWC 一致：PUT 只能创建，已存在的切片图层用 POST 修改
+                    if (xml != null) {
+                        return Reply.of(400, "Layer with name " + workspaceName + ":" + layerName + " already exists, use POST if you want to replace it.");
+                    }
+                    catalog.putTileLayer(workspaceName, layerName, new String(body, StandardCharsets.UTF_8));
+                    return Reply.OK;
+                case "POST":
+                    if (xml == null) {
+                        return Reply.NOT_FOUND;
+                    }
+                    catalog.putTileLayer(workspaceName, layerName, new String(body, StandardCharsets.UTF_8));
+                    return Reply.OK;
+                default:
+                    return Reply.of(405, method);
+            }
+        }
+
+        if ((m = SEED.matcher(path)).matches()) {
+            String workspaceName = m.group(1);
+            String layerName = m.group(2);
+            if (catalog.getTileLayer(workspaceName, layerName) == null) {
+                return Reply.NOT_FOUND;
+            }
+            return seed(method, workspaceName, layerName, m.group(3), new String(body, StandardCharsets.UTF_8));
+        }
+
+        return Reply.NOT_FOUND;
+    }
+
+    /**
+     * GWC 预生成切片：POST .xml 提交任务（一个缩放级别有 4^zoom 个切片），GET .json 查询并推进进度，POST 表单 kill_all 终止任务
+     */
+    private Reply seed(String method, String workspaceName, String layerName, String extension, String body) {
+        if ("POST".equals(method) && ".xml".equals(extension)) {
+            Matcher zoom = SEED_ZOOM.matcher(body);
+            Matcher threads = SEED_THREADS.matcher(body);
+            if (!zoom.find() || !threads.find()) {
+                return Reply.of(400, "zoomStart and threadCount are required");
+            }
+            catalog.addSeedTask(workspaceName, layerName, body, 1L << (2 * Integer.parseInt(zoom.group(1))), Integer.parseInt(threads.group(1)));
+            return Reply.OK;
+        }
+        if ("GET".equals(method) && ".json".equals(extension)) {
+            StringBuilder json = new StringBuilder("{\"long-array-array\":[");
+            List<long[]> tasks = catalog.pollSeedTasks(workspaceName, layerName, SEED_TILES_PER_THREAD);
+            for (int i = 0; i < tasks.size(); i++) {
+                long[] task = tasks.get(i);
+                json.append(i == 0 ? "" : ",").append(String.format("[%d,%d,%d,%d,%d]", task[0], task[1], task[2], task[3], task[4]));
+            }
+            return Reply.json(json.append("]}").toString());
+        }
+        if ("POST".equals(method) && extension == null && body.contains("kill_all")) {
+            catalog.killSeedTasks(workspaceName, layerName);
+            return Reply.OK;
+        }
+
+        return Reply.of(405, method);
+    }
+
+    private Reply get(String path) {
+        Matcher m;
+
+        if (path.equals("/about/version.xml")) {
+            return Reply.xml("<about><resource name=\"GeoServer\"><Version>fake</Version></resource></about>");
+        }
+        if (WORKSPACES.matcher(path).matches()) {
+            return Reply.list("workspaces", "workspace", catalog.getWorkspaces());
+        }
+        if ((m = WORKSPACE.matcher(path)).matches()) {
+            return exists(catalog.hasWorkspace(m.group(1)), "workspace", m.group(1));
+        }
+        if ((m = WORKSPACE_LAYERS.matcher(path)).matches()) {
+            return catalog.hasWorkspace(m.group(1)) ? Reply.list("layers", "layer", catalog.getLayers(m.group(1))) : Reply.NOT_FOUND;
+        }
+        if (LAYERS.matcher(path).matches()) {
+            return Reply.list("layers", "layer", catalog.getLayers());
+        }
+        if ((m = LAYER.matcher(path)).matches()) {
+            return exists(catalog.hasLayer(m.group(1), m.group(2)), "layer", m.group(2));
+        }
+        if ((m = STORES.matcher(path)).matches()) {
+            String workspaceName = m.group(1);
+            if (!catalog.hasWorkspace(workspaceName)) {
+                return Reply.NOT_FOUND;
+            }
+            switch (m.group(2)) {
+                case "datastores":
+                    return Reply.list("dataStores", "dataStore", catalog.getDataStores(workspaceName));
+                case "coveragestores":
+                    return Reply.list("coverageStores", "coverageStore", catalog.getCoverageStores(workspaceName));
+                default:
+                    return Reply.list("layerGroups", "layerGroup", catalog.getLayerGroups(workspaceName));
+            }
+        }
+        if ((m = STORE.matcher(path)).matches()) {
+            String workspaceName = m.group(1);
+            String name = m.group(3);
+            switch (m.group(2)) {
+                case "datastores":
+                    return exists(catalog.hasDataStore(workspaceName, name), "dataStore", name);
+                case "coveragestores":
+                    return exists(catalog.hasCoverageStore(workspaceName, name), "coverageStore", name);
+                default:
+                    return exists(catalog.hasLayerGroup(workspaceName, name), "layerGroup", name);
+            }
+        }
+        if ((m = STYLES.matcher(path)).matches()) {
+            if (m.group(1) != null && !catalog.hasWorkspace(m.group(1))) {
+                return Reply.NOT_FOUND;
+            }
+            return Reply.list("styles", "style", catalog.getStyles(m.group(1)));
+        }
+        if ((m = STYLE.matcher(path)).matches()) {
+            byte[] sld = catalog.getStyle(m.group(1), m.group(2));
+            if (sld == null) {
+                return Reply.NOT_FOUND;
+            }
+            return ".sld".equals(m.group(3)) ? new Reply(200, sld, "application/vnd.ogc.sld+xml") : exists(true, "style", m.group(2));
+        }
+
+        return Reply.NOT_FOUND;
+    }
+
+    private Reply post(String path, Map<String, String> query, byte[] body) {
+        Matcher m;
+
+        if (WORKSPACES.matcher(path).matches()) {
+            String name = name(body);
+            return name == null ? Reply.of(400, "name") : created(catalog.addWorkspace(name));
+        }
+        if ((m = STORES.matcher(path)).matches()) {
+            String workspaceName = m.group(1);
+            String name = name(body);
+            if (!catalog.hasWorkspace(workspaceName)) {
+                return Reply.NOT_FOUND;
+            }
+            if (name == null) {
+                return Reply.of(400, "name");
+            }
+            switch (m.group(2)) {
+                case "datastores":
+                    return created(catalog.addDataStore(workspaceName, name));
+                case "coveragestores":
+                    return created(catalog.addCoverageStore(workspaceName, name));
+                default:
+                    return created(catalog.addLayerGroup(workspaceName, name));
+            }
+        }
+        if ((m = RESOURCES.matcher(path)).matches()) {
+            String workspaceName = m.group(1);
+            String storeName = m.group(3);
+            String name = name(body);
+            boolean storeExists = "datastores".equals(m.group(2))
+                    ? catalog.hasDataStore(workspaceName, storeName)
+                    : catalog.hasCoverageStore(workspaceName, storeName);
+            if (!storeExists) {
+                return Reply.NOT_FOUND;
+            }
+            if (name == null) {
+                return Reply.of(400, "name");
+            }
+            addLayer(workspaceName, storeName, name);
+            return Reply.CREATED;
+        }
+        if ((m = STYLES.matcher(path)).matches()) {
+            String workspaceName = m.group(1);
+            String name = query.get("name");
+            if (workspaceName != null && !catalog.hasWorkspace(workspaceName)) {
+                return Reply.NOT_FOUND;
+            }
+            if (name == null) {
+                return Reply.of(400, "name");
+            }
+            if (catalog.hasStyle(workspaceName, name)) {
+                return Reply.of(403, "style already exists: " + name);
+            }
+            catalog.putStyle(workspaceName, name, body);
+            return Reply.CREATED;
+        }
+
+        return Reply.NOT_FOUND;
+    }
+
+    private Reply put(String path, Map<String, String> query, byte[] body) {
+        Matcher m;
+
+        if ((m = UPLOAD.matcher(path)).matches()) {
+            String workspaceName = m.group(1);
+            String storeName = m.group(3);
+            if (!catalog.hasWorkspace(workspaceName)) {
+                return Reply.NOT_FOUND;
+            }
+
+            boolean dataStore = "datastores".equals(m.group(2));
+            if (dataStore) {
+                catalog.addDataStore(workspaceName, storeName);
+            } else {
+                catalog.addCoverageStore(workspaceName, storeName);
+            }
+
+            //  configure=none 只上传数据，不创建图层
+            if (!"none".equals(query.get("configure"))) {
+                String layerName = query.get("coverageName");
+                addLayer(workspaceName, storeName, layerName == null ? storeName : layerName);
+            }
+            return Reply.CREATED;
+        }
+        if ((m = LAYER.matcher(path)).matches()) {
+            return catalog.hasLayer(m.group(1), m.group(2)) ? Reply.OK : Reply.NOT_FOUND;
+        }
+        if ((m = STYLE.matcher(path)).matches()) {
+            if (!catalog.hasStyle(m.group(1), m.group(2))) {
+                return Reply.NOT_FOUND;
+            }
+            catalog.putStyle(m.group(1), m.group(2), body);
+            return Reply.OK;
+        }
+
+        return Reply.NOT_FOUND;
+    }
+
+    private Reply delete(String path) {
+        Matcher m;
+
+        if ((m = WORKSPACE.matcher(path)).matches()) {
+            return deleted(catalog.removeWorkspace(m.group(1)));
+        }
+        if ((m = LAYER.matcher(path)).matches()) {
+            return deleted(catalog.removeLayer(m.group(1), m.group(2)));
+        }
+        if ((m = STORE.matcher(path)).matches()) {
+            String workspaceName = m.group(1);
+            String name = m.group(3);
+            switch (m.group(2)) {
+                case "datastores":
+                    return deleted(catalog.removeDataStore(workspaceName, name));
+                case "coveragestores":
+                    return deleted(catalog.removeCoverageStore(workspaceName, name));
+                default:
+                    return deleted(catalog.removeLayerGroup(workspaceName, name));
+            }
+        }
+        if ((m = STYLE.matcher(path)).matches()) {
+            return deleted(catalog.removeStyle(m.group(1), m.group(2)));
+        }
+
+        return Reply.NOT_FOUND;
+    }
+
+    /**
+     * 创建图层，开启自动创建时同时创建默认的切片图层
+     */
+    private void addLayer(String workspaceName, String storeName, String layerName) {
+        catalog.addLayer(workspaceName, storeName, layerName);
+
+        if (autoCreateTileLayers) {
+            catalog.putTileLayer(workspaceName, layerName, "<GeoServerLayer><enabled>true</enabled><name>"
+                    + workspaceName + ":" + layerName + "</name></GeoServerLayer>");
+        }
+    }
+
+    private static Reply exists(boolean exists, String element, String name) {
+        return exists ? Reply.xml(String.format("<%s><name>%s</name></%s>", element, name, element)) : Reply.NOT_FOUND;
+    }
+
+    private static Reply created(boolean created) {
+        return created ? Reply.CREATED : Reply.of(409, "already exists");
+    }
+
+    private static Reply deleted(boolean deleted) {
+        return deleted ? Reply.OK : Reply.NOT_FOUND;
+    }
+
+    private static String name(byte[] body) {
+        Matcher matcher = NAME_ELEMENT.matcher(new String(body, StandardCharsets.UTF_8));
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+
+        try {
+            for (String pair : rawQuery.split("&")) {
+                int index = pair.indexOf('=');
+                if (index > 0) {
+                    query.put(URLDecoder.decode(pair.substring(0, index), "UTF-8"), URLDecoder.decode(pair.substring(index + 1), "UTF-8"));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return query;
+    }
+
+    private byte[] readBody(InputStream in) throws IOException, InterruptedException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+
+        try (InputStream input = in) {
+            while ((read = input.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+                bytesReceived.addAndGet(read);
+                awaitBandwidth(read);
+            }
+        }
+
+        return body.toByteArray();
+    }
+
+    private long latencyMillis() {
+        long min = minLatencyMillis;
+        long max = maxLatencyMillis;
+        return max > min ? ThreadLocalRandom.current().nextLong(min, max + 1) : min;
+    }
+
+    /**
+     * 按每秒请求数为请求分配处理时刻，未到时刻的请求等待
+     */
+    private void awaitRequestSlot() throws InterruptedException {
+        int rate = maxRequestsPerSecond;
+        if (rate <= 0) {
+            return;
+        }
+
+        long slot;
+        synchronized (requestRateLock) {
+            long now = System.nanoTime();
+            slot = Math.max(now, nextRequestNanos);
+            nextRequestNanos = slot + TimeUnit.SECONDS.toNanos(1) / rate;
+        }
+
+        sleepNanos(slot - System.nanoTime());
+    }
+
+    /**
+     * 按上传带宽为已读取的字节分配时间，超出带宽时等待
+     */
+    private void awaitBandwidth(int bytes) throws InterruptedException {
+        long rate = maxBytesPerSecond;
+        if (rate <= 0) {
+            return;
+        }
+
+        long end;
+        synchronized (bandwidthLock) {
+            long now = System.nanoTime();
+            end = Math.max(now, nextBytesNanos) + bytes * TimeUnit.SECONDS.toNanos(1) / rate;
+            nextBytesNanos = end;
+        }
+
+        sleepNanos(end - System.nanoTime());
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    private static void sleepNanos(long nanos) throws InterruptedException {
+        if (nanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+    }
+
+    private static void reply(HttpExchange exchange, Reply reply) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", reply.contentType);
+
+        if (reply.body.length == 0) {
+            exchange.sendResponseHeaders(reply.status, -1);
+            return;
+        }
+
+        exchange.sendResponseHeaders(reply.status, reply.body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(reply.body);
+        }
+    }
+
+    private static class Reply {
+        static final Reply OK = new Reply(200, new byte[0], "text/plain");
+        static final Reply CREATED = new Reply(201, new byte[0], "text/plain");
+        static final Reply NOT_FOUND = of(404, "No such resource");
+
+        final int status;
+        final byte[] body;
+        final String contentType;
+
+        Reply(int status, byte[] body, String contentType) {
+            this.status = status;
+            this.body = body;
+            this.contentType = contentType;
+        }
+
+        static Reply of(int status, String message) {
+            return new Reply(status, message.getBytes(StandardCharsets.UTF_8), "text/plain");
+        }
+
+        static Reply xml(String xml) {
+            return new Reply(200, xml.getBytes(StandardCharsets.UTF_8), "application/xml");
+        }
+
+        static Reply json(String json) {
+            return new Reply(200, json.getBytes(StandardCharsets.UTF_8), "application/json");
+        }
+
+        static Reply list(String root, String element, List<String> names) {
+            StringBuilder xml = new StringBuilder("<").append(root).append(">");
+            for (String name : names) {
+                xml.append(String.format("<%s><name>%s</name></%s>", element, name, element));
+            }
+            return xml(xml.append("</").append(root).append(">").toString());
+        }
+    }
+}
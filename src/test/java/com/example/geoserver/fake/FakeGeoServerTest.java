@@ -0,0 +1,107 @@
+package com.example.geoserver.fake;
+
+import com.example.geoserver.constant.ContentType;
+import com.example.geoserver.utils.CatalogCache;
+import com.example.geoserver.utils.GeoServerManager;
+import com.example.geoserver.utils.GeoServerRESTClient;
+import com.example.geoserver.utils.GeoServerReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FakeGeoServerTest {
+    private FakeGeoServer geoServer;
+    private GeoServerRESTClient restClient;
+    private GeoServerReader reader;
+    private GeoServerManager manager;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        geoServer = new FakeGeoServer(4);
+        restClient = new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver");
+        reader = new GeoServerReader(restClient, new CatalogCache(0, CatalogCache.DEFAULT_MAX_SIZE));
+        manager = new GeoServerManager(reader);
+    }
+
+    @AfterEach
+    void tearDown() {
+        restClient.shutdown();
+        geoServer.close();
+    }
+
+    @Test
+    void workspaceAndStyleLifecycle() throws Exception {
+        assertTrue(manager.createWorkspace("shp"));
+        assertTrue(reader.existsWorkspace("shp"));
+
+        File sld = tempDir.resolve("roads.sld").toFile();
+        Files.write(sld.toPath(), "<StyledLayerDescriptor/>".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(manager.publishStyle("shp", sld, "roads"));
+        assertTrue(manager.publishStyle("shp", sld, "roads"));
+        assertEquals(1, manager.getStyleDigests().getUploads());
+        assertEquals(1, manager.getStyleDigests().getSkipped());
+
+        byte[] changed = "<StyledLayerDescriptor version=\"1.0.0\"/>".getBytes(StandardCharsets.UTF_8);
+        Files.write(sld.toPath(), changed);
+        assertTrue(manager.publishStyle("shp", sld, "roads"));
+        assertArrayEquals(changed, geoServer.getCatalog().getStyle("shp", "roads"));
+
+        assertTrue(manager.removeWorkspace("shp"));
+        assertFalse(geoServer.getCatalog().hasStyle("shp", "roads"));
+    }
+
+    @Test
+    void uploadThenConfigureFeatureType() throws Exception {
+        geoServer.getCatalog().addWorkspace("shp");
+
+        File zip = tempDir.resolve("roads.zip").toFile();
+        Files.write(zip.toPath(), new byte[64 * 1024]);
+
+        assertTrue(restClient.upload("/rest/workspaces/shp/datastores/roads/file.shp?configure=none", zip, ContentType.ZIP).isSuccess());
+        assertTrue(reader.existsDataStore("shp", "roads"));
+        assertFalse(reader.existsLayer("shp", "roads"));
+        assertEquals(64 * 1024, geoServer.getBytesReceived());
+
+        assertTrue(restClient.postXml("/rest/workspaces/shp/datastores/roads/featuretypes", "<featureType><name>roads</name></featureType>").isSuccess());
+        assertTrue(reader.existsLayer("shp", "roads"));
+
+        assertTrue(manager.removeDataStore("shp", "roads"));
+        assertFalse(geoServer.getCatalog().hasLayer("shp", "roads"));
+    }
+
+    @Test
+    void injectsErrorsAndCapsRequestRate() {
+        geoServer.getCatalog().addWorkspace("shp");
+
+        geoServer.setErrorRate(1);
+        assertEquals(500, restClient.get("/rest/workspaces/shp.xml", "application/xml").getStatusCode());
+        assertEquals(1, geoServer.getInjectedErrors());
+
+        geoServer.setErrorRate(0);
+        geoServer.setMaxRequestsPerSecond(100);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 21; i++) {
+            assertTrue(reader.existsWorkspace("shp"));
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        //  21 个请求之间有 20 个 10 ms 的间隔
+        assertTrue(elapsedMillis >= 190, "elapsed " + elapsedMillis + " ms");
+    }
+}
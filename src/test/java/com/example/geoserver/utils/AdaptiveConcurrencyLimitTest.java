@@ -0,0 +1,118 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.fake.FakeGeoServer;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimitTest {
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void increasesWhileFastAndBacksOffUnderLoad() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("test", 2, 1, 10);
+
+        //  并发用满且延迟稳定：加性增长
+        for (int i = 0; i < 40; i++) {
+            limit.acquire();
+            limit.acquire();
+            limit.release(10 * MILLIS, false);
+            limit.release(10 * MILLIS, false);
+        }
+        int grown = limit.getLimit();
+        assertTrue(grown > 2, "limit " + grown);
+
+        //  延迟超过基线两倍：乘性下降
+        for (int i = 0; i < 3; i++) {
+            limit.acquire();
+            limit.release(50 * MILLIS, false);
+        }
+        assertTrue(limit.getLimit() < grown);
+
+        //  连续失败：降到最小值为止
+        for (int i = 0; i < 100; i++) {
+            limit.acquire();
+            limit.release(0, true);
+        }
+        assertEquals(1, limit.getLimit());
+        assertEquals(10, limit.getBaselineMillis(), 0.001);
+    }
+
+    @Test
+    void waitsForFreeSlot() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("test", 1, 1, 1);
+        limit.acquire();
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                limit.acquire();
+                acquired.countDown();
+                limit.release(MILLIS, false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+
+        limit.release(MILLIS, false);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        waiter.join();
+
+        assertEquals(1, limit.getThrottled());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    void readsAndWritesKeepSeparateBaselines() throws Exception {
+        FakeGeoServer geoServer = new FakeGeoServer(4);
+        GeoServerRESTClient restClient = new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver");
+
+        try {
+            AdaptiveConcurrencyLimit readLimit = new AdaptiveConcurrencyLimit("read", 4, 1, 8);
+            AdaptiveConcurrencyLimit writeLimit = new AdaptiveConcurrencyLimit("write", 4, 1, 8);
+            restClient.setConcurrencyLimits(null, readLimit, writeLimit);
+
+            //  快速的存在性查询
+            for (int i = 0; i < 20; i++) {
+                restClient.get("/rest/workspaces/missing.xml", "application/xml");
+            }
+
+            //  配置请求慢得多，只计入配置请求的基线
+            geoServer.setLatency(100);
+            for (int i = 0; i < 5; i++) {
+                restClient.postXml("/rest/workspaces", "<workspace><name>ws" + i + "</name></workspace>");
+            }
+
+            assertEquals(20, readLimit.getRequests());
+            assertEquals(5, writeLimit.getRequests());
+            assertTrue(readLimit.getBaselineMillis() < 50, readLimit.toString());
+            assertTrue(writeLimit.getBaselineMillis() >= 100, writeLimit.toString());
+        } finally {
+            restClient.shutdown();
+            geoServer.close();
+        }
+    }
+
+    @Test
+    void uploadLatencyIsNormalizedBySize() {
+        long mb = 1024 * 1024;
+
+        //  小请求以固定开销为主
+        assertEquals(100 * MILLIS, GeoServerRESTClient.normalizedLatency(100 * MILLIS, 0));
+        assertEquals(80 * MILLIS, GeoServerRESTClient.normalizedLatency(100 * MILLIS, mb / 4));
+        //  小于 2 MB 的文件不再都按 1 MB 计算
+        assertTrue(GeoServerRESTClient.normalizedLatency(100 * MILLIS, mb + mb / 2) < GeoServerRESTClient.normalizedLatency(100 * MILLIS, mb));
+        //  每 MB 耗时相同的大文件得到相近的延迟
+        long small = GeoServerRESTClient.normalizedLatency(10 * 20 * MILLIS, 10 * mb);
+        long large = GeoServerRESTClient.normalizedLatency(100 * 20 * MILLIS, 100 * mb);
+        assertTrue(Math.abs(small - large) < 2 * MILLIS, small + " " + large);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.geoserver.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogCacheTest {
+
+    @Test
+    void hitAndMiss() {
+        CatalogCache cache = new CatalogCache();
+        String key = CatalogCache.layerKey("shp", "roads");
+
+        assertNull(cache.get(key));
+        cache.put(key, true);
+        assertTrue(cache.get(key));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void expiresAfterTtl() throws InterruptedException {
+        CatalogCache cache = new CatalogCache(10, 100);
+        String key = CatalogCache.workspaceKey("shp");
+
+        cache.put(key, false);
+        assertFalse(cache.get(key));
+
+        Thread.sleep(30);
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        CatalogCache cache = new CatalogCache(60000, 2);
+
+        cache.put(CatalogCache.workspaceKey("a"), true);
+        cache.put(CatalogCache.workspaceKey("b"), true);
+        cache.get(CatalogCache.workspaceKey("a"));
+        cache.put(CatalogCache.workspaceKey("c"), true);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get(CatalogCache.workspaceKey("b")));
+        assertTrue(cache.get(CatalogCache.workspaceKey("a")));
+    }
+
+    @Test
+    void invalidateWorkspaceRemovesChildren() {
+        CatalogCache cache = new CatalogCache();
+
+        cache.put(CatalogCache.workspaceKey("shp"), true);
+        cache.put(CatalogCache.dataStoreKey("shp", "roads"), true);
+        cache.put(CatalogCache.layerKey("shp", "roads"), true);
+        cache.put(CatalogCache.layerKey("image", "dem"), true);
+
+        cache.invalidateLayers("shp");
+        assertNull(cache.get(CatalogCache.layerKey("shp", "roads")));
+        assertTrue(cache.get(CatalogCache.dataStoreKey("shp", "roads")));
+
+        cache.invalidateWorkspace("shp");
+        assertEquals(1, cache.size());
+        assertTrue(cache.get(CatalogCache.layerKey("image", "dem")));
+    }
+
+    @Test
+    void staleLookupDoesNotOverwriteWrite() {
+        CatalogCache cache = new CatalogCache();
+        String key = CatalogCache.dataStoreKey("shp", "roads");
+
+        long version = cache.getVersion(key);
+        cache.put(key, true);
+
+        assertFalse(cache.putIfUnchanged(key, false, version));
+        assertTrue(cache.get(key));
+    }
+
+    @Test
+    void writesToOtherKeysDoNotDiscardLookup() {
+        CatalogCache cache = new CatalogCache();
+        String key = CatalogCache.layerKey("shp", "roads");
+
+        long version = cache.getVersion(key);
+        cache.put(CatalogCache.layerKey("shp", "rivers"), true);
+        cache.put(CatalogCache.dataStoreKey("image", "dem"), true);
+
+        assertTrue(cache.putIfUnchanged(key, false, version));
+        assertFalse(cache.get(key));
+    }
+
+    @Test
+    void scopedInvalidationChangesVersions() {
+        CatalogCache cache = new CatalogCache();
+        String layer = CatalogCache.layerKey("shp", "roads");
+        String store = CatalogCache.dataStoreKey("shp", "roads");
+
+        long layerVersion = cache.getVersion(layer);
+        long storeVersion = cache.getVersion(store);
+        cache.invalidateLayers("shp");
+        assertNotEquals(layerVersion, cache.getVersion(layer));
+        assertEquals(storeVersion, cache.getVersion(store));
+
+        cache.invalidateWorkspace("shp");
+        assertNotEquals(storeVersion, cache.getVersion(store));
+
+        long otherVersion = cache.getVersion(CatalogCache.layerKey("image", "dem"));
+        cache.clear();
+        assertNotEquals(otherVersion, cache.getVersion(CatalogCache.layerKey("image", "dem")));
+    }
+
+    @Test
+    void listVersionFollowsWritesInList() {
+        CatalogCache cache = new CatalogCache();
+        String layers = CatalogCache.layerKey("shp", "");
+        String allLayers = CatalogCache.layerKey(CatalogCache.ALL_WORKSPACES, "");
+        String stores = CatalogCache.dataStoreKey("shp", "");
+
+        long layersVersion = cache.getListVersion(layers);
+        long allLayersVersion = cache.getListVersion(allLayers);
+        long storesVersion = cache.getListVersion(stores);
+        cache.put(CatalogCache.layerKey("shp", "roads"), true);
+
+        assertNotEquals(layersVersion, cache.getListVersion(layers));
+        assertNotEquals(allLayersVersion, cache.getListVersion(allLayers));
+        assertEquals(storesVersion, cache.getListVersion(stores));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.fake.FakeGeoServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GWCTileLayerOptionsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writesGeoServerLayerXml() {
+        GWCTileLayerOptions options = new GWCTileLayerOptions();
+        options.setGridSets("EPSG:900913");
+        options.setImageFormats("image/png");
+        options.setVectorFormats(GWCTileLayerOptions.VECTOR_TILE_FORMAT);
+        options.setMetaTiling(8, 4);
+        options.setGutter(16);
+        options.setExpireClients(3600);
+        options.addParameterFilter(GWCTileLayerOptions.ParameterFilter.styles("", "roads", "roads_night"));
+        options.addParameterFilter(GWCTileLayerOptions.ParameterFilter.regex("CQL_FILTER", "", "type<>'x'&.*"));
+
+        String xml = options.toXml("shp:roads", true);
+
+        assertTrue(xml.startsWith("<GeoServerLayer><enabled>true</enabled><name>shp:roads</name>"));
+        assertTrue(xml.contains("<mimeFormats><string>image/png</string><string>application/vnd.mapbox-vector-tile</string></mimeFormats>"));
+        assertTrue(xml.contains("<gridSubsets><gridSubset><gridSetName>EPSG:900913</gridSetName></gridSubset></gridSubsets>"));
+        assertTrue(xml.contains("<metaWidthHeight><int>8</int><int>4</int></metaWidthHeight>"));
+        assertTrue(xml.contains("<expireClients>3600</expireClients>"));
+        assertTrue(xml.contains("<allowedStyles><string>roads</string><string>roads_night</string></allowedStyles>"));
+        assertTrue(xml.contains("<regex>type&lt;&gt;'x'&amp;.*</regex>"));
+        assertTrue(xml.endsWith("<gutter>16</gutter></GeoServerLayer>"));
+
+        assertFalse(options.toXml("image:dem", false).contains(GWCTileLayerOptions.VECTOR_TILE_FORMAT));
+    }
+
+    @Test
+    void configuresTileLayerInSamePublishCall() throws Exception {
+        File shpFile = ShapefileHeaderTest.writeShapefile(tempDir, "roads", 3);
+        File tif = tempDir.resolve("dem.tif").toFile();
+        Files.write(tif.toPath(), GeoTiffHeaderTest.geoTiff());
+
+        FakeGeoServer geoServer = new FakeGeoServer(4);
+        GeoServerRESTClient restClient = new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver");
+
+        try {
+            geoServer.getCatalog().addWorkspace("shp");
+            GeoServerManager manager = new GeoServerManager(new GeoServerReader(restClient, new CatalogCache(0, CatalogCache.DEFAULT_MAX_SIZE)));
+
+            GWCTileLayerOptions options = new GWCTileLayerOptions();
+            options.setVectorFormats(GWCTileLayerOptions.VECTOR_TILE_FORMAT);
+
+            //  未设置配置时只有 geoserver 自动创建的默认切片图层
+            assertTrue(manager.createShpLayer("shp", shpFile, 4326));
+            assertNotEquals(options.toXml("shp:roads", true), geoServer.getCatalog().getTileLayer("shp", "roads"));
+            manager.removeDataStore("shp", "roads");
+            assertNull(geoServer.getCatalog().getTileLayer("shp", "roads"));
+
+            manager.setTileLayerOptions(options);
+
+            //  自动创建的切片图层已存在，通过 POST 修改
+            assertTrue(manager.createShpLayer("shp", shpFile, 4326));
+            assertEquals(options.toXml("shp:roads", true), geoServer.getCatalog().getTileLayer("shp", "roads"));
+
+            //  切片图层不存在时通过 PUT 创建
+            geoServer.setAutoCreateTileLayers(false);
+            assertTrue(manager.createGeoTIFFLayer("shp", "dem", tif));
+            assertEquals(options.toXml("shp:dem", false), geoServer.getCatalog().getTileLayer("shp", "dem"));
+
+            //  已有切片图层时 PUT 被拒绝，只能 POST 修改
+            assertTrue(manager.configureTileLayer("shp", "dem", new GWCTileLayerOptions(), false));
+            assertEquals(new GWCTileLayerOptions().toXml("shp:dem", false), geoServer.getCatalog().getTileLayer("shp", "dem"));
+        } finally {
+            restClient.shutdown();
+            geoServer.close();
+        }
+    }
+
+    @Test
+    void publishCallOptionsOverrideDefaults() throws Exception {
+        File shpFile = ShapefileHeaderTest.writeShapefile(tempDir, "roads", 3);
+        File tif = tempDir.resolve("dem.tif").toFile();
+        Files.write(tif.toPath(), GeoTiffHeaderTest.geoTiff());
+
+        FakeGeoServer geoServer = new FakeGeoServer(4);
+        GeoServerRESTClient restClient = new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver");
+
+        try {
+            geoServer.getCatalog().addWorkspace("shp");
+            GeoServerManager manager = new GeoServerManager(new GeoServerReader(restClient, new CatalogCache(0, CatalogCache.DEFAULT_MAX_SIZE)));
+
+            GWCTileLayerOptions defaults = new GWCTileLayerOptions();
+            manager.setTileLayerOptions(defaults);
+
+            GWCTileLayerOptions roadsOptions = new GWCTileLayerOptions();
+            roadsOptions.setGridSets("EPSG:900913");
+            roadsOptions.setVectorFormats(GWCTileLayerOptions.VECTOR_TILE_FORMAT);
+            GWCTileLayerOptions demOptions = new GWCTileLayerOptions();
+            demOptions.setImageFormats("image/jpeg");
+            demOptions.setMetaTiling(2, 2);
+
+            //  每个图层使用发布时指定的配置
+            assertTrue(manager.createShpLayer("shp", shpFile, 4326, roadsOptions));
+            assertEquals(roadsOptions.toXml("shp:roads", true), geoServer.getCatalog().getTileLayer("shp", "roads"));
+            assertTrue(manager.createGeoTIFFLayer("shp", "dem", tif, demOptions));
+            assertEquals(demOptions.toXml("shp:dem", false), geoServer.getCatalog().getTileLayer("shp", "dem"));
+
+            //  未指定时使用默认配置
+            manager.removeDataStore("shp", "roads");
+            assertTrue(manager.createShpLayer("shp", shpFile, 4326));
+            assertEquals(defaults.toXml("shp:roads", true), geoServer.getCatalog().getTileLayer("shp", "roads"));
+        } finally {
+            restClient.shutdown();
+            geoServer.close();
+        }
+    }
+}
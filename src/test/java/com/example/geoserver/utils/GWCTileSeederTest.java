@@ -0,0 +1,153 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.fake.FakeGeoServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GWCTileSeederTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static int[] threadCounts(GWCSeedReport report) {
+        return report.getLevels().stream().mapToInt(GWCSeedReport.Level::getThreadCount).toArray();
+    }
+
+    @Test
+    void seedsLevelByLevelAndBacksOffWhenGeoServerSlowsDown() throws Exception {
+        FakeGeoServer geoServer = new FakeGeoServer(4);
+        GeoServerRESTClient restClient = new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver");
+
+        try {
+            geoServer.setLatency(20);
+            geoServer.getCatalog().putTileLayer("shp", "roads", "<GeoServerLayer/>");
+
+            GWCTileSeeder seeder = new GWCTileSeeder(restClient, 4, GWCTileSeeder.DEFAULT_TOLERANCE);
+            seeder.setPollInterval(5);
+
+            GWCSeedReport report = seeder.seed("shp", "roads", new GWCSeedRequest("EPSG:900913", 0, 3));
+
+            assertTrue(report.isSuccess());
+            assertEquals(1 + 4 + 16 + 64, report.getTiles());
+            assertTrue(report.getTilesPerSecond() > 0);
+            //  没有过载时每级加一个线程，直到上限
+            assertArrayEquals(new int[]{1, 2, 3, 4}, threadCounts(report));
+            assertEquals(4, seeder.getThreadCount());
+            assertTrue(geoServer.getCatalog().getSeedRequests("shp", "roads").get(3).contains("<zoomStart>3</zoomStart>"));
+
+            //  轮询延迟超过基线两倍时每级线程数减半
+            geoServer.setLatency(100);
+            GWCSeedReport slow = seeder.seed("shp", "roads", new GWCSeedRequest("EPSG:900913", 0, 1));
+
+            assertTrue(slow.isSuccess());
+            assertArrayEquals(new int[]{4, 2}, threadCounts(slow));
+            assertEquals(1, seeder.getThreadCount());
+
+            //  超时的级别终止任务，不再提交后续级别
+            seeder.setLevelTimeout(1);
+            GWCSeedReport timedOut = seeder.seed("shp", "roads", new GWCSeedRequest("EPSG:900913", 8, 9));
+
+            assertFalse(timedOut.isSuccess());
+            assertEquals(1, timedOut.getLevels().size());
+            assertTrue(geoServer.getCatalog().pollSeedTasks("shp", "roads", 0).isEmpty());
+
+            seeder.shutdown();
+        } finally {
+            restClient.shutdown();
+            geoServer.close();
+        }
+    }
+
+    @Test
+    void seedsInBackgroundAfterPublishing() throws Exception {
+        File shpFile = ShapefileHeaderTest.writeShapefile(tempDir, "roads", 3);
+
+        FakeGeoServer geoServer = new FakeGeoServer(4);
+        GeoServerRESTClient restClient = new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver");
+
+        try {
+            geoServer.getCatalog().addWorkspace("shp");
+            GeoServerManager manager = new GeoServerManager(new GeoServerReader(restClient, new CatalogCache(0, CatalogCache.DEFAULT_MAX_SIZE)));
+
+            GWCTileLayerOptions options = new GWCTileLayerOptions();
+            options.addSeedRequest(new GWCSeedRequest("EPSG:4326", 0, 1));
+            manager.setTileLayerOptions(options);
+
+            GWCTileSeeder seeder = new GWCTileSeeder(restClient);
+            seeder.setPollInterval(5);
+            manager.setTileSeeder(seeder);
+
+            assertTrue(manager.createShpLayer("shp", shpFile, 4326));
+
+            //  后台任务依次执行，排在后面的空任务完成时发布触发的预生成已完成
+            List<GWCSeedReport> none = seeder.submit("shp", "roads", Collections.emptyList()).get();
+            assertTrue(none.isEmpty());
+
+            List<String> seedRequests = geoServer.getCatalog().getSeedRequests("shp", "roads");
+            assertEquals(2, seedRequests.size());
+            assertTrue(seedRequests.get(0).contains("<name>shp:roads</name>"));
+            assertTrue(seedRequests.get(1).contains("<gridSetId>EPSG:4326</gridSetId>"));
+
+            seeder.shutdown();
+        } finally {
+            restClient.shutdown();
+            geoServer.close();
+        }
+    }
+
+    @Test
+    void seedsPublishCallRequestsWithinLayerBounds() throws Exception {
+        File shpFile = ShapefileHeaderTest.writeShapefile(tempDir, "roads", 3);
+
+        FakeGeoServer geoServer = new FakeGeoServer(4);
+        GeoServerRESTClient restClient = new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver");
+
+        try {
+            geoServer.getCatalog().addWorkspace("shp");
+            GeoServerManager manager = new GeoServerManager(new GeoServerReader(restClient, new CatalogCache(0, CatalogCache.DEFAULT_MAX_SIZE)));
+
+            GWCTileSeeder seeder = new GWCTileSeeder(restClient);
+            seeder.setPollInterval(5);
+            manager.setTileSeeder(seeder);
+
+            //  默认配置没有预生成任务，任务只来自发布时传入的配置
+            manager.setTileLayerOptions(new GWCTileLayerOptions());
+
+            GWCTileLayerOptions options = new GWCTileLayerOptions();
+            options.addSeedRequest(new GWCSeedRequest("EPSG:4326", 0, 0));
+            options.addSeedRequest(new GWCSeedRequest("EPSG:900913", 0, 0));
+            GWCSeedRequest bounded = new GWCSeedRequest("EPSG:4326", 1, 1);
+            bounded.setBounds(0.5, 0.5, 1, 1, 4326);
+            options.addSeedRequest(bounded);
+
+            assertTrue(manager.createShpLayer("shp", shpFile, 4326, options));
+            seeder.submit("shp", "roads", Collections.emptyList()).get();
+
+            List<String> seedRequests = geoServer.getCatalog().getSeedRequests("shp", "roads");
+            assertEquals(3, seedRequests.size());
+            //  未设置范围时为 shapefile 头中的范围 [0, 0, 2, 1]，Web 墨卡托网格集换算为米
+            assertTrue(seedRequests.get(0).contains("<coords><double>0.0</double><double>0.0</double><double>2.0</double><double>1.0</double></coords>"));
+            assertTrue(seedRequests.get(1).contains("<double>222638.98158654713</double>"));
+            assertTrue(seedRequests.get(1).contains("<srs><number>900913</number></srs>"));
+            //  已设置的范围不变
+            assertTrue(seedRequests.get(2).contains("<coords><double>0.5</double><double>0.5</double><double>1.0</double><double>1.0</double></coords>"));
+            assertNull(options.getSeedRequests().get(0).getBounds());
+
+            seeder.shutdown();
+        } finally {
+            restClient.shutdown();
+            geoServer.close();
+        }
+    }
+}
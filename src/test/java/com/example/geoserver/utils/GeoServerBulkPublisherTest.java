@@ -0,0 +1,163 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.fake.FakeGeoServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoServerBulkPublisherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FakeGeoServer geoServer;
+    private GeoServerRESTClient restClient;
+    private GeoServerManager manager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        geoServer = new FakeGeoServer(8);
+        restClient = new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver");
+        manager = new GeoServerManager(new GeoServerReader(restClient, new CatalogCache(0, CatalogCache.DEFAULT_MAX_SIZE)));
+
+        geoServer.getCatalog().addWorkspace("shp");
+    }
+
+    @AfterEach
+    void tearDown() {
+        restClient.shutdown();
+        geoServer.close();
+    }
+
+    @Test
+    void publishesOneLayerPerNameAndCountsSidecarBytes() throws Exception {
+        Path directory = Files.createDirectory(tempDir.resolve("data"));
+        File shp = ShapefileHeaderTest.writeShapefile(directory, "roads", 5);
+        moveZip(directory, "roads", 3);
+
+        BulkPublishReport report = new GeoServerBulkPublisher(manager, 4).publishDirectory("shp", directory.toFile(), 4326);
+
+        //  同名的 .zip 和 .shp 只发布 .shp，.dbf、.shx、.prj 作为附属文件不单独发布
+        assertEquals(1, report.getSucceeded());
+        assertEquals(0, report.getFailed());
+        assertEquals(4, report.getSkipped());
+        assertEquals(1, geoServer.getRequestCount("PUT"));
+
+        BulkPublishReport.Outcome published = report.getOutcomes().stream().filter(BulkPublishReport.Outcome::isSuccess).findFirst().get();
+        assertEquals(shp, published.getFile());
+        assertTrue(report.getOutcomes().stream().anyMatch(o -> o.getFileType() == BulkPublishReport.FileType.DUPLICATE
+                && o.getFile().getName().equals("roads.zip")));
+
+        long shapefileBytes = 0;
+        for (String extension : new String[]{"shp", "shx", "dbf", "prj"}) {
+            shapefileBytes += directory.resolve("roads." + extension).toFile().length();
+        }
+        assertEquals(shapefileBytes, report.getPublishedBytes());
+        assertFalse(geoServer.getCatalog().hasLayer("shp", "roads.zip"));
+    }
+
+    @Test
+    void publishesMixedDirectorySkippingExistingLayers() throws Exception {
+        Path directory = Files.createDirectory(tempDir.resolve("data"));
+        moveZip(directory, "roads", 3);
+        ShapefileHeaderTest.writeShapefile(directory, "rivers", 4);
+        Files.write(directory.resolve("dem.tif"), GeoTiffHeaderTest.geoTiff());
+        Files.write(directory.resolve("readme.txt"), "说明".getBytes(StandardCharsets.UTF_8));
+        moveZip(directory, "lakes", 2);
+
+        geoServer.getCatalog().addDataStore("shp", "lakes");
+        geoServer.getCatalog().addLayer("shp", "lakes", "lakes");
+
+        BulkPublishReport report = new GeoServerBulkPublisher(manager, 4).publishDirectory("shp", directory.toFile(), 4326);
+
+        assertEquals(3, report.getSucceeded());
+        assertEquals(0, report.getFailed());
+        //  readme.txt、rivers 的 3 个附属文件、已存在的 lakes.zip
+        assertEquals(5, report.getSkipped());
+        assertTrue(report.getOutcomes().stream().anyMatch(o -> o.getFileType() == BulkPublishReport.FileType.EXISTING
+                && o.getFile().getName().equals("lakes.zip")));
+
+        assertTrue(geoServer.getCatalog().hasLayer("shp", "roads"));
+        assertTrue(geoServer.getCatalog().hasLayer("shp", "rivers"));
+        assertTrue(geoServer.getCatalog().hasLayer("shp", "dem"));
+    }
+
+    @Test
+    void aggregatesFailuresWithoutStoppingOtherFiles() throws Exception {
+        Path directory = Files.createDirectory(tempDir.resolve("data"));
+        moveZip(directory, "roads", 3);
+        Files.write(directory.resolve("dem.tif"), new byte[]{'I', 'I', 42, 0});
+        Files.write(directory.resolve("rivers.shp"), new byte[16]);
+
+        BulkPublishReport report = new GeoServerBulkPublisher(manager, 2).publishDirectory("shp", directory.toFile(), 4326);
+
+        assertEquals(1, report.getSucceeded());
+        assertEquals(2, report.getFailed());
+        assertEquals(0, report.getSkipped());
+        for (BulkPublishReport.Outcome outcome : report.getOutcomes()) {
+            if (!outcome.isSuccess()) {
+                assertFalse(outcome.getFile().getName().startsWith("roads"));
+                assertNotNull(outcome.getMessage());
+            }
+        }
+        assertTrue(geoServer.getCatalog().hasLayer("shp", "roads"));
+    }
+
+    @Test
+    void publishesFilesInParallelUpToLimit() throws Exception {
+        Path directory = Files.createDirectory(tempDir.resolve("data"));
+        for (int i = 0; i < 8; i++) {
+            moveZip(directory, "layer" + i, 2);
+        }
+        geoServer.setLatency(20);
+
+        BulkPublishReport report = new GeoServerBulkPublisher(manager, 3).publishDirectory("shp", directory.toFile(), 4326);
+
+        assertEquals(8, report.getSucceeded());
+        //  每个发布线程同时只有一个请求
+        assertTrue(geoServer.getMaxInFlight() > 1, "max in flight " + geoServer.getMaxInFlight());
+        assertTrue(geoServer.getMaxInFlight() <= 3, "max in flight " + geoServer.getMaxInFlight());
+    }
+
+    @Test
+    void namesLayersLikeManagerForDottedAndUpperCaseNames() throws Exception {
+        Path directory = Files.createDirectory(tempDir.resolve("data"));
+        moveZip(directory, "roads.v2", 3);
+        ShapefileHeaderTest.writeShapefile(directory, "roads.v2", 3);
+        File upperCase = ShapefileHeaderTest.writeShapefileZip(tempDir, "Rivers", 2);
+        Files.move(upperCase.toPath(), directory.resolve("Rivers.ZIP"));
+
+        assertEquals("roads.v2", GeoServerManager.shpLayerName(directory.resolve("roads.v2.zip").toFile()));
+        assertEquals("roads.v2", GeoServerManager.shpLayerName(directory.resolve("roads.v2.shp").toFile()));
+        assertEquals("Rivers", GeoServerManager.shpLayerName(directory.resolve("Rivers.ZIP").toFile()));
+
+        BulkPublishReport report = new GeoServerBulkPublisher(manager, 2).publishDirectory("shp", directory.toFile(), 4326);
+
+        //  roads.v2.zip 与 roads.v2.shp 为同一图层，只发布 .shp
+        assertEquals(2, report.getSucceeded());
+        assertEquals(0, report.getFailed());
+        assertTrue(report.getOutcomes().stream().anyMatch(o -> o.getFileType() == BulkPublishReport.FileType.DUPLICATE
+                && o.getFile().getName().equals("roads.v2.zip")));
+        assertTrue(geoServer.getCatalog().hasLayer("shp", "roads.v2"));
+        assertTrue(geoServer.getCatalog().hasLayer("shp", "Rivers"));
+    }
+
+    /**
+     * 在临时目录生成 name.zip 后移到 directory，避免生成时的临时目录出现在发布目录中
+     */
+    private void moveZip(Path directory, String name, int count) throws Exception {
+        File zip = ShapefileHeaderTest.writeShapefileZip(tempDir, name, count);
+        Files.move(zip.toPath(), directory.resolve(name + ".zip"));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.fake.FakeGeoServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoServerClusterManagerTest {
+    private final List<FakeGeoServer> geoServers = new ArrayList<>();
+    private final List<GeoServerRESTClient> restClients = new ArrayList<>();
+    private final List<GeoServerManager> managers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            FakeGeoServer geoServer = new FakeGeoServer(4);
+            GeoServerRESTClient restClient = new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver");
+
+            geoServers.add(geoServer);
+            restClients.add(restClient);
+            managers.add(new GeoServerManager(new GeoServerReader(restClient, new CatalogCache(0, CatalogCache.DEFAULT_MAX_SIZE))));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        restClients.forEach(GeoServerRESTClient::shutdown);
+        geoServers.forEach(FakeGeoServer::close);
+    }
+
+    @Test
+    void allRollsBackSucceededNodes() {
+        GeoServerClusterManager cluster = new GeoServerClusterManager(managers, GeoServerClusterManager.Consistency.ALL);
+        geoServers.get(2).setErrorRate(1);
+
+        ClusterReport report = cluster.createWorkspace("shp");
+
+        assertFalse(report.isSuccess());
+        assertEquals(2, report.getSucceeded());
+        assertTrue(report.getNodeResults().get(0).isCompensated());
+        assertFalse(geoServers.get(0).getCatalog().hasWorkspace("shp"));
+        assertFalse(geoServers.get(1).getCatalog().hasWorkspace("shp"));
+
+        cluster.shutdown();
+    }
+
+    @Test
+    void quorumToleratesMinorityFailure() {
+        GeoServerClusterManager cluster = new GeoServerClusterManager(managers, GeoServerClusterManager.Consistency.QUORUM);
+        geoServers.get(2).setErrorRate(1);
+        geoServers.get(1).setLatency(50);
+
+        ClusterReport report = cluster.createWorkspace("shp");
+
+        assertTrue(report.isSuccess());
+        assertEquals(2, report.getRequired());
+        assertFalse(report.getNodeResults().get(2).isSuccess());
+        assertTrue(report.getNodeResults().get(1).getElapsedMillis() >= 50);
+        assertTrue(geoServers.get(0).getCatalog().hasWorkspace("shp"));
+        assertTrue(geoServers.get(1).getCatalog().hasWorkspace("shp"));
+
+        cluster.shutdown();
+    }
+}
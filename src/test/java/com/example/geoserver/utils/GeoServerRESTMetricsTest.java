@@ -0,0 +1,89 @@
+package com.example.geoserver.utils;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GeoServerRESTMetricsTest {
+
+    @Test
+    void operationFromPath() {
+        assertArrayEquals(new String[]{"workspaces.get", "shp"}, GeoServerRESTMetrics.operation("GET", "/rest/workspaces/shp.xml"));
+        assertArrayEquals(new String[]{"workspaces.list", "none"}, GeoServerRESTMetrics.operation("GET", "/rest/workspaces.xml"));
+        assertArrayEquals(new String[]{"datastores.list", "shp"}, GeoServerRESTMetrics.operation("GET", "/rest/workspaces/shp/datastores.xml"));
+        assertArrayEquals(new String[]{"datastores.upload", "shp"},
+                GeoServerRESTMetrics.operation("PUT", "/rest/workspaces/shp/datastores/roads/file.shp?configure=none"));
+        assertArrayEquals(new String[]{"featuretypes.create", "shp"},
+                GeoServerRESTMetrics.operation("POST", "/rest/workspaces/shp/datastores/styles/featuretypes"));
+        assertArrayEquals(new String[]{"layers.update", "shp"}, GeoServerRESTMetrics.operation("PUT", "/rest/layers/shp:roads"));
+        assertArrayEquals(new String[]{"styles.create", "none"}, GeoServerRESTMetrics.operation("POST", "/rest/styles?name=roads&raw=true"));
+    }
+
+    @Test
+    void recordsTimerBytesAndErrors() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GeoServerRESTMetrics metrics = new GeoServerRESTMetrics(registry);
+
+        metrics.start("GET", "/rest/workspaces/shp.xml").stop(404, 0);
+        metrics.start("PUT", "/rest/workspaces/shp/datastores/roads/file.shp").stop(201, 1024);
+        metrics.start("PUT", "/rest/workspaces/shp/datastores/roads/file.shp").stop(500, 1024);
+
+        assertEquals(1, registry.get(GeoServerRESTMetrics.REQUESTS).tags("operation", "workspaces.get", "outcome", "not_found").timer().count());
+        assertNull(registry.find(GeoServerRESTMetrics.ERRORS).tags("operation", "workspaces.get").counter());
+
+        assertEquals(2048, registry.get(GeoServerRESTMetrics.BYTES_SENT).tags("operation", "datastores.upload", "workspace", "shp").counter().count());
+        assertEquals(1, registry.get(GeoServerRESTMetrics.ERRORS).tags("outcome", "server_error").counter().count());
+        assertEquals(0, registry.get(GeoServerRESTMetrics.IN_FLIGHT).tags("operation", "datastores.upload").gauge().value());
+    }
+
+    @Test
+    void capsWorkspaceTagsAndKeepsHistogramOptIn() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        List<Boolean> histograms = new ArrayList<>();
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getType() == Meter.Type.TIMER) {
+                    histograms.add(Boolean.TRUE.equals(config.isPercentileHistogram()));
+                    assertNull(config.getPercentiles());
+                }
+                return config;
+            }
+        });
+        GeoServerRESTMetrics metrics = new GeoServerRESTMetrics(registry);
+        metrics.setMaxWorkspaces(2);
+
+        for (String workspace : new String[]{"shp", "image", "ws1", "ws2", "shp"}) {
+            metrics.start("GET", "/rest/workspaces/" + workspace + ".xml").stop(200, 0);
+        }
+
+        //  超过上限的工作空间合并为 other
+        assertEquals(2, registry.get(GeoServerRESTMetrics.REQUESTS).tags("workspace", "shp").timer().count());
+        assertEquals(1, registry.get(GeoServerRESTMetrics.REQUESTS).tags("workspace", "image").timer().count());
+        assertEquals(2, registry.get(GeoServerRESTMetrics.REQUESTS).tags("workspace", GeoServerRESTMetrics.OTHER_WORKSPACE).timer().count());
+        assertNull(registry.find(GeoServerRESTMetrics.REQUESTS).tags("workspace", "ws1").timer());
+
+        //  允许列表优先于上限
+        metrics.setAllowedWorkspaces(Arrays.asList("ws1", " "));
+        assertEquals("ws1", metrics.workspaceTag("ws1"));
+        assertEquals(GeoServerRESTMetrics.OTHER_WORKSPACE, metrics.workspaceTag("shp"));
+        assertEquals(GeoServerRESTMetrics.NO_WORKSPACE, metrics.workspaceTag(GeoServerRESTMetrics.NO_WORKSPACE));
+
+        //  默认不导出直方图桶，也不计算客户端分位数
+        assertEquals(Arrays.asList(false, false, false), histograms);
+
+        metrics.setPercentileHistogram(true);
+        metrics.start("GET", "/rest/workspaces/ws1/datastores.xml").stop(200, 0);
+        assertEquals(Arrays.asList(false, false, false, true), histograms);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.error.RequestFailedException;
+import com.example.geoserver.fake.FakeGeoServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoServerReaderTest {
+    private FakeGeoServer geoServer;
+    private GeoServerRESTClient restClient;
+    private GeoServerReader reader;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        geoServer = new FakeGeoServer(4);
+        restClient = new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver");
+        reader = new GeoServerReader(restClient, new CatalogCache());
+
+        geoServer.getCatalog().addWorkspace("shp");
+        geoServer.getCatalog().addDataStore("shp", "roads");
+        geoServer.getCatalog().addLayer("shp", "roads", "roads");
+    }
+
+    @AfterEach
+    void tearDown() {
+        restClient.shutdown();
+        geoServer.close();
+    }
+
+    @Test
+    void listFailureIsNotReportedAsEmpty() {
+        geoServer.setErrorRate(1);
+
+        RequestFailedException e = assertThrows(RequestFailedException.class, () -> reader.getWorkspaces());
+        assertEquals(500, e.getStatusCode());
+    }
+
+    @Test
+    void missingListIsEmpty() throws Exception {
+        assertTrue(reader.getLayerGroups("missing").isEmpty());
+        assertEquals(Arrays.asList("roads"), reader.getLayers("shp"));
+    }
+
+    @Test
+    void createLayerGroupPropagatesListFailure() throws Exception {
+        GeoServerManager manager = new GeoServerManager(reader);
+
+        //  工作空间和图层组的查询结果已缓存，之后只有图层列表请求失败
+        assertTrue(reader.existsWorkspace("shp"));
+        assertFalse(reader.existsLayerGroup("shp", "group"));
+        geoServer.setErrorRate(1);
+
+        ArrayList<String> layers = new ArrayList<>(Arrays.asList("shp:roads"));
+        assertThrows(RequestFailedException.class, () -> manager.createLayerGroup("shp", "group", layers));
+        assertFalse(geoServer.getCatalog().hasLayerGroup("shp", "group"));
+    }
+
+    @Test
+    void encodesNonAsciiAndReservedCharactersInNames(@TempDir Path tempDir) throws Exception {
+        //  文件名与名称无关，避免依赖文件系统编码
+        File zipFile = ShapefileHeaderTest.writeShapefileZip(tempDir, "roads", 3);
+        File tif = tempDir.resolve("dem.tif").toFile();
+        Files.write(tif.toPath(), GeoTiffHeaderTest.geoTiff());
+
+        GeoServerManager manager = new GeoServerManager(reader);
+        geoServer.getCatalog().addWorkspace("测试");
+
+        assertTrue(manager.publishShpZip("测试", "道路 图层", "道路 图层", zipFile, "EPSG:4326", null, "UTF-8"));
+        assertTrue(geoServer.getCatalog().hasLayer("测试", "道路 图层"));
+        assertTrue(reader.existsLayer("测试", "道路 图层"));
+        assertEquals(Arrays.asList("道路 图层"), reader.getLayers("测试"));
+
+        //  查询参数中的名称同样编码
+        assertTrue(manager.createGeoTIFFLayer("测试", "高程 50%&v=2", tif));
+        assertTrue(geoServer.getCatalog().hasLayer("测试", "高程 50%&v=2"));
+
+        assertTrue(manager.removeDataStore("测试", "道路 图层"));
+        assertFalse(geoServer.getCatalog().hasLayer("测试", "道路 图层"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.constant.AcceptType;
+import com.example.geoserver.fake.FakeGeoServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoServerReplicaSetTest {
+    private final List<FakeGeoServer> geoServers = new ArrayList<>();
+    private final List<GeoServerRESTClient> restClients = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            FakeGeoServer geoServer = new FakeGeoServer(4);
+            geoServer.getCatalog().addWorkspace("shp");
+
+            geoServers.add(geoServer);
+            restClients.add(new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver"));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        restClients.forEach(GeoServerRESTClient::shutdown);
+        geoServers.forEach(FakeGeoServer::close);
+    }
+
+    @Test
+    void ejectsFailingReplicaAndReadmitsAfterHealthCheck() {
+        GeoServerReplicaSet replicaSet = new GeoServerReplicaSet(restClients, GeoServerReplicaSet.Strategy.POWER_OF_TWO);
+        GeoServerReader reader = new GeoServerReader(restClients.get(0), new CatalogCache(0, CatalogCache.DEFAULT_MAX_SIZE));
+        reader.setReplicaSet(replicaSet);
+
+        //  健康副本明显慢于失败副本（失败按双倍延迟计入，连续 3 次后仍只有几毫秒），
+        //  两个副本时 POWER_OF_TWO 总是比较两者，失败副本在摘除前每次都会被选中
+        geoServers.get(0).setLatency(50);
+        geoServers.get(1).setErrorRate(1);
+
+        //  失败的读请求换到另一个副本重试
+        for (int i = 0; i < 20; i++) {
+            assertTrue(reader.existsWorkspace("shp"));
+        }
+
+        GeoServerReplicaSet.Replica healthy = replicaSet.getReplicas().get(0);
+        GeoServerReplicaSet.Replica failing = replicaSet.getReplicas().get(1);
+        assertTrue(failing.isEjected());
+        //  连续失败达到上限即摘除，之后不再分配请求；每次读取最终都由健康副本返回
+        assertEquals(GeoServerReplicaSet.DEFAULT_MAX_FAILURES, failing.getRequests());
+        assertEquals(20, healthy.getRequests());
+        assertFalse(healthy.isEjected());
+
+        geoServers.get(1).setErrorRate(0);
+        assertEquals(2, replicaSet.checkHealth());
+        assertFalse(failing.isEjected());
+    }
+
+    @Test
+    void leastLatencyPrefersFasterReplica() {
+        GeoServerReplicaSet replicaSet = new GeoServerReplicaSet(restClients, GeoServerReplicaSet.Strategy.LEAST_LATENCY);
+        geoServers.get(0).setLatency(50);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(replicaSet.get("/rest/workspaces/shp.xml", AcceptType.XML).isSuccess());
+        }
+
+        //  没有样本时选择第一个副本，之后总是选择延迟更低的副本
+        assertEquals(1, replicaSet.getReplicas().get(0).getRequests());
+        assertEquals(19, replicaSet.getReplicas().get(1).getRequests());
+        assertFalse(replicaSet.getReplicas().get(0).isEjected());
+    }
+}
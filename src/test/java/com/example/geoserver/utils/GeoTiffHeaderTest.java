@@ -0,0 +1,209 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.error.ErrorException;
+import com.example.geoserver.fake.FakeGeoServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoTiffHeaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * 生成 64x32 的单条带 8 位 GeoTIFF，左上角 (500000, 4000000)，像元 10 米，EPSG:32650
+     */
+    static byte[] geoTiff() {
+        return geoTiff(1);
+    }
+
+    /**
+     * @param rasterType GTRasterTypeGeoKey：1 为像素为面，2 为像素为点（地理参考对应像素中心）
+     */
+    private static byte[] geoTiff(int rasterType) {
+        return geoTiff(rasterType, 32650, false, 500000, 4000000, 10);
+    }
+
+    /**
+     * @param epsgCode   坐标系 EPSG 代码
+     * @param geographic 是否为地理坐标系
+     * @param originX    左上角 x
+     * @param originY    左上角 y
+     * @param pixelSize  像元大小
+     */
+    private static byte[] geoTiff(int rasterType, int epsgCode, boolean geographic, double originX, double originY, double pixelSize) {
+        int width = 64;
+        int height = 32;
+        int ifdOffset = 8;
+        int entries = 11;
+        int extra = ifdOffset + 2 + entries * 12 + 4;
+        int scaleOffset = extra;
+        int tiepointOffset = scaleOffset + 3 * 8;
+        int geoKeysOffset = tiepointOffset + 6 * 8;
+        int pixelsOffset = geoKeysOffset + 16 * 2;
+
+        ByteBuffer buffer = ByteBuffer.allocate(pixelsOffset + width * height).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) 'I').put((byte) 'I').putShort((short) 42).putInt(ifdOffset);
+
+        buffer.putShort((short) entries);
+        entry(buffer, 256, 3, 1, width);
+        entry(buffer, 257, 3, 1, height);
+        entry(buffer, 258, 3, 1, 8);
+        entry(buffer, 259, 3, 1, 1);
+        entry(buffer, 273, 4, 1, pixelsOffset);
+        entry(buffer, 277, 3, 1, 1);
+        entry(buffer, 278, 3, 1, height);
+        entry(buffer, 279, 4, 1, width * height);
+        entry(buffer, 33550, 12, 3, scaleOffset);
+        entry(buffer, 33922, 12, 6, tiepointOffset);
+        entry(buffer, 34735, 3, 16, geoKeysOffset);
+        buffer.putInt(0);
+
+        buffer.putDouble(pixelSize).putDouble(pixelSize).putDouble(0);
+        buffer.putDouble(0).putDouble(0).putDouble(0).putDouble(originX).putDouble(originY).putDouble(0);
+        //  GeoKey 目录：版本 1.1.0，3 个键；坐标系模型、像素类型、EPSG 代码
+        int modelType = geographic ? 2 : 1;
+        int crsKey = geographic ? 2048 : 3072;
+        for (int value : new int[]{1, 1, 0, 3, 1024, 0, 1, modelType, 1025, 0, 1, rasterType, crsKey, 0, 1, epsgCode}) {
+            buffer.putShort((short) value);
+        }
+
+        return buffer.array();
+    }
+
+    private static void entry(ByteBuffer buffer, int tag, int type, int count, int value) {
+        buffer.putShort((short) tag).putShort((short) type).putInt(count);
+        if (type == 3 && count == 1) {
+            buffer.putShort((short) value).putShort((short) 0);
+        } else {
+            buffer.putInt(value);
+        }
+    }
+
+    @Test
+    void readsExtentAndCrsFromHeader() throws Exception {
+        File tif = tempDir.resolve("dem.tif").toFile();
+        Files.write(tif.toPath(), geoTiff());
+
+        GeoTiffHeader header = GeoTiffHeader.read(tif);
+
+        assertEquals(64, header.getWidth());
+        assertEquals(32, header.getHeight());
+        assertFalse(header.isTiled());
+        assertEquals(0, header.getOverviews());
+        assertEquals(32650, header.getEpsgCode());
+        assertEquals(500000, header.getMinX(), 1e-9);
+        assertEquals(4000000 - 320, header.getMinY(), 1e-9);
+        assertEquals(500640, header.getMaxX(), 1e-9);
+        assertEquals(4000000, header.getMaxY(), 1e-9);
+
+        byte[] truncated = geoTiff();
+        Files.write(tif.toPath(), Arrays.copyOf(truncated, truncated.length - 100));
+        assertThrows(ErrorException.class, () -> GeoTiffHeader.read(tif));
+
+        Files.write(tif.toPath(), "not a tiff".getBytes());
+        assertThrows(ErrorException.class, () -> GeoTiffHeader.read(tif));
+    }
+
+    @Test
+    void shiftsPixelIsPointExtentByHalfPixel() throws Exception {
+        File tif = tempDir.resolve("points.tif").toFile();
+        Files.write(tif.toPath(), geoTiff(2));
+
+        GeoTiffHeader header = GeoTiffHeader.read(tif);
+
+        //  (500000, 4000000) 为左上像素中心，范围大小不变
+        assertEquals(499995, header.getMinX(), 1e-9);
+        assertEquals(500635, header.getMaxX(), 1e-9);
+        assertEquals(4000005 - 320, header.getMinY(), 1e-9);
+        assertEquals(4000005, header.getMaxY(), 1e-9);
+    }
+
+    @Test
+    void publishesCoverageFromHeaderAndRejectsMalformedBeforeUpload() throws Exception {
+        File tif = tempDir.resolve("dem.tif").toFile();
+        Files.write(tif.toPath(), geoTiff());
+        File broken = tempDir.resolve("broken.tif").toFile();
+        Files.write(broken.toPath(), Arrays.copyOf(geoTiff(), 64));
+
+        FakeGeoServer geoServer = new FakeGeoServer(4);
+        GeoServerRESTClient restClient = new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver");
+
+        try {
+            geoServer.getCatalog().addWorkspace("raster");
+            GeoServerManager manager = new GeoServerManager(new GeoServerReader(restClient, new CatalogCache(0, CatalogCache.DEFAULT_MAX_SIZE)));
+
+            assertTrue(manager.createGeoTIFFLayer("raster", "dem", tif));
+            assertTrue(geoServer.getCatalog().hasLayer("raster", "dem"));
+
+            long received = geoServer.getBytesReceived();
+            assertThrows(ErrorException.class, () -> manager.createGeoTIFFLayer("raster", "broken", broken));
+            assertEquals(received, geoServer.getBytesReceived());
+            assertFalse(geoServer.getCatalog().hasCoverageStore("raster", "broken"));
+        } finally {
+            restClient.shutdown();
+            geoServer.close();
+        }
+    }
+
+    @Test
+    void latLonBoundingBoxForGeographicAndWebMercator() throws Exception {
+        File tif = tempDir.resolve("dem.tif").toFile();
+
+        //  CGCS2000 地理坐标系的范围即为经纬度范围
+        Files.write(tif.toPath(), geoTiff(1, 4490, true, 116, 40, 0.01));
+        double[] cgcs2000 = GeoServerManager.latLonBoundingBox(GeoTiffHeader.read(tif));
+        assertArrayEquals(new double[]{116, 39.68, 116.64, 40}, cgcs2000, 1e-9);
+
+        //  Web 墨卡托换算为经纬度
+        Files.write(tif.toPath(), geoTiff(1, 3857, false, 0, 0, 10));
+        double[] webMercator = GeoServerManager.latLonBoundingBox(GeoTiffHeader.read(tif));
+        assertEquals(Math.toDegrees(640 / 6378137.0), webMercator[2], 1e-9);
+        assertTrue(webMercator[1] < 0);
+
+        //  其他投影坐标系由 geoserver 转换
+        Files.write(tif.toPath(), geoTiff());
+        assertNull(GeoServerManager.latLonBoundingBox(GeoTiffHeader.read(tif)));
+    }
+
+    @Test
+    void removesUploadedStoreWhenCoverageFails() throws Exception {
+        File tif = tempDir.resolve("dem.tif").toFile();
+        Files.write(tif.toPath(), geoTiff());
+
+        FakeGeoServer geoServer = new FakeGeoServer(4);
+        GeoServerRESTClient restClient = new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver");
+
+        try {
+            geoServer.getCatalog().addWorkspace("raster");
+            GeoServerManager manager = new GeoServerManager(new GeoServerReader(restClient, new CatalogCache()));
+
+            geoServer.setFailingPath("/coverages$");
+            assertFalse(manager.createGeoTIFFLayer("raster", "dem", tif));
+            assertFalse(geoServer.getCatalog().hasCoverageStore("raster", "dem"));
+            assertEquals(1, geoServer.getRequestCount("DELETE"));
+
+            //  没有留下数据源，可以重新发布
+            geoServer.setFailingPath(null);
+            assertTrue(manager.createGeoTIFFLayer("raster", "dem", tif));
+            assertTrue(geoServer.getCatalog().hasLayer("raster", "dem"));
+        } finally {
+            restClient.shutdown();
+            geoServer.close();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.geoserver.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgedRequestsTest {
+
+    private static Supplier<RESTResponse> respond(String body, long sleepMillis) {
+        return () -> {
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new RESTResponse(200, body);
+        };
+    }
+
+    private static void warmUp(HedgedRequests hedging) {
+        for (int i = 0; i < HedgedRequests.MIN_SAMPLES + 10; i++) {
+            hedging.execute(respond("fast", 1), respond("fast", 1));
+        }
+    }
+
+    @Test
+    void hedgeWinsWhenPrimaryStalls() {
+        HedgedRequests hedging = new HedgedRequests(0.9, 0.5, 5);
+        warmUp(hedging);
+        assertTrue(hedging.getDelayMillis() > 0);
+        long hedged = hedging.getHedged();
+        long hedgeWins = hedging.getHedgeWins();
+
+        long start = System.nanoTime();
+        RESTResponse response = hedging.execute(respond("slow", 1000), respond("hedge", 1));
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        assertEquals("hedge", response.getBody());
+        assertTrue(elapsedMillis < 500, "elapsed " + elapsedMillis + " ms");
+        assertEquals(hedged + 1, hedging.getHedged());
+        assertEquals(hedgeWins + 1, hedging.getHedgeWins());
+
+        hedging.shutdown();
+    }
+
+    @Test
+    void budgetCapsExtraRequests() {
+        HedgedRequests hedging = new HedgedRequests(0.9, 0, 5);
+        warmUp(hedging);
+        //  预热中偶尔超过延迟的请求也会计入
+        long hedged = hedging.getHedged();
+        long exhausted = hedging.getBudgetExhausted();
+
+        RESTResponse response = hedging.execute(respond("slow", 100), respond("hedge", 1));
+
+        assertEquals("slow", response.getBody());
+        assertEquals(hedged, hedging.getHedged());
+        assertEquals(exhausted + 1, hedging.getBudgetExhausted());
+
+        hedging.shutdown();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.fake.FakeGeoServer;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostGISBulkPublisherTest {
+
+    @Test
+    void publishesTablesIntoOneReusedDataStore() throws Exception {
+        FakeGeoServer geoServer = new FakeGeoServer(8);
+        GeoServerRESTClient restClient = new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver");
+
+        try {
+            geoServer.getCatalog().addWorkspace("pg");
+            GeoServerManager manager = new GeoServerManager(new GeoServerReader(restClient, new CatalogCache(0, CatalogCache.DEFAULT_MAX_SIZE)));
+            PostGISBulkPublisher publisher = new PostGISBulkPublisher(manager, 4);
+            ImprovePostGISDatastore datastore = new ImprovePostGISDatastore("gis", "localhost", "secret", "gis");
+
+            Map<String, Integer> tables = new LinkedHashMap<>();
+            for (int i = 0; i < 20; i++) {
+                tables.put("table_" + i, 4326);
+            }
+
+            PostGISPublishReport first = publisher.publishTables("pg", datastore, ImprovePostGISDatastore.Profile.BULK_WFS, tables);
+            assertTrue(first.isStoreCreated());
+            assertEquals(20, first.getSucceeded());
+            assertTrue(geoServer.getCatalog().hasLayer("pg", "table_19"));
+
+            tables.put("roads", 3857);
+            PostGISPublishReport second = publisher.publishTables("pg", datastore, ImprovePostGISDatastore.Profile.BULK_WFS, tables);
+            assertFalse(second.isStoreCreated());
+            assertEquals(1, second.getSucceeded());
+            assertEquals(20, second.getSkipped());
+            assertEquals(0, second.getFailed());
+            assertTrue(geoServer.getCatalog().hasLayer("pg", "roads"));
+        } finally {
+            restClient.shutdown();
+            geoServer.close();
+        }
+    }
+}
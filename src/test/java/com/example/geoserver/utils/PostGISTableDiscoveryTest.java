@@ -0,0 +1,92 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.fake.FakeGeoServer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 在本地启动的 PostGIS 容器上测试空间表查找和整库发布，没有 Docker 时跳过
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class PostGISTableDiscoveryTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGIS = new PostgreSQLContainer<>(
+            DockerImageName.parse("postgis/postgis:12-3.0-alpine").asCompatibleSubstituteFor("postgres"));
+
+    @BeforeAll
+    static void createTables() throws Exception {
+        try (Connection connection = DriverManager.getConnection(POSTGIS.getJdbcUrl(), POSTGIS.getUsername(), POSTGIS.getPassword());
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA gis");
+            statement.execute("CREATE TABLE gis.roads (id serial PRIMARY KEY, geom geometry(LineString, 4326))");
+            statement.execute("INSERT INTO gis.roads (geom) SELECT ST_MakeLine(ST_MakePoint(i, 0), ST_MakePoint(i, 1)) FROM generate_series(1, 1000) i");
+            statement.execute("CREATE TABLE gis.parcels (id serial PRIMARY KEY, geom geometry(MultiPolygon, 4490), centroid geometry(Point, 4326))");
+            statement.execute("CREATE TABLE gis.sketches (id serial PRIMARY KEY, geom geometry)");
+            statement.execute("CREATE TABLE gis.owners (id serial PRIMARY KEY, name text)");
+            statement.execute("ANALYZE gis.roads");
+        }
+    }
+
+    private static ImprovePostGISDatastore datastore() {
+        return new ImprovePostGISDatastore("gis", POSTGIS.getHost(), POSTGIS.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT),
+                POSTGIS.getUsername(), POSTGIS.getPassword(), POSTGIS.getDatabaseName());
+    }
+
+    @Test
+    void discoversGeometryTablesInOnePass() throws Exception {
+        List<PostGISTableDiscovery.GeometryTable> tables = new PostGISTableDiscovery(datastore()).discover("gis");
+
+        assertEquals(3, tables.size());
+
+        PostGISTableDiscovery.GeometryTable roads = tables.get(0);
+        assertEquals("roads", roads.getTableName());
+        assertEquals(4326, roads.getSrid());
+        assertEquals("LINESTRING", roads.getGeometryType());
+        assertEquals(1000, roads.getEstimatedRows());
+
+        PostGISTableDiscovery.GeometryTable parcels = tables.stream().filter(t -> "parcels".equals(t.getTableName())).findFirst().get();
+        //  按字段顺序取第一个几何字段，而不是按字段名排序的 centroid
+        assertEquals("geom", parcels.getGeometryColumn());
+        assertEquals(4490, parcels.getSrid());
+    }
+
+    @Test
+    void publishesEverySpatialTableWithItsSrid() throws Exception {
+        FakeGeoServer geoServer = new FakeGeoServer(8);
+        GeoServerRESTClient restClient = new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver");
+
+        try {
+            geoServer.getCatalog().addWorkspace("pg");
+            GeoServerManager manager = new GeoServerManager(new GeoServerReader(restClient, new CatalogCache(0, CatalogCache.DEFAULT_MAX_SIZE)));
+
+            PostGISPublishReport report = new PostGISBulkPublisher(manager)
+                    .publishSchema("pg", datastore(), ImprovePostGISDatastore.Profile.INTERACTIVE, "gis");
+
+            assertEquals(PostGISBulkPublisher.schemaStoreName("gis", "gis"), report.getStoreName());
+            assertTrue(geoServer.getCatalog().hasDataStore("pg", "gis_gis"));
+            assertEquals(2, report.getSucceeded());
+            assertEquals(1, report.getFailed());
+            assertTrue(geoServer.getCatalog().hasLayer("pg", "roads"));
+            assertTrue(geoServer.getCatalog().hasLayer("pg", "parcels"));
+            assertFalse(geoServer.getCatalog().hasLayer("pg", "sketches"));
+            assertFalse(geoServer.getCatalog().hasLayer("pg", "owners"));
+        } finally {
+            restClient.shutdown();
+            geoServer.close();
+        }
+    }
+}
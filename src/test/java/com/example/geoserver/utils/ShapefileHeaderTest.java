@@ -0,0 +1,152 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.error.ErrorException;
+import com.example.geoserver.fake.FakeGeoServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShapefileHeaderTest {
+
+    static final String WGS84_PRJ = "GEOGCS[\"GCS_WGS_1984\",DATUM[\"D_WGS_1984\",SPHEROID[\"WGS_1984\",6378137.0,298.257223563]],"
+            + "PRIMEM[\"Greenwich\",0.0],UNIT[\"Degree\",0.0174532925199433]]";
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * 生成包含 count 个点的 shapefile（.shp、.shx、.dbf、.prj），点为 (i, i / 2)
+     */
+    static File writeShapefile(Path directory, String name, int count) throws Exception {
+        ByteBuffer shp = ByteBuffer.allocate(100 + 28 * count);
+        ByteBuffer shx = ByteBuffer.allocate(100 + 8 * count);
+        fileHeader(shp, count, 28);
+        fileHeader(shx, count, 8);
+
+        for (int i = 0; i < count; i++) {
+            shx.order(ByteOrder.BIG_ENDIAN).putInt((100 + 28 * i) / 2).putInt(10);
+            shp.order(ByteOrder.BIG_ENDIAN).putInt(i + 1).putInt(10);
+            shp.order(ByteOrder.LITTLE_ENDIAN).putInt(1).putDouble(i).putDouble(i / 2.0);
+        }
+
+        ByteBuffer dbf = ByteBuffer.allocate(65 + 11 * count + 1).order(ByteOrder.LITTLE_ENDIAN);
+        dbf.put((byte) 3).put(new byte[3]).putInt(count).putShort((short) 65).putShort((short) 11).put(new byte[20]);
+        dbf.put(Arrays.copyOf("ID".getBytes(StandardCharsets.US_ASCII), 11)).put((byte) 'N').put(new byte[4])
+                .put((byte) 10).put((byte) 0).put(new byte[14]);
+        dbf.put((byte) 0x0D);
+        for (int i = 0; i < count; i++) {
+            dbf.put(String.format(" %10d", i).getBytes(StandardCharsets.US_ASCII));
+        }
+        dbf.put((byte) 0x1A);
+
+        Files.write(directory.resolve(name + ".shp"), shp.array());
+        Files.write(directory.resolve(name + ".shx"), shx.array());
+        Files.write(directory.resolve(name + ".dbf"), dbf.array());
+        Files.write(directory.resolve(name + ".prj"), WGS84_PRJ.getBytes(StandardCharsets.UTF_8));
+        return directory.resolve(name + ".shp").toFile();
+    }
+
+    /**
+     * 生成包含 count 个点的 shapefile 压缩包 name.zip
+     */
+    static File writeShapefileZip(Path directory, String name, int count) throws Exception {
+        Path members = Files.createTempDirectory(directory, name);
+        writeShapefile(members, name, count);
+
+        File zip = directory.resolve(name + ".zip").toFile();
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip.toPath()))) {
+            for (File file : members.toFile().listFiles()) {
+                out.putNextEntry(new ZipEntry(file.getName()));
+                out.write(Files.readAllBytes(file.toPath()));
+                out.closeEntry();
+            }
+        }
+        return zip;
+    }
+
+    private static void fileHeader(ByteBuffer buffer, int count, int recordSize) {
+        buffer.order(ByteOrder.BIG_ENDIAN).putInt(9994).put(new byte[20]).putInt(buffer.capacity() / 2);
+        buffer.order(ByteOrder.LITTLE_ENDIAN).putInt(1000).putInt(1)
+                .putDouble(0).putDouble(0).putDouble(count - 1).putDouble((count - 1) / 2.0)
+                .put(new byte[32]);
+    }
+
+    @Test
+    void readsHeadersFromDirectoryAndZip() throws Exception {
+        Path directory = Files.createDirectory(tempDir.resolve("roads"));
+        File shpFile = writeShapefile(directory, "roads", 5);
+
+        ShapefileHeader header = ShapefileHeader.read(shpFile);
+        assertEquals("roads", header.getLayerName());
+        assertEquals(1, header.getShapeType());
+        assertEquals(5, header.getFeatureCount());
+        assertEquals(1, header.getFields().size());
+        assertEquals("ID", header.getFields().get(0).getName());
+        assertEquals(4326, header.getEpsgCode());
+        assertEquals(4, header.getMaxX(), 1e-9);
+        assertEquals(2, header.getMaxY(), 1e-9);
+
+        File zip = tempDir.resolve("roads.zip").toFile();
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip.toPath()))) {
+            for (File file : directory.toFile().listFiles()) {
+                out.putNextEntry(new ZipEntry(file.getName()));
+                out.write(Files.readAllBytes(file.toPath()));
+                out.closeEntry();
+            }
+        }
+        assertEquals(5, ShapefileHeader.read(zip).getFeatureCount());
+
+        assertEquals(32650, ShapefileHeader.epsgCode("PROJCS[\"WGS_1984_UTM_Zone_50N\",GEOGCS[\"GCS_WGS_1984\"]]"));
+        assertEquals(4527, ShapefileHeader.epsgCode("PROJCS[\"CGCS2000_3_Degree_GK_Zone_39\",GEOGCS[\"GCS_China_Geodetic_Coordinate_System_2000\"]]"));
+        assertEquals(2154, ShapefileHeader.epsgCode("PROJCS[\"RGF93 / Lambert-93\",GEOGCS[\"RGF93\",AUTHORITY[\"EPSG\",\"4171\"]],AUTHORITY[\"EPSG\",\"2154\"]]"));
+
+        //    .dbf 被截断
+        Path dbf = directory.resolve("roads.dbf");
+        byte[] bytes = Files.readAllBytes(dbf);
+        Files.write(dbf, Arrays.copyOf(bytes, bytes.length - 12));
+        assertThrows(ErrorException.class, () -> ShapefileHeader.read(shpFile));
+    }
+
+    @Test
+    void detectsCrsAndRejectsBrokenShapefileBeforeUpload() throws Exception {
+        Path roads = Files.createDirectory(tempDir.resolve("roads"));
+        Path broken = Files.createDirectory(tempDir.resolve("broken"));
+        File shpFile = writeShapefile(roads, "roads", 3);
+        File brokenShp = writeShapefile(broken, "broken", 3);
+        try (OutputStream out = Files.newOutputStream(broken.resolve("broken.shx"))) {
+            out.write(new byte[100]);
+        }
+
+        FakeGeoServer geoServer = new FakeGeoServer(4);
+        GeoServerRESTClient restClient = new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver");
+
+        try {
+            geoServer.getCatalog().addWorkspace("shp");
+            GeoServerManager manager = new GeoServerManager(new GeoServerReader(restClient, new CatalogCache(0, CatalogCache.DEFAULT_MAX_SIZE)));
+
+            assertTrue(manager.createShpLayer("shp", shpFile));
+            assertTrue(geoServer.getCatalog().hasLayer("shp", "roads"));
+
+            long received = geoServer.getBytesReceived();
+            assertThrows(ErrorException.class, () -> manager.createShpLayer("shp", brokenShp, 4326));
+            assertEquals(received, geoServer.getBytesReceived());
+        } finally {
+            restClient.shutdown();
+            geoServer.close();
+        }
+    }
+}
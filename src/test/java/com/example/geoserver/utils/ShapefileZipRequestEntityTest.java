@@ -0,0 +1,110 @@
+package com.example.geoserver.utils;
+
+import com.example.geoserver.fake.FakeGeoServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShapefileZipRequestEntityTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * 可压缩的测试数据，大于并行压缩阈值
+     */
+    private static byte[] records(int size) {
+        Random random = new Random(42);
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) ('a' + random.nextInt(8));
+        }
+        return data;
+    }
+
+    private File shapefile(Path directory, byte[] shp) throws Exception {
+        Files.write(directory.resolve("roads.shp"), shp);
+        Files.write(directory.resolve("roads.dbf"), "dbf".getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve("roads.prj"), new byte[0]);
+        Files.write(directory.resolve("readme.txt"), "not a sidecar".getBytes(StandardCharsets.UTF_8));
+        return directory.resolve("roads.shp").toFile();
+    }
+
+    @Test
+    void writesValidZipWithParallelDeflate() throws Exception {
+        byte[] shp = records((int) ShapefileZipRequestEntity.PARALLEL_THRESHOLD + 123457);
+        shapefile(tempDir, shp);
+
+        ShapefileZipRequestEntity entity = new ShapefileZipRequestEntity(tempDir.toFile(), 6, 4);
+        assertEquals("roads", entity.getLayerName());
+
+        File zip = tempDir.resolve("out.zip").toFile();
+        try (OutputStream out = Files.newOutputStream(zip.toPath())) {
+            entity.writeRequest(out);
+        }
+
+        assertEquals(zip.length(), entity.getBytesWritten());
+        assertTrue(entity.getBytesWritten() < shp.length / 2);
+
+        try (ZipFile zipFile = new ZipFile(zip)) {
+            List<String> names = new ArrayList<>();
+            for (ZipEntry entry : java.util.Collections.list(zipFile.entries())) {
+                names.add(entry.getName());
+            }
+            assertEquals(Arrays.asList("roads.dbf", "roads.prj", "roads.shp"), names);
+
+            assertArrayEquals(shp, read(zipFile, "roads.shp"));
+            assertArrayEquals("dbf".getBytes(StandardCharsets.UTF_8), read(zipFile, "roads.dbf"));
+            assertEquals(0, read(zipFile, "roads.prj").length);
+        }
+    }
+
+    @Test
+    void publishesShpWithoutTemporaryZip() throws Exception {
+        File shpFile = ShapefileHeaderTest.writeShapefile(tempDir, "roads", 2000);
+
+        FakeGeoServer geoServer = new FakeGeoServer(4);
+        GeoServerRESTClient restClient = new GeoServerRESTClient(geoServer.getUrl(), "admin", "geoserver");
+
+        try {
+            geoServer.getCatalog().addWorkspace("shp");
+            GeoServerManager manager = new GeoServerManager(new GeoServerReader(restClient, new CatalogCache(0, CatalogCache.DEFAULT_MAX_SIZE)));
+
+            assertTrue(manager.createShpLayer("shp", shpFile, 4326));
+            assertTrue(geoServer.getCatalog().hasLayer("shp", "roads"));
+            assertTrue(geoServer.getBytesReceived() > 0);
+        } finally {
+            restClient.shutdown();
+            geoServer.close();
+        }
+    }
+
+    private static byte[] read(ZipFile zipFile, String name) throws Exception {
+        try (InputStream in = zipFile.getInputStream(zipFile.getEntry(name))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
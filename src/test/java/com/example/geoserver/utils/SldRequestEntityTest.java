@@ -0,0 +1,55 @@
+package com.example.geoserver.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SldRequestEntityTest {
+
+    private static String minify(String sld) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SldRequestEntity.writeMinified(new ByteArrayInputStream(sld.getBytes(StandardCharsets.UTF_8)), out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void dropsWhitespaceBetweenTags() throws IOException {
+        String sld = "<?xml version=\"1.0\"?>\r\n<StyledLayerDescriptor>\n"
+                + "  <NamedLayer>\n    <Name>道路</Name>\n  </NamedLayer>\n</StyledLayerDescriptor>\n";
+
+        assertEquals("<?xml version=\"1.0\"?><StyledLayerDescriptor><NamedLayer><Name>道路</Name></NamedLayer>"
+                + "</StyledLayerDescriptor>", minify(sld));
+    }
+
+    @Test
+    void keepsTextAndAttributeWhitespace() throws IOException {
+        String sld = "<Title> 主要 道路 </Title>\n<Literal a=\"x  y\">  </Literal>";
+
+        assertEquals("<Title> 主要 道路 </Title><Literal a=\"x  y\">  </Literal>", minify(sld));
+    }
+
+    @Test
+    void keepsWhitespaceOnlyElementContent() throws IOException {
+        String sld = "<Label>\n  <ogc:Function name=\"Concatenate\">\n    <ogc:PropertyName>name</ogc:PropertyName>\n"
+                + "    <ogc:Literal> </ogc:Literal>\n    <ogc:Literal/>\n  </ogc:Function>\n</Label>";
+
+        assertEquals("<Label><ogc:Function name=\"Concatenate\"><ogc:PropertyName>name</ogc:PropertyName>"
+                + "<ogc:Literal> </ogc:Literal><ogc:Literal/></ogc:Function></Label>", minify(sld));
+    }
+
+    @Test
+    void keepsWhitespaceRunLongerThanBuffer() throws IOException {
+        StringBuilder spaces = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            spaces.append(' ');
+        }
+        String sld = "<Label>" + spaces + "</Label>";
+
+        assertEquals(sld, minify(sld));
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.geoserver.utils;
+
+import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StyleDigestsTest {
+
+    @Test
+    void entityAndStreamDigestsMatch() throws IOException {
+        byte[] sld = "<StyledLayerDescriptor/>".getBytes(StandardCharsets.UTF_8);
+
+        DigestOutputStream out = StyleDigests.newDigestStream();
+        out.write(sld);
+
+        assertEquals(StyleDigests.toHex(out), StyleDigests.digest(new ByteArrayRequestEntity(sld)));
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+                StyleDigests.digest(new ByteArrayRequestEntity(new byte[0])));
+    }
+
+    @Test
+    void invalidateWorkspaceKeepsOtherStyles() {
+        StyleDigests digests = new StyleDigests();
+        digests.put(CatalogCache.styleKey("shp", "roads"), "a");
+        digests.put(CatalogCache.styleKey("shp2", "roads"), "b");
+        digests.put(CatalogCache.styleKey(null, "roads"), "c");
+
+        digests.invalidateWorkspace("shp");
+
+        assertNull(digests.get(CatalogCache.styleKey("shp", "roads")));
+        assertNotNull(digests.get(CatalogCache.styleKey("shp2", "roads")));
+        assertNotNull(digests.get(CatalogCache.styleKey(null, "roads")));
+    }
+}